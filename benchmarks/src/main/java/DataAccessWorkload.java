@@ -0,0 +1,541 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import yrb.benchmarks.DataAccessOperations;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DataAccessWorkload</code> class implements the <code>DataAccessOperations</code>
+ *         of <code>DataAccessBenchmark</code> by running the statements of
+ *         <code>YRBAPPUtility</code> the same way that <code>YRBAPP</code> runs them. <br>
+ *         <br>
+ *
+ *         <code>YRBAPP</code> itself can not be used since it is an interactive singleton that only
+ *         connects to DB2, which is why its data access methods are replayed here statement by
+ *         statement with the same bindings, page and fetch sizes and the same
+ *         <code>PurchaseHistory</code> cache.
+ *
+ * @see yrb.benchmarks.DataAccessBenchmark
+ */
+public final class DataAccessWorkload implements DataAccessOperations {
+	/**
+	 * The first purchase time of the inserted purchases, i.e. 2100-01-01 00:00:00 UTC, which is after
+	 * every existing purchase.
+	 */
+	private static final long FIRST_WHEN = 4102444800000L;
+
+	/**
+	 * The connection that every operation runs on.
+	 */
+	private Connection connection;
+
+	/**
+	 * The generator of the arguments.
+	 */
+	private Random random;
+
+	/**
+	 * The IDs of all customers.
+	 */
+	private int[] cids;
+
+	/**
+	 * The names of all categories.
+	 */
+	private String[] categories;
+
+	/**
+	 * All books.
+	 */
+	private Book[] books;
+
+	/**
+	 * The customer ID of every membership.
+	 */
+	private int[] memberCids;
+
+	/**
+	 * The club of every membership.
+	 */
+	private String[] memberClubs;
+
+	/**
+	 * Mapping clubs to their offers, each one as <code>{ title, year, price }</code>.
+	 */
+	private HashMap<String, ArrayList<Object[]>> offers;
+
+	/**
+	 * The purchase time of the next inserted purchase.
+	 */
+	private long nextWhen;
+
+	/**
+	 * The purchase histories of the customers, like <code>YRBAPP.histories</code>.
+	 */
+	private HashMap<Integer, PurchaseHistory> histories;
+
+	@Override
+	public void setUp(Connection connection, long seed) throws SQLException {
+		this.connection = connection;
+		this.random = new Random(seed);
+		this.nextWhen = DataAccessWorkload.FIRST_WHEN;
+		this.histories = new HashMap<Integer, PurchaseHistory>();
+
+		try (Statement st = connection.createStatement()) {
+			ArrayList<Integer> cids = new ArrayList<Integer>();
+			try (ResultSet answers = st.executeQuery("SELECT C.cid FROM yrb_customer C ORDER BY C.cid")) {
+				while (answers.next()) {
+					cids.add(answers.getInt(1));
+				}
+			}
+			this.cids = new int[cids.size()];
+			for (int i = 0; i < this.cids.length; ++i) {
+				this.cids[i] = cids.get(i);
+			}
+
+			ArrayList<String> categories = new ArrayList<String>();
+			try (ResultSet answers = st.executeQuery(YRBAPPUtility.CATEGORY_QUERY_TEXT)) {
+				while (answers.next()) {
+					categories.add(answers.getString(1));
+				}
+			}
+			this.categories = categories.toArray(new String[categories.size()]);
+
+			ArrayList<Book> books = new ArrayList<Book>();
+			try (ResultSet answers = st.executeQuery(YRBAPPUtility.ALL_BOOK_QUERY_TEXT)) {
+				while (answers.next()) {
+					books.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3),
+							answers.getString(4), answers.getShort(5)));
+				}
+			}
+			this.books = books.toArray(new Book[books.size()]);
+
+			ArrayList<Integer> memberCids = new ArrayList<Integer>();
+			ArrayList<String> memberClubs = new ArrayList<String>();
+			try (ResultSet answers = st.executeQuery("SELECT M.cid, M.club FROM yrb_member M ORDER BY M.cid, M.club")) {
+				while (answers.next()) {
+					memberCids.add(answers.getInt(1));
+					memberClubs.add(answers.getString(2));
+				}
+			}
+			this.memberCids = new int[memberCids.size()];
+			for (int i = 0; i < this.memberCids.length; ++i) {
+				this.memberCids[i] = memberCids.get(i);
+			}
+			this.memberClubs = memberClubs.toArray(new String[memberClubs.size()]);
+
+			this.offers = new HashMap<String, ArrayList<Object[]>>();
+			try (ResultSet answers = st.executeQuery(YRBAPPUtility.ALL_OFFER_QUERY_TEXT)) {
+				while (answers.next()) {
+					this.offers.computeIfAbsent(answers.getString(1), k -> new ArrayList<Object[]>())
+							.add(new Object[] { answers.getString(2), answers.getShort(3), answers.getFloat(4) });
+				}
+			}
+		}
+
+		// Only keep the memberships of clubs with offers so that every membership can purchase.
+		int n = 0;
+		for (int i = 0; i < this.memberCids.length; ++i) {
+			if (this.offers.containsKey(this.memberClubs[i])) {
+				this.memberCids[n] = this.memberCids[i];
+				this.memberClubs[n++] = this.memberClubs[i];
+			}
+		}
+		this.memberCids = Arrays.copyOf(this.memberCids, n);
+		this.memberClubs = Arrays.copyOf(this.memberClubs, n);
+	}
+
+	@Override
+	public void reset() throws SQLException {
+		this.connection.rollback();
+		this.histories.clear();
+	}
+
+	/**
+	 * Returns a random customer ID.
+	 *
+	 * @return The customer ID.
+	 */
+	private int randomCid() {
+		return this.cids[this.random.nextInt(this.cids.length)];
+	}
+
+	/**
+	 * Returns a random book.
+	 *
+	 * @return The book.
+	 */
+	private Book randomBook() {
+		return this.books[this.random.nextInt(this.books.length)];
+	}
+
+	/**
+	 * Returns a new purchase of a random membership and one of the offers of its club, made after
+	 * every other purchase.
+	 *
+	 * @return The purchase.
+	 */
+	private Purchase randomPurchase() {
+		int i = this.random.nextInt(this.memberCids.length);
+		ArrayList<Object[]> offers = this.offers.get(this.memberClubs[i]);
+		Object[] offer = offers.get(this.random.nextInt(offers.size()));
+		return new Purchase(this.memberCids[i], this.memberClubs[i], (String) offer[0], (Short) offer[1],
+				(Float) offer[2], (short) 1, this.nextWhen++);
+	}
+
+	/**
+	 * Execute the given query and count its rows.
+	 *
+	 * @param querySt
+	 *            the bound query handle
+	 *
+	 * @return The number of rows.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static int count(PreparedStatement querySt) throws SQLException {
+		int result = 0;
+		try (ResultSet answers = querySt.executeQuery()) {
+			while (answers.next()) {
+				answers.getString(1);
+				++result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Prepare the given query like <code>YRBAPP</code> does for a single page of rows.
+	 *
+	 * @param sql
+	 *            the query text
+	 *
+	 * @return The query handle.
+	 *
+	 * @throws SQLException
+	 *             If the query could not be prepared
+	 */
+	private PreparedStatement preparePage(String sql) throws SQLException {
+		PreparedStatement result = this.connection.prepareStatement(sql);
+		result.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+		result.setMaxRows(YRBAPPUtility.DEFAULT_PAGE_SIZE + 1);
+		result.setFetchSize(Math.min(YRBAPPUtility.DEFAULT_FETCH_SIZE, YRBAPPUtility.DEFAULT_PAGE_SIZE + 1));
+		return result;
+	}
+
+	/**
+	 * Prepare the given query like <code>YRBAPP</code> does for all of its rows.
+	 *
+	 * @param sql
+	 *            the query text
+	 *
+	 * @return The query handle.
+	 *
+	 * @throws SQLException
+	 *             If the query could not be prepared
+	 */
+	private PreparedStatement prepareAll(String sql) throws SQLException {
+		PreparedStatement result = this.connection.prepareStatement(sql);
+		result.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+		result.setFetchSize(YRBAPPUtility.DEFAULT_FETCH_SIZE);
+		return result;
+	}
+
+	@Override
+	public int minMaxCid() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.MIN_MAX_CID_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int cid() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.CID_QUERY_TEXT)) {
+			querySt.setInt(1, this.randomCid());
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int customer() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.CUSTOMER_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int customerPage() throws SQLException {
+		try (PreparedStatement querySt = this.preparePage(YRBAPPUtility.CUSTOMER_PAGE_QUERY_TEXT)) {
+			querySt.setInt(1, this.randomCid());
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int customerPreviousPage() throws SQLException {
+		try (PreparedStatement querySt = this.preparePage(YRBAPPUtility.CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT)) {
+			querySt.setInt(1, this.randomCid());
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int cidUpdate() throws SQLException {
+		try (PreparedStatement updateSt = this.connection.prepareStatement(YRBAPPUtility.CID_UPDATE_TEXT)) {
+			int cid = this.randomCid();
+			updateSt.setString(1, "Customer " + cid);
+			updateSt.setString(2, "City " + (cid % 100));
+			updateSt.setInt(3, cid);
+			updateSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			return updateSt.executeUpdate();
+		}
+	}
+
+	@Override
+	public int category() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.CATEGORY_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int book() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.BOOK_QUERY_TEXT)) {
+			querySt.setString(1, this.categories[this.random.nextInt(this.categories.length)]);
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int bookPage() throws SQLException {
+		return this.bookPage(YRBAPPUtility.BOOK_PAGE_QUERY_TEXT);
+	}
+
+	@Override
+	public int bookPreviousPage() throws SQLException {
+		return this.bookPage(YRBAPPUtility.BOOK_PREVIOUS_PAGE_QUERY_TEXT);
+	}
+
+	/**
+	 * Read a page of the books of the category of a random book, continuing from that book, like
+	 * <code>YRBAPP.find_book_page</code>.
+	 *
+	 * @param sql
+	 *            the query text
+	 *
+	 * @return The number of rows.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private int bookPage(String sql) throws SQLException {
+		try (PreparedStatement querySt = this.preparePage(sql)) {
+			Book book = this.randomBook();
+			querySt.setString(1, book.category);
+			querySt.setShort(2, book.year);
+			querySt.setShort(3, book.year);
+			querySt.setString(4, book.title);
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int allBook() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.ALL_BOOK_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int popularity() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.POPULARITY_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int allOffer() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.ALL_OFFER_QUERY_TEXT)) {
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int member() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.MEMBER_QUERY_TEXT)) {
+			querySt.setInt(1, this.randomCid());
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int offer() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.OFFER_QUERY_TEXT)) {
+			int cid = this.randomCid();
+			Book book = this.randomBook();
+			querySt.setInt(1, cid);
+			querySt.setString(2, book.title);
+			querySt.setShort(3, book.year);
+			querySt.setInt(4, cid);
+			querySt.setString(5, book.title);
+			querySt.setShort(6, book.year);
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int purchase() throws SQLException {
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.PURCHASE_QUERY_TEXT)) {
+			querySt.setInt(1, this.randomCid());
+			querySt.setTimestamp(2, new PurchaseHistory(0).getLastWhen());
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int purchasePage() throws SQLException {
+		return this.purchasePage(YRBAPPUtility.PURCHASE_PAGE_QUERY_TEXT, true);
+	}
+
+	@Override
+	public int purchasePreviousPage() throws SQLException {
+		return this.purchasePage(YRBAPPUtility.PURCHASE_PREVIOUS_PAGE_QUERY_TEXT, false);
+	}
+
+	/**
+	 * Read the first or the last page of the purchases of a random customer over all time, like
+	 * <code>YRBAPP.find_purchase_page</code> without a cached history.
+	 *
+	 * @param sql
+	 *            the query text
+	 *
+	 * @param forward
+	 *            <code>forward ? "first page" : "last page"</code>
+	 *
+	 * @return The number of rows.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private int purchasePage(String sql, boolean forward) throws SQLException {
+		try (PreparedStatement querySt = this.preparePage(sql)) {
+			Timestamp from = new Timestamp(0L), to = new Timestamp(YRBAPPUtility.MAX_WHEN);
+			Timestamp when = (forward ? from : to);
+			querySt.setInt(1, this.randomCid());
+			querySt.setTimestamp(2, from);
+			querySt.setTimestamp(3, to);
+			querySt.setTimestamp(4, when);
+			querySt.setTimestamp(5, when);
+			querySt.setString(6, "");
+			querySt.setString(7, "");
+			querySt.setShort(8, (short) -1);
+			querySt.setShort(9, (short) -1);
+			querySt.setString(10, "");
+			return DataAccessWorkload.count(querySt);
+		}
+	}
+
+	@Override
+	public int purchaseInsert() throws SQLException {
+		return this.insert(this.randomPurchase());
+	}
+
+	/**
+	 * Insert the given purchase like <code>YRBAPP.insert_purchase</code>.
+	 *
+	 * @param purchase
+	 *            the purchase
+	 *
+	 * @return The number of inserted rows.
+	 *
+	 * @throws SQLException
+	 *             If the insertion failed
+	 */
+	private int insert(Purchase purchase) throws SQLException {
+		try (PreparedStatement insertSt = this.connection.prepareStatement(YRBAPPUtility.PURCHASE_INSERT_TEXT)) {
+			insertSt.setInt(1, purchase.cid);
+			insertSt.setString(2, purchase.club);
+			insertSt.setString(3, purchase.title);
+			insertSt.setShort(4, purchase.year);
+			insertSt.setTimestamp(5, purchase.getWhen());
+			insertSt.setShort(6, purchase.getQuantity());
+			insertSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			return insertSt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Returns the up to date purchase history of the given customer like
+	 * <code>YRBAPP.load_history</code>.
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @param cache
+	 *            whether the cached history is used and updated
+	 *
+	 * @return The purchase history.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private PurchaseHistory loadHistory(int cid, boolean cache) throws SQLException {
+		PurchaseHistory result = (cache ? this.histories.get(cid) : null);
+		if (result == null) {
+			result = new PurchaseHistory(cid);
+		}
+
+		ArrayList<Purchase> purchases = new ArrayList<Purchase>();
+		try (PreparedStatement querySt = this.prepareAll(YRBAPPUtility.PURCHASE_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setTimestamp(2, result.getLastWhen());
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					purchases.add(new Purchase(cid, answers.getString(1), answers.getString(2), answers.getShort(3),
+							answers.getFloat(6), answers.getShort(5), answers.getTimestamp(4).getTime()));
+				}
+			}
+		}
+
+		result.merge(purchases);
+		if (cache) {
+			this.histories.put(cid, result);
+		}
+		return result;
+	}
+
+	@Override
+	public int findPurchases() throws SQLException {
+		return this.loadHistory(this.randomCid(), true).toMap().size();
+	}
+
+	@Override
+	public int findPurchasesCold() throws SQLException {
+		return this.loadHistory(this.randomCid(), false).toMap().size();
+	}
+
+	@Override
+	public int insertPurchase() throws SQLException {
+		Purchase purchase = this.randomPurchase();
+
+		TreeMap<Integer, Purchase> purchases = this.loadHistory(purchase.cid, true).toMap();
+		for (Map.Entry<Integer, Purchase> e : purchases.entrySet()) {
+			if (purchase.isEqual(e.getValue())) {
+				return 0;
+			}
+		}
+		return this.insert(purchase);
+	}
+}
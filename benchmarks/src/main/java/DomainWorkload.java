@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import yrb.benchmarks.DomainOperations;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DomainWorkload</code> class implements the <code>DomainOperations</code> of
+ *         <code>DomainBenchmark</code> against the <code>Book</code>, <code>Purchase</code> and
+ *         <code>PurchaseHistory</code> classes of the application.
+ *
+ * @see yrb.benchmarks.DomainBenchmark
+ */
+public final class DomainWorkload implements DomainOperations {
+	/**
+	 * The categories of the generated books.
+	 */
+	private static final String[] CATEGORIES = { "children", "cooking", "drama", "guide", "history", "horror",
+			"humor", "mystery", "phil", "romance", "science", "travel" };
+
+	/**
+	 * The languages of the generated books.
+	 */
+	private static final String[] LANGUAGES = { "English", "French", "German", "Greek", "Japanese", null };
+
+	/**
+	 * The clubs of the generated purchases.
+	 */
+	private static final String[] CLUBS = { "AAA", "Basic", "CAA", "Readers Digest", "Oprah", "YRB Gold" };
+
+	/**
+	 * The generated books sorted by <code>Book.compareTo</code>, followed by the first book again so
+	 * that <code>books[i + 1]</code> always exists.
+	 */
+	private Book[] books;
+
+	/**
+	 * An equal but distinct copy of every book.
+	 */
+	private Book[] bookCopies;
+
+	/**
+	 * The generated purchases sorted by <code>Purchase.compareTo</code>, followed by the first
+	 * purchase again.
+	 */
+	private Purchase[] purchases;
+
+	/**
+	 * An equal but distinct copy of every purchase.
+	 */
+	private Purchase[] purchaseCopies;
+
+	/**
+	 * The number of books and purchases.
+	 */
+	private int size;
+
+	@Override
+	public void setUp(int size, long seed) {
+		Random random = new Random(seed);
+		this.size = size;
+
+		Book[] books = new Book[size];
+		for (int i = 0; i < size; ++i) {
+			books[i] = new Book("Title " + i + " of " + size, (short) (1900 + random.nextInt(120)),
+					DomainWorkload.LANGUAGES[random.nextInt(DomainWorkload.LANGUAGES.length)],
+					DomainWorkload.CATEGORIES[random.nextInt(DomainWorkload.CATEGORIES.length)],
+					(short) (50 + random.nextInt(1000)));
+		}
+		Arrays.sort(books);
+		this.books = Arrays.copyOf(books, size + 1);
+		this.books[size] = books[0];
+		this.bookCopies = new Book[size];
+		for (int i = 0; i < size; ++i) {
+			Book b = books[i];
+			this.bookCopies[i] = new Book(b.title, b.year, b.getLanguage(), b.category, b.weight);
+		}
+
+		Purchase[] purchases = new Purchase[size];
+		long when = 946684800000L; // 2000-01-01 00:00:00 UTC
+		for (int i = 0; i < size; ++i) {
+			Book b = books[random.nextInt(size)];
+			when += random.nextInt(3) * 60000L; // Some purchases share a time.
+			purchases[i] = new Purchase(1, DomainWorkload.CLUBS[random.nextInt(DomainWorkload.CLUBS.length)],
+					b.title, b.year, 5.0f + random.nextInt(5000) / 100.0f, (short) (1 + random.nextInt(5)), when);
+		}
+		Arrays.sort(purchases);
+		this.purchases = Arrays.copyOf(purchases, size + 1);
+		this.purchases[size] = purchases[0];
+		this.purchaseCopies = new Purchase[size];
+		for (int i = 0; i < size; ++i) {
+			Purchase p = purchases[i];
+			this.purchaseCopies[i] = new Purchase(p.cid, p.club, p.title, p.year, p.price, p.getQuantity(),
+					p.getWhen().getTime());
+		}
+	}
+
+	@Override
+	public int bookCompareTo(int i) {
+		return this.books[i].compareTo(this.books[i + 1]);
+	}
+
+	@Override
+	public boolean bookEquals(int i) {
+		return this.books[i].equals(this.bookCopies[i]);
+	}
+
+	@Override
+	public int bookHashCode(int i) {
+		return this.books[i].hashCode();
+	}
+
+	@Override
+	public boolean bookIsEqual(int i) {
+		return this.books[i].isEqual(this.bookCopies[i]);
+	}
+
+	@Override
+	public int purchaseCompareTo(int i) {
+		return this.purchases[i].compareTo(this.purchases[i + 1]);
+	}
+
+	@Override
+	public boolean purchaseIsEqual(int i) {
+		return this.purchases[i].isEqual(this.purchaseCopies[i]);
+	}
+
+	@Override
+	public int purchaseHashCode(int i) {
+		return this.purchases[i].hashCode();
+	}
+
+	@Override
+	public Object purchaseGetWhen(int i) {
+		return this.purchases[i].getWhen();
+	}
+
+	@Override
+	public Object purchaseSetWhen(int i) {
+		// Set the time it already has so that the sort order is kept.
+		Purchase p = this.purchases[i];
+		return p.setWhen(this.purchaseCopies[i].getWhen().getTime());
+	}
+
+	@Override
+	public Object bookMap() {
+		int bookNum = 0;
+		TreeMap<Integer, Book> result = new TreeMap<Integer, Book>();
+		for (int i = 0; i < this.size; ++i) {
+			result.put(++bookNum, this.books[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public Object purchaseMap() {
+		int purchaseNum = 0;
+		TreeMap<Integer, Purchase> result = new TreeMap<Integer, Purchase>();
+		for (int i = 0; i < this.size; ++i) {
+			result.put(++purchaseNum, this.purchases[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public Object purchaseHistoryMap() {
+		ArrayList<Purchase> fetched = new ArrayList<Purchase>(this.size);
+		for (int i = 0; i < this.size; ++i) {
+			fetched.add(this.purchases[i]);
+		}
+
+		PurchaseHistory history = new PurchaseHistory(1);
+		history.merge(fetched);
+		return history.toMap();
+	}
+}
@@ -0,0 +1,882 @@
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import yrb.benchmarks.EmbeddedDatabase;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>LoadGenerator</code> class simulates many concurrent shoppers running scripted
+ *         sessions of the application against an <code>EmbeddedDatabase</code>, and reports the
+ *         throughput, the latency percentiles of every step and the error, deadlock and lock timeout
+ *         rates. <br>
+ *         <br>
+ *
+ *         Every shopper is a thread (a virtual thread when the JVM supports them) with its own
+ *         connection, like a single run of <code>YRBAPP</code>, and runs one session after another
+ *         until the duration is over. Every session follows the states of <code>YRBAPP.run()</code>
+ *         from <code>CUSTOMER</code> to <code>FINALIZE</code> with a random think time between steps,
+ *         and is one of the following kinds:
+ *         <ul>
+ *         <li><code>browse</code>: find the customer, choose a category and a book and look at its
+ *         price without buying it.</li>
+ *         <li><code>buy</code>: like <code>browse</code> and then insert the purchase and commit.</li>
+ *         <li><code>history</code>: find the customer and view its purchases.</li>
+ *         <li><code>update</code>: find the customer and update its information.</li>
+ *         </ul>
+ *         The options are given as <code>name=value</code> arguments, e.g.
+ *         <code>java -cp benchmarks/target/benchmarks.jar LoadGenerator users=200 think=50 mix=browse:60,buy:30,history:10</code>.
+ *
+ * @see #main(String[])
+ */
+public final class LoadGenerator {
+	/**
+	 * The kinds of scripted sessions.
+	 */
+	private static enum Kind {
+		BROWSE, BUY, HISTORY, UPDATE
+	}
+
+	/**
+	 * The number of concurrent shoppers.
+	 */
+	private int users = 50;
+
+	/**
+	 * The measured duration in seconds.
+	 */
+	private int duration = 30;
+
+	/**
+	 * The warmup in seconds before the measurement starts.
+	 */
+	private int warmup = 5;
+
+	/**
+	 * The mean think time between steps in milliseconds.
+	 */
+	private int think = 100;
+
+	/**
+	 * The number of copies of every customer of the database.
+	 */
+	private int scale = 10;
+
+	/**
+	 * The directory of the files of a <code>DataGenerator</code> to load instead of scaling
+	 * <code>yrb-create</code> or <code>null</code>.
+	 */
+	private String data = null;
+
+	/**
+	 * The seed of the generators.
+	 */
+	private long seed = 42L;
+
+	/**
+	 * The weight of every kind of session.
+	 */
+	private final int[] mix = { 50, 25, 15, 10 };
+
+	/**
+	 * The database.
+	 */
+	private EmbeddedDatabase database;
+
+	/**
+	 * The IDs of all customers.
+	 */
+	private int[] cids;
+
+	/**
+	 * The names of all categories.
+	 */
+	private String[] categories;
+
+	/**
+	 * The time in nanoseconds that the measurement starts at.
+	 */
+	private long start;
+
+	/**
+	 * The time in nanoseconds that the measurement ends at.
+	 */
+	private long end;
+
+	/**
+	 * Mapping step names to their latencies.
+	 */
+	private final ConcurrentHashMap<String, LatencyHistogram> steps = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	/**
+	 * Mapping step names to their number of failures.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> stepErrors = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * The number of completed sessions of every kind.
+	 */
+	private final LongAdder[] sessions = new LongAdder[Kind.values().length];
+
+	/**
+	 * The number of failed sessions of every kind.
+	 */
+	private final LongAdder[] failures = new LongAdder[Kind.values().length];
+
+	/**
+	 * Mapping failure reasons (deadlock, lock timeout, constraint or other) to their number.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> reasons = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * The latency of every whole session including think time.
+	 */
+	private final LatencyHistogram sessionLatency = new LatencyHistogram();
+
+	/**
+	 * Default constructor for a <code>LoadGenerator</code> object.
+	 */
+	private LoadGenerator() {
+		for (int i = 0; i < this.sessions.length; ++i) {
+			this.sessions[i] = new LongAdder();
+			this.failures[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Set the options from the given <code>name=value</code> arguments.
+	 *
+	 * @param args
+	 *            the command line arguments
+	 *
+	 * @throws IllegalArgumentException
+	 *             If an argument is not a valid option
+	 */
+	private void parse(String[] args) throws IllegalArgumentException {
+		for (String arg : args) {
+			int i = arg.indexOf('=');
+			if (i <= 0) {
+				throw new IllegalArgumentException("Given argument(" + arg + ") is not of the form name=value.");
+			}
+
+			String name = arg.substring(0, i), value = arg.substring(i + 1);
+			switch (name) {
+				case "users":
+					this.users = LoadGenerator.positive(name, value);
+					break;
+				case "duration":
+					this.duration = LoadGenerator.positive(name, value);
+					break;
+				case "warmup":
+					this.warmup = Integer.parseInt(value);
+					break;
+				case "think":
+					this.think = Integer.parseInt(value);
+					break;
+				case "scale":
+					this.scale = LoadGenerator.positive(name, value);
+					break;
+				case "seed":
+					this.seed = Long.parseLong(value);
+					break;
+				case "data":
+					this.data = value;
+					break;
+				case "mix":
+					int total = 0;
+					for (Kind k : Kind.values()) {
+						this.mix[k.ordinal()] = 0;
+					}
+					for (String weight : value.split(",")) {
+						String[] pair = weight.split(":");
+						if (pair.length != 2) {
+							throw new IllegalArgumentException("Given mix(" + value + ") is not of the form kind:weight,...");
+						}
+						int w = Integer.parseInt(pair[1]);
+						if (w < 0) {
+							throw new IllegalArgumentException("Given weight(" + weight + ") is negative.");
+						}
+						this.mix[Kind.valueOf(pair[0].toUpperCase()).ordinal()] = w;
+						total += w;
+					}
+					if (total == 0) {
+						throw new IllegalArgumentException("Given mix(" + value + ") has no positive weight.");
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("Given option(" + name + ") is unknown.");
+			}
+		}
+
+		if (this.warmup < 0) {
+			throw new IllegalArgumentException("Given warmup(" + this.warmup + ") is negative.");
+		} else if (this.think < 0) {
+			throw new IllegalArgumentException("Given think time(" + this.think + ") is negative.");
+		}
+	}
+
+	/**
+	 * Returns the given option value as a positive integer.
+	 *
+	 * @param name
+	 *            the option name
+	 *
+	 * @param value
+	 *            the option value
+	 *
+	 * @return The value.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not a positive integer
+	 */
+	private static int positive(String name, String value) throws IllegalArgumentException {
+		int result = Integer.parseInt(value);
+		if (result <= 0) {
+			throw new IllegalArgumentException("Given " + name + "(" + value + ") is not positive.");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an executor that runs every task in a new virtual thread if the JVM supports them (Java
+	 * 21 or later) and in a thread of a fixed pool of <code>this.users</code> platform threads
+	 * otherwise.
+	 *
+	 * @return The executor.
+	 */
+	private ExecutorService newExecutor() {
+		try {
+			// Looked up reflectively since the build targets an older release.
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return Executors.newFixedThreadPool(this.users);
+		}
+	}
+
+	/**
+	 * Create the database, run the shoppers and print the report to the standard output
+	 * stream(<code>System.out</code>).
+	 *
+	 * @throws SQLException
+	 *             If the database could not be created
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the shoppers
+	 */
+	private void run() throws SQLException, InterruptedException {
+		try (EmbeddedDatabase database = (this.data == null ? new EmbeddedDatabase("LoadGenerator", this.scale)
+				: new EmbeddedDatabase("LoadGenerator", Paths.get(this.data)))) {
+			this.database = database;
+			try (Connection connection = database.connect()) {
+				this.readKeys(connection);
+			}
+
+			ExecutorService executor = this.newExecutor();
+			boolean virtual = !(executor instanceof ThreadPoolExecutor);
+			System.out.println("Running " + this.users + " shoppers on " + (virtual ? "virtual" : "platform")
+					+ " threads for " + this.warmup + "s of warmup and " + this.duration + "s of measurement against "
+					+ this.cids.length + " customers.");
+
+			this.start = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.warmup);
+			this.end = this.start + TimeUnit.SECONDS.toNanos(this.duration);
+			for (int i = 0; i < this.users; ++i) {
+				long seed = this.seed + i;
+				executor.execute(() -> this.shop(seed));
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+			this.report();
+		}
+	}
+
+	/**
+	 * Read the customer IDs and the category names.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @throws SQLException
+	 *             If the keys could not be read
+	 */
+	private void readKeys(Connection connection) throws SQLException {
+		ArrayList<Integer> cids = new ArrayList<Integer>();
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.CUSTOMER_QUERY_TEXT);
+				ResultSet answers = querySt.executeQuery()) {
+			while (answers.next()) {
+				cids.add(answers.getInt(1));
+			}
+		}
+		this.cids = new int[cids.size()];
+		for (int i = 0; i < this.cids.length; ++i) {
+			this.cids[i] = cids.get(i);
+		}
+
+		ArrayList<String> categories = new ArrayList<String>();
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.CATEGORY_QUERY_TEXT);
+				ResultSet answers = querySt.executeQuery()) {
+			while (answers.next()) {
+				categories.add(answers.getString(1));
+			}
+		}
+		this.categories = categories.toArray(new String[categories.size()]);
+	}
+
+	/**
+	 * Run sessions one after another until the measurement ends.
+	 *
+	 * @param seed
+	 *            the seed of the generator of this shopper
+	 */
+	private void shop(long seed) {
+		Random random = new Random(seed);
+		try (Connection connection = this.database.connect()) {
+			long now;
+			while ((now = System.nanoTime()) < this.end) {
+				Kind kind = this.nextKind(random);
+				boolean measured = (now >= this.start);
+				try {
+					this.session(connection, kind, random, measured);
+					connection.commit();
+					if (measured) {
+						this.sessions[kind.ordinal()].increment();
+						this.sessionLatency.record(System.nanoTime() - now);
+					}
+				} catch (SQLException ex) {
+					connection.rollback();
+					if (measured) {
+						this.failures[kind.ordinal()].increment();
+						this.reasons.computeIfAbsent(LoadGenerator.reason(ex), k -> new LongAdder()).increment();
+					}
+				}
+			}
+		} catch (SQLException ex) {
+			this.reasons.computeIfAbsent("connection", k -> new LongAdder()).increment();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the reason of the given failure.
+	 *
+	 * @param ex
+	 *            the failure
+	 *
+	 * @return <code>"deadlock"</code>, <code>"lock timeout"</code>, <code>"constraint"</code> or
+	 *         <code>"other"</code>.
+	 */
+	private static String reason(SQLException ex) {
+		String state = (ex.getSQLState() == null ? "" : ex.getSQLState());
+		if (state.equals("40001")) {
+			return "deadlock";
+		} else if (state.equals("HYT00") || ex.getErrorCode() == 50200) {
+			return "lock timeout";
+		} else if (state.startsWith("23")) {
+			return "constraint";
+		}
+		return "other";
+	}
+
+	/**
+	 * Returns a random kind of session according to the mix.
+	 *
+	 * @param random
+	 *            the generator
+	 *
+	 * @return The kind.
+	 */
+	private Kind nextKind(Random random) {
+		int total = 0;
+		for (int w : this.mix) {
+			total += w;
+		}
+		int r = random.nextInt(total);
+		for (Kind k : Kind.values()) {
+			if ((r -= this.mix[k.ordinal()]) < 0) {
+				return k;
+			}
+		}
+		return Kind.BROWSE;
+	}
+
+	/**
+	 * Sleep for a random think time with an exponential distribution.
+	 *
+	 * @param random
+	 *            the generator
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted while sleeping
+	 */
+	private void think(Random random) throws InterruptedException {
+		if (this.think > 0) {
+			Thread.sleep((long) (-this.think * Math.log(1.0 - random.nextDouble())));
+		}
+	}
+
+	/**
+	 * The <code>Step</code> interface is a single timed step of a session.
+	 *
+	 * @param <T>
+	 *            the result type
+	 */
+	@FunctionalInterface
+	private static interface Step<T> {
+		/**
+		 * @return The result of the step.
+		 *
+		 * @throws SQLException
+		 *             If a statement failed
+		 */
+		T run() throws SQLException;
+	}
+
+	/**
+	 * Run the given step and record its latency or failure.
+	 *
+	 * @param <T>
+	 *            the result type
+	 *
+	 * @param name
+	 *            the step name
+	 *
+	 * @param measured
+	 *            whether the step is measured or part of the warmup
+	 *
+	 * @param step
+	 *            the step
+	 *
+	 * @return The result of the step.
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 */
+	private <T> T step(String name, boolean measured, Step<T> step) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			T result = step.run();
+			if (measured) {
+				this.steps.computeIfAbsent(name, k -> new LatencyHistogram()).record(System.nanoTime() - start);
+			}
+			return result;
+		} catch (SQLException ex) {
+			if (measured) {
+				this.stepErrors.computeIfAbsent(name, k -> new LongAdder()).increment();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Run a single session of the given kind.
+	 *
+	 * @param connection
+	 *            the connection of the shopper
+	 *
+	 * @param kind
+	 *            the kind of session
+	 *
+	 * @param random
+	 *            the generator of the shopper
+	 *
+	 * @param measured
+	 *            whether the session is measured or part of the warmup
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 *
+	 * @throws InterruptedException
+	 *             If interrupted while thinking
+	 */
+	private void session(Connection connection, Kind kind, Random random, boolean measured)
+			throws SQLException, InterruptedException {
+		int cid = this.cids[random.nextInt(this.cids.length)];
+
+		// CUSTOMER
+		this.step("find_customer", measured, () -> LoadGenerator.findCustomer(connection, cid));
+		this.think(random);
+
+		if (kind == Kind.UPDATE) {
+			this.step("update_customer", measured, () -> LoadGenerator.updateCustomer(connection, cid, random));
+			return;
+		} else if (kind == Kind.HISTORY) {
+			this.step("view_purchases", measured, () -> LoadGenerator.viewPurchases(connection, cid));
+			return;
+		}
+
+		Purchase purchase = null;
+		for (int attempt = 0; attempt < 3 && purchase == null; ++attempt) { // BACK_TRACK at most twice.
+			// CATEGORY
+			String category = this.step("fetch_categories", measured,
+					() -> LoadGenerator.fetchCategories(connection, this.categories, random));
+			this.think(random);
+
+			// BOOK
+			Book book = this.step("find_books", measured, () -> LoadGenerator.findBooks(connection, category, random));
+			this.think(random);
+			if (book == null) {
+				continue;
+			}
+
+			// PURCHASE
+			purchase = this.step("min_price", measured, () -> LoadGenerator.minPrice(connection, cid, book));
+			this.think(random);
+		}
+
+		if (kind == Kind.BUY && purchase != null) {
+			// FINALIZE
+			purchase.setQuantity((short) (1 + random.nextInt(3)));
+			purchase.setWhen();
+			Purchase bought = purchase;
+			this.step("insert_purchase", measured, () -> LoadGenerator.insertPurchase(connection, bought));
+		}
+	}
+
+	/**
+	 * Find the given customer like <code>YRBAPP.find_customer</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @return Whether the customer exists.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static Boolean findCustomer(Connection connection, int cid) throws SQLException {
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.CID_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			try (ResultSet answers = querySt.executeQuery()) {
+				return answers.next();
+			}
+		}
+	}
+
+	/**
+	 * Update the given customer like <code>YRBAPP.perform_update</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @param random
+	 *            the generator
+	 *
+	 * @return The number of updated rows.
+	 *
+	 * @throws SQLException
+	 *             If the update failed
+	 */
+	private static Integer updateCustomer(Connection connection, int cid, Random random) throws SQLException {
+		try (PreparedStatement updateSt = connection.prepareStatement(YRBAPPUtility.CID_UPDATE_TEXT)) {
+			updateSt.setString(1, "Customer " + cid);
+			updateSt.setString(2, "City " + random.nextInt(1000));
+			updateSt.setInt(3, cid);
+			updateSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			return updateSt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Find the categories and choose one like <code>YRBAPP.fetch_categories</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param categories
+	 *            the known categories to choose from if none is read
+	 *
+	 * @param random
+	 *            the generator
+	 *
+	 * @return The chosen category.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static String fetchCategories(Connection connection, String[] categories, Random random)
+			throws SQLException {
+		ArrayList<String> result = new ArrayList<String>();
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.CATEGORY_QUERY_TEXT)) {
+			querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(answers.getString(1));
+				}
+			}
+		}
+		return (result.isEmpty() ? categories[random.nextInt(categories.length)]
+				: result.get(random.nextInt(result.size())));
+	}
+
+	/**
+	 * Read the first page of the books of the given category and choose one like
+	 * <code>YRBAPP.find_books</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param category
+	 *            the category
+	 *
+	 * @param random
+	 *            the generator
+	 *
+	 * @return The chosen book or <code>null</code> if the category has no books.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static Book findBooks(Connection connection, String category, Random random) throws SQLException {
+		ArrayList<Book> result = new ArrayList<Book>();
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.BOOK_PAGE_QUERY_TEXT)) {
+			querySt.setString(1, category);
+			querySt.setShort(2, (short) -1);
+			querySt.setShort(3, (short) -1);
+			querySt.setString(4, "");
+			querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			querySt.setMaxRows(YRBAPPUtility.DEFAULT_PAGE_SIZE + 1);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3), category,
+							answers.getShort(4)));
+				}
+			}
+		}
+		return (result.isEmpty() ? null : result.get(random.nextInt(result.size())));
+	}
+
+	/**
+	 * Find the cheapest offer of the given book for the given customer like
+	 * <code>YRBAPP.min_price</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @param book
+	 *            the book
+	 *
+	 * @return The purchase or <code>null</code> if the book is not offered to the customer.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static Purchase minPrice(Connection connection, int cid, Book book) throws SQLException {
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.OFFER_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setString(2, book.title);
+			querySt.setShort(3, book.year);
+			querySt.setInt(4, cid);
+			querySt.setString(5, book.title);
+			querySt.setShort(6, book.year);
+			querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			try (ResultSet answers = querySt.executeQuery()) {
+				return (answers.next()
+						? new Purchase(cid, answers.getString(1), book.title, book.year, answers.getFloat(2))
+						: null);
+			}
+		}
+	}
+
+	/**
+	 * Read the whole purchase history of the given customer like the first
+	 * <code>YRBAPP.load_history</code> of a session.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @return The purchase history.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static PurchaseHistory loadHistory(Connection connection, int cid) throws SQLException {
+		PurchaseHistory result = new PurchaseHistory(cid);
+		ArrayList<Purchase> purchases = new ArrayList<Purchase>();
+		try (PreparedStatement querySt = connection.prepareStatement(YRBAPPUtility.PURCHASE_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setTimestamp(2, result.getLastWhen());
+			querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			querySt.setFetchSize(YRBAPPUtility.DEFAULT_FETCH_SIZE);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					purchases.add(new Purchase(cid, answers.getString(1), answers.getString(2), answers.getShort(3),
+							answers.getFloat(6), answers.getShort(5), answers.getTimestamp(4).getTime()));
+				}
+			}
+		}
+		result.merge(purchases);
+		return result;
+	}
+
+	/**
+	 * Read the purchase history of the given customer and its first page like
+	 * <code>YRBAPP.view_purchases</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param cid
+	 *            the customer's ID
+	 *
+	 * @return The number of purchases of the first page.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 */
+	private static Integer viewPurchases(Connection connection, int cid) throws SQLException {
+		return LoadGenerator.loadHistory(connection, cid).page(new Timestamp(0L),
+				new Timestamp(YRBAPPUtility.MAX_WHEN), null, true, YRBAPPUtility.DEFAULT_PAGE_SIZE + 1).size();
+	}
+
+	/**
+	 * Insert the given purchase unless it already exists like <code>YRBAPP.insert_purchase</code>.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param purchase
+	 *            the purchase
+	 *
+	 * @return The number of inserted rows.
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 */
+	private static Integer insertPurchase(Connection connection, Purchase purchase) throws SQLException {
+		TreeMap<Integer, Purchase> purchases = LoadGenerator.loadHistory(connection, purchase.cid).toMap();
+		for (Map.Entry<Integer, Purchase> e : purchases.entrySet()) {
+			if (purchase.isEqual(e.getValue())) {
+				return 0;
+			}
+		}
+
+		try (PreparedStatement insertSt = connection.prepareStatement(YRBAPPUtility.PURCHASE_INSERT_TEXT)) {
+			insertSt.setInt(1, purchase.cid);
+			insertSt.setString(2, purchase.club);
+			insertSt.setString(3, purchase.title);
+			insertSt.setShort(4, purchase.year);
+			insertSt.setTimestamp(5, purchase.getWhen());
+			insertSt.setShort(6, purchase.getQuantity());
+			insertSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+			return insertSt.executeUpdate();
+		}
+	}
+
+	/**
+	 * Print the report of the measurement to the standard output stream(<code>System.out</code>).
+	 */
+	private void report() {
+		double seconds = this.duration;
+		long completed = 0, failed = 0;
+		System.out.println();
+		System.out.printf("%-10s %10s %10s %12s %10s\n", "Session", "Completed", "Failed", "Sessions/s", "Fail %");
+		for (Kind k : Kind.values()) {
+			long c = this.sessions[k.ordinal()].sum(), f = this.failures[k.ordinal()].sum();
+			completed += c;
+			failed += f;
+			System.out.printf("%-10s %10d %10d %12.1f %10.2f\n", k.name().toLowerCase(), c, f, c / seconds,
+					LoadGenerator.percent(f, c + f));
+		}
+		System.out.printf("%-10s %10d %10d %12.1f %10.2f\n", "total", completed, failed, completed / seconds,
+				LoadGenerator.percent(failed, completed + failed));
+		System.out.println("Session latency (including think time): " + this.sessionLatency);
+
+		System.out.println();
+		System.out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s\n", "Step", "Count", "Errors", "Mean", "p50", "p90",
+				"p99", "Max");
+		Map<String, LatencyHistogram> steps = new LinkedHashMap<String, LatencyHistogram>();
+		for (String name : new String[] { "find_customer", "update_customer", "view_purchases", "fetch_categories",
+				"find_books", "min_price", "insert_purchase" }) {
+			if (this.steps.containsKey(name)) {
+				steps.put(name, this.steps.get(name));
+			}
+		}
+		for (Map.Entry<String, LatencyHistogram> e : steps.entrySet()) {
+			LatencyHistogram h = e.getValue();
+			LongAdder errors = this.stepErrors.get(e.getKey());
+			System.out.printf("%-16s %10d %8d %10s %10s %10s %10s %10s\n", e.getKey(), h.getCount(),
+					(errors == null ? 0L : errors.sum()), LatencyHistogram.format((long) h.getMean()),
+					LatencyHistogram.format(h.getPercentile(50.0)), LatencyHistogram.format(h.getPercentile(90.0)),
+					LatencyHistogram.format(h.getPercentile(99.0)), LatencyHistogram.format(h.getMax()));
+		}
+
+		System.out.println();
+		System.out.println("Failures by reason (per 1000 sessions):");
+		for (String reason : new String[] { "deadlock", "lock timeout", "constraint", "other", "connection" }) {
+			LongAdder n = this.reasons.get(reason);
+			long count = (n == null ? 0L : n.sum());
+			System.out.printf("%-14s %10d %10.2f\n", reason, count, 10.0 * LoadGenerator.percent(count, completed + failed));
+		}
+	}
+
+	/**
+	 * Returns the given part of the given whole in percent.
+	 *
+	 * @param part
+	 *            the part
+	 *
+	 * @param whole
+	 *            the whole
+	 *
+	 * @return <code>100 * part / whole</code> or <code>0</code> if <code>whole == 0</code>.
+	 */
+	private static double percent(long part, long whole) {
+		return (whole == 0 ? 0.0 : 100.0 * part / whole);
+	}
+
+	/**
+	 * The main method for <code>LoadGenerator</code>.
+	 *
+	 * @param args
+	 *            the options as <code>name=value</code> arguments, i.e. <code>users</code>,
+	 *            <code>duration</code> and <code>warmup</code> in seconds, <code>think</code> as the
+	 *            mean think time in milliseconds, <code>scale</code>, <code>data</code> as the
+	 *            directory of generated data, <code>seed</code> and
+	 *            <code>mix</code> as <code>kind:weight</code> pairs separated by commas
+	 *
+	 * @throws Exception
+	 *             If the database could not be created or the run was interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = new LoadGenerator();
+		try {
+			generator.parse(args);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println("Usage: LoadGenerator [users=50] [duration=30] [warmup=5] [think=100] [scale=10] "
+					+ "[data=directory] [seed=42] [mix=browse:50,buy:25,history:15,update:10]");
+			System.exit(1);
+			return;
+		}
+		generator.run();
+	}
+}
@@ -0,0 +1,204 @@
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import yrb.benchmarks.EmbeddedDatabase;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>LocalService</code> class runs a <code>YRBService</code> against an
+ *         <code>EmbeddedDatabase</code>, so that the service can be tried out and load tested
+ *         without a DB2 server. <br>
+ *         <br>
+ *
+ *         The options are given as <code>name=value</code> arguments, e.g.
+ *         <code>java -cp benchmarks/target/benchmarks.jar LocalService port=8080 pool=16 scale=10</code>
+ *         and the service runs until a line (or the end of input) is read from the standard input
+ *         stream. <br>
+ *         <br>
+ *
+ *         With <code>replicas=N</code> the catalog reads are spread over <code>N</code> more embedded
+ *         databases holding the same data, which stand in for read replicas. Since nothing replicates
+ *         into them, purchases made through the service are only visible through the primary. <br>
+ *         <br>
+ *
+ *         With <code>shards=N</code> the customers are split over <code>N</code> embedded databases
+ *         by the <code>sharding</code> map (<code>hash</code> by default or
+ *         <code>range:b1,b2,...</code>), each of which keeps the whole catalog.
+ *
+ * @see #main(String[])
+ */
+public final class LocalService {
+	/**
+	 * Default constructor for a <code>LocalService</code> object.
+	 */
+	// Private constructor so that no object of this type can be instantiated.
+	private LocalService() {
+		// Empty by design.
+	}
+
+	/**
+	 * The main method for <code>LocalService</code>.
+	 *
+	 * @param args
+	 *            the <code>port</code>, the number of pooled connections <code>pool</code>, the
+	 *            <code>scale</code> of the database or the <code>data</code> directory of a
+	 *            <code>DataGenerator</code>, the number of read <code>replicas</code>, the number of
+	 *            <code>shards</code> and the <code>sharding</code> map
+	 *
+	 * @throws Exception
+	 *             If the database could not be created or the service could not be started
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = YRBService.DEFAULT_PORT, pool = ConnectionPool.DEFAULT_SIZE, scale = 1, replicas = 0, shards = 1;
+		String data = null, sharding = "hash";
+		ShardMap shardMap;
+		try {
+			for (String arg : args) {
+				int i = arg.indexOf('=');
+				if (i <= 0) {
+					throw new IllegalArgumentException("Given argument(" + arg + ") is not of the form name=value.");
+				}
+
+				String name = arg.substring(0, i), value = arg.substring(i + 1);
+				switch (name) {
+					case "port":
+						port = Integer.parseInt(value);
+						break;
+					case "pool":
+						pool = Integer.parseInt(value);
+						break;
+					case "scale":
+						scale = Integer.parseInt(value);
+						break;
+					case "data":
+						data = value;
+						break;
+					case "replicas":
+						replicas = Integer.parseInt(value);
+						break;
+					case "shards":
+						shards = Integer.parseInt(value);
+						break;
+					case "sharding":
+						sharding = value;
+						break;
+					default:
+						throw new IllegalArgumentException("Given option(" + name + ") is unknown.");
+				}
+			}
+			shardMap = ShardMap.parse(sharding, shards);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println("Usage: LocalService [port=8080] [pool=8] [scale=1] [data=directory] [replicas=0] [shards=1] [sharding=hash]");
+			System.exit(1);
+			return;
+		}
+
+		ArrayList<EmbeddedDatabase> databases = new ArrayList<EmbeddedDatabase>();
+		ArrayList<ConnectionPool> shardPools = new ArrayList<ConnectionPool>();
+		ArrayList<ConnectionPool> replicaPools = new ArrayList<ConnectionPool>();
+		try {
+			for (int i = 0; i < shards; ++i) {
+				EmbeddedDatabase shard = LocalService.create(i == 0 ? "LocalService" : "LocalService-shard-" + i, scale,
+						data);
+				databases.add(shard);
+				if (shards > 1) {
+					LocalService.split(shard, shardMap, i);
+				}
+				shardPools.add(new ConnectionPool(shard.getURL(), pool));
+			}
+			for (int i = 0; i < replicas; ++i) {
+				EmbeddedDatabase copy = LocalService.create("LocalService-replica-" + i, scale, data);
+				databases.add(copy);
+				replicaPools.add(new ConnectionPool(copy.getURL(), pool));
+			}
+
+			try (YRBService service = YRBService.start(port, shardPools, shardMap, replicaPools)) {
+				System.out.println("Serving " + databases.get(0).getURL() + " as " + shards + " shards by " + shardMap
+						+ " and " + replicas + " read replicas on http://localhost:" + service.getPort() + "/ with " + pool
+						+ " connections each on " + (service.isVirtual() ? "virtual" : "platform") + " threads.");
+				System.out.println("Press Enter to stop.");
+				System.in.read();
+			}
+		} finally {
+			for (ConnectionPool replicaPool : replicaPools) {
+				replicaPool.close();
+			}
+			for (ConnectionPool shardPool : shardPools) {
+				shardPool.close();
+			}
+			for (EmbeddedDatabase database : databases) {
+				database.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns a new embedded database with the given name.
+	 *
+	 * @param name
+	 *            the name of the database
+	 *
+	 * @param scale
+	 *            the scale of the database, unless it is loaded from <code>data</code>
+	 *
+	 * @param data
+	 *            the directory of a <code>DataGenerator</code> or <code>null</code>
+	 *
+	 * @return The database.
+	 *
+	 * @throws SQLException
+	 *             If the database could not be created
+	 */
+	private static EmbeddedDatabase create(String name, int scale, String data) throws SQLException {
+		return (data == null ? new EmbeddedDatabase(name, scale) : new EmbeddedDatabase(name, Paths.get(data)));
+	}
+
+	/**
+	 * Delete the customers of the other shards, together with their memberships and purchases, from
+	 * the given database so that only the customers of the given shard and the catalog are left.
+	 *
+	 * @param database
+	 *            the database of the shard
+	 *
+	 * @param shardMap
+	 *            the map of the customers to the shards
+	 *
+	 * @param shard
+	 *            the zero based index of the shard
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 */
+	private static void split(EmbeddedDatabase database, ShardMap shardMap, int shard) throws SQLException {
+		try (Connection connection = database.connect()) {
+			ArrayList<Integer> others = new ArrayList<Integer>();
+			try (Statement st = connection.createStatement();
+					ResultSet answers = st.executeQuery("SELECT C.cid FROM yrb_customer C")) {
+				while (answers.next()) {
+					if (shardMap.shardOf(answers.getInt(1)) != shard) {
+						others.add(answers.getInt(1));
+					}
+				}
+			}
+
+			// Children before parents because of the foreign keys.
+			for (String table : new String[] { "yrb_purchase", "yrb_member", "yrb_customer" }) {
+				try (PreparedStatement st = connection.prepareStatement("DELETE FROM " + table + " WHERE cid = ?")) {
+					for (int cid : others) {
+						st.setInt(1, cid);
+						st.addBatch();
+					}
+					st.executeBatch();
+				}
+			}
+			connection.commit();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package yrb.benchmarks;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DataAccessBenchmark</code> class measures every statement of
+ *         <code>YRBAPPUtility</code> and the <code>find_purchases</code> and
+ *         <code>insert_purchase</code> flows of <code>YRBAPP</code> against an
+ *         <code>EmbeddedDatabase</code>, reporting both the throughput and the latency distribution
+ *         of every operation. <br>
+ *         <br>
+ *
+ *         The <code>scale</code> parameter is the number of copies of every customer, so the whole
+ *         table statements (e.g. <code>customer</code> and <code>popularity</code>) grow with it while
+ *         the indexed lookups of a single customer should not. Every change is rolled back after every
+ *         iteration. Run with e.g.
+ *         <code>java -jar benchmarks/target/benchmarks.jar DataAccessBenchmark -p scale=1,100</code>, or
+ *         with <code>-p scale=1 -p data=DIRECTORY</code> to use the files of a
+ *         <code>DataGenerator</code> instead.
+ *
+ * @see DataAccessOperations
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataAccessBenchmark {
+	/**
+	 * The number of copies of every customer.
+	 */
+	@Param({ "1", "10", "100" })
+	public int scale;
+
+	/**
+	 * The directory of the files of a <code>DataGenerator</code> to load instead of scaling
+	 * <code>yrb-create</code>, or empty.
+	 */
+	@Param({ "" })
+	public String data;
+
+	/**
+	 * The database.
+	 */
+	private EmbeddedDatabase database;
+
+	/**
+	 * The connection of the workload.
+	 */
+	private Connection connection;
+
+	/**
+	 * The workload.
+	 */
+	private DataAccessOperations ops;
+
+	/**
+	 * Create and populate the database.
+	 *
+	 * @throws SQLException
+	 *             If the database could not be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		this.database = (this.data.isEmpty() ? new EmbeddedDatabase("DataAccessBenchmark", this.scale)
+				: new EmbeddedDatabase("DataAccessBenchmark", Paths.get(this.data)));
+		this.connection = this.database.connect();
+		this.ops = Workloads.load("DataAccessWorkload", DataAccessOperations.class);
+		this.ops.setUp(this.connection, 42L);
+	}
+
+	/**
+	 * Rollback the changes of the iteration.
+	 *
+	 * @throws SQLException
+	 *             If the rollback failed
+	 */
+	@TearDown(Level.Iteration)
+	public void reset() throws SQLException {
+		this.ops.reset();
+	}
+
+	/**
+	 * Drop the database.
+	 *
+	 * @throws SQLException
+	 *             If the database could not be dropped
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		this.connection.close();
+		this.database.close();
+	}
+
+	@Benchmark
+	public int minMaxCid() throws SQLException {
+		return this.ops.minMaxCid();
+	}
+
+	@Benchmark
+	public int cid() throws SQLException {
+		return this.ops.cid();
+	}
+
+	@Benchmark
+	public int customer() throws SQLException {
+		return this.ops.customer();
+	}
+
+	@Benchmark
+	public int customerPage() throws SQLException {
+		return this.ops.customerPage();
+	}
+
+	@Benchmark
+	public int customerPreviousPage() throws SQLException {
+		return this.ops.customerPreviousPage();
+	}
+
+	@Benchmark
+	public int cidUpdate() throws SQLException {
+		return this.ops.cidUpdate();
+	}
+
+	@Benchmark
+	public int category() throws SQLException {
+		return this.ops.category();
+	}
+
+	@Benchmark
+	public int book() throws SQLException {
+		return this.ops.book();
+	}
+
+	@Benchmark
+	public int bookPage() throws SQLException {
+		return this.ops.bookPage();
+	}
+
+	@Benchmark
+	public int bookPreviousPage() throws SQLException {
+		return this.ops.bookPreviousPage();
+	}
+
+	@Benchmark
+	public int allBook() throws SQLException {
+		return this.ops.allBook();
+	}
+
+	@Benchmark
+	public int popularity() throws SQLException {
+		return this.ops.popularity();
+	}
+
+	@Benchmark
+	public int allOffer() throws SQLException {
+		return this.ops.allOffer();
+	}
+
+	@Benchmark
+	public int member() throws SQLException {
+		return this.ops.member();
+	}
+
+	@Benchmark
+	public int offer() throws SQLException {
+		return this.ops.offer();
+	}
+
+	@Benchmark
+	public int purchase() throws SQLException {
+		return this.ops.purchase();
+	}
+
+	@Benchmark
+	public int purchasePage() throws SQLException {
+		return this.ops.purchasePage();
+	}
+
+	@Benchmark
+	public int purchasePreviousPage() throws SQLException {
+		return this.ops.purchasePreviousPage();
+	}
+
+	@Benchmark
+	public int purchaseInsert() throws SQLException {
+		return this.ops.purchaseInsert();
+	}
+
+	@Benchmark
+	public int findPurchases() throws SQLException {
+		return this.ops.findPurchases();
+	}
+
+	@Benchmark
+	public int findPurchasesCold() throws SQLException {
+		return this.ops.findPurchasesCold();
+	}
+
+	@Benchmark
+	public int insertPurchase() throws SQLException {
+		return this.ops.insertPurchase();
+	}
+}
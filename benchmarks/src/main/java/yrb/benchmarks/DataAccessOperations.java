@@ -0,0 +1,236 @@
+package yrb.benchmarks;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DataAccessOperations</code> interface is the workload of
+ *         <code>DataAccessBenchmark</code>, i.e. a single execution of every statement of
+ *         <code>YRBAPPUtility</code> and of the composite flows of <code>YRBAPP</code>. <br>
+ *         <br>
+ *
+ *         Every operation prepares, binds, executes and reads its statement exactly like the
+ *         application does, choosing its arguments from the existing rows with a seeded generator, and
+ *         returns the number of rows read or written so that nothing can be optimized away.
+ *
+ * @see DataAccessBenchmark
+ */
+public interface DataAccessOperations {
+	/**
+	 * Read the keys that the operations choose their arguments from.
+	 *
+	 * @param connection
+	 *            the connection to run every operation on, with auto commit turned off
+	 *
+	 * @param seed
+	 *            the seed of the generator
+	 *
+	 * @throws SQLException
+	 *             If the keys could not be read
+	 */
+	void setUp(Connection connection, long seed) throws SQLException;
+
+	/**
+	 * Rollback every change made since the last call and forget the cached purchase histories, like
+	 * the application does on a rollback.
+	 *
+	 * @throws SQLException
+	 *             If the rollback failed
+	 */
+	void reset() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.MIN_MAX_CID_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int minMaxCid() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CID_QUERY_TEXT</code> for a random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int cid() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CUSTOMER_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int customer() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CUSTOMER_PAGE_QUERY_TEXT</code> after a random
+	 *         customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int customerPage() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT</code> before a
+	 *         random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int customerPreviousPage() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CID_UPDATE_TEXT</code> for a random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int cidUpdate() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.CATEGORY_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int category() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.BOOK_QUERY_TEXT</code> for a random category.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int book() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.BOOK_PAGE_QUERY_TEXT</code> after a random book.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int bookPage() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.BOOK_PREVIOUS_PAGE_QUERY_TEXT</code> before a random
+	 *         book.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int bookPreviousPage() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.ALL_BOOK_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int allBook() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.POPULARITY_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int popularity() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.ALL_OFFER_QUERY_TEXT</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int allOffer() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.MEMBER_QUERY_TEXT</code> for a random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int member() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.OFFER_QUERY_TEXT</code> for a random customer and
+	 *         book.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int offer() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.PURCHASE_QUERY_TEXT</code> for the whole history of a
+	 *         random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int purchase() throws SQLException;
+
+	/**
+	 * @return The rows of the first page of <code>YRBAPPUtility.PURCHASE_PAGE_QUERY_TEXT</code> for
+	 *         a random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int purchasePage() throws SQLException;
+
+	/**
+	 * @return The rows of the last page of
+	 *         <code>YRBAPPUtility.PURCHASE_PREVIOUS_PAGE_QUERY_TEXT</code> for a random customer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int purchasePreviousPage() throws SQLException;
+
+	/**
+	 * @return The rows of <code>YRBAPPUtility.PURCHASE_INSERT_TEXT</code> for a new purchase of a
+	 *         random membership and offer.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int purchaseInsert() throws SQLException;
+
+	/**
+	 * Find the purchases of a random customer like <code>YRBAPP.find_purchases</code>, i.e. through
+	 * the cached purchase history which only reads the purchases made since the last call.
+	 *
+	 * @return The number of purchases.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int findPurchases() throws SQLException;
+
+	/**
+	 * Find the purchases of a random customer like the first <code>YRBAPP.find_purchases</code> of a
+	 * session, i.e. reading the whole history into an empty purchase history.
+	 *
+	 * @return The number of purchases.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed
+	 */
+	int findPurchasesCold() throws SQLException;
+
+	/**
+	 * Insert a new purchase of a random membership and offer like <code>YRBAPP.insert_purchase</code>,
+	 * i.e. find the purchases of the customer first and only insert if it is not one of them.
+	 *
+	 * @return The number of inserted rows.
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 */
+	int insertPurchase() throws SQLException;
+}
@@ -0,0 +1,648 @@
+package yrb.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DataGenerator</code> class generates an arbitrarily large data set of the YRB
+ *         schema that satisfies every constraint of <code>schema.txt</code>, and writes it as one
+ *         delimited file per table that can be bulk loaded by DB2 and H2. <br>
+ *         <br>
+ *
+ *         The data is skewed like a real store: club memberships, book categories, book popularity
+ *         and the number of purchases per customer all follow a Zipfian distribution, so a few heavy
+ *         buyers make most of the purchases and a few books get most of the sales. The same options
+ *         and seed always generate the same data. <br>
+ *         <br>
+ *
+ *         The files are in the DB2 <code>DEL</code> format, i.e. comma separated without a header,
+ *         strings in double quotes and <code>NULL</code> as an empty field, together with
+ *         <code>load-db2.sql</code> and <code>load-h2.sql</code> to load them in foreign key order.
+ *
+ * @see #main(String[])
+ * @see EmbeddedDatabase#EmbeddedDatabase(String, Path)
+ */
+public final class DataGenerator {
+	/**
+	 * The tables in foreign key order, each one followed by its columns.
+	 */
+	static final String[][] TABLES = { { "yrb_customer", "cid", "name", "city" }, { "yrb_club", "club", "desc" },
+			{ "yrb_member", "club", "cid" }, { "yrb_category", "cat" },
+			{ "yrb_book", "title", "year", "language", "cat", "weight" },
+			{ "yrb_offer", "club", "title", "year", "price" },
+			{ "yrb_purchase", "cid", "club", "title", "year", "when", "qnty" }, { "yrb_shipping", "weight", "cost" } };
+
+	/**
+	 * The suffix of every generated file.
+	 */
+	static final String SUFFIX = ".del";
+
+	/**
+	 * The clubs of <code>yrb-create</code>, which are used before any generated club.
+	 */
+	private static final String[] CLUBS = { "Basic", "YRB Bronze", "YRB Silver", "YRB Gold", "AAA", "AARP", "Oprah",
+			"Readers Digest", "CNU Club", "UVA Club", "VaTech Club", "W&M Club" };
+
+	/**
+	 * The categories of <code>yrb-create</code>, which are used before any generated category.
+	 */
+	private static final String[] CATEGORIES = { "mystery", "romance", "children", "science", "travel", "cooking",
+			"drama", "history", "horror", "humor", "guide", "phil" };
+
+	/**
+	 * The languages of the books, <code>null</code> being an unknown language.
+	 */
+	private static final String[] LANGUAGES = { "English", "French", "German", "Spanish", "Greek", "Japanese",
+			"Italian", "Russian", null };
+
+	/**
+	 * The first names of the customers.
+	 */
+	private static final String[] FIRST_NAMES = { "Tracy", "Andy", "Boswell", "Cary", "Doris", "Egbert", "Fanny",
+			"Garp", "Henrietta", "Ingrid", "Jack", "Kathy", "Lux", "Margaret", "Nigel", "Oswell", "Parker", "Quency",
+			"Renee", "Steve", "Trixie", "Ulya", "Valerie", "Walter", "Xia", "Yves", "Zachary", "Sally", "George",
+			"Clark" };
+
+	/**
+	 * The last names of the customers.
+	 */
+	private static final String[] LAST_NAMES = { "Turnip", "Aardverk", "Biddles", "Cizek", "Daniels", "Engles", "Mae",
+			"Google", "Hogg", "Iverson", "Gifford", "Luthor", "Kent", "Mitchie", "Wolf", "Nerd", "Orson", "Posey",
+			"Quark", "Riztp", "Songheim", "Trudeau", "Umbrigde", "Vixen", "Wynn", "Xu", "Yonge", "Zoxx", "Cooper",
+			"Lobo" };
+
+	/**
+	 * The cities of the customers.
+	 */
+	private static final String[] CITIES = { "Richmond", "Pluto", "Petersburg", "Williamsburg", "Newport News",
+			"Yorktown", "Blacksburg", "Hampton", "Roanoke", "Los Angeles", "Waynsboro", "Austin", "Norfolk", "Dublin",
+			"Lynchburg", "New York", "Harrisonburg", "Arlington", "Charlottesville", "Georgetown" };
+
+	/**
+	 * The first words of the book titles.
+	 */
+	private static final String[] TITLE_WORDS = { "Silent", "Lost", "Hidden", "Broken", "Golden", "Dark", "Last",
+			"Quiet", "Red", "Secret", "Wild", "Tiny", "Endless", "Burning", "Frozen", "Distant", "Crooked", "Gentle",
+			"Hollow", "Little" };
+
+	/**
+	 * The last words of the book titles.
+	 */
+	private static final String[] TITLE_NOUNS = { "River", "Garden", "Kingdom", "Letters", "Island", "Recipes",
+			"Tensors", "Vampires", "Journey", "Promise", "Harvest", "Empire", "Stranger", "Mountain", "Lantern",
+			"Orchard", "Voyage", "Shadows", "Memoirs", "Puzzle" };
+
+	/**
+	 * The largest title length, i.e. <code>varchar(25)</code>.
+	 */
+	private static final int TITLE_LENGTH = 25;
+
+	/**
+	 * The first purchase time, i.e. 2000-01-01 00:00:00 UTC.
+	 */
+	private static final long FIRST_WHEN = 946684800000L;
+
+	/**
+	 * The last purchase time (exclusive), i.e. 2025-01-01 00:00:00 UTC.
+	 */
+	private static final long LAST_WHEN = 1735689600000L;
+
+	/**
+	 * The format of the purchase times, which are in UTC so that the data does not depend on the time
+	 * zone of the generator.
+	 */
+	private static final DateTimeFormatter WHEN_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS")
+			.withZone(ZoneOffset.UTC);
+
+	/**
+	 * The number of customers.
+	 */
+	private int customers = 10000;
+
+	/**
+	 * The number of clubs.
+	 */
+	private int clubs = DataGenerator.CLUBS.length;
+
+	/**
+	 * The number of categories.
+	 */
+	private int categories = DataGenerator.CATEGORIES.length;
+
+	/**
+	 * The number of books.
+	 */
+	private int books = 5000;
+
+	/**
+	 * The mean number of offers of every book.
+	 */
+	private int offers = 3;
+
+	/**
+	 * The number of purchases.
+	 */
+	private int purchases = 100000;
+
+	/**
+	 * The exponent of the Zipfian distributions.
+	 */
+	private double skew = 1.0;
+
+	/**
+	 * The seed of the generator.
+	 */
+	private long seed = 42L;
+
+	/**
+	 * The <code>Zipf</code> class samples the ranks <code>[0, n)</code> with the probability of rank
+	 * <code>k</code> proportional to <code>1 / (k + 1)^s</code>.
+	 */
+	private static final class Zipf {
+		/**
+		 * The cumulative probability of every rank.
+		 */
+		private final double[] cdf;
+
+		/**
+		 * General constructor for a <code>Zipf</code> object.
+		 *
+		 * @param n
+		 *            the number of ranks
+		 *
+		 * @param s
+		 *            the exponent
+		 */
+		private Zipf(int n, double s) {
+			this.cdf = new double[n];
+			double sum = 0.0;
+			for (int k = 0; k < n; ++k) {
+				this.cdf[k] = (sum += 1.0 / Math.pow(k + 1, s));
+			}
+			for (int k = 0; k < n; ++k) {
+				this.cdf[k] /= sum;
+			}
+		}
+
+		/**
+		 * Returns a random rank.
+		 *
+		 * @param random
+		 *            the generator
+		 *
+		 * @return The rank in <code>[0, n)</code>.
+		 */
+		private int next(Random random) {
+			int i = Arrays.binarySearch(this.cdf, random.nextDouble());
+			return Math.min((i < 0 ? -i - 1 : i), this.cdf.length - 1);
+		}
+	}
+
+	/**
+	 * The <code>Literal</code> class is a column value that is written as it is, i.e. without quotes.
+	 */
+	private static final class Literal {
+		/**
+		 * The text of the value.
+		 */
+		private final String text;
+
+		/**
+		 * General constructor for a <code>Literal</code> object.
+		 *
+		 * @param text
+		 *            the text of the value
+		 */
+		private Literal(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public String toString() {
+			return this.text;
+		}
+	}
+
+	/**
+	 * Default constructor for a <code>DataGenerator</code> object.
+	 */
+	public DataGenerator() {
+		// Empty by design.
+	}
+
+	/**
+	 * Set the options from the given <code>name=value</code> arguments.
+	 *
+	 * @param args
+	 *            the arguments, i.e. <code>customers</code>, <code>clubs</code>,
+	 *            <code>categories</code>, <code>books</code>, <code>offers</code>,
+	 *            <code>purchases</code>, <code>skew</code> and <code>seed</code>
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If an argument is not a valid option
+	 */
+	public DataGenerator parse(String... args) throws IllegalArgumentException {
+		for (String arg : args) {
+			int i = arg.indexOf('=');
+			if (i <= 0) {
+				throw new IllegalArgumentException("Given argument(" + arg + ") is not of the form name=value.");
+			}
+
+			String name = arg.substring(0, i), value = arg.substring(i + 1);
+			switch (name) {
+				case "customers":
+					// The memberships are indexed by customer ID.
+					this.customers = DataGenerator.positive(name, value, EmbeddedDatabase.MAX_CID - 1);
+					break;
+				case "clubs":
+					this.clubs = DataGenerator.positive(name, value, 100000);
+					break;
+				case "categories":
+					this.categories = DataGenerator.positive(name, value, 100000);
+					break;
+				case "books":
+					this.books = DataGenerator.positive(name, value, Integer.MAX_VALUE);
+					break;
+				case "offers":
+					this.offers = DataGenerator.positive(name, value, 1000);
+					break;
+				case "purchases":
+					this.purchases = DataGenerator.positive(name, value, Integer.MAX_VALUE);
+					break;
+				case "skew":
+					this.skew = Double.parseDouble(value);
+					if (!(this.skew >= 0.0)) {
+						throw new IllegalArgumentException("Given skew(" + value + ") is negative.");
+					}
+					break;
+				case "seed":
+					this.seed = Long.parseLong(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Given option(" + name + ") is unknown.");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the given option value as a positive integer.
+	 *
+	 * @param name
+	 *            the option name
+	 *
+	 * @param value
+	 *            the option value
+	 *
+	 * @param max
+	 *            the largest valid value
+	 *
+	 * @return The value.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not in the range <code>[1, max]</code>
+	 */
+	private static int positive(String name, String value, int max) throws IllegalArgumentException {
+		int result = Integer.parseInt(value);
+		if (result <= 0 || result > max) {
+			throw new IllegalArgumentException(
+					"Given " + name + "(" + value + ") is not in the following range: [1, " + max + "]");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the name of the club of the given rank.
+	 *
+	 * @param i
+	 *            the rank
+	 *
+	 * @return The name of at most 15 characters.
+	 */
+	private static String club(int i) {
+		return (i < DataGenerator.CLUBS.length ? DataGenerator.CLUBS[i] : "Club " + i);
+	}
+
+	/**
+	 * Returns the name of the category of the given rank.
+	 *
+	 * @param i
+	 *            the rank
+	 *
+	 * @return The name of at most 10 characters.
+	 */
+	private static String category(int i) {
+		return (i < DataGenerator.CATEGORIES.length ? DataGenerator.CATEGORIES[i] : "cat" + i);
+	}
+
+	/**
+	 * Generate the data and write it to the given directory.
+	 *
+	 * @param directory
+	 *            the output directory which is created if it does not exist
+	 *
+	 * @throws NullPointerException
+	 *             If <code>directory == null</code>
+	 *
+	 * @throws IOException
+	 *             If a file could not be written
+	 */
+	public void generate(Path directory) throws NullPointerException, IOException {
+		if (directory == null) {
+			throw new NullPointerException("Given directory is null.");
+		}
+		Files.createDirectories(directory);
+
+		Random random = new Random(this.seed);
+		Zipf clubZipf = new Zipf(this.clubs, this.skew);
+
+		// Customers.
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_customer")) {
+			for (int cid = 1; cid <= this.customers; ++cid) {
+				String name = DataGenerator.FIRST_NAMES[random.nextInt(DataGenerator.FIRST_NAMES.length)] + " "
+						+ DataGenerator.LAST_NAMES[random.nextInt(DataGenerator.LAST_NAMES.length)];
+				DataGenerator.row(out, cid, name, DataGenerator.CITIES[random.nextInt(DataGenerator.CITIES.length)]);
+			}
+		}
+
+		// Clubs.
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_club")) {
+			for (int i = 0; i < this.clubs; ++i) {
+				DataGenerator.row(out, DataGenerator.club(i), "The " + DataGenerator.club(i) + " book club");
+			}
+		}
+
+		// Memberships: everyone is a member of the first club and joins a few popular ones.
+		int[][] memberships = new int[this.customers + 1][];
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_member")) {
+			for (int cid = 1; cid <= this.customers; ++cid) {
+				int extra = (int) (-Math.log(1.0 - random.nextDouble()) * 1.5); // Mean of 1.5 extra clubs.
+				HashSet<Integer> joined = new HashSet<Integer>();
+				joined.add(0);
+				for (int j = 0; j < extra * 2 && joined.size() <= extra && joined.size() < this.clubs; ++j) {
+					joined.add(clubZipf.next(random));
+				}
+				memberships[cid] = new int[joined.size()];
+				int n = 0;
+				for (int club : joined) {
+					memberships[cid][n++] = club;
+					DataGenerator.row(out, DataGenerator.club(club), cid);
+				}
+			}
+		}
+
+		// Categories.
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_category")) {
+			for (int i = 0; i < this.categories; ++i) {
+				DataGenerator.row(out, DataGenerator.category(i));
+			}
+		}
+
+		// Books in popularity order, i.e. the first book is the most popular one.
+		String[] titles = new String[this.books];
+		short[] years = new short[this.books];
+		short maxWeight = 1;
+		Zipf categoryZipf = new Zipf(this.categories, this.skew);
+		HashSet<String> keys = new HashSet<String>();
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_book")) {
+			for (int i = 0; i < this.books; ++i) {
+				String title;
+				short year;
+				int attempt = 0;
+				do {
+					title = DataGenerator.TITLE_WORDS[random.nextInt(DataGenerator.TITLE_WORDS.length)] + " "
+							+ DataGenerator.TITLE_NOUNS[random.nextInt(DataGenerator.TITLE_NOUNS.length)];
+					if (++attempt > 3) { // Make the title unique once the combinations are running out.
+						String suffix = " " + Integer.toString(i, 36);
+						title = title.substring(0, Math.min(title.length(), DataGenerator.TITLE_LENGTH - suffix.length()))
+								+ suffix;
+					}
+					year = (short) (1900 + random.nextInt(125));
+				} while (!keys.add(title + '\0' + year));
+
+				short weight = (short) (50 + random.nextInt(2000));
+				maxWeight = (short) Math.max(maxWeight, weight);
+				titles[i] = title;
+				years[i] = year;
+				DataGenerator.row(out, title, year, DataGenerator.LANGUAGES[random.nextInt(DataGenerator.LANGUAGES.length)],
+						DataGenerator.category(categoryZipf.next(random)), weight);
+			}
+		}
+
+		// Offers: every book is offered by the first club and a few popular ones at a discount.
+		List<List<int[]>> clubOffers = new ArrayList<List<int[]>>(this.clubs); // { book, price in cents }
+		for (int i = 0; i < this.clubs; ++i) {
+			clubOffers.add(new ArrayList<int[]>());
+		}
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_offer")) {
+			for (int i = 0; i < this.books; ++i) {
+				int cents = 500 + random.nextInt(14500); // [5.00, 150.00) well within decimal(5,2).
+				int count = 1 + random.nextInt(2 * this.offers - 1); // Mean of this.offers.
+				HashSet<Integer> offering = new HashSet<Integer>();
+				offering.add(0);
+				for (int j = 0; j < count * 2 && offering.size() < Math.min(count, this.clubs); ++j) {
+					offering.add(clubZipf.next(random));
+				}
+				for (int club : offering) {
+					int price = Math.max(1, cents - (club == 0 ? 0 : random.nextInt(cents / 4)));
+					clubOffers.get(club).add(new int[] { i, price });
+					DataGenerator.row(out, DataGenerator.club(club), titles[i], years[i], DataGenerator.price(price));
+				}
+			}
+		}
+
+		// Purchases: heavy buyers (in a random order of customers) buy popular books of their clubs. The
+		// purchase times strictly increase which makes every primary key unique.
+		int[] buyers = new int[this.customers];
+		for (int i = 0; i < buyers.length; ++i) {
+			buyers[i] = i + 1;
+		}
+		for (int i = buyers.length - 1; i > 0; --i) {
+			int j = random.nextInt(i + 1), t = buyers[i];
+			buyers[i] = buyers[j];
+			buyers[j] = t;
+		}
+		Zipf buyerZipf = new Zipf(this.customers, this.skew);
+		Zipf[] offerZipfs = new Zipf[this.clubs];
+		double step = (double) (DataGenerator.LAST_WHEN - DataGenerator.FIRST_WHEN) / this.purchases;
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_purchase")) {
+			for (int i = 0; i < this.purchases; ++i) {
+				int cid = buyers[buyerZipf.next(random)];
+				int club = memberships[cid][random.nextInt(memberships[cid].length)];
+				if (clubOffers.get(club).isEmpty()) {
+					club = 0;
+				}
+				if (offerZipfs[club] == null) {
+					offerZipfs[club] = new Zipf(clubOffers.get(club).size(), this.skew);
+				}
+				int book = clubOffers.get(club).get(offerZipfs[club].next(random))[0];
+				long when = DataGenerator.FIRST_WHEN + (long) (i * step)
+						+ (step >= 2 ? random.nextInt((int) Math.min(step - 1, Integer.MAX_VALUE)) : 0);
+				int qnty = 1 + (random.nextInt(10) == 0 ? random.nextInt(5) : 0);
+				DataGenerator.row(out, cid, DataGenerator.club(club), titles[book], years[book],
+						new Literal(DataGenerator.WHEN_FORMAT.format(Instant.ofEpochMilli(when))), qnty);
+			}
+		}
+
+		// Shipping: a cost for every 500 grams up to the heaviest book with strictly increasing costs.
+		try (PrintWriter out = DataGenerator.open(directory, "yrb_shipping")) {
+			for (int i = 1; i <= (maxWeight + 499) / 500; ++i) {
+				DataGenerator.row(out, i * 500, DataGenerator.price(100 + i * 125));
+			}
+		}
+
+		this.writeScripts(directory);
+	}
+
+	/**
+	 * Returns the given cents as a <code>decimal(5,2)</code> literal.
+	 *
+	 * @param cents
+	 *            the price in cents
+	 *
+	 * @return The price.
+	 */
+	private static BigDecimal price(int cents) {
+		return BigDecimal.valueOf(cents, 2);
+	}
+
+	/**
+	 * Open the file of the given table.
+	 *
+	 * @param directory
+	 *            the output directory
+	 *
+	 * @param table
+	 *            the table name
+	 *
+	 * @return The output.
+	 *
+	 * @throws IOException
+	 *             If the file could not be opened
+	 */
+	private static PrintWriter open(Path directory, String table) throws IOException {
+		Writer writer = Files.newBufferedWriter(directory.resolve(table + DataGenerator.SUFFIX), StandardCharsets.UTF_8);
+		return new PrintWriter(new BufferedWriter(writer, 1 << 16));
+	}
+
+	/**
+	 * Write a single row in the <code>DEL</code> format, i.e. strings in double quotes, everything else
+	 * as it is and <code>null</code> as an empty field.
+	 *
+	 * @param out
+	 *            the output
+	 *
+	 * @param values
+	 *            the column values
+	 */
+	private static void row(PrintWriter out, Object... values) {
+		for (int i = 0; i < values.length; ++i) {
+			if (i != 0) {
+				out.print(',');
+			}
+			Object v = values[i];
+			if (v instanceof String) {
+				out.print('"');
+				out.print(((String) v).replace("\"", "\"\""));
+				out.print('"');
+			} else if (v != null) {
+				out.print(v);
+			}
+		}
+		out.print('\n');
+	}
+
+	/**
+	 * Write <code>load-db2.sql</code> and <code>load-h2.sql</code> which load every file into an
+	 * empty database created by the schema of <code>yrb-create</code>.
+	 *
+	 * @param directory
+	 *            the output directory
+	 *
+	 * @throws IOException
+	 *             If a script could not be written
+	 */
+	private void writeScripts(Path directory) throws IOException {
+		try (PrintWriter db2 = new PrintWriter(
+				Files.newBufferedWriter(directory.resolve("load-db2.sql"), StandardCharsets.UTF_8));
+				PrintWriter h2 = new PrintWriter(
+						Files.newBufferedWriter(directory.resolve("load-h2.sql"), StandardCharsets.UTF_8))) {
+			db2.println("-- Generated by DataGenerator; run with: db2 -tvf load-db2.sql");
+			h2.println("-- Generated by DataGenerator; run with: RUNSCRIPT FROM 'load-h2.sql'");
+			for (String[] table : DataGenerator.TABLES) {
+				String file = table[0] + DataGenerator.SUFFIX;
+				db2.println("LOAD FROM " + file
+						+ " OF DEL MODIFIED BY timestampformat=\"YYYY-MM-DD HH:MM:SS.UUUUUU\" INSERT INTO " + table[0]
+						+ ";");
+				db2.println("SET INTEGRITY FOR " + table[0] + " IMMEDIATE CHECKED;");
+				h2.println(DataGenerator.loadStatement(table, directory.resolve(file)) + ";");
+			}
+		}
+	}
+
+	/**
+	 * Returns the H2 statement that loads the given file into the given table.
+	 *
+	 * @param table
+	 *            the table name followed by its columns
+	 *
+	 * @param file
+	 *            the file of the table
+	 *
+	 * @return The <code>INSERT ... SELECT ... FROM CSVREAD(...)</code> statement.
+	 */
+	static String loadStatement(String[] table, Path file) {
+		String columns = String.join(", ", Arrays.copyOfRange(table, 1, table.length));
+		return "INSERT INTO " + table[0] + "(" + columns + ") SELECT * FROM CSVREAD('"
+				+ file.toAbsolutePath().toString().replace("'", "''") + "', '"
+				+ columns.replace(" ", "").toUpperCase() + "', 'charset=UTF-8 null=')";
+	}
+
+	/**
+	 * The main method for <code>DataGenerator</code>.
+	 *
+	 * @param args
+	 *            the output directory followed by the options as <code>name=value</code> arguments
+	 *
+	 * @throws IOException
+	 *             If a file could not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		DataGenerator generator = new DataGenerator();
+		try {
+			if (args.length == 0) {
+				throw new IllegalArgumentException("Missing output directory.");
+			}
+			generator.parse(Arrays.copyOfRange(args, 1, args.length));
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println("Usage: DataGenerator <directory> [customers=10000] [clubs=12] [categories=12] "
+					+ "[books=5000] [offers=3] [purchases=100000] [skew=1.0] [seed=42]");
+			System.exit(1);
+			return;
+		}
+
+		long start = System.nanoTime();
+		generator.generate(Paths.get(args[0]));
+		System.out.printf("Generated the data in %s in %.1fs.\n", args[0], (System.nanoTime() - start) / 1e9);
+	}
+}
@@ -0,0 +1,136 @@
+package yrb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DomainBenchmark</code> class measures the hot operations of the
+ *         <code>Book</code> and <code>Purchase</code> classes and the <code>TreeMap</code> numbering
+ *         done by <code>YRBAPP.find_books</code> and <code>YRBAPP.find_purchases</code>. <br>
+ *         <br>
+ *
+ *         Run with <code>java -jar benchmarks/target/benchmarks.jar DomainBenchmark -prof gc</code> to
+ *         also report the allocation rate of every operation.
+ *
+ * @see DomainOperations
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainBenchmark {
+	/**
+	 * The number of books and purchases.
+	 */
+	@Param({ "100", "10000" })
+	public int size;
+
+	/**
+	 * The workload.
+	 */
+	private DomainOperations ops;
+
+	/**
+	 * The index of the next element.
+	 */
+	private int next;
+
+	/**
+	 * Generate the books and purchases.
+	 */
+	@Setup
+	public void setUp() {
+		this.ops = Workloads.load("DomainWorkload", DomainOperations.class);
+		this.ops.setUp(this.size, 42L);
+		this.next = 0;
+	}
+
+	/**
+	 * Returns the index of the next element, cycling through all elements.
+	 *
+	 * @return The index.
+	 */
+	private int next() {
+		int result = this.next;
+		this.next = (result + 1 == this.size ? 0 : result + 1);
+		return result;
+	}
+
+	@Benchmark
+	public int bookCompareTo() {
+		return this.ops.bookCompareTo(this.next());
+	}
+
+	@Benchmark
+	public boolean bookEquals() {
+		return this.ops.bookEquals(this.next());
+	}
+
+	@Benchmark
+	public int bookHashCode() {
+		return this.ops.bookHashCode(this.next());
+	}
+
+	@Benchmark
+	public boolean bookIsEqual() {
+		return this.ops.bookIsEqual(this.next());
+	}
+
+	@Benchmark
+	public int purchaseCompareTo() {
+		return this.ops.purchaseCompareTo(this.next());
+	}
+
+	@Benchmark
+	public boolean purchaseIsEqual() {
+		return this.ops.purchaseIsEqual(this.next());
+	}
+
+	@Benchmark
+	public int purchaseHashCode() {
+		return this.ops.purchaseHashCode(this.next());
+	}
+
+	@Benchmark
+	public Object purchaseGetWhen() {
+		return this.ops.purchaseGetWhen(this.next());
+	}
+
+	@Benchmark
+	public Object purchaseSetWhen() {
+		return this.ops.purchaseSetWhen(this.next());
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object bookMap() {
+		return this.ops.bookMap();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object purchaseMap() {
+		return this.ops.purchaseMap();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Object purchaseHistoryMap() {
+		return this.ops.purchaseHistoryMap();
+	}
+}
@@ -0,0 +1,121 @@
+package yrb.benchmarks;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>DomainOperations</code> interface is the workload of <code>DomainBenchmark</code>,
+ *         i.e. the hot operations of the <code>Book</code> and <code>Purchase</code> classes. <br>
+ *         <br>
+ *
+ *         Every per-element operation takes the index of the element so that the benchmark can cycle
+ *         through different elements instead of measuring a constant.
+ *
+ * @see DomainBenchmark
+ */
+public interface DomainOperations {
+	/**
+	 * Generate <code>size</code> books and <code>size</code> purchases of a single customer, together
+	 * with an equal but distinct copy of every one of them.
+	 *
+	 * @param size
+	 *            the number of books and purchases
+	 *
+	 * @param seed
+	 *            the seed of the generator
+	 */
+	void setUp(int size, long seed);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>books[i].compareTo(books[i + 1])</code>.
+	 */
+	int bookCompareTo(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>books[i].equals(copies[i])</code>.
+	 */
+	boolean bookEquals(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>books[i].hashCode()</code>.
+	 */
+	int bookHashCode(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>books[i].isEqual(copies[i])</code>.
+	 */
+	boolean bookIsEqual(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>purchases[i].compareTo(purchases[i + 1])</code>.
+	 */
+	int purchaseCompareTo(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>purchases[i].isEqual(copies[i])</code>.
+	 */
+	boolean purchaseIsEqual(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>purchases[i].hashCode()</code>.
+	 */
+	int purchaseHashCode(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>purchases[i].getWhen()</code>.
+	 */
+	Object purchaseGetWhen(int i);
+
+	/**
+	 * @param i
+	 *            the element index
+	 *
+	 * @return <code>purchases[i].setWhen(time)</code>.
+	 */
+	Object purchaseSetWhen(int i);
+
+	/**
+	 * Number the books in order like <code>YRBAPP.find_books</code>.
+	 *
+	 * @return The <code>TreeMap&lt;Integer, Book&gt;</code>.
+	 */
+	Object bookMap();
+
+	/**
+	 * Number the purchases in order like the original <code>YRBAPP.find_purchases</code>.
+	 *
+	 * @return The <code>TreeMap&lt;Integer, Purchase&gt;</code>.
+	 */
+	Object purchaseMap();
+
+	/**
+	 * Merge the purchases into an empty <code>PurchaseHistory</code> and number them like the cached
+	 * <code>YRBAPP.find_purchases</code>.
+	 *
+	 * @return The <code>TreeMap&lt;Integer, Purchase&gt;</code>.
+	 */
+	Object purchaseHistoryMap();
+}
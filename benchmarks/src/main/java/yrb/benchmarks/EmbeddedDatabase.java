@@ -0,0 +1,354 @@
+package yrb.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>EmbeddedDatabase</code> class is an in-process <b>H2</b> database that stands in
+ *         for the DB2 database of the application, created and populated by <code>yrb-create</code>.
+ *         <br>
+ *         <br>
+ *
+ *         H2 runs in its DB2 compatibility mode which accepts the script and the statements of
+ *         <code>YRBAPPUtility</code> as they are, except for the column names that are keywords in
+ *         H2 (i.e. <code>when</code>, <code>desc</code>, <code>year</code>, <code>value</code> and
+ *         <code>day</code>) which are declared as non-keywords in the URL. The data can be scaled up
+ *         by copying every customer together with its memberships and purchases, so that the lookups
+ *         of a single customer stay the same size while the tables grow. Alternatively only the schema
+ *         of the script is used and the data is loaded from the files of a <code>DataGenerator</code>.
+ *         <br>
+ *         <br>
+ *
+ *         The database lives as long as this object is open, so any number of connections can be
+ *         made to it in the meantime.
+ *
+ * @see #EmbeddedDatabase(String, int)
+ * @see #EmbeddedDatabase(String, Path)
+ * @see #connect()
+ */
+public final class EmbeddedDatabase implements AutoCloseable {
+	/**
+	 * The classpath resource of the creation script.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String CREATE_SCRIPT = "/yrb-create";
+
+	/**
+	 * The URL options of every embedded database.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String URL_OPTIONS = ";MODE=DB2;NON_KEYWORDS=WHEN,DESC,YEAR,VALUE,DAY";
+
+	/**
+	 * The largest customer ID, i.e. the largest <code>integer</code>.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int MAX_CID = Integer.MAX_VALUE;
+
+	/**
+	 * The URL of the database.
+	 */
+	private final String url;
+
+	/**
+	 * The connection that keeps the in-memory database alive until <code>close()</code>.
+	 */
+	private final Connection keeper;
+
+	/**
+	 * The number of copies of every customer.
+	 */
+	private final int scale;
+
+	/**
+	 * General constructor for an <code>EmbeddedDatabase</code> object. <br>
+	 * <br>
+	 *
+	 * Create a new in-memory database, run <code>yrb-create</code> against it and then scale it up by
+	 * the given factor.
+	 *
+	 * @param name
+	 *            the name of the database which must be unique within the JVM
+	 *
+	 * @param scale
+	 *            the number of copies of every customer, i.e. <code>1</code> for the original data
+	 *
+	 * @throws NullPointerException
+	 *             If <code>name == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>scale &lt;= 0</code> or the scaled customer IDs do not fit in an
+	 *             <code>integer</code>
+	 *
+	 * @throws SQLException
+	 *             If the database could not be created or populated
+	 */
+	public EmbeddedDatabase(String name, int scale)
+			throws NullPointerException, IllegalArgumentException, SQLException {
+		if (name == null) {
+			throw new NullPointerException("Given database name is null.");
+		} else if (scale <= 0) {
+			throw new IllegalArgumentException("Given scale(" + scale + ") is not positive.");
+		}
+
+		this.url = "jdbc:h2:mem:" + name + EmbeddedDatabase.URL_OPTIONS;
+		this.scale = scale;
+		this.keeper = DriverManager.getConnection(this.url);
+		try {
+			this.create();
+			this.scaleUp();
+		} catch (SQLException | RuntimeException ex) {
+			this.keeper.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * General constructor for an <code>EmbeddedDatabase</code> object. <br>
+	 * <br>
+	 *
+	 * Create a new in-memory database with the schema of <code>yrb-create</code> and load the files
+	 * written by <code>DataGenerator.generate(Path)</code> into it. Like a bulk load, the tables are
+	 * filled before their constraints and indexes are added, which builds every index once from all
+	 * of the rows and still checks every constraint.
+	 *
+	 * @param name
+	 *            the name of the database which must be unique within the JVM
+	 *
+	 * @param directory
+	 *            the directory of the generated files
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>name == null</code> <br>
+	 *             If <code>directory == null</code>
+	 *
+	 * @throws SQLException
+	 *             If the database could not be created or a file could not be loaded
+	 *
+	 * @see DataGenerator
+	 */
+	public EmbeddedDatabase(String name, Path directory) throws NullPointerException, SQLException {
+		if (name == null) {
+			throw new NullPointerException("Given database name is null.");
+		} else if (directory == null) {
+			throw new NullPointerException("Given directory is null.");
+		}
+
+		this.url = "jdbc:h2:mem:" + name + EmbeddedDatabase.URL_OPTIONS;
+		this.scale = 1;
+		this.keeper = DriverManager.getConnection(this.url);
+		try {
+			this.load(directory);
+		} catch (SQLException | RuntimeException ex) {
+			this.keeper.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the URL of this database.
+	 *
+	 * @return <code>this.url</code>.
+	 */
+	public String getURL() {
+		return this.url;
+	}
+
+	/**
+	 * Returns the number of copies of every customer.
+	 *
+	 * @return <code>this.scale</code>.
+	 */
+	public int getScale() {
+		return this.scale;
+	}
+
+	/**
+	 * Returns a new connection to this database with auto commit turned off like the application.
+	 *
+	 * @return The new connection.
+	 *
+	 * @throws SQLException
+	 *             If the connection could not be made
+	 */
+	public Connection connect() throws SQLException {
+		Connection result = DriverManager.getConnection(this.url);
+		result.setAutoCommit(false);
+		return result;
+	}
+
+	/**
+	 * Run every statement of <code>yrb-create</code>.
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 */
+	private void create() throws SQLException {
+		String script = EmbeddedDatabase.readScript();
+
+		try (Statement st = this.keeper.createStatement()) {
+			for (String sql : script.split(";")) {
+				if (!sql.trim().isEmpty()) {
+					st.execute(sql);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create the tables of <code>yrb-create</code> without their constraints, load the generated files
+	 * into them and then add the constraints (foreign keys last), indexes and views of the script.
+	 *
+	 * @param directory
+	 *            the directory of the generated files
+	 *
+	 * @throws SQLException
+	 *             If a statement failed or a constraint does not hold
+	 */
+	private void load(Path directory) throws SQLException {
+		ArrayList<String> keys = new ArrayList<String>(), foreignKeys = new ArrayList<String>(),
+				rest = new ArrayList<String>();
+
+		try (Statement st = this.keeper.createStatement()) {
+			for (String sql : EmbeddedDatabase.readScript().split(";")) {
+				String trimmed = sql.trim();
+				if (trimmed.isEmpty() || trimmed.regionMatches(true, 0, "insert", 0, 6)) {
+					continue;
+				} else if (!trimmed.regionMatches(true, 0, "create table", 0, 12)) {
+					rest.add(trimmed); // Indexes and views.
+					continue;
+				}
+
+				// Split the body of the table into its columns and constraints at the top level commas.
+				int open = trimmed.indexOf('('), close = trimmed.lastIndexOf(')');
+				String table = trimmed.substring(12, open).trim(), body = trimmed.substring(open + 1, close);
+				ArrayList<String> columns = new ArrayList<String>();
+				int depth = 0, from = 0;
+				for (int i = 0; i <= body.length(); ++i) {
+					char c = (i == body.length() ? ',' : body.charAt(i));
+					if (c == '(') {
+						++depth;
+					} else if (c == ')') {
+						--depth;
+					} else if (c == ',' && depth == 0) {
+						String item = body.substring(from, i).trim();
+						if (item.regionMatches(true, 0, "constraint", 0, 10)) {
+							String alter = "ALTER TABLE " + table + " ADD " + item;
+							(item.toLowerCase().contains("foreign key") ? foreignKeys : keys).add(alter);
+						} else {
+							columns.add(item);
+						}
+						from = i + 1;
+					}
+				}
+				st.execute("CREATE TABLE " + table + " (" + String.join(", ", columns) + ")");
+			}
+
+			for (String[] table : DataGenerator.TABLES) {
+				st.executeUpdate(DataGenerator.loadStatement(table, directory.resolve(table[0] + DataGenerator.SUFFIX)));
+			}
+
+			for (ArrayList<String> statements : Arrays.asList(keys, foreignKeys, rest)) {
+				for (String sql : statements) {
+					st.execute(sql);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>yrb-create</code> without its comments.
+	 *
+	 * @return The script.
+	 *
+	 * @throws IllegalStateException
+	 *             If the script could not be read
+	 */
+	private static String readScript() throws IllegalStateException {
+		try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(EmbeddedDatabase.CREATE_SCRIPT)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + EmbeddedDatabase.CREATE_SCRIPT + ".");
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int n; (n = in.read(buffer)) != -1;) {
+				out.write(buffer, 0, n);
+			}
+			// No string literal of the script contains "--".
+			return new String(out.toByteArray(), StandardCharsets.UTF_8).replaceAll("(?m)--.*$", "");
+		} catch (IOException ex) {
+			throw new IllegalStateException("Failed to read " + EmbeddedDatabase.CREATE_SCRIPT + ".", ex);
+		}
+	}
+
+	/**
+	 * Add <code>this.scale - 1</code> copies of every customer, its memberships and its purchases by
+	 * shifting its ID by multiples of the largest original customer ID.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the scaled customer IDs do not fit in an <code>integer</code>
+	 *
+	 * @throws SQLException
+	 *             If an insertion failed
+	 */
+	private void scaleUp() throws IllegalArgumentException, SQLException {
+		if (this.scale == 1) {
+			return;
+		}
+
+		try (Statement st = this.keeper.createStatement()) {
+			int offset;
+			try (ResultSet answers = st.executeQuery("SELECT MAX(C.cid) FROM yrb_customer C")) {
+				answers.next();
+				offset = answers.getInt(1);
+			}
+			if ((long) offset * this.scale > EmbeddedDatabase.MAX_CID) {
+				throw new IllegalArgumentException("Given scale(" + this.scale + ") is larger than "
+						+ (EmbeddedDatabase.MAX_CID / offset) + ".");
+			}
+
+			String copies = "SYSTEM_RANGE(1, " + (this.scale - 1) + ") R";
+			st.executeUpdate("INSERT INTO yrb_customer(cid, name, city) SELECT C.cid + R.X * " + offset
+					+ ", C.name, C.city FROM yrb_customer C, " + copies + " WHERE C.cid <= " + offset);
+			st.executeUpdate("INSERT INTO yrb_member(club, cid) SELECT M.club, M.cid + R.X * " + offset
+					+ " FROM yrb_member M, " + copies + " WHERE M.cid <= " + offset);
+			st.executeUpdate("INSERT INTO yrb_purchase(cid, club, title, year, when, qnty) SELECT P.cid + R.X * "
+					+ offset + ", P.club, P.title, P.year, P.when, P.qnty FROM yrb_purchase P, " + copies
+					+ " WHERE P.cid <= " + offset);
+		}
+	}
+
+	/**
+	 * Drop this database together with all of its data.
+	 *
+	 * @throws SQLException
+	 *             If the database could not be dropped
+	 */
+	@Override
+	public void close() throws SQLException {
+		if (!this.keeper.isClosed()) {
+			try (Statement st = this.keeper.createStatement()) {
+				st.execute("SHUTDOWN");
+			} finally {
+				this.keeper.close();
+			}
+		}
+	}
+}
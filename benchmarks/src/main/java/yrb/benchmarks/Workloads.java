@@ -0,0 +1,48 @@
+package yrb.benchmarks;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Workloads</code> class loads the workload implementations of the benchmarks. <br>
+ *         <br>
+ *
+ *         The application classes are in the default package which cannot be imported from a named
+ *         package, while JMH requires every benchmark to be in a named package. Therefore every
+ *         workload is implemented by a default package class of this module against an interface of
+ *         this package, and is loaded by name once per trial so that the measured calls are plain
+ *         (monomorphic) interface calls.
+ */
+public final class Workloads {
+	/**
+	 * Default constructor for a <code>Workloads</code> object.
+	 */
+	// Private constructor so that no object of this type can be instantiated.
+	private Workloads() {
+		// Empty by design.
+	}
+
+	/**
+	 * Returns a new instance of the given default package workload class.
+	 *
+	 * @param <T>
+	 *            the workload interface
+	 *
+	 * @param className
+	 *            the name of the workload class
+	 *
+	 * @param type
+	 *            the workload interface
+	 *
+	 * @return The new instance.
+	 *
+	 * @throws IllegalStateException
+	 *             If the class could not be instantiated
+	 */
+	public static <T> T load(String className, Class<T> type) throws IllegalStateException {
+		try {
+			return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException | ClassCastException ex) {
+			throw new IllegalStateException("Failed to load the workload " + className + ".", ex);
+		}
+	}
+}
@@ -0,0 +1,418 @@
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>AdmissionController</code> class decides which statements may run against the
+ *         database, so that an overloaded database slows down the statements that can wait and
+ *         quickly rejects the ones that cannot, instead of letting every statement run into
+ *         <code>YRBAPPUtility.QUERY_TIMEOUT</code>. <br>
+ *         <br>
+ *
+ *         Every statement of <code>YRBAPPUtility</code> has a limiter of its own, which bounds the
+ *         number of its executions that run at once, so that a slow statement cannot starve the
+ *         others. A statement that finds its limiter full waits in a bounded queue, unless the
+ *         expected wait already exceeds the deadline of its session, in which case it is rejected
+ *         right away. <br>
+ *         <br>
+ *
+ *         The limits adapt to the observed latency (additive increase, multiplicative decrease):
+ *         a limit grows by about one per round of executions while the latency stays close to the
+ *         lowest latency seen, and shrinks by <code>10%</code> whenever an execution is much slower
+ *         than that or times out. A limit shrinks at most once per latency window, i.e. only
+ *         executions admitted after the last decrease can shrink it again, so that a burst of slow
+ *         executions that all ran under the old limit does not collapse it.
+ *
+ * @see #admit(String, long)
+ * @see YRBStore
+ */
+public final class AdmissionController {
+	/**
+	 * The factor that a limit is multiplied by when the database is overloaded.
+	 */
+	private static final double DECREASE = 0.9;
+
+	/**
+	 * The factor of the lowest latency above which an execution counts as overloaded.
+	 */
+	private static final long TOLERANCE = 2;
+
+	/**
+	 * The latency below which an execution never counts as overloaded.
+	 */
+	private static final long MIN_TARGET = TimeUnit.MILLISECONDS.toNanos(50);
+
+	/**
+	 * The maximum limit of every statement.
+	 */
+	private final int maxLimit;
+
+	/**
+	 * The maximum number of executions of every statement that wait for admission.
+	 */
+	private final int maxQueue;
+
+	/**
+	 * The limiter of every statement, keyed by statement name.
+	 */
+	private final ConcurrentHashMap<String, Limiter> limiters;
+
+	/**
+	 * The number of rejected executions by statement and reason, keyed by their label string.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> rejected;
+
+	/**
+	 * General constructor for an <code>AdmissionController</code> object. Every limit starts at its
+	 * maximum.
+	 *
+	 * @param maxLimit
+	 *            the maximum number of executions of every statement that run at once
+	 *
+	 * @param maxQueue
+	 *            the maximum number of executions of every statement that wait for admission
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>maxLimit &lt;= 0</code> <br>
+	 *             If <code>maxQueue &lt; 0</code>
+	 */
+	public AdmissionController(int maxLimit, int maxQueue) throws IllegalArgumentException {
+		if (maxLimit <= 0) {
+			throw new IllegalArgumentException("Given maximum limit(" + maxLimit + ") is not positive.");
+		} else if (maxQueue < 0) {
+			throw new IllegalArgumentException("Given maximum queue length(" + maxQueue + ") is negative.");
+		}
+
+		this.maxLimit = maxLimit;
+		this.maxQueue = maxQueue;
+		this.limiters = new ConcurrentHashMap<String, Limiter>();
+		this.rejected = new ConcurrentHashMap<String, LongAdder>();
+	}
+
+	/**
+	 * Returns the current limit of every statement that has been admitted thus far.
+	 *
+	 * @return A <code>TreeMap&lt;String, Double&gt;</code> mapping statement names to their limits.
+	 */
+	public TreeMap<String, Double> getLimits() {
+		TreeMap<String, Double> result = new TreeMap<String, Double>();
+		for (Limiter l : this.limiters.values()) {
+			l.lock.lock();
+			try {
+				result.put(l.name, l.limit);
+			} finally {
+				l.lock.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of running and waiting executions of every statement.
+	 *
+	 * @return A <code>TreeMap&lt;String, Integer&gt;</code> mapping the label strings of
+	 *         <code>statement</code> and <code>state</code> (<code>running</code> or
+	 *         <code>waiting</code>) to their counts.
+	 */
+	public TreeMap<String, Integer> getQueries() {
+		TreeMap<String, Integer> result = new TreeMap<String, Integer>();
+		for (Limiter l : this.limiters.values()) {
+			l.lock.lock();
+			try {
+				result.put(Metrics.labels("statement", l.name, "state", "running"), l.running);
+				result.put(Metrics.labels("statement", l.name, "state", "waiting"), l.waiting);
+			} finally {
+				l.lock.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of rejected executions.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping the label strings of
+	 *         <code>statement</code> and <code>reason</code> (<code>queue_full</code> or
+	 *         <code>deadline</code>) to their counts.
+	 */
+	public TreeMap<String, Long> getRejected() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.rejected.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Wait until an execution of the given statement may run.
+	 *
+	 * @param name
+	 *            the statement name
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> by which the execution must have finished
+	 *
+	 * @return The permit of the execution, which must be released once the execution is over.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>name == null</code>
+	 *
+	 * @throws SQLTransientException
+	 *             If the queue of the statement is full, the execution would miss its deadline or the
+	 *             thread was interrupted
+	 */
+	public Permit admit(String name, long deadline) throws NullPointerException, SQLTransientException {
+		if (name == null) {
+			throw new NullPointerException("Given statement name is null.");
+		}
+
+		return this.limiters.computeIfAbsent(name, Limiter::new).admit(deadline);
+	}
+
+	/**
+	 * Count a rejected execution and return the exception that rejects it.
+	 *
+	 * @param name
+	 *            the statement name
+	 *
+	 * @param reason
+	 *            <code>queue_full</code> or <code>deadline</code>
+	 *
+	 * @param message
+	 *            the detail message
+	 *
+	 * @return The exception.
+	 */
+	private SQLTransientException reject(String name, String reason, String message) {
+		this.rejected.computeIfAbsent(Metrics.labels("statement", name, "reason", reason), k -> new LongAdder())
+				.increment();
+		return new SQLTransientException(message);
+	}
+
+	/**
+	 * The <code>Limiter</code> class bounds the concurrent executions of a single statement.
+	 */
+	private final class Limiter {
+		/**
+		 * The statement name.
+		 */
+		private final String name;
+
+		/**
+		 * Guards every field below.
+		 */
+		private final ReentrantLock lock;
+
+		/**
+		 * Signalled whenever an execution may have become admissible.
+		 */
+		private final Condition available;
+
+		/**
+		 * The current limit, whose integer part is the number of executions that may run at once.
+		 */
+		private double limit;
+
+		/**
+		 * The number of running executions.
+		 */
+		private int running;
+
+		/**
+		 * The number of waiting executions.
+		 */
+		private int waiting;
+
+		/**
+		 * The lowest latency seen, which slowly drifts upwards so that a lasting change of the
+		 * database is learned, or <code>0</code> if nothing has been seen yet.
+		 */
+		private long minLatency;
+
+		/**
+		 * The moving average of the latency or <code>0</code> if nothing has been seen yet.
+		 */
+		private double avgLatency;
+
+		/**
+		 * The <code>System.nanoTime()</code> at which the limit was last decreased or the limiter was
+		 * created.
+		 */
+		private long decreasedAt;
+
+		/**
+		 * General constructor for a <code>Limiter</code> object.
+		 *
+		 * @param name
+		 *            the statement name
+		 */
+		private Limiter(String name) {
+			this.name = name;
+			this.lock = new ReentrantLock();
+			this.available = this.lock.newCondition();
+			this.limit = AdmissionController.this.maxLimit;
+			this.running = 0;
+			this.waiting = 0;
+			this.minLatency = 0;
+			this.avgLatency = 0;
+			this.decreasedAt = System.nanoTime();
+		}
+
+		/**
+		 * Returns whether another execution may run.
+		 *
+		 * @return <code>this.running &lt; (int) this.limit</code>.
+		 */
+		private boolean isAdmissible() {
+			return (this.running < (int) this.limit);
+		}
+
+		/**
+		 * Wait until an execution may run.
+		 *
+		 * @param deadline
+		 *            the <code>System.nanoTime()</code> by which the execution must have finished
+		 *
+		 * @return The permit of the execution.
+		 *
+		 * @throws SQLTransientException
+		 *             If the queue is full, the execution would miss its deadline or the thread was
+		 *             interrupted
+		 */
+		private Permit admit(long deadline) throws SQLTransientException {
+			AdmissionController outer = AdmissionController.this;
+			this.lock.lock();
+			try {
+				if (this.waiting == 0 && this.isAdmissible()) {
+					++this.running;
+					return new Permit(this);
+				} else if (this.waiting >= outer.maxQueue) {
+					throw outer.reject(this.name, "queue_full",
+							"Too many executions of " + this.name + " are waiting for the database.");
+				}
+
+				// Every execution ahead of this one and this one itself take about the average latency.
+				long remaining = deadline - System.nanoTime();
+				double expected = this.avgLatency * (this.waiting + 2) / Math.max(1, (int) this.limit);
+				if (remaining <= 0 || (!this.isAdmissible() && expected > remaining)) {
+					throw outer.reject(this.name, "deadline",
+							"An execution of " + this.name + " would not finish before its deadline.");
+				}
+
+				++this.waiting;
+				try {
+					while (!this.isAdmissible()) {
+						if (remaining <= 0) {
+							throw outer.reject(this.name, "deadline",
+									"An execution of " + this.name + " did not start before its deadline.");
+						}
+						remaining = this.available.awaitNanos(remaining);
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new SQLTransientException("Interrupted waiting for admission of " + this.name + ".", ex);
+				} finally {
+					--this.waiting;
+				}
+
+				++this.running;
+				return new Permit(this);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * An execution is over: adapt the limit to its latency and let the next execution run.
+		 *
+		 * @param start
+		 *            the <code>System.nanoTime()</code> at which the execution was admitted
+		 *
+		 * @param latency
+		 *            the latency of the execution in nanoseconds
+		 *
+		 * @param overloaded
+		 *            whether the execution timed out or could not get a connection
+		 */
+		private void release(long start, long latency, boolean overloaded) {
+			AdmissionController outer = AdmissionController.this;
+			this.lock.lock();
+			try {
+				boolean saturated = (this.running >= (int) this.limit);
+				--this.running;
+
+				this.minLatency = (this.minLatency == 0 ? latency
+						: Math.min(latency, this.minLatency + this.minLatency / 128));
+				this.avgLatency = (this.avgLatency == 0 ? latency : 0.9 * this.avgLatency + 0.1 * latency);
+
+				long target = Math.max(AdmissionController.TOLERANCE * this.minLatency, AdmissionController.MIN_TARGET);
+				if (overloaded || latency > target) {
+					// Executions admitted before the last decrease ran under the old limit already.
+					if (start - this.decreasedAt >= 0) {
+						this.limit = Math.max(1, this.limit * AdmissionController.DECREASE);
+						this.decreasedAt = System.nanoTime();
+					}
+				} else if (saturated) { // Only grow a limit that is actually being used.
+					this.limit = Math.min(outer.maxLimit, this.limit + 1 / this.limit);
+				}
+
+				this.available.signalAll();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * The <code>Permit</code> class represents an admitted execution.
+	 */
+	public final class Permit {
+		/**
+		 * The limiter that admitted the execution.
+		 */
+		private final Limiter limiter;
+
+		/**
+		 * The <code>System.nanoTime()</code> at which the execution was admitted.
+		 */
+		private final long start;
+
+		/**
+		 * Whether the permit has been released.
+		 */
+		private boolean released;
+
+		/**
+		 * General constructor for a <code>Permit</code> object.
+		 *
+		 * @param limiter
+		 *            the limiter that admitted the execution
+		 */
+		private Permit(Limiter limiter) {
+			this.limiter = limiter;
+			this.start = System.nanoTime();
+			this.released = false;
+		}
+
+		/**
+		 * Release the permit. Nothing happens if it has already been released.
+		 *
+		 * @param overloaded
+		 *            whether the execution timed out or could not get a connection
+		 */
+		public void release(boolean overloaded) {
+			if (!this.released) {
+				this.released = true;
+				this.limiter.release(this.start, System.nanoTime() - this.start, overloaded);
+			}
+		}
+	}
+}
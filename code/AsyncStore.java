@@ -0,0 +1,372 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>AsyncStore</code> class runs the blocking JDBC calls of a <code>YRBStore</code>
+ *         in the background and returns their results as <code>CompletableFuture</code>s, so that
+ *         independent lookups can run in parallel and be composed with
+ *         <code>thenCombine</code>, <code>allOf</code> and the like instead of one after another.
+ *         <br>
+ *         <br>
+ *
+ *         Every query runs on its own virtual thread when the runtime has them (and on a fixed pool
+ *         of platform threads otherwise). A semaphore bounds the number of queries that run at once,
+ *         by default to the size of the connection pool of the store, so that a burst of queries
+ *         waits cheaply on the semaphore instead of timing out inside the pool.
+ *
+ * @see #submit(Query)
+ *
+ * @see YRBStore
+ */
+public final class AsyncStore implements AutoCloseable {
+	/**
+	 * A blocking query against a session of the store.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	@FunctionalInterface
+	public static interface Query<T> {
+		/**
+		 * Run the query using the given session.
+		 *
+		 * @param session
+		 *            the session
+		 *
+		 * @return The result.
+		 *
+		 * @throws SQLException
+		 *             If a statement failed
+		 */
+		T apply(Session session) throws SQLException;
+	}
+
+	/**
+	 * The store that the queries run against.
+	 */
+	private final YRBStore store;
+
+	/**
+	 * The maximum number of queries that run at once.
+	 */
+	private final int limit;
+
+	/**
+	 * One permit for every query that may start running.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * The threads that run the queries.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Same as calling <code>AsyncStore(YRBStore store, int limit)</code> with arguments
+	 * <code>(store, store.getPool().getSize())</code>.
+	 *
+	 * @param store
+	 *            the store that the queries run against
+	 *
+	 * @throws NullPointerException
+	 *             If <code>store == null</code>
+	 *
+	 * @see #AsyncStore(YRBStore, int)
+	 */
+	public AsyncStore(YRBStore store) throws NullPointerException {
+		this(store, store.getPool().getSize());
+	}
+
+	/**
+	 * General constructor for an <code>AsyncStore</code> object. The store is not owned by the
+	 * <code>AsyncStore</code>, i.e. its pool stays open after <code>close()</code>.
+	 *
+	 * @param store
+	 *            the store that the queries run against
+	 *
+	 * @param limit
+	 *            the maximum number of queries that run at once
+	 *
+	 * @throws NullPointerException
+	 *             If <code>store == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt;= 0</code>
+	 */
+	public AsyncStore(YRBStore store, int limit) throws NullPointerException, IllegalArgumentException {
+		if (store == null) {
+			throw new NullPointerException("Given store is null.");
+		} else if (limit <= 0) {
+			throw new IllegalArgumentException("Given concurrency limit(" + limit + ") is not positive.");
+		}
+
+		this.store = store;
+		this.limit = limit;
+		this.permits = new Semaphore(limit, true);
+		this.executor = AsyncStore.newExecutor(limit, "yrbapp-async");
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread, or a fixed pool of daemon
+	 * platform threads when the runtime has no virtual threads.
+	 *
+	 * @param threads
+	 *            the number of platform threads
+	 *
+	 * @param name
+	 *            the name of the platform threads
+	 *
+	 * @return The executor.
+	 */
+	static ExecutorService newExecutor(int threads, String name) {
+		try {
+			// Looked up reflectively since the build targets an older release.
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			return Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Returns the store that the queries run against.
+	 *
+	 * @return <code>this.store</code>.
+	 */
+	public YRBStore getStore() {
+		return this.store;
+	}
+
+	/**
+	 * Returns the maximum number of queries that run at once.
+	 *
+	 * @return <code>this.limit</code>.
+	 */
+	public int getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Returns the number of queries that are running.
+	 *
+	 * @return <code>this.limit - this.permits.availablePermits()</code>.
+	 */
+	public int getActive() {
+		return this.limit - this.permits.availablePermits();
+	}
+
+	/**
+	 * Returns an estimate of the number of queries that wait for a permit.
+	 *
+	 * @return <code>this.permits.getQueueLength()</code>.
+	 */
+	public int getWaiting() {
+		return this.permits.getQueueLength();
+	}
+
+	/**
+	 * Returns whether the queries run on virtual threads.
+	 *
+	 * @return <code>!(this.executor instanceof ThreadPoolExecutor)</code>.
+	 */
+	public boolean isVirtual() {
+		return !(this.executor instanceof ThreadPoolExecutor);
+	}
+
+	/**
+	 * Run the given query on a new session whose transaction is rolled back afterwards, which suits
+	 * every read that does not need to see the uncommitted writes of another session. Queries never
+	 * run on a session of the caller, since a session must only be used by one thread at a time.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param query
+	 *            the query
+	 *
+	 * @return A future of the result, which completes exceptionally with the
+	 *         <code>SQLException</code> of a failed statement.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>query == null</code>
+	 */
+	public <T> CompletableFuture<T> submit(Query<T> query) throws NullPointerException {
+		if (query == null) {
+			throw new NullPointerException("Given query is null.");
+		}
+
+		return this.run(() -> {
+			try (Session session = this.store.open()) {
+				return query.apply(session);
+			}
+		});
+	}
+
+	/**
+	 * A task that completes its future with the result of a blocking call once a permit is available.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	private final class Job<T> implements Runnable {
+		/**
+		 * The blocking call.
+		 */
+		private final Callable<T> call;
+
+		/**
+		 * The future of the result.
+		 */
+		private final CompletableFuture<T> result;
+
+		/**
+		 * General constructor for a <code>Job</code> object.
+		 *
+		 * @param call
+		 *            the blocking call
+		 */
+		private Job(Callable<T> call) {
+			this.call = call;
+			this.result = new CompletableFuture<T>();
+		}
+
+		@Override
+		public void run() {
+			try {
+				AsyncStore.this.permits.acquire();
+			} catch (InterruptedException ex) { // Closed while waiting.
+				Thread.currentThread().interrupt();
+				this.result.completeExceptionally(ex);
+				return;
+			}
+
+			try {
+				this.result.complete(this.call.call());
+			} catch (Exception ex) {
+				this.result.completeExceptionally(ex);
+			} finally {
+				AsyncStore.this.permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Run the given blocking call in the background once a permit is available.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param call
+	 *            the blocking call
+	 *
+	 * @return A future of the result of the call.
+	 */
+	private <T> CompletableFuture<T> run(Callable<T> call) {
+		Job<T> job = new Job<T>(call);
+		try {
+			this.executor.execute(job);
+		} catch (RejectedExecutionException ex) { // Closed.
+			job.result.completeExceptionally(ex);
+		}
+		return job.result;
+	}
+
+	/**
+	 * Find all categories.
+	 *
+	 * @return A future of the categories in order.
+	 *
+	 * @see YRBStore#fetchCategories(Session)
+	 */
+	public CompletableFuture<ArrayList<String>> fetchCategories() {
+		return this.submit(this.store::fetchCategories);
+	}
+
+	/**
+	 * Find the category that the given customer has purchased the most books from.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return A future of the category, which is <code>null</code> if the customer has not purchased
+	 *         anything.
+	 *
+	 * @see YRBStore#findFavoriteCategory(Session)
+	 */
+	public CompletableFuture<String> findFavoriteCategory(int cid) {
+		return this.submit(session -> this.store.findFavoriteCategory(session.setCustomer(cid)));
+	}
+
+	/**
+	 * Find the first page of books of the given category.
+	 *
+	 * @param category
+	 *            the category
+	 *
+	 * @param limit
+	 *            the maximum number of books
+	 *
+	 * @return A future of the books of the page in <code>Book.compareTo</code> order.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>category == null</code>
+	 *
+	 * @see YRBStore#findBookPage(Session, Book, boolean, int)
+	 */
+	public CompletableFuture<ArrayList<Book>> findBookPage(String category, int limit) throws NullPointerException {
+		if (category == null) {
+			throw new NullPointerException("Given category is null.");
+		}
+
+		return this.submit(session -> this.store.findBookPage(session.setCategory(category), null, true, limit));
+	}
+
+	/**
+	 * Find the cheapest offer of the given book among the clubs of the given customer.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param book
+	 *            the book
+	 *
+	 * @return A future of the offer as a purchase of quantity <code>0</code> or of <code>null</code> if
+	 *         the book is not offered to the customer.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>book == null</code>
+	 *
+	 * @see YRBStore#minPrice(Session)
+	 */
+	public CompletableFuture<Purchase> minPrice(int cid, Book book) throws NullPointerException {
+		if (book == null) {
+			throw new NullPointerException("Given book is null.");
+		}
+
+		return this.submit(session -> this.store.minPrice(session.setCustomer(cid).setBook(book)));
+	}
+
+	/**
+	 * Stop running queries. Queries that have not started yet complete exceptionally.
+	 */
+	@Override
+	public void close() {
+		for (Runnable r : this.executor.shutdownNow()) {
+			if (r instanceof Job) { // Never leave the future of a dropped job pending.
+				((Job<?>) r).result.completeExceptionally(new RejectedExecutionException("Asynchronous store is closed."));
+			}
+		}
+	}
+}
@@ -0,0 +1,425 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>CatalogIndex</code> class is an in-memory set of bitmap indexes over the
+ *         attributes of the <code>yrb_book</code> table and the prices of the
+ *         <code>yrb_offer</code> table in the <b><i>York River Bookseller's Database</i></b>. <br>
+ *         <br>
+ *
+ *         Every book is given a dense document number so that the set of books matching a single
+ *         attribute value is a <code>BitSet</code>. Arbitrary filters are then answered by combining
+ *         the bitmaps with <code>BitSet.and</code> and <code>BitSet.or</code> instead of issuing a
+ *         dynamic SQL query per combination.
+ *
+ * @see #CatalogIndex(Collection, Map)
+ * @see #filter(Collection, String, String, short, short, short, short, float, float)
+ *
+ * @see Book
+ * @see YRBAPP
+ */
+public final class CatalogIndex {
+	/**
+	 * Mapping document numbers to books, sorted by <code>Book.compareTo</code>.
+	 */
+	private final Book[] books;
+
+	/**
+	 * Mapping books (using <code>Book.compareTo</code> i.e. the primary key) to document numbers.
+	 */
+	private final TreeMap<Book, Integer> docs;
+
+	/**
+	 * Mapping categories to the bitmap of their books.
+	 */
+	private final HashMap<String, BitSet> categories;
+
+	/**
+	 * Mapping languages (<code>Book.getLanguage()</code>) to the bitmap of their books.
+	 */
+	private final HashMap<String, BitSet> languages;
+
+	/**
+	 * Mapping years to the bitmap of their books.
+	 */
+	private final TreeMap<Short, BitSet> years;
+
+	/**
+	 * Mapping weights to the bitmap of their books.
+	 */
+	private final TreeMap<Short, BitSet> weights;
+
+	/**
+	 * Mapping club names to the offer price of every book, where <code>Float.NaN</code> means that the
+	 * book is not offered by the club.
+	 */
+	private final HashMap<String, float[]> offers;
+
+	/**
+	 * Mapping a sorted set of club names (i.e. a membership) to the best price of every book across
+	 * those clubs.
+	 *
+	 * @see #bestPrices(Collection)
+	 */
+	private final ConcurrentHashMap<String, float[]> bestPrices;
+
+	/**
+	 * General constructor for a <code>CatalogIndex</code> object.
+	 *
+	 * @param books
+	 *            the books to index
+	 *
+	 * @param offers
+	 *            mapping club names to the books (by primary key) they offer and their prices, could be
+	 *            <code>null</code>
+	 *
+	 * @throws NullPointerException
+	 *             If <code>books == null</code> or if it contains <code>null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>books</code> contains two books with the same primary key
+	 */
+	public CatalogIndex(Collection<Book> books, Map<String, Map<Book, Float>> offers)
+			throws NullPointerException, IllegalArgumentException {
+		if (books == null) {
+			throw new NullPointerException("Given book collection is null.");
+		}
+
+		this.docs = new TreeMap<Book, Integer>();
+		for (Book b : books) {
+			if (b == null) {
+				throw new NullPointerException("Given book collection contains null.");
+			} else if (this.docs.put(b, 0) != null) {
+				throw new IllegalArgumentException("Given book collection contains duplicate book(" + b + ").");
+			}
+		}
+		this.books = this.docs.keySet().toArray(new Book[this.docs.size()]);
+
+		this.categories = new HashMap<String, BitSet>();
+		this.languages = new HashMap<String, BitSet>();
+		this.years = new TreeMap<Short, BitSet>();
+		this.weights = new TreeMap<Short, BitSet>();
+		for (int doc = 0; doc < this.books.length; ++doc) {
+			Book b = this.books[doc];
+			this.docs.put(b, doc);
+			this.categories.computeIfAbsent(b.category, k -> new BitSet()).set(doc);
+			this.languages.computeIfAbsent(b.getLanguage(), k -> new BitSet()).set(doc);
+			this.years.computeIfAbsent(b.year, k -> new BitSet()).set(doc);
+			this.weights.computeIfAbsent(b.weight, k -> new BitSet()).set(doc);
+		}
+
+		this.offers = new HashMap<String, float[]>();
+		if (offers != null) {
+			for (Map.Entry<String, Map<Book, Float>> club : offers.entrySet()) {
+				float[] prices = new float[this.books.length];
+				Arrays.fill(prices, Float.NaN);
+				for (Map.Entry<Book, Float> o : club.getValue().entrySet()) {
+					Integer doc = this.docs.get(o.getKey());
+					if (doc != null) { // Ignore offers of unknown books.
+						prices[doc] = o.getValue().floatValue();
+					}
+				}
+				this.offers.put(club.getKey(), prices);
+			}
+		}
+		this.bestPrices = new ConcurrentHashMap<String, float[]>();
+	}
+
+	/**
+	 * Returns the number of books in this index.
+	 *
+	 * @return <code>this.books.length</code>.
+	 */
+	public int size() {
+		return this.books.length;
+	}
+
+	/**
+	 * Returns the bitmap of all books.
+	 *
+	 * @return A new bitmap with every document number set.
+	 */
+	public BitSet all() {
+		BitSet result = new BitSet(this.books.length);
+		result.set(0, this.books.length);
+		return result;
+	}
+
+	/**
+	 * Returns the bitmap of the books of any of the given categories.
+	 *
+	 * @param categories
+	 *            the book categories
+	 *
+	 * @return A new bitmap of the matching books.
+	 */
+	public BitSet category(String... categories) {
+		return CatalogIndex.union(this.categories, categories);
+	}
+
+	/**
+	 * Returns the bitmap of the books of any of the given languages, where <code>Book.UNKNOWN</code>
+	 * matches the books without a language.
+	 *
+	 * @param languages
+	 *            the book languages
+	 *
+	 * @return A new bitmap of the matching books.
+	 *
+	 * @see Book#getLanguage()
+	 */
+	public BitSet language(String... languages) {
+		return CatalogIndex.union(this.languages, languages);
+	}
+
+	/**
+	 * Returns the bitmap of the books with a year in the range <code>[min, max]</code>.
+	 *
+	 * @param min
+	 *            the minimum year
+	 *
+	 * @param max
+	 *            the maximum year
+	 *
+	 * @return A new bitmap of the matching books.
+	 */
+	public BitSet years(short min, short max) {
+		return CatalogIndex.union(this.years, min, max);
+	}
+
+	/**
+	 * Returns the bitmap of the books with a weight in the range <code>[min, max]</code>.
+	 *
+	 * @param min
+	 *            the minimum weight
+	 *
+	 * @param max
+	 *            the maximum weight
+	 *
+	 * @return A new bitmap of the matching books.
+	 */
+	public BitSet weights(short min, short max) {
+		return CatalogIndex.union(this.weights, min, max);
+	}
+
+	/**
+	 * Returns the bitmap of the books whose best price across the given clubs is in the range
+	 * <code>[min, max]</code>. Books that are not offered by any of the given clubs never match.
+	 *
+	 * @param clubs
+	 *            the clubs that the customer is a member of
+	 *
+	 * @param min
+	 *            the minimum price
+	 *
+	 * @param max
+	 *            the maximum price
+	 *
+	 * @return A new bitmap of the matching books.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>clubs == null</code>
+	 *
+	 * @see #bestPrices(Collection)
+	 */
+	public BitSet prices(Collection<String> clubs, float min, float max) throws NullPointerException {
+		float[] best = this.bestPrices(clubs);
+		BitSet result = new BitSet(this.books.length);
+		for (int doc = 0; doc < best.length; ++doc) {
+			// NaN comparisons are always false so books without offers never match.
+			if (min <= best[doc] && best[doc] <= max) {
+				result.set(doc);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the best (i.e. minimum) price of every book across the given clubs. The result is
+	 * computed once per distinct set of clubs and then reused.
+	 *
+	 * @param clubs
+	 *            the clubs that the customer is a member of
+	 *
+	 * @return Mapping document numbers to the best price, where <code>Float.NaN</code> means that
+	 *         the book is not offered by any of the given clubs.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>clubs == null</code>
+	 */
+	private float[] bestPrices(Collection<String> clubs) throws NullPointerException {
+		if (clubs == null) {
+			throw new NullPointerException("Given club collection is null.");
+		}
+
+		TreeSet<String> sorted = new TreeSet<String>(clubs);
+		return this.bestPrices.computeIfAbsent(sorted.toString(), k -> {
+			float[] result = new float[this.books.length];
+			Arrays.fill(result, Float.NaN);
+			for (String club : sorted) {
+				float[] prices = this.offers.get(club);
+				if (prices != null) {
+					for (int doc = 0; doc < result.length; ++doc) {
+						float p = prices[doc];
+						if (!Float.isNaN(p) && (Float.isNaN(result[doc]) || p < result[doc])) {
+							result[doc] = p;
+						}
+					}
+				}
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Returns the books of the given bitmap.
+	 *
+	 * @param bitmap
+	 *            the bitmap of document numbers
+	 *
+	 * @return The books of the given bitmap in <code>Book.compareTo</code> order.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>bitmap == null</code>
+	 */
+	public List<Book> books(BitSet bitmap) throws NullPointerException {
+		if (bitmap == null) {
+			throw new NullPointerException("Given bitmap is null.");
+		}
+
+		ArrayList<Book> result = new ArrayList<Book>(bitmap.cardinality());
+		for (int doc = bitmap.nextSetBit(0); doc >= 0 && doc < this.books.length; doc = bitmap.nextSetBit(doc + 1)) {
+			result.add(this.books[doc]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the books matching all of the given conditions. Every <code>null</code> condition
+	 * matches all books, and so does an unbounded range, i.e. <code>[0, Short.MAX_VALUE]</code> for the
+	 * years and weights and <code>[0, Float.MAX_VALUE]</code> (or wider) for the prices.
+	 *
+	 * @param clubs
+	 *            the clubs that the customer is a member of, which is only used for a bounded price range
+	 *            and could be <code>null</code> otherwise
+	 *
+	 * @param category
+	 *            the book category
+	 *
+	 * @param language
+	 *            the book language
+	 *
+	 * @param minYear
+	 *            the minimum book year
+	 *
+	 * @param maxYear
+	 *            the maximum book year
+	 *
+	 * @param minWeight
+	 *            the minimum book weight
+	 *
+	 * @param maxWeight
+	 *            the maximum book weight
+	 *
+	 * @param minPrice
+	 *            the minimum best price
+	 *
+	 * @param maxPrice
+	 *            the maximum best price
+	 *
+	 * @return The matching books in <code>Book.compareTo</code> order.
+	 *
+	 * @see #books(BitSet)
+	 */
+	public List<Book> filter(Collection<String> clubs, String category, String language, short minYear,
+			short maxYear, short minWeight, short maxWeight, float minPrice, float maxPrice) {
+		BitSet result = (category == null ? this.all() : this.category(category));
+		if (language != null) {
+			result.and(this.language(language));
+		}
+		if (minYear > 0 || maxYear < Short.MAX_VALUE) {
+			result.and(this.years(minYear, maxYear));
+		}
+		if (minWeight > 0 || maxWeight < Short.MAX_VALUE) {
+			result.and(this.weights(minWeight, maxWeight));
+		}
+		if (clubs != null && CatalogIndex.isBounded(minPrice, maxPrice)) {
+			result.and(this.prices(clubs, minPrice, maxPrice));
+		}
+		return this.books(result);
+	}
+
+	/**
+	 * Returns whether the given price range excludes any price, in which case the books need to be
+	 * checked against their best prices.
+	 *
+	 * @param minPrice
+	 *            the minimum best price
+	 *
+	 * @param maxPrice
+	 *            the maximum best price
+	 *
+	 * @return <code>minPrice &gt; 0 || maxPrice &lt; Float.MAX_VALUE</code>.
+	 */
+	public static boolean isBounded(float minPrice, float maxPrice) {
+		return (minPrice > 0 || maxPrice < Float.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the union of the bitmaps of the given keys.
+	 *
+	 * @param bitmaps
+	 *            mapping keys to bitmaps
+	 *
+	 * @param keys
+	 *            the keys
+	 *
+	 * @return A new bitmap.
+	 */
+	private static BitSet union(Map<String, BitSet> bitmaps, String... keys) {
+		BitSet result = new BitSet();
+		if (keys != null) {
+			for (String key : keys) {
+				BitSet b = bitmaps.get(key);
+				if (b != null) {
+					result.or(b);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the union of the bitmaps of the keys in the range <code>[min, max]</code>.
+	 *
+	 * @param bitmaps
+	 *            mapping keys to bitmaps
+	 *
+	 * @param min
+	 *            the minimum key
+	 *
+	 * @param max
+	 *            the maximum key
+	 *
+	 * @return A new bitmap.
+	 */
+	private static BitSet union(TreeMap<Short, BitSet> bitmaps, short min, short max) {
+		BitSet result = new BitSet();
+		if (min <= max) {
+			for (BitSet b : bitmaps.subMap(min, true, max, true).values()) {
+				result.or(b);
+			}
+		}
+		return result;
+	}
+}
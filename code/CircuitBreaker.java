@@ -0,0 +1,204 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>CircuitBreaker</code> class stops sending work to a database that keeps failing or
+ *         keeps being slow, so that callers can fall back to stale data right away instead of waiting
+ *         for yet another timeout. <br>
+ *         <br>
+ *
+ *         The breaker starts <code>CLOSED</code>, i.e. letting every call through. After
+ *         <code>threshold</code> failed or slow calls in a row it opens and lets no call through for
+ *         <code>openMillis</code> milliseconds. It is then <code>HALF_OPEN</code> and lets a single
+ *         probe through, whose success closes it again and whose failure opens it again. A probe
+ *         whose outcome is never recorded is replaced by another one after <code>openMillis</code>.
+ *
+ * @see #allow()
+ * @see #record(long, boolean)
+ */
+public final class CircuitBreaker {
+	/**
+	 * The states of a <code>CircuitBreaker</code>.
+	 */
+	public static enum State {
+		/**
+		 * Every call is let through.
+		 */
+		CLOSED,
+
+		/**
+		 * A single probe is let through.
+		 */
+		HALF_OPEN,
+
+		/**
+		 * No call is let through.
+		 */
+		OPEN
+	}
+
+	/**
+	 * The default number of failed or slow calls in a row that open the breaker.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_THRESHOLD = 3;
+
+	/**
+	 * The default number of milliseconds that the breaker stays open.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final long DEFAULT_OPEN_MILLIS = 30000L;
+
+	/**
+	 * The default number of milliseconds above which a successful call counts as slow.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final long DEFAULT_SLOW_MILLIS = 2000L;
+
+	/**
+	 * The number of failed or slow calls in a row that open the breaker.
+	 */
+	private final int threshold;
+
+	/**
+	 * The number of nanoseconds that the breaker stays open.
+	 */
+	private final long openNanos;
+
+	/**
+	 * The number of nanoseconds above which a successful call counts as slow.
+	 */
+	private final long slowNanos;
+
+	/**
+	 * The current state.
+	 */
+	private State state;
+
+	/**
+	 * The number of failed or slow calls in a row.
+	 */
+	private int failures;
+
+	/**
+	 * The <code>System.nanoTime()</code> at which the breaker last opened or let its last probe
+	 * through.
+	 */
+	private long openedAt;
+
+	/**
+	 * The number of times that the breaker has opened.
+	 */
+	private long trips;
+
+	/**
+	 * Same as calling
+	 * <code>CircuitBreaker(int threshold, long openMillis, long slowMillis)</code> with arguments
+	 * <code>(CircuitBreaker.DEFAULT_THRESHOLD, CircuitBreaker.DEFAULT_OPEN_MILLIS, CircuitBreaker.DEFAULT_SLOW_MILLIS)</code>.
+	 *
+	 * @see #CircuitBreaker(int, long, long)
+	 */
+	public CircuitBreaker() {
+		this(CircuitBreaker.DEFAULT_THRESHOLD, CircuitBreaker.DEFAULT_OPEN_MILLIS, CircuitBreaker.DEFAULT_SLOW_MILLIS);
+	}
+
+	/**
+	 * General constructor for a closed <code>CircuitBreaker</code> object.
+	 *
+	 * @param threshold
+	 *            the number of failed or slow calls in a row that open the breaker
+	 *
+	 * @param openMillis
+	 *            the number of milliseconds that the breaker stays open
+	 *
+	 * @param slowMillis
+	 *            the number of milliseconds above which a successful call counts as slow
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>threshold &lt;= 0</code> <br>
+	 *             If <code>openMillis &lt; 0</code> <br>
+	 *             If <code>slowMillis &lt;= 0</code>
+	 */
+	public CircuitBreaker(int threshold, long openMillis, long slowMillis) throws IllegalArgumentException {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Given failure threshold(" + threshold + ") is not positive.");
+		} else if (openMillis < 0) {
+			throw new IllegalArgumentException("Given open time(" + openMillis + ") is negative.");
+		} else if (slowMillis <= 0) {
+			throw new IllegalArgumentException("Given slow call time(" + slowMillis + ") is not positive.");
+		}
+
+		this.threshold = threshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+		this.state = State.CLOSED;
+		this.failures = 0;
+		this.openedAt = 0L;
+		this.trips = 0L;
+	}
+
+	/**
+	 * Returns the current state.
+	 *
+	 * @return <code>this.state</code>.
+	 */
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * Returns the number of times that the breaker has opened.
+	 *
+	 * @return <code>this.trips</code>.
+	 */
+	public synchronized long getTrips() {
+		return this.trips;
+	}
+
+	/**
+	 * Returns whether a call may be sent to the database. An open breaker that has been open for long
+	 * enough becomes half open and lets exactly this call through as its probe.
+	 *
+	 * @return <tt>true</tt> if the call may be sent and <tt>false</tt> otherwise.
+	 */
+	public synchronized boolean allow() {
+		if (this.state == State.CLOSED) {
+			return true;
+		} else if (System.nanoTime() - this.openedAt >= this.openNanos) {
+			// Open for long enough, or the last probe never came back.
+			this.state = State.HALF_OPEN;
+			this.openedAt = System.nanoTime();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record the outcome of a call that has been sent to the database. Outcomes that come back while
+	 * the breaker is open belong to calls let through before it opened and are ignored, so that they
+	 * do not keep it open for longer.
+	 *
+	 * @param nanos
+	 *            the latency of the call in nanoseconds
+	 *
+	 * @param success
+	 *            whether the call succeeded
+	 */
+	public synchronized void record(long nanos, boolean success) {
+		if (this.state == State.OPEN) {
+			return;
+		} else if (success && nanos <= this.slowNanos) {
+			this.failures = 0;
+			this.state = State.CLOSED;
+		} else if (++this.failures >= this.threshold || this.state == State.HALF_OPEN) {
+			++this.trips;
+			this.state = State.OPEN;
+			this.openedAt = System.nanoTime();
+		}
+	}
+}
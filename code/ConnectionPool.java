@@ -0,0 +1,282 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>ConnectionPool</code> class is a bounded pool of database connections to a
+ *         single URL, all of which have auto commit turned off like the connection of
+ *         <code>YRBAPP</code>. <br>
+ *         <br>
+ *
+ *         A semaphore with one permit per connection bounds the number of connections that are in
+ *         use, so callers wait for a permit rather than opening more connections than the database
+ *         should serve. Idle connections are reused most recently released first, which keeps the
+ *         fewest connections warm, and are only opened when no idle connection is left. Every
+ *         released connection is rolled back so that uncommitted work never leaks into the next
+ *         borrower.
+ *
+ * @see #acquire()
+ * @see #release(Connection)
+ * @see #close()
+ */
+public final class ConnectionPool implements AutoCloseable {
+	/**
+	 * The default number of connections of a pool.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_SIZE = 8;
+
+	/**
+	 * The URL of every connection.
+	 */
+	private final String url;
+
+	/**
+	 * The maximum number of connections.
+	 */
+	private final int size;
+
+	/**
+	 * One permit for every connection that is not in use.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * The open connections that are not in use, most recently released first.
+	 */
+	private final ConcurrentLinkedDeque<Connection> idle;
+
+	/**
+	 * The number of open connections.
+	 */
+	private final AtomicInteger open;
+
+	/**
+	 * Whether <code>close()</code> has been called.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * General constructor for a <code>ConnectionPool</code> object. No connection is opened until it
+	 * is first needed.
+	 *
+	 * @param url
+	 *            the URL of every connection
+	 *
+	 * @param size
+	 *            the maximum number of connections
+	 *
+	 * @throws NullPointerException
+	 *             If <code>url == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>size &lt;= 0</code>
+	 */
+	public ConnectionPool(String url, int size) throws NullPointerException, IllegalArgumentException {
+		if (url == null) {
+			throw new NullPointerException("Given url is null.");
+		} else if (size <= 0) {
+			throw new IllegalArgumentException("Given pool size(" + size + ") is not positive.");
+		}
+
+		this.url = url;
+		this.size = size;
+		this.permits = new Semaphore(size);
+		this.idle = new ConcurrentLinkedDeque<Connection>();
+		this.open = new AtomicInteger();
+		this.closed = false;
+	}
+
+	/**
+	 * Returns the URL of every connection.
+	 *
+	 * @return <code>this.url</code>.
+	 */
+	public String getURL() {
+		return this.url;
+	}
+
+	/**
+	 * Returns the maximum number of connections.
+	 *
+	 * @return <code>this.size</code>.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of open connections, whether they are in use or not.
+	 *
+	 * @return <code>this.open.get()</code>.
+	 */
+	public int getOpen() {
+		return this.open.get();
+	}
+
+	/**
+	 * Returns the number of connections that are in use.
+	 *
+	 * @return <code>this.size - this.permits.availablePermits()</code>.
+	 */
+	public int getActive() {
+		return this.size - this.permits.availablePermits();
+	}
+
+	/**
+	 * Same as calling <code>acquire(long timeout, TimeUnit unit)</code> with arguments
+	 * <code>(YRBAPPUtility.QUERY_TIMEOUT, TimeUnit.SECONDS)</code>.
+	 *
+	 * @return A connection which must be given back by <code>release(Connection)</code>.
+	 *
+	 * @throws SQLException
+	 *             If the pool is closed, no connection became available in time or a new connection
+	 *             could not be opened
+	 *
+	 * @see #acquire(long, TimeUnit)
+	 */
+	public Connection acquire() throws SQLException {
+		return this.acquire(YRBAPPUtility.QUERY_TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Borrow a connection, waiting at most the given time for one to become available.
+	 *
+	 * @param timeout
+	 *            the maximum time to wait
+	 *
+	 * @param unit
+	 *            the unit of <code>timeout</code>
+	 *
+	 * @return A connection which must be given back by <code>release(Connection)</code>.
+	 *
+	 * @throws SQLException
+	 *             If the pool is closed, no connection became available in time (a
+	 *             <code>SQLTransientConnectionException</code>) or a new connection could not be
+	 *             opened
+	 *
+	 * @throws NullPointerException
+	 *             If <code>unit == null</code>
+	 */
+	public Connection acquire(long timeout, TimeUnit unit) throws SQLException, NullPointerException {
+		if (unit == null) {
+			throw new NullPointerException("Given time unit is null.");
+		} else if (this.closed) {
+			throw new SQLException("Connection pool of " + this.url + " is closed.");
+		}
+
+		try {
+			if (!this.permits.tryAcquire(timeout, unit)) {
+				throw new SQLTransientConnectionException(
+						"Timed out waiting for a connection of " + this.url + " after " + timeout + " " + unit + ".");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted waiting for a connection of " + this.url + ".", ex);
+		}
+
+		try {
+			for (Connection c; (c = this.idle.pollFirst()) != null;) {
+				if (!c.isClosed()) {
+					return c;
+				}
+				this.open.decrementAndGet(); // Drop connections that were closed by the database.
+			}
+
+			Connection result = DriverManager.getConnection(this.url);
+			this.open.incrementAndGet();
+			try {
+				result.setAutoCommit(false);
+			} catch (SQLException ex) {
+				this.discard(result);
+				throw ex;
+			}
+			return result;
+		} catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Give back a connection that was borrowed by <code>acquire()</code>. Any uncommitted work of the
+	 * connection is rolled back, and connections that are closed or cannot be rolled back are
+	 * discarded instead of being reused.
+	 *
+	 * @param connection
+	 *            the borrowed connection
+	 *
+	 * @throws NullPointerException
+	 *             If <code>connection == null</code>
+	 */
+	public void release(Connection connection) throws NullPointerException {
+		if (connection == null) {
+			throw new NullPointerException("Given connection is null.");
+		}
+
+		try {
+			boolean reusable;
+			try {
+				reusable = !connection.isClosed();
+				if (reusable) {
+					connection.rollback();
+				}
+			} catch (SQLException ex) {
+				reusable = false;
+			}
+
+			if (!reusable || this.closed) {
+				this.discard(connection);
+				return;
+			}
+			this.idle.offerFirst(connection);
+			if (this.closed) { // Closed concurrently, so make sure that nothing is left behind.
+				this.drain();
+			}
+		} finally {
+			this.permits.release();
+		}
+	}
+
+	/**
+	 * Close the given connection and stop counting it as open.
+	 *
+	 * @param connection
+	 *            the connection
+	 */
+	private void discard(Connection connection) {
+		this.open.decrementAndGet();
+		try {
+			connection.close();
+		} catch (SQLException ex) {
+			// The connection is dropped either way.
+		}
+	}
+
+	/**
+	 * Close every idle connection.
+	 */
+	private void drain() {
+		for (Connection c; (c = this.idle.pollFirst()) != null;) {
+			this.discard(c);
+		}
+	}
+
+	/**
+	 * Close every idle connection and every borrowed connection as soon as it is released. No
+	 * connection can be acquired afterwards.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		this.drain();
+	}
+}
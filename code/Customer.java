@@ -0,0 +1,98 @@
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Customer</code> class encapsulates a single tuple from the
+ *         <code>yrb_customer</code> table in the <b><i>York River Bookseller's Database</i></b>. <br>
+ *         <br>
+ *
+ *         A <code>Customer</code> object is immutable.
+ *
+ * @see #Customer(int, String, String)
+ *
+ * @see YRBStore#findCustomerPage(Session, int, boolean, int)
+ */
+public final class Customer implements Comparable<Customer> {
+	/**
+	 * The ID of a <code>Customer</code> object. <br>
+	 * <br>
+	 *
+	 * <b>SQL :</b> <code>create table yrb_customer ( cid integer not null, ... );</code>
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final int cid;
+
+	/**
+	 * The name of a <code>Customer</code> object. <br>
+	 * <br>
+	 *
+	 * Could be <code>null</code>. <br>
+	 * <br>
+	 *
+	 * <b>SQL :</b> <code>create table yrb_customer ( ..., name varchar(20), ... );</code>
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String name;
+
+	/**
+	 * The city of a <code>Customer</code> object. <br>
+	 * <br>
+	 *
+	 * Could be <code>null</code>. <br>
+	 * <br>
+	 *
+	 * <b>SQL :</b> <code>create table yrb_customer ( ..., city varchar(15), ... );</code>
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String city;
+
+	/**
+	 * General constructor for a <code>Customer</code> object.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param name
+	 *            the customer name, could be <code>null</code>
+	 *
+	 * @param city
+	 *            the customer city, could be <code>null</code>
+	 */
+	public Customer(int cid, String name, String city) {
+		this.cid = cid;
+		this.name = name;
+		this.city = city;
+	}
+
+	/**
+	 * Returns a string representation of <code>this</code>.
+	 *
+	 * @return <code>"Customer ID: " + this.cid + <br> ", Name: " + this.name + <br> ", City: " + this.city</code>
+	 */
+	@Override
+	public String toString() {
+		return "Customer ID: " + this.cid + ", Name: " + this.name + ", City: " + this.city;
+	}
+
+	/**
+	 * Compare <code>this</code> and <code>other</code> by their customer IDs.
+	 *
+	 * @param other
+	 *            the other customer
+	 *
+	 * @return <code>Integer.compare(this.cid, other.cid)</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>other == null</code>
+	 */
+	@Override
+	public int compareTo(Customer other) throws NullPointerException {
+		if (other == null) {
+			throw new NullPointerException("Given customer is null.");
+		}
+
+		return Integer.compare(this.cid, other.cid);
+	}
+}
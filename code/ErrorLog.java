@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>ErrorLog</code> class is a fixed capacity, lock-free ring buffer of
+ *         <code>ErrorRecord</code>s. <br>
+ *         <br>
+ *
+ *         Writers claim a sequence number with a single atomic increment and store their record in
+ *         the slot of that number, overwriting the oldest record once the buffer is full. Readers
+ *         never block writers: a snapshot only keeps the slots whose record has the expected
+ *         sequence number, so slots that are being overwritten are skipped instead of being read
+ *         inconsistently. The number of errors of every statement is counted separately and is never
+ *         lost to overwriting.
+ *
+ * @see #log(String, String, Throwable)
+ * @see #snapshot()
+ * @see #clear()
+ *
+ * @see ErrorRecord
+ */
+public final class ErrorLog {
+	/**
+	 * The default maximum number of kept records.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The slots of the ring buffer, where record <code>i</code> is in slot <code>i % capacity</code>.
+	 */
+	private final AtomicReferenceArray<ErrorRecord> slots;
+
+	/**
+	 * The sequence number of the next record.
+	 */
+	private final AtomicLong next;
+
+	/**
+	 * The sequence number of the first record that has not been cleared.
+	 */
+	private final AtomicLong first;
+
+	/**
+	 * Mapping statements to the number of errors logged for them.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> counts;
+
+	/**
+	 * General constructor for an empty <code>ErrorLog</code> object.
+	 *
+	 * @param capacity
+	 *            the maximum number of kept records
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>capacity &lt;= 0</code>
+	 */
+	public ErrorLog(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Given capacity(" + capacity + ") is not positive.");
+		}
+
+		this.slots = new AtomicReferenceArray<ErrorRecord>(capacity);
+		this.next = new AtomicLong();
+		this.first = new AtomicLong();
+		this.counts = new ConcurrentHashMap<String, LongAdder>();
+	}
+
+	/**
+	 * Default constructor for an empty <code>ErrorLog</code> object.
+	 *
+	 * @see #DEFAULT_CAPACITY
+	 */
+	public ErrorLog() {
+		this(ErrorLog.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the maximum number of kept records.
+	 *
+	 * @return <code>this.slots.length()</code>.
+	 */
+	public int getCapacity() {
+		return this.slots.length();
+	}
+
+	/**
+	 * Log a single error.
+	 *
+	 * @param statement
+	 *            the statement (or other category) that the error occurred in
+	 *
+	 * @param message
+	 *            the description of the failed operation
+	 *
+	 * @param ex
+	 *            the exception that caused the error, could be <code>null</code>
+	 *
+	 * @return The logged record.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>statement == null</code> <br>
+	 *             If <code>message == null</code>
+	 */
+	public ErrorRecord log(String statement, String message, Throwable ex) throws NullPointerException {
+		long sequence = this.next.getAndIncrement();
+		ErrorRecord result = new ErrorRecord(sequence, System.currentTimeMillis(), statement, message, ex);
+		this.slots.set((int) (sequence % this.slots.length()), result);
+		this.counts.computeIfAbsent(statement, k -> new LongAdder()).increment();
+		return result;
+	}
+
+	/**
+	 * Returns the total number of errors that have been logged, including overwritten and cleared
+	 * ones.
+	 *
+	 * @return <code>this.next.get()</code>.
+	 */
+	public long getTotal() {
+		return this.next.get();
+	}
+
+	/**
+	 * Returns the number of errors of every statement, including overwritten and cleared ones.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping statements to error counts.
+	 */
+	public TreeMap<String, Long> getCounts() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.counts.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the kept records that have not been cleared, oldest first.
+	 *
+	 * @return A new list of the records.
+	 */
+	public List<ErrorRecord> snapshot() {
+		return this.snapshot(this.next.get());
+	}
+
+	/**
+	 * Returns the kept records that have not been cleared and were logged before the given sequence
+	 * number, oldest first.
+	 *
+	 * @param end
+	 *            the sequence number to stop at (exclusive)
+	 *
+	 * @return A new list of the records.
+	 */
+	private List<ErrorRecord> snapshot(long end) {
+		int capacity = this.slots.length();
+		long start = Math.max(this.first.get(), end - capacity);
+
+		ArrayList<ErrorRecord> result = new ArrayList<ErrorRecord>((int) Math.max(end - start, 0L));
+		for (long i = start; i < end; ++i) {
+			ErrorRecord r = this.slots.get((int) (i % capacity));
+			// Skip slots that have not been written yet or that have already been overwritten.
+			if (r != null && r.sequence == i) {
+				result.add(r);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Clear all records, keeping the per statement counts.
+	 *
+	 * @return The records that were cleared, oldest first.
+	 */
+	public List<ErrorRecord> clear() {
+		long end = this.next.get();
+		List<ErrorRecord> result = this.snapshot(end);
+		this.first.accumulateAndGet(end, Math::max);
+		return result;
+	}
+
+	/**
+	 * Returns the given records as text with one record per line.
+	 *
+	 * @param records
+	 *            the records
+	 *
+	 * @return The records joined by newlines, with a trailing newline if there is at least one.
+	 */
+	public static String toString(List<ErrorRecord> records) {
+		StringBuilder result = new StringBuilder();
+		for (ErrorRecord r : records) {
+			result.append(r).append('\n');
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,108 @@
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>ErrorRecord</code> class represents a single immutable entry of an
+ *         <code>ErrorLog</code>.
+ *
+ * @see ErrorLog
+ */
+public final class ErrorRecord {
+	/**
+	 * The sequence number of the record in its log.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final long sequence;
+
+	/**
+	 * The time that the error occurred at in milliseconds.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final long timestamp;
+
+	/**
+	 * The statement (or other category) that the error occurred in, e.g. <code>"bookQuery"</code>.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String statement;
+
+	/**
+	 * The SQLState of the error or <code>null</code> if the error is not an
+	 * <code>SQLException</code>.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String sqlState;
+
+	/**
+	 * The description of the failed operation.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String message;
+
+	/**
+	 * The <code>toString()</code> of the exception that caused the error or <code>null</code> if
+	 * there is no such exception.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String cause;
+
+	/**
+	 * General constructor for an <code>ErrorRecord</code> object.
+	 *
+	 * @param sequence
+	 *            the sequence number
+	 *
+	 * @param timestamp
+	 *            the time in milliseconds
+	 *
+	 * @param statement
+	 *            the statement
+	 *
+	 * @param message
+	 *            the description of the failed operation
+	 *
+	 * @param ex
+	 *            the exception that caused the error, could be <code>null</code>
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>statement == null</code> <br>
+	 *             If <code>message == null</code>
+	 */
+	public ErrorRecord(long sequence, long timestamp, String statement, String message, Throwable ex)
+			throws NullPointerException {
+		if (statement == null) {
+			throw new NullPointerException("Given statement is null.");
+		} else if (message == null) {
+			throw new NullPointerException("Given message is null.");
+		}
+
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.statement = statement;
+		this.sqlState = (ex instanceof SQLException ? ((SQLException) ex).getSQLState() : null);
+		this.message = message;
+		this.cause = (ex == null ? null : ex.toString());
+	}
+
+	/**
+	 * Returns the <code>String</code> representation of this record.
+	 *
+	 * @return <code>"[timestamp] statement(SQLState): message"</code> followed by the cause on its own
+	 *         line.
+	 */
+	@Override
+	public String toString() {
+		return "[" + new Timestamp(this.timestamp) + "] " + this.statement
+				+ (this.sqlState == null ? "" : "(" + this.sqlState + ")") + ": " + this.message
+				+ (this.cause == null ? "" : "\n" + this.cause);
+	}
+}
@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>InputEvent</code> class is a <b>Java Flight Recorder</b> event that spans the
+ *         time spent waiting for a single line of user input, i.e. the user's think time.
+ *
+ * @see StateEvent
+ * @see YRBAPP#run()
+ */
+@Name("yrb.Input")
+@Label("User Input")
+@Category({ "York River Bookseller", "Application" })
+@Description("Waiting for a single line of user input")
+public final class InputEvent extends Event {
+	/**
+	 * The length of the line that was read or <code>-1</code> if the End Of Input was reached.
+	 */
+	@Label("Length")
+	public int length;
+}
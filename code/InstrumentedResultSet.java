@@ -0,0 +1,2041 @@
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>InstrumentedResultSet</code> class wraps the <code>ResultSet</code> of an
+ *         <code>InstrumentedStatement</code> so that every <code>next</code> call is timed and every
+ *         row is counted. Every other method is passed straight through. <br>
+ *         <br>
+ *
+ *         The execution that produced the result set is finished once the result set is closed, or
+ *         as failed once any of its methods fails.
+ *
+ * @see InstrumentedStatement
+ * @see QueryStatistics#fetch
+ */
+final class InstrumentedResultSet implements ResultSet {
+	/**
+	 * The wrapped result set.
+	 */
+	private final ResultSet answers;
+
+	/**
+	 * The statistics of the statement that produced the result set.
+	 */
+	private final QueryStatistics statistics;
+
+	/**
+	 * The execution that produced the result set, could be <code>null</code>.
+	 */
+	private final InstrumentedStatement.Execution execution;
+
+	/**
+	 * General constructor for an <code>InstrumentedResultSet</code> object.
+	 *
+	 * @param answers
+	 *            the wrapped result set
+	 *
+	 * @param statistics
+	 *            the statistics of the statement that produced the result set
+	 *
+	 * @param execution
+	 *            the execution that produced the result set, could be <code>null</code>
+	 */
+	InstrumentedResultSet(ResultSet answers, QueryStatistics statistics, InstrumentedStatement.Execution execution) {
+		this.answers = answers;
+		this.statistics = statistics;
+		this.execution = execution;
+	}
+
+	/**
+	 * Count the failure of a method and finish the execution as failed.
+	 */
+	private void fail() {
+		this.statistics.addError();
+		if (this.execution != null) {
+			this.execution.finish(true);
+		}
+	}
+
+	@Override
+	public boolean next() throws SQLException {
+		boolean result;
+		long start = System.nanoTime();
+		try {
+			result = this.answers.next();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		} finally {
+			this.statistics.fetch.record(System.nanoTime() - start);
+		}
+
+		if (result) {
+			this.statistics.addRows(1L);
+			if (this.execution != null) {
+				this.execution.addRow();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			this.answers.close();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+
+		if (this.execution != null) {
+			this.execution.finish(false);
+		}
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return (iface.isInstance(this) ? iface.cast(this) : this.answers.unwrap(iface));
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return (iface.isInstance(this) || this.answers.isWrapperFor(iface));
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException {
+		try {
+			return this.answers.wasNull();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public String getString(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getString(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean getBoolean(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getBoolean(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public byte getByte(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getByte(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public short getShort(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getShort(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getInt(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getInt(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public long getLong(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getLong(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public float getFloat(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getFloat(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public double getDouble(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getDouble(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Deprecated
+	@Override
+	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+		try {
+			return this.answers.getBigDecimal(columnIndex, scale);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public byte[] getBytes(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getBytes(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Date getDate(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getDate(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Time getTime(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getTime(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getTimestamp(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public InputStream getAsciiStream(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getAsciiStream(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Deprecated
+	@Override
+	public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getUnicodeStream(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getBinaryStream(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public String getString(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getString(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean getBoolean(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getBoolean(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public byte getByte(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getByte(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public short getShort(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getShort(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getInt(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getInt(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public long getLong(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getLong(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public float getFloat(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getFloat(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public double getDouble(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getDouble(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Deprecated
+	@Override
+	public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+		try {
+			return this.answers.getBigDecimal(columnLabel, scale);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public byte[] getBytes(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getBytes(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Date getDate(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getDate(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Time getTime(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getTime(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getTimestamp(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public InputStream getAsciiStream(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getAsciiStream(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Deprecated
+	@Override
+	public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getUnicodeStream(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public InputStream getBinaryStream(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getBinaryStream(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		try {
+			return this.answers.getWarnings();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		try {
+			this.answers.clearWarnings();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public String getCursorName() throws SQLException {
+		try {
+			return this.answers.getCursorName();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		try {
+			return this.answers.getMetaData();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Object getObject(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getObject(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Object getObject(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getObject(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int findColumn(String columnLabel) throws SQLException {
+		try {
+			return this.answers.findColumn(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getCharacterStream(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getCharacterStream(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getBigDecimal(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getBigDecimal(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean isBeforeFirst() throws SQLException {
+		try {
+			return this.answers.isBeforeFirst();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean isAfterLast() throws SQLException {
+		try {
+			return this.answers.isAfterLast();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean isFirst() throws SQLException {
+		try {
+			return this.answers.isFirst();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean isLast() throws SQLException {
+		try {
+			return this.answers.isLast();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void beforeFirst() throws SQLException {
+		try {
+			this.answers.beforeFirst();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void afterLast() throws SQLException {
+		try {
+			this.answers.afterLast();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean first() throws SQLException {
+		try {
+			return this.answers.first();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean last() throws SQLException {
+		try {
+			return this.answers.last();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getRow() throws SQLException {
+		try {
+			return this.answers.getRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean absolute(int row) throws SQLException {
+		try {
+			return this.answers.absolute(row);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean relative(int rows) throws SQLException {
+		try {
+			return this.answers.relative(rows);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean previous() throws SQLException {
+		try {
+			return this.answers.previous();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		try {
+			this.answers.setFetchDirection(direction);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		try {
+			return this.answers.getFetchDirection();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		try {
+			this.answers.setFetchSize(rows);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		try {
+			return this.answers.getFetchSize();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getType() throws SQLException {
+		try {
+			return this.answers.getType();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getConcurrency() throws SQLException {
+		try {
+			return this.answers.getConcurrency();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean rowUpdated() throws SQLException {
+		try {
+			return this.answers.rowUpdated();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean rowInserted() throws SQLException {
+		try {
+			return this.answers.rowInserted();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean rowDeleted() throws SQLException {
+		try {
+			return this.answers.rowDeleted();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNull(int columnIndex) throws SQLException {
+		try {
+			this.answers.updateNull(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+		try {
+			this.answers.updateBoolean(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateByte(int columnIndex, byte x) throws SQLException {
+		try {
+			this.answers.updateByte(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateShort(int columnIndex, short x) throws SQLException {
+		try {
+			this.answers.updateShort(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateInt(int columnIndex, int x) throws SQLException {
+		try {
+			this.answers.updateInt(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateLong(int columnIndex, long x) throws SQLException {
+		try {
+			this.answers.updateLong(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateFloat(int columnIndex, float x) throws SQLException {
+		try {
+			this.answers.updateFloat(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateDouble(int columnIndex, double x) throws SQLException {
+		try {
+			this.answers.updateDouble(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+		try {
+			this.answers.updateBigDecimal(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateString(int columnIndex, String x) throws SQLException {
+		try {
+			this.answers.updateString(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+		try {
+			this.answers.updateBytes(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateDate(int columnIndex, Date x) throws SQLException {
+		try {
+			this.answers.updateDate(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateTime(int columnIndex, Time x) throws SQLException {
+		try {
+			this.answers.updateTime(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+		try {
+			this.answers.updateTimestamp(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+		try {
+			this.answers.updateObject(columnIndex, x, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object x) throws SQLException {
+		try {
+			this.answers.updateObject(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNull(String columnLabel) throws SQLException {
+		try {
+			this.answers.updateNull(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+		try {
+			this.answers.updateBoolean(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateByte(String columnLabel, byte x) throws SQLException {
+		try {
+			this.answers.updateByte(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateShort(String columnLabel, short x) throws SQLException {
+		try {
+			this.answers.updateShort(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateInt(String columnLabel, int x) throws SQLException {
+		try {
+			this.answers.updateInt(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateLong(String columnLabel, long x) throws SQLException {
+		try {
+			this.answers.updateLong(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateFloat(String columnLabel, float x) throws SQLException {
+		try {
+			this.answers.updateFloat(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateDouble(String columnLabel, double x) throws SQLException {
+		try {
+			this.answers.updateDouble(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+		try {
+			this.answers.updateBigDecimal(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateString(String columnLabel, String x) throws SQLException {
+		try {
+			this.answers.updateString(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+		try {
+			this.answers.updateBytes(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateDate(String columnLabel, Date x) throws SQLException {
+		try {
+			this.answers.updateDate(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateTime(String columnLabel, Time x) throws SQLException {
+		try {
+			this.answers.updateTime(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+		try {
+			this.answers.updateTimestamp(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnLabel, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnLabel, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnLabel, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+		try {
+			this.answers.updateObject(columnLabel, x, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object x) throws SQLException {
+		try {
+			this.answers.updateObject(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void insertRow() throws SQLException {
+		try {
+			this.answers.insertRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateRow() throws SQLException {
+		try {
+			this.answers.updateRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void deleteRow() throws SQLException {
+		try {
+			this.answers.deleteRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void refreshRow() throws SQLException {
+		try {
+			this.answers.refreshRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void cancelRowUpdates() throws SQLException {
+		try {
+			this.answers.cancelRowUpdates();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void moveToInsertRow() throws SQLException {
+		try {
+			this.answers.moveToInsertRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void moveToCurrentRow() throws SQLException {
+		try {
+			this.answers.moveToCurrentRow();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Statement getStatement() throws SQLException {
+		try {
+			return this.answers.getStatement();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+		try {
+			return this.answers.getObject(columnIndex, map);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Ref getRef(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getRef(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Blob getBlob(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getBlob(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Clob getClob(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getClob(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Array getArray(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getArray(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+		try {
+			return this.answers.getObject(columnLabel, map);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Ref getRef(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getRef(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Blob getBlob(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getBlob(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Clob getClob(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getClob(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Array getArray(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getArray(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getDate(columnIndex, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getDate(columnLabel, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getTime(columnIndex, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getTime(columnLabel, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getTimestamp(columnIndex, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+		try {
+			return this.answers.getTimestamp(columnLabel, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public URL getURL(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getURL(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public URL getURL(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getURL(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateRef(int columnIndex, Ref x) throws SQLException {
+		try {
+			this.answers.updateRef(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateRef(String columnLabel, Ref x) throws SQLException {
+		try {
+			this.answers.updateRef(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, Blob x) throws SQLException {
+		try {
+			this.answers.updateBlob(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, Blob x) throws SQLException {
+		try {
+			this.answers.updateBlob(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Clob x) throws SQLException {
+		try {
+			this.answers.updateClob(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Clob x) throws SQLException {
+		try {
+			this.answers.updateClob(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateArray(int columnIndex, Array x) throws SQLException {
+		try {
+			this.answers.updateArray(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateArray(String columnLabel, Array x) throws SQLException {
+		try {
+			this.answers.updateArray(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public RowId getRowId(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getRowId(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public RowId getRowId(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getRowId(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateRowId(int columnIndex, RowId x) throws SQLException {
+		try {
+			this.answers.updateRowId(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateRowId(String columnLabel, RowId x) throws SQLException {
+		try {
+			this.answers.updateRowId(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		try {
+			return this.answers.getHoldability();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		try {
+			return this.answers.isClosed();
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNString(int columnIndex, String nString) throws SQLException {
+		try {
+			this.answers.updateNString(columnIndex, nString);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNString(String columnLabel, String nString) throws SQLException {
+		try {
+			this.answers.updateNString(columnLabel, nString);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
+		try {
+			this.answers.updateNClob(columnIndex, nClob);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
+		try {
+			this.answers.updateNClob(columnLabel, nClob);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public NClob getNClob(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getNClob(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public NClob getNClob(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getNClob(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getSQLXML(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getSQLXML(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+		try {
+			this.answers.updateSQLXML(columnIndex, xmlObject);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+		try {
+			this.answers.updateSQLXML(columnLabel, xmlObject);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public String getNString(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getNString(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public String getNString(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getNString(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(int columnIndex) throws SQLException {
+		try {
+			return this.answers.getNCharacterStream(columnIndex);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(String columnLabel) throws SQLException {
+		try {
+			return this.answers.getNCharacterStream(columnLabel);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+		try {
+			this.answers.updateNCharacterStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateNCharacterStream(columnLabel, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnLabel, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnLabel, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnLabel, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+		try {
+			this.answers.updateBlob(columnIndex, inputStream, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+		try {
+			this.answers.updateBlob(columnLabel, inputStream, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateClob(columnIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateClob(columnLabel, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateNClob(columnIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+		try {
+			this.answers.updateNClob(columnLabel, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+		try {
+			this.answers.updateNCharacterStream(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+		try {
+			this.answers.updateNCharacterStream(columnLabel, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+		try {
+			this.answers.updateAsciiStream(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+		try {
+			this.answers.updateBinaryStream(columnLabel, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+		try {
+			this.answers.updateCharacterStream(columnLabel, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+		try {
+			this.answers.updateBlob(columnIndex, inputStream);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+		try {
+			this.answers.updateBlob(columnLabel, inputStream);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(int columnIndex, Reader reader) throws SQLException {
+		try {
+			this.answers.updateClob(columnIndex, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateClob(String columnLabel, Reader reader) throws SQLException {
+		try {
+			this.answers.updateClob(columnLabel, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+		try {
+			this.answers.updateNClob(columnIndex, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+		try {
+			this.answers.updateNClob(columnLabel, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+		try {
+			return this.answers.getObject(columnIndex, type);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+		try {
+			return this.answers.getObject(columnLabel, type);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		try {
+			this.answers.updateObject(columnIndex, x, targetSqlType, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		try {
+			this.answers.updateObject(columnLabel, x, targetSqlType, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(int columnIndex, Object x, SQLType targetSqlType) throws SQLException {
+		try {
+			this.answers.updateObject(columnIndex, x, targetSqlType);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+
+	@Override
+	public void updateObject(String columnLabel, Object x, SQLType targetSqlType) throws SQLException {
+		try {
+			this.answers.updateObject(columnLabel, x, targetSqlType);
+		} catch (SQLException | RuntimeException ex) {
+			this.fail();
+			throw ex;
+		}
+	}
+}
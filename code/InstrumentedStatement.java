@@ -0,0 +1,1572 @@
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+
+import jdk.jfr.EventType;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>InstrumentedStatement</code> class wraps the prepared statements of
+ *         <code>YRBAPPUtility</code> so that the time spent in prepare, bind, execute and fetch is
+ *         recorded in the <code>QueryStatistics</code> of the statement. <br>
+ *         <br>
+ *
+ *         The wrapper and the <code>InstrumentedResultSet</code> of its executions are plain
+ *         delegating classes which only add a pair of <code>System.nanoTime</code> calls around the
+ *         timed methods and pass every other method straight through, so that no row is read through
+ *         reflection. Every execution is also recorded as a <code>QueryEvent</code> for the <b>Java
+ *         Flight Recorder</b>, as a child <code>Span</code> of the current span and, if it is slow, in
+ *         the <code>SlowQueryLog</code>.
+ *
+ * @see #prepare(Connection, String, QueryStatistics, SlowQueryLog)
+ * @see #prepare(Connection, String, QueryStatistics, SlowQueryLog, CloseListener)
+ * @see #nameOf(String)
+ *
+ * @see InstrumentedResultSet
+ * @see QueryStatistics
+ * @see QueryEvent
+ * @see SlowQueryLog
+ * @see YRBAPPUtility
+ */
+public final class InstrumentedStatement implements PreparedStatement {
+	/**
+	 * Mapping the SQL text of every <code>YRBAPPUtility</code> statement to the name of its constant.
+	 */
+	private static final HashMap<String, String> NAMES = new HashMap<String, String>();
+
+	static {
+		for (Field f : YRBAPPUtility.class.getFields()) {
+			if (Modifier.isStatic(f.getModifiers()) && f.getType() == String.class && f.getName().endsWith("_TEXT")) {
+				try {
+					InstrumentedStatement.NAMES.put((String) f.get(null), f.getName());
+				} catch (IllegalAccessException ex) { // This will never happen since the field is public.
+					// Empty by design.
+				}
+			}
+		}
+	}
+
+	/**
+	 * The type of <code>QueryEvent</code> which tells whether query events are being recorded.
+	 */
+	private static final EventType QUERY_EVENT = EventType.getEventType(QueryEvent.class);
+
+	/**
+	 * A statement method that is timed.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	@FunctionalInterface
+	private static interface Call<T> {
+		/**
+		 * Call the method of the wrapped statement.
+		 *
+		 * @return The result of the method.
+		 *
+		 * @throws SQLException
+		 *             If the method failed
+		 */
+		T call() throws SQLException;
+	}
+
+	/**
+	 * The <code>CloseListener</code> interface is told when an instrumented statement is closed.
+	 */
+	@FunctionalInterface
+	public static interface CloseListener {
+		/**
+		 * The statement has been closed.
+		 *
+		 * @param overloaded
+		 *            whether an execution of the statement threw an <code>SQLTransientException</code>
+		 *            (which includes timeouts)
+		 */
+		void closed(boolean overloaded);
+	}
+
+	/**
+	 * The connection that the wrapped statement was prepared on.
+	 */
+	private final Connection connection;
+
+	/**
+	 * The SQL text of the wrapped statement.
+	 */
+	private final String sql;
+
+	/**
+	 * The wrapped statement.
+	 */
+	private final PreparedStatement statement;
+
+	/**
+	 * The statistics of the wrapped statement.
+	 */
+	private final QueryStatistics statistics;
+
+	/**
+	 * The slow query log or <code>null</code> if slow executions are not logged.
+	 */
+	private final SlowQueryLog slowLog;
+
+	/**
+	 * The bound parameters in order, which are only kept while they are needed.
+	 *
+	 * @see QueryEvent#parameters
+	 */
+	private final ArrayList<Object> parameters;
+
+	/**
+	 * The listener that is told when the statement is closed, could be <code>null</code>.
+	 */
+	private final CloseListener listener;
+
+	/**
+	 * Whether an execution threw an <code>SQLTransientException</code>.
+	 */
+	private boolean overloaded;
+
+	/**
+	 * The <code>db.system</code> of the connection or <code>null</code> if it is not known yet.
+	 *
+	 * @see #systemOf(Connection)
+	 */
+	private String system;
+
+	/**
+	 * General constructor for an <code>InstrumentedStatement</code> object.
+	 *
+	 * @param connection
+	 *            the connection that the statement was prepared on
+	 *
+	 * @param sql
+	 *            the SQL text of the statement
+	 *
+	 * @param statement
+	 *            the wrapped statement
+	 *
+	 * @param statistics
+	 *            the statistics of the wrapped statement
+	 *
+	 * @param slowLog
+	 *            the slow query log, could be <code>null</code>
+	 *
+	 * @param listener
+	 *            the listener that is told when the statement is closed, could be <code>null</code>
+	 */
+	private InstrumentedStatement(Connection connection, String sql, PreparedStatement statement,
+			QueryStatistics statistics, SlowQueryLog slowLog, CloseListener listener) {
+		this.connection = connection;
+		this.sql = sql;
+		this.statement = statement;
+		this.statistics = statistics;
+		this.slowLog = slowLog;
+		this.parameters = new ArrayList<Object>();
+		this.listener = listener;
+		this.overloaded = false;
+		this.system = null;
+	}
+
+	/**
+	 * Returns the name of the <code>YRBAPPUtility</code> constant with the given SQL text.
+	 *
+	 * @param sql
+	 *            the SQL text
+	 *
+	 * @return The name of the constant or <code>"OTHER"</code> if there is no such constant.
+	 */
+	public static String nameOf(String sql) {
+		String result = InstrumentedStatement.NAMES.get(sql);
+		return (result == null ? "OTHER" : result);
+	}
+
+	/**
+	 * Returns the <code>db.system</code> tracing attribute of the given connection, i.e. the lower case
+	 * name of its database product up to the first slash or space (e.g. <code>"db2"</code> for
+	 * <code>"DB2/LINUXX8664"</code> and <code>"h2"</code> for <code>"H2"</code>).
+	 *
+	 * @param connection
+	 *            the database connection
+	 *
+	 * @return The <code>db.system</code> or <code>"other_sql"</code> if the product is not known.
+	 */
+	private static String systemOf(Connection connection) {
+		String product;
+		try {
+			product = connection.getMetaData().getDatabaseProductName();
+		} catch (SQLException ex) {
+			product = null;
+		}
+		if (product == null || product.trim().isEmpty()) {
+			return "other_sql";
+		}
+
+		product = product.trim().toLowerCase();
+		int end = product.length();
+		for (int i = 0; i < end; ++i) {
+			if (product.charAt(i) == '/' || Character.isWhitespace(product.charAt(i))) {
+				end = i;
+			}
+		}
+		return product.substring(0, end);
+	}
+
+	/**
+	 * Prepare the given SQL text and return the instrumented statement.
+	 *
+	 * @param connection
+	 *            the database connection
+	 *
+	 * @param sql
+	 *            the SQL text
+	 *
+	 * @param statistics
+	 *            the statistics of the statement
+	 *
+	 * @param slowLog
+	 *            the slow query log, could be <code>null</code>
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If <code>connection.prepareStatement(sql)</code> throws an <code>SQLException</code>
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>connection == null</code> <br>
+	 *             If <code>statistics == null</code>
+	 *
+	 * @see #prepare(Connection, String, QueryStatistics, SlowQueryLog, CloseListener)
+	 */
+	public static PreparedStatement prepare(Connection connection, String sql, QueryStatistics statistics,
+			SlowQueryLog slowLog) throws SQLException, NullPointerException {
+		return InstrumentedStatement.prepare(connection, sql, statistics, slowLog, null);
+	}
+
+	/**
+	 * Prepare the given SQL text and return the instrumented statement, which tells the given listener
+	 * when it is closed.
+	 *
+	 * @param connection
+	 *            the database connection
+	 *
+	 * @param sql
+	 *            the SQL text
+	 *
+	 * @param statistics
+	 *            the statistics of the statement
+	 *
+	 * @param slowLog
+	 *            the slow query log, could be <code>null</code>
+	 *
+	 * @param listener
+	 *            the listener that is told when the statement is closed, could be <code>null</code>
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If <code>connection.prepareStatement(sql)</code> throws an <code>SQLException</code>
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>connection == null</code> <br>
+	 *             If <code>statistics == null</code>
+	 */
+	public static PreparedStatement prepare(Connection connection, String sql, QueryStatistics statistics,
+			SlowQueryLog slowLog, CloseListener listener) throws SQLException, NullPointerException {
+		if (connection == null) {
+			throw new NullPointerException("Given connection is null.");
+		} else if (statistics == null) {
+			throw new NullPointerException("Given statistics is null.");
+		}
+
+		PreparedStatement statement;
+		long start = System.nanoTime();
+		try {
+			statement = connection.prepareStatement(sql);
+		} catch (SQLException ex) {
+			statistics.addError();
+			throw ex;
+		} finally {
+			statistics.prepare.record(System.nanoTime() - start);
+		}
+
+		return new InstrumentedStatement(connection, sql, statement, statistics, slowLog, listener);
+	}
+
+	/**
+	 * Returns whether the bound parameters are needed, i.e. whether slow executions are being logged,
+	 * query events are being recorded or sessions are being traced.
+	 *
+	 * @return <tt>true</tt> if the bound parameters should be kept and <tt>false</tt> otherwise.
+	 */
+	private boolean keepParameters() {
+		return (this.slowLog != null || InstrumentedStatement.QUERY_EVENT.isEnabled() || Tracer.isEnabled());
+	}
+
+	/**
+	 * Remember the value of a bound parameter for the next <code>QueryEvent</code> if the parameters
+	 * are needed, and return the start of the binding.
+	 *
+	 * @param index
+	 *            the one based index of the parameter
+	 *
+	 * @param value
+	 *            the value of the parameter
+	 *
+	 * @return <code>System.nanoTime()</code>.
+	 */
+	private long bind(int index, Object value) {
+		if (this.keepParameters()) {
+			while (this.parameters.size() < index) {
+				this.parameters.add(null);
+			}
+			if (index > 0) {
+				this.parameters.set(index - 1, value);
+			}
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Time the given execution of the wrapped statement.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param execution
+	 *            the execution
+	 *
+	 * @param call
+	 *            the execute method
+	 *
+	 * @return The result of the execute method.
+	 *
+	 * @throws SQLException
+	 *             If the execution failed, in which case the execution is finished as failed
+	 */
+	private <T> T run(Execution execution, Call<T> call) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return call.call();
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			this.overloaded |= (ex instanceof SQLTransientException);
+			execution.finish(true);
+			throw ex;
+		} finally {
+			this.statistics.execute.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Run the given query and return its rows, whose execution is finished once they are closed.
+	 *
+	 * @param call
+	 *            the execute method
+	 *
+	 * @return The instrumented <code>ResultSet</code>.
+	 *
+	 * @throws SQLException
+	 *             If the execution failed
+	 */
+	private ResultSet query(Call<ResultSet> call) throws SQLException {
+		Execution execution = new Execution();
+		return new InstrumentedResultSet(this.run(execution, call), this.statistics, execution);
+	}
+
+	/**
+	 * Run the given update and count its rows.
+	 *
+	 * @param <T>
+	 *            the type of the row count
+	 *
+	 * @param call
+	 *            the execute method
+	 *
+	 * @return The row count.
+	 *
+	 * @throws SQLException
+	 *             If the execution failed
+	 */
+	private <T extends Number> T update(Call<T> call) throws SQLException {
+		Execution execution = new Execution();
+		T result = this.run(execution, call);
+		this.statistics.addRows(result.longValue());
+		execution.rows = result.longValue();
+		execution.finish(false);
+		return result;
+	}
+
+	/**
+	 * Run the given statement, which may be a query or an update, and count its rows if it is an
+	 * update.
+	 *
+	 * @param call
+	 *            the execute method
+	 *
+	 * @return <tt>true</tt> if the result is a <code>ResultSet</code> and <tt>false</tt> otherwise.
+	 *
+	 * @throws SQLException
+	 *             If the execution failed
+	 */
+	private boolean execute(Call<Boolean> call) throws SQLException {
+		Execution execution = new Execution();
+		boolean result = this.run(execution, call);
+		if (!result) {
+			// An update executed through execute reports its row count separately.
+			int count = this.statement.getUpdateCount();
+			if (count > 0) {
+				this.statistics.addRows(count);
+				execution.rows = count;
+			}
+		}
+		execution.finish(false);
+		return result;
+	}
+
+	/**
+	 * Run the given batch.
+	 *
+	 * @param <T>
+	 *            the type of the row counts
+	 *
+	 * @param call
+	 *            the execute method
+	 *
+	 * @return The row counts.
+	 *
+	 * @throws SQLException
+	 *             If the execution failed
+	 */
+	private <T> T batch(Call<T> call) throws SQLException {
+		Execution execution = new Execution();
+		T result = this.run(execution, call);
+		execution.finish(false);
+		return result;
+	}
+
+	/**
+	 * Returns the given rows, which do not belong to any execution, as an instrumented
+	 * <code>ResultSet</code>.
+	 *
+	 * @param answers
+	 *            the rows, could be <code>null</code>
+	 *
+	 * @return The instrumented <code>ResultSet</code> or <code>null</code> if
+	 *         <code>answers == null</code>.
+	 */
+	private ResultSet rows(ResultSet answers) {
+		return (answers == null ? null : new InstrumentedResultSet(answers, this.statistics, null));
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		return this.query(() -> this.statement.executeQuery());
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		return this.query(() -> this.statement.executeQuery(sql));
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		return this.update(() -> this.statement.executeUpdate());
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		return this.update(() -> this.statement.executeUpdate(sql));
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		return this.update(() -> this.statement.executeUpdate(sql, autoGeneratedKeys));
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		return this.update(() -> this.statement.executeUpdate(sql, columnIndexes));
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		return this.update(() -> this.statement.executeUpdate(sql, columnNames));
+	}
+
+	@Override
+	public long executeLargeUpdate() throws SQLException {
+		return this.update(() -> this.statement.executeLargeUpdate());
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException {
+		return this.update(() -> this.statement.executeLargeUpdate(sql));
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		return this.update(() -> this.statement.executeLargeUpdate(sql, autoGeneratedKeys));
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		return this.update(() -> this.statement.executeLargeUpdate(sql, columnIndexes));
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+		return this.update(() -> this.statement.executeLargeUpdate(sql, columnNames));
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		return this.execute(() -> this.statement.execute());
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		return this.execute(() -> this.statement.execute(sql));
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		return this.execute(() -> this.statement.execute(sql, autoGeneratedKeys));
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		return this.execute(() -> this.statement.execute(sql, columnIndexes));
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		return this.execute(() -> this.statement.execute(sql, columnNames));
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		return this.batch(() -> this.statement.executeBatch());
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException {
+		return this.batch(() -> this.statement.executeLargeBatch());
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return this.rows(this.statement.getResultSet());
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		return this.rows(this.statement.getGeneratedKeys());
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		this.parameters.clear();
+		this.statement.clearParameters();
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			this.statement.close();
+		} finally {
+			if (this.listener != null) {
+				this.listener.closed(this.overloaded);
+			}
+		}
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return (iface.isInstance(this) ? iface.cast(this) : this.statement.unwrap(iface));
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return (iface.isInstance(this) || this.statement.isWrapperFor(iface));
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		return this.statement.getMaxFieldSize();
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		this.statement.setMaxFieldSize(max);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return this.statement.getMaxRows();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		this.statement.setMaxRows(max);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		this.statement.setEscapeProcessing(enable);
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		return this.statement.getQueryTimeout();
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		this.statement.setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		this.statement.cancel();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return this.statement.getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		this.statement.clearWarnings();
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		this.statement.setCursorName(name);
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return this.statement.getUpdateCount();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		return this.statement.getMoreResults();
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		this.statement.setFetchDirection(direction);
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		return this.statement.getFetchDirection();
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		this.statement.setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return this.statement.getFetchSize();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		return this.statement.getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		return this.statement.getResultSetType();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		this.statement.addBatch(sql);
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		this.statement.clearBatch();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return this.statement.getConnection();
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		return this.statement.getMoreResults(current);
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		return this.statement.getResultSetHoldability();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return this.statement.isClosed();
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		this.statement.setPoolable(poolable);
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		return this.statement.isPoolable();
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		this.statement.closeOnCompletion();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		return this.statement.isCloseOnCompletion();
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException {
+		return this.statement.getLargeUpdateCount();
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException {
+		this.statement.setLargeMaxRows(max);
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException {
+		return this.statement.getLargeMaxRows();
+	}
+
+	@Override
+	public String enquoteLiteral(String val) throws SQLException {
+		return this.statement.enquoteLiteral(val);
+	}
+
+	@Override
+	public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+		return this.statement.enquoteIdentifier(identifier, alwaysQuote);
+	}
+
+	@Override
+	public boolean isSimpleIdentifier(String identifier) throws SQLException {
+		return this.statement.isSimpleIdentifier(identifier);
+	}
+
+	@Override
+	public String enquoteNCharLiteral(String val) throws SQLException {
+		return this.statement.enquoteNCharLiteral(val);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		long start = this.bind(parameterIndex, null);
+		try {
+			this.statement.setNull(parameterIndex, sqlType);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBoolean(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setByte(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setShort(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setInt(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setLong(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setFloat(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setDouble(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBigDecimal(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setString(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBytes(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setDate(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setTime(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setTimestamp(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setAsciiStream(parameterIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Deprecated
+	@Override
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setUnicodeStream(parameterIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBinaryStream(parameterIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setObject(parameterIndex, x, targetSqlType);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setObject(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		this.statement.addBatch();
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setCharacterStream(parameterIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setRef(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBlob(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setClob(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setArray(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return this.statement.getMetaData();
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setDate(parameterIndex, x, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setTime(parameterIndex, x, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setTimestamp(parameterIndex, x, cal);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		long start = this.bind(parameterIndex, null);
+		try {
+			this.statement.setNull(parameterIndex, sqlType, typeName);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setURL(int parameterIndex, URL x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setURL(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		return this.statement.getParameterMetaData();
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setRowId(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		long start = this.bind(parameterIndex, value);
+		try {
+			this.statement.setNString(parameterIndex, value);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+		long start = this.bind(parameterIndex, value);
+		try {
+			this.statement.setNCharacterStream(parameterIndex, value, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) throws SQLException {
+		long start = this.bind(parameterIndex, value);
+		try {
+			this.statement.setNClob(parameterIndex, value);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setClob(parameterIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+		long start = this.bind(parameterIndex, inputStream);
+		try {
+			this.statement.setBlob(parameterIndex, inputStream, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setNClob(parameterIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+		long start = this.bind(parameterIndex, xmlObject);
+		try {
+			this.statement.setSQLXML(parameterIndex, xmlObject);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setAsciiStream(parameterIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBinaryStream(parameterIndex, x, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setCharacterStream(parameterIndex, reader, length);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setAsciiStream(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setBinaryStream(parameterIndex, x);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setCharacterStream(parameterIndex, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+		long start = this.bind(parameterIndex, value);
+		try {
+			this.statement.setNCharacterStream(parameterIndex, value);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setClob(parameterIndex, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+		long start = this.bind(parameterIndex, inputStream);
+		try {
+			this.statement.setBlob(parameterIndex, inputStream);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+		long start = this.bind(parameterIndex, reader);
+		try {
+			this.statement.setNClob(parameterIndex, reader);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+		long start = this.bind(parameterIndex, x);
+		try {
+			this.statement.setObject(parameterIndex, x, targetSqlType);
+		} catch (SQLException | RuntimeException ex) {
+			this.statistics.addError();
+			throw ex;
+		} finally {
+			this.statistics.bind.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The <code>Execution</code> class represents a single execution of the wrapped statement, from
+	 * the start of the execution until its <code>ResultSet</code> is closed (or until the execution
+	 * returns, for updates).
+	 */
+	final class Execution {
+		/**
+		 * The Java Flight Recorder event of the execution.
+		 */
+		private final QueryEvent event;
+
+		/**
+		 * The tracing span of the execution.
+		 */
+		private final Span span;
+
+		/**
+		 * The bound parameters at the start of the execution or <code>null</code> if they are not
+		 * kept.
+		 */
+		private final List<Object> parameters;
+
+		/**
+		 * The start of the execution in nanoseconds.
+		 */
+		private final long start;
+
+		/**
+		 * The number of rows read or written thus far.
+		 */
+		private long rows;
+
+		/**
+		 * Whether the execution has already been finished.
+		 */
+		private boolean finished;
+
+		/**
+		 * Start a single execution.
+		 */
+		private Execution() {
+			InstrumentedStatement outer = InstrumentedStatement.this;
+			this.parameters = (outer.keepParameters() ? new ArrayList<Object>(outer.parameters) : null);
+
+			this.event = new QueryEvent();
+			if (this.event.isEnabled()) {
+				this.event.statement = outer.statistics.name;
+				this.event.parameters = String.valueOf(this.parameters);
+			}
+			this.event.begin();
+
+			this.span = Tracer.start(outer.statistics.name);
+			if (this.span.isRecording()) {
+				if (outer.system == null) {
+					outer.system = InstrumentedStatement.systemOf(outer.connection);
+				}
+				this.span.setAttribute("db.system", outer.system);
+				this.span.setAttribute("db.statement.name", outer.statistics.name);
+				this.span.setAttribute("db.statement.parameters", this.parameters);
+			}
+			this.start = System.nanoTime();
+			this.rows = 0L;
+			this.finished = false;
+		}
+
+		/**
+		 * Count one more row read by this execution.
+		 */
+		void addRow() {
+			++this.rows;
+		}
+
+		/**
+		 * Finish this execution by committing its event and logging it if it is slow. Only the first
+		 * call has any effect.
+		 *
+		 * @param failed
+		 *            whether the execution or fetching has failed
+		 */
+		void finish(boolean failed) {
+			if (this.finished) {
+				return;
+			}
+			this.finished = true;
+
+			long nanos = System.nanoTime() - this.start;
+			this.event.rows = this.rows;
+			this.event.failed = failed;
+			this.event.commit();
+
+			this.span.setAttribute("db.rows", this.rows);
+			if (failed) {
+				this.span.setError("Execution or fetching failed.");
+			}
+			this.span.close();
+
+			InstrumentedStatement outer = InstrumentedStatement.this;
+			if (outer.slowLog != null) {
+				outer.slowLog.record(outer.connection, outer.statistics.name, outer.sql, this.parameters, nanos,
+						this.rows);
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayDeque;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>JsonWriter</code> class writes a single <b>JSON</b> document into a string, one
+ *         token at a time. <br>
+ *         <br>
+ *
+ *         The writer only inserts the separators and escapes the strings, it does not check that the
+ *         tokens form a valid document (e.g. that every value of an object has a name).
+ *
+ * @see #beginObject()
+ * @see #beginArray()
+ * @see #name(String)
+ * @see #toString()
+ */
+public final class JsonWriter {
+	/**
+	 * The document so far.
+	 */
+	private final StringBuilder out;
+
+	/**
+	 * For every open object or array, whether nothing has been written into it yet.
+	 */
+	private final ArrayDeque<Boolean> empty;
+
+	/**
+	 * Whether the last token was a name, i.e. the next value belongs to it.
+	 */
+	private boolean named;
+
+	/**
+	 * Default constructor for a <code>JsonWriter</code> object.
+	 */
+	public JsonWriter() {
+		this.out = new StringBuilder();
+		this.empty = new ArrayDeque<Boolean>();
+		this.named = false;
+	}
+
+	/**
+	 * Write the separator that precedes the next value or name and mark the enclosing container as
+	 * not empty.
+	 */
+	private void next() {
+		if (this.named) {
+			this.named = false;
+			return;
+		}
+		if (!this.empty.isEmpty()) {
+			if (!this.empty.pop().booleanValue()) {
+				this.out.append(',');
+			}
+			this.empty.push(Boolean.FALSE);
+		}
+	}
+
+	/**
+	 * Begin an object.
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter beginObject() {
+		this.next();
+		this.out.append('{');
+		this.empty.push(Boolean.TRUE);
+		return this;
+	}
+
+	/**
+	 * End the innermost object.
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter endObject() {
+		this.empty.pop();
+		this.out.append('}');
+		return this;
+	}
+
+	/**
+	 * Begin an array.
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter beginArray() {
+		this.next();
+		this.out.append('[');
+		this.empty.push(Boolean.TRUE);
+		return this;
+	}
+
+	/**
+	 * End the innermost array.
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter endArray() {
+		this.empty.pop();
+		this.out.append(']');
+		return this;
+	}
+
+	/**
+	 * Write the name of the next member of the innermost object.
+	 *
+	 * @param name
+	 *            the member name
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>name == null</code>
+	 */
+	public JsonWriter name(String name) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Given member name is null.");
+		}
+
+		this.next();
+		JsonWriter.quote(this.out, name);
+		this.out.append(':');
+		this.named = true;
+		return this;
+	}
+
+	/**
+	 * Write a string or <code>null</code>.
+	 *
+	 * @param value
+	 *            the value
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter value(String value) {
+		this.next();
+		if (value == null) {
+			this.out.append("null");
+		} else {
+			JsonWriter.quote(this.out, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Write an integer.
+	 *
+	 * @param value
+	 *            the value
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter value(long value) {
+		this.next();
+		this.out.append(value);
+		return this;
+	}
+
+	/**
+	 * Write a single precision number, or <code>null</code> if it is not finite. The shortest decimal
+	 * that identifies the <code>float</code> is written, e.g. <code>15.95</code> rather than the
+	 * <code>15.949999809265137</code> of the same value as a <code>double</code>.
+	 *
+	 * @param value
+	 *            the value
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter value(float value) {
+		this.next();
+		if (Float.isNaN(value) || Float.isInfinite(value)) {
+			this.out.append("null");
+		} else {
+			this.out.append(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Write a number, or <code>null</code> if it is not finite since JSON has no such numbers.
+	 *
+	 * @param value
+	 *            the value
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter value(double value) {
+		this.next();
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			this.out.append("null");
+		} else {
+			this.out.append(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Write a boolean.
+	 *
+	 * @param value
+	 *            the value
+	 *
+	 * @return <code>this</code>.
+	 */
+	public JsonWriter value(boolean value) {
+		this.next();
+		this.out.append(value);
+		return this;
+	}
+
+	/**
+	 * Append the given string as a JSON string literal.
+	 *
+	 * @param out
+	 *            the output
+	 *
+	 * @param s
+	 *            the string
+	 */
+	private static void quote(StringBuilder out, String s) {
+		out.append('"');
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Returns the document written so far.
+	 *
+	 * @return <code>this.out.toString()</code>.
+	 */
+	@Override
+	public String toString() {
+		return this.out.toString();
+	}
+}
@@ -0,0 +1,257 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>LatencyHistogram</code> class is a lock-free histogram of latencies in
+ *         nanoseconds. <br>
+ *         <br>
+ *
+ *         Values are counted in log-linear buckets: every power of two range is split into
+ *         <code>SUB_BUCKETS</code> equally sized buckets so that every reported percentile is within
+ *         <code>1 / SUB_BUCKETS</code> (about 3%) of the exact value, while the whole histogram is a
+ *         fixed size array of counters. Recording is a handful of atomic increments and histograms
+ *         can be merged by adding their counters.
+ *
+ * @see #record(long)
+ * @see #merge(LatencyHistogram)
+ * @see #getPercentile(double)
+ *
+ * @see QueryStatistics
+ */
+public final class LatencyHistogram {
+	/**
+	 * The number of bits used to select a bucket inside of a power of two range.
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/**
+	 * The number of buckets inside of a power of two range.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+
+	/**
+	 * The total number of buckets which is enough to hold any non-negative <code>long</code>.
+	 */
+	private static final int BUCKETS = (Long.SIZE - LatencyHistogram.SUB_BUCKET_BITS + 1)
+			* LatencyHistogram.SUB_BUCKETS;
+
+	/**
+	 * The number of values of every bucket.
+	 */
+	private final AtomicLongArray counts;
+
+	/**
+	 * The total number of recorded values.
+	 */
+	private final AtomicLong count;
+
+	/**
+	 * The sum of all recorded values.
+	 */
+	private final AtomicLong sum;
+
+	/**
+	 * The largest recorded value.
+	 */
+	private final AtomicLong max;
+
+	/**
+	 * Default constructor for an empty <code>LatencyHistogram</code> object.
+	 */
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+		this.count = new AtomicLong();
+		this.sum = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * Returns the bucket of the given value.
+	 *
+	 * @param value
+	 *            the non-negative value
+	 *
+	 * @return The index of the bucket in <code>[0, BUCKETS)</code>.
+	 */
+	private static int bucket(long value) {
+		if (value < LatencyHistogram.SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - LatencyHistogram.SUB_BUCKET_BITS;
+		return (shift + 1) * LatencyHistogram.SUB_BUCKETS
+				+ (int) ((value >>> shift) - LatencyHistogram.SUB_BUCKETS);
+	}
+
+	/**
+	 * Returns the largest value of the given bucket.
+	 *
+	 * @param bucket
+	 *            the index of the bucket
+	 *
+	 * @return The largest value that is counted in the given bucket.
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < LatencyHistogram.SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = bucket / LatencyHistogram.SUB_BUCKETS - 1;
+		long sub = bucket % LatencyHistogram.SUB_BUCKETS + LatencyHistogram.SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Record the given value. Negative values (e.g. caused by a clock adjustment) are recorded as
+	 * <code>0</code>.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0L);
+		this.counts.incrementAndGet(LatencyHistogram.bucket(value));
+		this.sum.addAndGet(value);
+		this.max.accumulateAndGet(value, Math::max);
+		this.count.incrementAndGet();
+	}
+
+	/**
+	 * Add all values of the given histogram to this histogram.
+	 *
+	 * @param other
+	 *            the given histogram
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>other == null</code>
+	 */
+	public LatencyHistogram merge(LatencyHistogram other) throws NullPointerException {
+		if (other == null) {
+			throw new NullPointerException("Given histogram is null.");
+		}
+
+		for (int i = 0; i < LatencyHistogram.BUCKETS; ++i) {
+			long c = other.counts.get(i);
+			if (c != 0) {
+				this.counts.addAndGet(i, c);
+			}
+		}
+		this.sum.addAndGet(other.sum.get());
+		this.max.accumulateAndGet(other.max.get(), Math::max);
+		this.count.addAndGet(other.count.get());
+		return this;
+	}
+
+	/**
+	 * Returns the total number of recorded values.
+	 *
+	 * @return <code>this.count.get()</code>.
+	 */
+	public long getCount() {
+		return this.count.get();
+	}
+
+	/**
+	 * Returns the sum of all recorded values.
+	 *
+	 * @return <code>this.sum.get()</code>.
+	 */
+	public long getSum() {
+		return this.sum.get();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return <code>this.max.get()</code>.
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the mean of all recorded values.
+	 *
+	 * @return The mean or <code>0</code> if nothing has been recorded.
+	 */
+	public double getMean() {
+		long n = this.count.get();
+		return (n == 0 ? 0.0 : (double) this.sum.get() / n);
+	}
+
+	/**
+	 * Returns the given percentile of the recorded values. The result is the largest value of the
+	 * bucket that contains the percentile, but never more than the largest recorded value.
+	 *
+	 * @param percentile
+	 *            the percentile in the range <code>[0, 100]</code>
+	 *
+	 * @return The percentile or <code>0</code> if nothing has been recorded.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>percentile</code> is not in the range <code>[0, 100]</code>
+	 */
+	public long getPercentile(double percentile) throws IllegalArgumentException {
+		if (!(0.0 <= percentile && percentile <= 100.0)) {
+			throw new IllegalArgumentException(
+					"Given percentile(" + percentile + ") is not in the following range: [0, 100]");
+		}
+
+		// Sum the buckets instead of using this.count since concurrent recording could make them differ.
+		long total = 0;
+		for (int i = 0; i < LatencyHistogram.BUCKETS; ++i) {
+			total += this.counts.get(i);
+		}
+		if (total == 0) {
+			return 0L;
+		}
+
+		long rank = Math.max((long) Math.ceil(percentile / 100.0 * total), 1L);
+		long seen = 0;
+		for (int i = 0; i < LatencyHistogram.BUCKETS; ++i) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Math.min(LatencyHistogram.highestValue(i), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the given nanoseconds in a human readable unit.
+	 *
+	 * @param nanos
+	 *            the given nanoseconds
+	 *
+	 * @return The formatted time.
+	 */
+	public static String format(long nanos) {
+		if (nanos < 1000L) {
+			return nanos + "ns";
+		} else if (nanos < 1000000L) {
+			return String.format("%.1fus", nanos / 1e3);
+		} else if (nanos < 1000000000L) {
+			return String.format("%.1fms", nanos / 1e6);
+		}
+		return String.format("%.2fs", nanos / 1e9);
+	}
+
+	/**
+	 * Returns the <code>String</code> representation of this histogram.
+	 *
+	 * @return The number of values, p50, p99, p999 and max.
+	 */
+	@Override
+	public String toString() {
+		return "count=" + this.getCount() + " p50=" + LatencyHistogram.format(this.getPercentile(50.0)) + " p99="
+				+ LatencyHistogram.format(this.getPercentile(99.0)) + " p999="
+				+ LatencyHistogram.format(this.getPercentile(99.9)) + " max="
+				+ LatencyHistogram.format(this.getMax());
+	}
+}
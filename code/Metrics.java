@@ -0,0 +1,275 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Metrics</code> class is a registry of application metrics that can be rendered in
+ *         the <b>Prometheus</b> text exposition format. <br>
+ *         <br>
+ *
+ *         Counters that are updated on hot paths are <code>LongAdder</code>s which stripe their
+ *         updates across cells instead of contending on a single value. Every other metric is read
+ *         from a <code>Supplier</code> at scrape time so that it costs nothing between scrapes.
+ *
+ * @see #counter(String, String, String)
+ * @see #register(String, String, String, Supplier)
+ * @see #summary(String, String, Supplier)
+ * @see #scrape()
+ *
+ * @see MetricsServer
+ */
+public final class Metrics {
+	/**
+	 * The quantiles reported for every summary.
+	 */
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+	/**
+	 * A single metric family i.e. all samples of the same metric name.
+	 */
+	private static final class Family {
+		/**
+		 * The help text.
+		 */
+		private final String help;
+
+		/**
+		 * The Prometheus type i.e. <code>counter</code>, <code>gauge</code> or <code>summary</code>.
+		 */
+		private final String type;
+
+		/**
+		 * Mapping label strings to counters, for families created by <code>counter</code>.
+		 */
+		private final ConcurrentSkipListMap<String, LongAdder> counters;
+
+		/**
+		 * The supplier of label strings to values, for families created by <code>register</code>.
+		 */
+		private final Supplier<? extends Map<String, ? extends Number>> values;
+
+		/**
+		 * The supplier of label strings to histograms, for families created by <code>summary</code>.
+		 */
+		private final Supplier<? extends Map<String, LatencyHistogram>> histograms;
+
+		/**
+		 * General constructor for a <code>Family</code> object.
+		 *
+		 * @param help
+		 *            the help text
+		 *
+		 * @param type
+		 *            the Prometheus type
+		 *
+		 * @param values
+		 *            the supplier of values, could be <code>null</code>
+		 *
+		 * @param histograms
+		 *            the supplier of histograms, could be <code>null</code>
+		 */
+		private Family(String help, String type, Supplier<? extends Map<String, ? extends Number>> values,
+				Supplier<? extends Map<String, LatencyHistogram>> histograms) {
+			this.help = help;
+			this.type = type;
+			this.counters = new ConcurrentSkipListMap<String, LongAdder>();
+			this.values = values;
+			this.histograms = histograms;
+		}
+	}
+
+	/**
+	 * Mapping metric names to their families.
+	 */
+	private final ConcurrentHashMap<String, Family> families;
+
+	/**
+	 * Default constructor for an empty <code>Metrics</code> object.
+	 */
+	public Metrics() {
+		this.families = new ConcurrentHashMap<String, Family>();
+	}
+
+	/**
+	 * Returns the label string of the given label names and values, e.g.
+	 * <code>labels("cache", "history", "result", "hit")</code> returns
+	 * <code>cache="history",result="hit"</code>.
+	 *
+	 * @param namesAndValues
+	 *            alternating label names and values
+	 *
+	 * @return The label string with escaped values.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If an odd number of strings is given
+	 */
+	public static String labels(String... namesAndValues) throws IllegalArgumentException {
+		if (namesAndValues.length % 2 != 0) {
+			throw new IllegalArgumentException("Given label names and values are not in pairs.");
+		}
+
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			if (i != 0) {
+				result.append(',');
+			}
+			result.append(namesAndValues[i]).append("=\"");
+			String value = String.valueOf(namesAndValues[i + 1]);
+			for (int j = 0; j < value.length(); ++j) {
+				char c = value.charAt(j);
+				if (c == '\\' || c == '"') {
+					result.append('\\').append(c);
+				} else if (c == '\n') {
+					result.append("\\n");
+				} else {
+					result.append(c);
+				}
+			}
+			result.append('"');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the counter of the given metric name and labels, creating it if it does not exist yet.
+	 *
+	 * @param name
+	 *            the metric name which should end with <code>_total</code>
+	 *
+	 * @param help
+	 *            the help text
+	 *
+	 * @param labels
+	 *            the label string (see <code>labels(String...)</code>) or the empty string
+	 *
+	 * @return The counter.
+	 *
+	 * @throws IllegalStateException
+	 *             If <code>name</code> has already been registered as a different kind of metric
+	 */
+	public LongAdder counter(String name, String help, String labels) throws IllegalStateException {
+		Family f = this.families.computeIfAbsent(name, k -> new Family(help, "counter", null, null));
+		if (f.values != null || f.histograms != null) {
+			throw new IllegalStateException("Given metric name(" + name + ") is not a counter.");
+		}
+		return f.counters.computeIfAbsent(labels, k -> new LongAdder());
+	}
+
+	/**
+	 * Register a metric whose samples are read from the given supplier at scrape time.
+	 *
+	 * @param name
+	 *            the metric name
+	 *
+	 * @param help
+	 *            the help text
+	 *
+	 * @param type
+	 *            <code>"counter"</code> or <code>"gauge"</code>
+	 *
+	 * @param values
+	 *            the supplier of label strings to values
+	 *
+	 * @throws NullPointerException
+	 *             If <code>values == null</code>
+	 */
+	public void register(String name, String help, String type,
+			Supplier<? extends Map<String, ? extends Number>> values) throws NullPointerException {
+		if (values == null) {
+			throw new NullPointerException("Given value supplier is null.");
+		}
+		this.families.put(name, new Family(help, type, values, null));
+	}
+
+	/**
+	 * Register a summary whose quantiles, sum and count are read from the given latency histograms at
+	 * scrape time. The histograms are in nanoseconds and are reported in seconds.
+	 *
+	 * @param name
+	 *            the metric name which should end with <code>_seconds</code>
+	 *
+	 * @param help
+	 *            the help text
+	 *
+	 * @param histograms
+	 *            the supplier of label strings to histograms
+	 *
+	 * @throws NullPointerException
+	 *             If <code>histograms == null</code>
+	 */
+	public void summary(String name, String help, Supplier<? extends Map<String, LatencyHistogram>> histograms)
+			throws NullPointerException {
+		if (histograms == null) {
+			throw new NullPointerException("Given histogram supplier is null.");
+		}
+		this.families.put(name, new Family(help, "summary", null, histograms));
+	}
+
+	/**
+	 * Append a single sample line.
+	 *
+	 * @param out
+	 *            the output
+	 *
+	 * @param name
+	 *            the sample name
+	 *
+	 * @param labels
+	 *            the label string or the empty string
+	 *
+	 * @param value
+	 *            the sample value
+	 */
+	private static void sample(StringBuilder out, String name, String labels, Object value) {
+		out.append(name);
+		if (!labels.isEmpty()) {
+			out.append('{').append(labels).append('}');
+		}
+		out.append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Returns all metrics in the Prometheus text exposition format (version 0.0.4).
+	 *
+	 * @return The metrics sorted by name.
+	 */
+	public String scrape() {
+		StringBuilder out = new StringBuilder();
+		for (Map.Entry<String, Family> e : new TreeMap<String, Family>(this.families).entrySet()) {
+			String name = e.getKey();
+			Family f = e.getValue();
+			out.append("# HELP ").append(name).append(' ').append(f.help.replace("\\", "\\\\").replace("\n", "\\n"))
+					.append('\n');
+			out.append("# TYPE ").append(name).append(' ').append(f.type).append('\n');
+
+			if (f.values != null) {
+				for (Map.Entry<String, ? extends Number> v : new TreeMap<String, Number>(f.values.get()).entrySet()) {
+					Metrics.sample(out, name, v.getKey(), v.getValue());
+				}
+			} else if (f.histograms != null) {
+				for (Map.Entry<String, LatencyHistogram> h : new TreeMap<String, LatencyHistogram>(f.histograms.get())
+						.entrySet()) {
+					String labels = h.getKey();
+					LatencyHistogram histogram = h.getValue();
+					for (double q : Metrics.QUANTILES) {
+						String quantile = Metrics.labels("quantile", Double.toString(q));
+						Metrics.sample(out, name, (labels.isEmpty() ? quantile : labels + "," + quantile),
+								histogram.getPercentile(q * 100.0) / 1e9);
+					}
+					Metrics.sample(out, name + "_sum", labels, histogram.getSum() / 1e9);
+					Metrics.sample(out, name + "_count", labels, histogram.getCount());
+				}
+			} else {
+				for (Map.Entry<String, LongAdder> c : f.counters.entrySet()) {
+					Metrics.sample(out, name, c.getKey(), c.getValue().sum());
+				}
+			}
+		}
+		return out.toString();
+	}
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>MetricsServer</code> class serves a <code>Metrics</code> registry at
+ *         <code>/metrics</code> using the embedded JDK <code>HttpServer</code>, so that the
+ *         application can be scraped by <b>Prometheus</b>. <br>
+ *         <br>
+ *
+ *         Requests are handled on a single daemon thread which never keeps the application alive.
+ *
+ * @see #start(int, Metrics)
+ * @see #stop()
+ *
+ * @see Metrics
+ */
+public final class MetricsServer {
+	/**
+	 * The path that the metrics are served at.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String PATH = "/metrics";
+
+	/**
+	 * The content type of the Prometheus text exposition format.
+	 */
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	/**
+	 * The underlying HTTP server.
+	 */
+	private final HttpServer server;
+
+	/**
+	 * The thread that handles the requests.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * General constructor for a <code>MetricsServer</code> object.
+	 *
+	 * @param server
+	 *            the underlying HTTP server
+	 *
+	 * @param executor
+	 *            the thread that handles the requests
+	 */
+	private MetricsServer(HttpServer server, ExecutorService executor) {
+		this.server = server;
+		this.executor = executor;
+	}
+
+	/**
+	 * Start serving the given metrics on the given port of all local addresses.
+	 *
+	 * @param port
+	 *            the port or <code>0</code> for an ephemeral port
+	 *
+	 * @param metrics
+	 *            the metrics to serve
+	 *
+	 * @return The started server.
+	 *
+	 * @throws IOException
+	 *             If the server could not be bound to the given port
+	 *
+	 * @throws NullPointerException
+	 *             If <code>metrics == null</code>
+	 */
+	public static MetricsServer start(int port, Metrics metrics) throws IOException, NullPointerException {
+		if (metrics == null) {
+			throw new NullPointerException("Given metrics is null.");
+		}
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext(MetricsServer.PATH, exchange -> MetricsServer.handle(exchange, metrics));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "yrbapp-metrics");
+			t.setDaemon(true);
+			return t;
+		});
+		server.setExecutor(executor);
+		server.start();
+		return new MetricsServer(server, executor);
+	}
+
+	/**
+	 * Respond to a single scrape.
+	 *
+	 * @param exchange
+	 *            the HTTP exchange
+	 *
+	 * @param metrics
+	 *            the metrics to serve
+	 *
+	 * @throws IOException
+	 *             If the response could not be written
+	 */
+	static void handle(HttpExchange exchange, Metrics metrics) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", MetricsServer.CONTENT_TYPE);
+			if (exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Returns the port that the server is bound to.
+	 *
+	 * @return <code>this.server.getAddress().getPort()</code>.
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Stop serving the metrics immediately.
+	 */
+	public void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+}
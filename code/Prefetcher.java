@@ -0,0 +1,357 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Prefetcher</code> class speculatively starts the lookups of the next likely state
+ *         of a shopping session in the background, while the user is still answering the prompts of
+ *         the current state, so that the next screen can be shown without waiting for the database.
+ *         <br>
+ *         <br>
+ *
+ *         The states of <code>YRBAPP.run()</code> nearly always follow each other in the same order,
+ *         which is why:
+ *         <ul>
+ *         <li><code>startSession()</code> starts loading the categories,</li>
+ *         <li><code>afterCustomer(int, int)</code> starts loading the category that the customer has
+ *         purchased the most books from, followed by the first page of the books of that category, in
+ *         parallel with the categories,</li>
+ *         <li><code>afterBook(Book)</code> starts finding the best offer of the chosen book for the
+ *         customer.</li>
+ *         </ul>
+ *         The consumer takes a prefetched lookup with one of the <code>take</code> methods, which
+ *         return <code>null</code> when nothing was prefetched for the given arguments. Every lookup
+ *         is counted when it is issued, when it is taken (<code>used</code>) and when it is dropped
+ *         without having been taken (<code>wasted</code>), which tells whether prefetching pays off.
+ *         <br>
+ *         <br>
+ *
+ *         Only reads that do not depend on the uncommitted changes of the session are prefetched.
+ *
+ * @see AsyncStore
+ * @see YRBAPP
+ */
+public final class Prefetcher {
+	/**
+	 * The kind of the categories lookup.
+	 */
+	private static final String CATEGORIES = "categories";
+
+	/**
+	 * The kind of the most purchased category lookup.
+	 */
+	private static final String FAVORITE = "favorite_category";
+
+	/**
+	 * The kind of the first book page lookup.
+	 */
+	private static final String BOOKS = "books";
+
+	/**
+	 * The kind of the best offer lookup.
+	 */
+	private static final String OFFER = "offer";
+
+	/**
+	 * The store that runs the lookups.
+	 */
+	private final AsyncStore async;
+
+	/**
+	 * The lookups that have been issued but not taken yet, keyed by their kind and arguments.
+	 */
+	private final ConcurrentHashMap<String, CompletableFuture<?>> pending;
+
+	/**
+	 * The number of lookups by kind and result, keyed by their label string.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> counts;
+
+	/**
+	 * The customer of the current session or <code>null</code> if no customer has been found yet.
+	 */
+	private volatile Integer cid;
+
+	/**
+	 * General constructor for a <code>Prefetcher</code> object.
+	 *
+	 * @param async
+	 *            the store that runs the lookups
+	 *
+	 * @throws NullPointerException
+	 *             If <code>async == null</code>
+	 */
+	public Prefetcher(AsyncStore async) throws NullPointerException {
+		if (async == null) {
+			throw new NullPointerException("Given store is null.");
+		}
+
+		this.async = async;
+		this.pending = new ConcurrentHashMap<String, CompletableFuture<?>>();
+		this.counts = new ConcurrentHashMap<String, LongAdder>();
+		this.cid = null;
+	}
+
+	/**
+	 * Returns the number of lookups by kind and result.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping the label strings of
+	 *         <code>kind</code> and <code>result</code> (<code>issued</code>, <code>used</code> or
+	 *         <code>wasted</code>) to their counts.
+	 */
+	public TreeMap<String, Long> getCounts() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.counts.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Count a lookup of the given kind with the given result.
+	 *
+	 * @param kind
+	 *            the kind of the lookup
+	 *
+	 * @param result
+	 *            <code>issued</code>, <code>used</code> or <code>wasted</code>
+	 */
+	private void count(String kind, String result) {
+		this.counts.computeIfAbsent(Metrics.labels("kind", kind, "result", result), k -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Returns the kind of the given key.
+	 *
+	 * @param key
+	 *            the key of a lookup
+	 *
+	 * @return The part of <code>key</code> before the first <code>':'</code>.
+	 */
+	private static String kindOf(String key) {
+		int i = key.indexOf(':');
+		return (i < 0 ? key : key.substring(0, i));
+	}
+
+	/**
+	 * Start the given lookup unless a lookup with the same key is already pending.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param key
+	 *            the kind and arguments of the lookup
+	 *
+	 * @param lookup
+	 *            starts the lookup on <code>this.async</code>
+	 *
+	 * @return The future of the pending lookup.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> CompletableFuture<T> issue(String key, Supplier<CompletableFuture<T>> lookup) {
+		return (CompletableFuture<T>) this.pending.computeIfAbsent(key, k -> {
+			this.count(Prefetcher.kindOf(k), "issued");
+			return lookup.get();
+		});
+	}
+
+	/**
+	 * Take the pending lookup with the given key.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param key
+	 *            the kind and arguments of the lookup
+	 *
+	 * @return The future of the lookup or <code>null</code> if no such lookup is pending.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> CompletableFuture<T> take(String key) {
+		CompletableFuture<T> result = (CompletableFuture<T>) this.pending.remove(key);
+		if (result != null) {
+			this.count(Prefetcher.kindOf(key), "used");
+		}
+		return result;
+	}
+
+	/**
+	 * Drop every pending lookup of the given kind, or of every kind if <code>kind == null</code>, and
+	 * count it as wasted.
+	 *
+	 * @param kind
+	 *            the kind or <code>null</code>
+	 */
+	private void drop(String kind) {
+		for (String key : this.pending.keySet()) {
+			if (kind == null || kind.equals(Prefetcher.kindOf(key))) {
+				CompletableFuture<?> future = this.pending.remove(key);
+				if (future != null) {
+					future.cancel(false);
+					this.count(Prefetcher.kindOf(key), "wasted");
+				}
+			}
+		}
+	}
+
+	/**
+	 * A new shopping session has started: drop everything of the previous session and start loading
+	 * the categories.
+	 */
+	public void startSession() {
+		this.drop(null);
+		this.cid = null;
+		this.issue(Prefetcher.CATEGORIES, this.async::fetchCategories);
+	}
+
+	/**
+	 * The customer with the given ID has been found: drop everything of the previous customer and
+	 * start loading the most purchased category of the customer, followed by the first page of the
+	 * books of that category.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param pageLimit
+	 *            the number of books of the prefetched book page, which must match the number of books
+	 *            that the consumer reads for its first page
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>pageLimit &lt;= 0</code>
+	 */
+	public void afterCustomer(int cid, int pageLimit) throws IllegalArgumentException {
+		if (pageLimit <= 0) {
+			throw new IllegalArgumentException("Given page limit(" + pageLimit + ") is not positive.");
+		}
+
+		this.drop(Prefetcher.FAVORITE);
+		this.drop(Prefetcher.BOOKS);
+		this.drop(Prefetcher.OFFER);
+		this.cid = cid;
+
+		// Both lookups run at the same time, and the book page starts as soon as the category is known.
+		this.issue(Prefetcher.CATEGORIES, this.async::fetchCategories);
+		this.issue(Prefetcher.FAVORITE + ":" + cid, () -> this.async.findFavoriteCategory(cid)).thenAccept(result -> {
+			if (result != null) { // Most customers buy from the same category again.
+				this.issue(Prefetcher.BOOKS + ":" + result, () -> this.async.findBookPage(result, pageLimit));
+			}
+		});
+	}
+
+	/**
+	 * The given book has been chosen: drop the offers of any other book and start finding the best
+	 * offer of the book for the current customer. Nothing is started if no customer has been found.
+	 *
+	 * @param book
+	 *            the book
+	 *
+	 * @throws NullPointerException
+	 *             If <code>book == null</code>
+	 */
+	public void afterBook(Book book) throws NullPointerException {
+		if (book == null) {
+			throw new NullPointerException("Given book is null.");
+		}
+
+		Integer cid = this.cid;
+		if (cid == null) {
+			return;
+		}
+
+		String key = Prefetcher.offerKey(cid, book);
+		if (!this.pending.containsKey(key)) {
+			this.drop(Prefetcher.OFFER);
+		}
+		this.issue(key, () -> this.async.minPrice(cid, book));
+	}
+
+	/**
+	 * Returns the key of the best offer lookup of the given customer and book.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param book
+	 *            the book
+	 *
+	 * @return The key.
+	 */
+	private static String offerKey(int cid, Book book) {
+		return Prefetcher.OFFER + ":" + cid + ":" + book.year + ":" + book.title;
+	}
+
+	/**
+	 * Take the prefetched categories.
+	 *
+	 * @return The future of the categories or <code>null</code> if they have not been prefetched.
+	 */
+	public CompletableFuture<ArrayList<String>> takeCategories() {
+		return this.take(Prefetcher.CATEGORIES);
+	}
+
+	/**
+	 * Take the prefetched most purchased category of the given customer.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return The future of the category, which is <code>null</code> if the customer has not purchased
+	 *         anything, or <code>null</code> if it has not been prefetched.
+	 */
+	public CompletableFuture<String> takeFavoriteCategory(int cid) {
+		return this.take(Prefetcher.FAVORITE + ":" + cid);
+	}
+
+	/**
+	 * Take the prefetched first page of the books of the given category.
+	 *
+	 * @param category
+	 *            the category
+	 *
+	 * @return The future of at most <code>pageLimit</code> books in <code>Book.compareTo</code>
+	 *         order or <code>null</code> if they have not been prefetched.
+	 */
+	public CompletableFuture<ArrayList<Book>> takeBooks(String category) {
+		CompletableFuture<ArrayList<Book>> result = this.take(Prefetcher.BOOKS + ":" + category);
+		this.drop(Prefetcher.BOOKS); // Any other category has not been chosen.
+		return result;
+	}
+
+	/**
+	 * Take the prefetched best offer of the given book for the given customer.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param book
+	 *            the book
+	 *
+	 * @return The future of the offer as a purchase of quantity <code>0</code>, which is
+	 *         <code>null</code> if the book is not offered to the customer, or <code>null</code> if it
+	 *         has not been prefetched.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>book == null</code>
+	 */
+	public CompletableFuture<Purchase> takeOffer(int cid, Book book) throws NullPointerException {
+		if (book == null) {
+			throw new NullPointerException("Given book is null.");
+		}
+
+		return this.take(Prefetcher.offerKey(cid, book));
+	}
+
+	/**
+	 * Drop every pending lookup, e.g. at the end of the application.
+	 */
+	public void clear() {
+		this.drop(null);
+		this.cid = null;
+	}
+}
@@ -6,9 +6,9 @@ import java.sql.Timestamp;
  *         The <code>Purchase</code> class can encapsulate a single tuple from the
  *         <code>yrb_purchase</code> table in the <b><i>York River Bookseller's Database</i></b>.
  * 
- * @see #Purchase(short, String, String, short, float, short, long)
- * @see #Purchase(short, String, String, short, float, short)
- * @see #Purchase(short, String, String, short, float)
+ * @see #Purchase(int, String, String, short, float, short, long)
+ * @see #Purchase(int, String, String, short, float, short)
+ * @see #Purchase(int, String, String, short, float)
  * 
  * @see YRBAPP
  */
@@ -17,11 +17,11 @@ public final class Purchase implements Comparable<Purchase> {
 	 * The customer ID of a <code>Purchase</code> object. <br>
 	 * <br>
 	 * 
-	 * <b>SQL :</b> <code>create table yrb_purchase ( ..., cid smallint not null, ... );</code>
+	 * <b>SQL :</b> <code>create table yrb_purchase ( ..., cid integer not null, ... );</code>
 	 */
-	// shorts are immutable in Java which is why making this final variable public,
+	// ints are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
-	public final short cid;
+	public final int cid;
 
 	/**
 	 * The maximum length of a club name in the <code>yrb_purchase</code> table. <br>
@@ -29,9 +29,9 @@ public final class Purchase implements Comparable<Purchase> {
 	 * 
 	 * <b>SQL :</b> <code>create table yrb_purchase ( ..., club varchar(15) not null, ... );</code>
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short, long)
-	 * @see #Purchase(short, String, String, short, float, short)
-	 * @see #Purchase(short, String, String, short, float)
+	 * @see #Purchase(int, String, String, short, float, short, long)
+	 * @see #Purchase(int, String, String, short, float, short)
+	 * @see #Purchase(int, String, String, short, float)
 	 */
 	// ints are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
@@ -56,9 +56,9 @@ public final class Purchase implements Comparable<Purchase> {
 	 * 
 	 * <b>SQL :</b> <code>create table yrb_purchase ( ..., title varchar(25) not null, ... );</code>
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short, long)
-	 * @see #Purchase(short, String, String, short, float, short)
-	 * @see #Purchase(short, String, String, short, float)
+	 * @see #Purchase(int, String, String, short, float, short, long)
+	 * @see #Purchase(int, String, String, short, float, short)
+	 * @see #Purchase(int, String, String, short, float)
 	 */
 	// ints are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
@@ -201,7 +201,7 @@ public final class Purchase implements Comparable<Purchase> {
 	 * @see #getWhen()
 	 * @see #setWhen()
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short, long)
+	 * @see #Purchase(int, String, String, short, float, short, long)
 	 */
 	public Timestamp setWhen(long currentTimeMillis) throws IllegalArgumentException {
 		if (currentTimeMillis < 0) {
@@ -278,9 +278,9 @@ public final class Purchase implements Comparable<Purchase> {
 	 * 
 	 * @see #setWhen(long)
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short)
+	 * @see #Purchase(int, String, String, short, float, short)
 	 */
-	public Purchase(short cid, String club, String title, short year, float price, short quantity,
+	public Purchase(int cid, String club, String title, short year, float price, short quantity,
 			long currentTimeMillis) throws NullPointerException, IllegalArgumentException {
 		if (club == null) {
 			throw new NullPointerException("Given club name is null.");
@@ -317,7 +317,7 @@ public final class Purchase implements Comparable<Purchase> {
 	 * <br>
 	 * 
 	 * Same as calling
-	 * <code>Purchase(short cid, String club, String title, short year, float price, short quantity, long currentTimeMillis)</code>
+	 * <code>Purchase(int cid, String club, String title, short year, float price, short quantity, long currentTimeMillis)</code>
 	 * constructor with arguments
 	 * <code>(cid, club, title, year, price, quantity, System.currentTimeMillis())</code>.
 	 * 
@@ -355,12 +355,12 @@ public final class Purchase implements Comparable<Purchase> {
 	 * @see #MAX_PURCHASE_CLUB_LENGTH
 	 * @see #MAX_PURCHASE_TITLE_LENGTH
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short, long)
-	 * @see #Purchase(short, String, String, short, float)
+	 * @see #Purchase(int, String, String, short, float, short, long)
+	 * @see #Purchase(int, String, String, short, float)
 	 * 
 	 * @see System#currentTimeMillis()
 	 */
-	public Purchase(short cid, String club, String title, short year, float price, short quantity)
+	public Purchase(int cid, String club, String title, short year, float price, short quantity)
 			throws NullPointerException, IllegalArgumentException {
 		this(cid, club, title, year, price, quantity, System.currentTimeMillis());
 	}
@@ -370,7 +370,7 @@ public final class Purchase implements Comparable<Purchase> {
 	 * <br>
 	 * 
 	 * Same as calling
-	 * <code>Purchase(short cid, String club, String title, short year, float price, short quantity)</code>
+	 * <code>Purchase(int cid, String club, String title, short year, float price, short quantity)</code>
 	 * constructor with arguments <code>(cid, club, title, year, price, (short) 0)</code>.
 	 * 
 	 * @param cid
@@ -403,9 +403,9 @@ public final class Purchase implements Comparable<Purchase> {
 	 * @see #MAX_PURCHASE_CLUB_LENGTH
 	 * @see #MAX_PURCHASE_TITLE_LENGTH
 	 * 
-	 * @see #Purchase(short, String, String, short, float, short)
+	 * @see #Purchase(int, String, String, short, float, short)
 	 */
-	public Purchase(short cid, String club, String title, short year, float price)
+	public Purchase(int cid, String club, String title, short year, float price)
 			throws NullPointerException, IllegalArgumentException {
 		this(cid, club, title, year, price, (short) 0);
 	}
@@ -0,0 +1,224 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>PurchaseHistory</code> class caches all purchases made by a single customer
+ *         from the <code>yrb_purchase</code> table in the <b><i>York River Bookseller's
+ *         Database</i></b>. <br>
+ *         <br>
+ *
+ *         The cache remembers the largest purchase time that has been loaded so that later reads
+ *         only need to fetch the purchases made since then and merge them into the sorted history.
+ *
+ * @see #PurchaseHistory(int)
+ * @see #merge(Collection)
+ *
+ * @see Purchase
+ * @see YRBAPP
+ */
+public final class PurchaseHistory {
+	/**
+	 * The customer ID of a <code>PurchaseHistory</code> object.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final int cid;
+
+	/**
+	 * All loaded purchases sorted by <code>Purchase.compareTo</code>, i.e. by when, club, year and
+	 * title which together with <code>this.cid</code> are the primary key.
+	 */
+	private final TreeSet<Purchase> purchases;
+
+	/**
+	 * The largest purchase time in milliseconds that has been loaded or <code>-1</code> if nothing has
+	 * been loaded yet.
+	 *
+	 * @see #getLastWhen()
+	 */
+	private long lastWhen;
+
+	/**
+	 * General constructor for an empty <code>PurchaseHistory</code> object.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 */
+	public PurchaseHistory(int cid) {
+		this.cid = cid;
+		this.purchases = new TreeSet<Purchase>();
+		this.lastWhen = -1L;
+	}
+
+	/**
+	 * Returns the time to fetch newer purchases from. Purchases made at exactly this time must be
+	 * fetched again since a purchase with the same time but a different club, year or title could
+	 * have been made after the last fetch.
+	 *
+	 * @return <code>new Timestamp(Math.max(this.lastWhen, 0))</code>.
+	 *
+	 * @see #lastWhen
+	 */
+	public synchronized Timestamp getLastWhen() {
+		return new Timestamp(Math.max(this.lastWhen, 0L));
+	}
+
+	/**
+	 * Returns the number of cached purchases.
+	 *
+	 * @return <code>this.purchases.size()</code>.
+	 */
+	public synchronized int size() {
+		return this.purchases.size();
+	}
+
+	/**
+	 * Merge the given newly fetched purchases into this history. Purchases that are already cached
+	 * are ignored.
+	 *
+	 * @param purchases
+	 *            the newly fetched purchases
+	 *
+	 * @return The number of purchases that were not already cached.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>purchases == null</code> or if it contains <code>null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>purchases</code> contains a purchase of a different customer
+	 */
+	public synchronized int merge(Collection<Purchase> purchases)
+			throws NullPointerException, IllegalArgumentException {
+		if (purchases == null) {
+			throw new NullPointerException("Given purchase collection is null.");
+		}
+
+		int result = 0;
+		for (Purchase p : purchases) {
+			if (p == null) {
+				throw new NullPointerException("Given purchase collection contains null.");
+			} else if (p.cid != this.cid) {
+				throw new IllegalArgumentException(
+						"Given purchase(" + p + ") is not made by the customer with ID " + this.cid + ".");
+			}
+
+			if (this.purchases.add(p)) {
+				++result;
+			}
+			this.lastWhen = Math.max(this.lastWhen, p.getWhen().getTime());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given purchase is cached.
+	 *
+	 * @param purchase
+	 *            the given purchase
+	 *
+	 * @return <tt>true</tt> if a purchase with the same primary key is cached and <tt>false</tt>
+	 *         otherwise.
+	 *
+	 * @see Purchase#isEqual(Object)
+	 */
+	public synchronized boolean contains(Purchase purchase) {
+		return (purchase != null && purchase.cid == this.cid && this.purchases.contains(purchase));
+	}
+
+	/**
+	 * Returns all cached purchases.
+	 *
+	 * @return A <code>TreeMap&lt;Integer, Purchase&gt;</code> mapping
+	 *         <code>1 to NUMBER_OF_PURCHASES</code> to the purchases in
+	 *         <code>Purchase.compareTo</code> order.
+	 */
+	public synchronized TreeMap<Integer, Purchase> toMap() {
+		int i = 0;
+		TreeMap<Integer, Purchase> result = new TreeMap<Integer, Purchase>();
+		for (Purchase p : this.purchases) {
+			result.put(++i, p);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a single page of the cached purchases in the time range <code>[from, to)</code>,
+	 * continuing from the given purchase.
+	 *
+	 * @param from
+	 *            the start of the time range (inclusive)
+	 *
+	 * @param to
+	 *            the end of the time range (exclusive)
+	 *
+	 * @param purchase
+	 *            the purchase to continue from (exclusive) or <code>null</code> to start from the
+	 *            beginning of the time range
+	 *
+	 * @param forward
+	 *            <code>forward ? "purchases after purchase" : "purchases before purchase"</code>
+	 *
+	 * @param limit
+	 *            the maximum number of purchases
+	 *
+	 * @return The purchases of the page in <code>Purchase.compareTo</code> order.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>from == null</code> <br>
+	 *             If <code>to == null</code>
+	 */
+	public synchronized ArrayList<Purchase> page(Timestamp from, Timestamp to, Purchase purchase, boolean forward,
+			int limit) throws NullPointerException {
+		if (from == null) {
+			throw new NullPointerException("Given start of the time range is null.");
+		} else if (to == null) {
+			throw new NullPointerException("Given end of the time range is null.");
+		}
+
+		ArrayList<Purchase> result = new ArrayList<Purchase>();
+		if (from.getTime() >= to.getTime()) {
+			return result;
+		}
+
+		// The smallest possible purchases at the start and at the end of the time range.
+		Purchase lower = new Purchase(this.cid, "", "", (short) 0, 0.0f, (short) 0, from.getTime());
+		Purchase upper = new Purchase(this.cid, "", "", (short) 0, 0.0f, (short) 0, to.getTime());
+
+		// Restrict the time range further by the purchase to continue from.
+		NavigableSet<Purchase> range;
+		if (purchase == null) {
+			range = this.purchases.subSet(lower, true, upper, false);
+		} else if (forward) {
+			if (purchase.compareTo(upper) >= 0) {
+				return result;
+			}
+			range = (purchase.compareTo(lower) < 0 ? this.purchases.subSet(lower, true, upper, false)
+					: this.purchases.subSet(purchase, false, upper, false));
+		} else {
+			if (purchase.compareTo(lower) <= 0) {
+				return result;
+			}
+			range = (purchase.compareTo(upper) >= 0 ? this.purchases.subSet(lower, true, upper, false)
+					: this.purchases.subSet(lower, true, purchase, false));
+		}
+
+		Iterator<Purchase> it = (forward ? range.iterator() : range.descendingIterator());
+		while (it.hasNext() && result.size() < limit) {
+			result.add(it.next());
+		}
+
+		if (!forward) { // The previous page is read in reverse order.
+			Collections.reverse(result);
+		}
+		return result;
+	}
+}
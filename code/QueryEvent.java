@@ -0,0 +1,48 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>QueryEvent</code> class is a <b>Java Flight Recorder</b> event that spans a
+ *         single execution of a <code>YRBAPPUtility</code> statement. <br>
+ *         <br>
+ *
+ *         For queries the event lasts from the execution until the <code>ResultSet</code> is closed
+ *         so that it covers fetching every row, while for updates it only covers the execution.
+ *
+ * @see InstrumentedStatement
+ * @see StateEvent
+ */
+@Name("yrb.Query")
+@Label("Database Query")
+@Category({ "York River Bookseller", "Database" })
+@Description("A single execution of a prepared statement including fetching its rows")
+public final class QueryEvent extends Event {
+	/**
+	 * The name of the statement i.e. the name of its <code>YRBAPPUtility</code> constant.
+	 */
+	@Label("Statement")
+	public String statement;
+
+	/**
+	 * The bound parameters in order, e.g. <code>"[1, Databases, 2001]"</code>.
+	 */
+	@Label("Parameters")
+	public String parameters;
+
+	/**
+	 * The number of rows read by a query or written by an update.
+	 */
+	@Label("Rows")
+	public long rows;
+
+	/**
+	 * Whether the execution or fetching failed.
+	 */
+	@Label("Failed")
+	public boolean failed;
+}
@@ -0,0 +1,159 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>QueryStatistics</code> class holds the runtime statistics of a single prepared
+ *         statement of <code>YRBAPPUtility</code>. <br>
+ *         <br>
+ *
+ *         Every phase of the statement's life (prepare, bind, execute and fetch) has its own
+ *         <code>LatencyHistogram</code> and the number of rows read or written and the number of
+ *         errors are counted. All updates are lock-free so that the statistics can be read while the
+ *         statement is running.
+ *
+ * @see InstrumentedStatement
+ * @see LatencyHistogram
+ * @see YRBAPP#getStatistics()
+ */
+public final class QueryStatistics {
+	/**
+	 * The name of the statement i.e. the name of its <code>YRBAPPUtility</code> constant.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public final String name;
+
+	/**
+	 * The latencies of <code>Connection.prepareStatement</code>.
+	 */
+	// The histogram is thread-safe and is never reassigned which is why making this final variable
+	// public, does not pose any issues against encapsulation.
+	public final LatencyHistogram prepare;
+
+	/**
+	 * The latencies of binding a single parameter i.e. <code>PreparedStatement.setXXX</code>.
+	 */
+	// The histogram is thread-safe and is never reassigned which is why making this final variable
+	// public, does not pose any issues against encapsulation.
+	public final LatencyHistogram bind;
+
+	/**
+	 * The latencies of <code>PreparedStatement.executeXXX</code>.
+	 */
+	// The histogram is thread-safe and is never reassigned which is why making this final variable
+	// public, does not pose any issues against encapsulation.
+	public final LatencyHistogram execute;
+
+	/**
+	 * The latencies of fetching a single row i.e. <code>ResultSet.next</code>.
+	 */
+	// The histogram is thread-safe and is never reassigned which is why making this final variable
+	// public, does not pose any issues against encapsulation.
+	public final LatencyHistogram fetch;
+
+	/**
+	 * The number of rows read by queries or written by updates.
+	 */
+	private final LongAdder rows;
+
+	/**
+	 * The number of failed calls.
+	 */
+	private final LongAdder errors;
+
+	/**
+	 * General constructor for an empty <code>QueryStatistics</code> object.
+	 *
+	 * @param name
+	 *            the name of the statement
+	 *
+	 * @throws NullPointerException
+	 *             If <code>name == null</code>
+	 */
+	public QueryStatistics(String name) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Given statement name is null.");
+		}
+
+		this.name = name;
+		this.prepare = new LatencyHistogram();
+		this.bind = new LatencyHistogram();
+		this.execute = new LatencyHistogram();
+		this.fetch = new LatencyHistogram();
+		this.rows = new LongAdder();
+		this.errors = new LongAdder();
+	}
+
+	/**
+	 * Add the given number of rows.
+	 *
+	 * @param n
+	 *            the number of rows
+	 */
+	public void addRows(long n) {
+		this.rows.add(n);
+	}
+
+	/**
+	 * Count a single failed call.
+	 */
+	public void addError() {
+		this.errors.increment();
+	}
+
+	/**
+	 * Returns the number of rows read by queries or written by updates.
+	 *
+	 * @return <code>this.rows.sum()</code>.
+	 */
+	public long getRows() {
+		return this.rows.sum();
+	}
+
+	/**
+	 * Returns the number of failed calls.
+	 *
+	 * @return <code>this.errors.sum()</code>.
+	 */
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	/**
+	 * Add all statistics of the given object to this object.
+	 *
+	 * @param other
+	 *            the given statistics
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>other == null</code>
+	 */
+	public QueryStatistics merge(QueryStatistics other) throws NullPointerException {
+		if (other == null) {
+			throw new NullPointerException("Given statistics is null.");
+		}
+
+		this.prepare.merge(other.prepare);
+		this.bind.merge(other.bind);
+		this.execute.merge(other.execute);
+		this.fetch.merge(other.fetch);
+		this.rows.add(other.getRows());
+		this.errors.add(other.getErrors());
+		return this;
+	}
+
+	/**
+	 * Returns the <code>String</code> representation of these statistics.
+	 *
+	 * @return The name, row and error counts followed by a line per phase.
+	 */
+	@Override
+	public String toString() {
+		return this.name + ": rows=" + this.getRows() + " errors=" + this.getErrors() + "\n\tprepare: "
+				+ this.prepare + "\n\tbind:    " + this.bind + "\n\texecute: " + this.execute + "\n\tfetch:   "
+				+ this.fetch;
+	}
+}
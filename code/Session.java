@@ -0,0 +1,508 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Session</code> class holds the context of a single shopping session of a
+ *         <code>YRBStore</code>: the chosen customer, category and book, the cart of purchases made
+ *         in the current transaction and the connection of that transaction. <br>
+ *         <br>
+ *
+ *         A transaction starts when the first statement of the session runs, which borrows a
+ *         connection from the pool of the store, and ends with <code>commit()</code> or
+ *         <code>rollback()</code>, which give the connection back. Sessions therefore only hold a
+ *         connection while they have work in flight, not while their user is thinking. <br>
+ *         <br>
+ *
+ *         Reads that may be served by a read replica run on a second connection borrowed from the
+ *         replica's pool, which is given back at the end of the transaction as well. Once the session
+ *         writes, it is pinned to the primary until the end of its transaction so that its reads see
+ *         its own writes. Once it commits, the customers that it has written for stay on the primary
+ *         for a while, so that no session reads them from a replica that has not caught up yet. <br>
+ *         <br>
+ *
+ *         If the store is sharded, the transaction runs on the shard of the chosen customer. A
+ *         transaction that has only read may move to another shard, while one that has written may
+ *         not, since there are no transactions across shards. <br>
+ *         <br>
+ *
+ *         A session must only be used by one thread at a time, which is what lets the store serve
+ *         many sessions concurrently without any locking of its own.
+ *
+ * @see YRBStore#open()
+ * @see #commit()
+ * @see #rollback()
+ * @see #close()
+ */
+public final class Session implements AutoCloseable {
+	/**
+	 * The pool that the transaction borrows its connection from unless it is given another one.
+	 */
+	private final ConnectionPool pool;
+
+	/**
+	 * The store of the session, which pins the customers that the session has written for.
+	 */
+	private final YRBStore store;
+
+	/**
+	 * The connection of the current transaction or <code>null</code> if there is no transaction.
+	 *
+	 * @see #connection()
+	 * @see #connection(ConnectionPool)
+	 */
+	private Connection transaction;
+
+	/**
+	 * The pool that <code>this.transaction</code> was borrowed from or <code>null</code> if there is
+	 * no transaction.
+	 */
+	private ConnectionPool owner;
+
+	/**
+	 * Whether the current transaction has written.
+	 */
+	private boolean written;
+
+	/**
+	 * The pool of the read replica that <code>this.read</code> was borrowed from or <code>null</code>
+	 * if there is no such connection.
+	 */
+	private ConnectionPool replica;
+
+	/**
+	 * The connection of the reads of the current transaction that run on a read replica or
+	 * <code>null</code> if there is no such connection.
+	 *
+	 * @see #readConnection(ConnectionPool)
+	 */
+	private Connection read;
+
+	/**
+	 * Whether the current transaction has written, after which every read runs on the primary.
+	 */
+	private boolean pinned;
+
+	/**
+	 * The IDs of the customers that the current transaction has written for.
+	 */
+	private final HashSet<Integer> writers;
+
+	/**
+	 * The chosen customer ID or <code>null</code> if no customer has been chosen.
+	 */
+	private Integer cid;
+
+	/**
+	 * The name of the chosen customer or <code>null</code> if it has not been looked up.
+	 */
+	private String name;
+
+	/**
+	 * The city of the chosen customer or <code>null</code> if it has not been looked up.
+	 */
+	private String city;
+
+	/**
+	 * The chosen category or <code>null</code> if no category has been chosen.
+	 */
+	private String category;
+
+	/**
+	 * The chosen book or <code>null</code> if no book has been chosen.
+	 */
+	private Book book;
+
+	/**
+	 * The purchases made in the current transaction.
+	 */
+	private final ArrayList<Purchase> cart;
+
+	/**
+	 * The <code>System.nanoTime()</code> by which every statement of the session must have finished
+	 * or <code>null</code> if the statements only have their own timeouts.
+	 */
+	private Long deadline;
+
+	/**
+	 * General constructor for a <code>Session</code> object.
+	 *
+	 * @param pool
+	 *            the pool that the transactions borrow their connections from
+	 *
+	 * @param store
+	 *            the store of the session
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>pool == null</code> <br>
+	 *             If <code>store == null</code>
+	 */
+	Session(ConnectionPool pool, YRBStore store) throws NullPointerException {
+		if (pool == null) {
+			throw new NullPointerException("Given connection pool is null.");
+		} else if (store == null) {
+			throw new NullPointerException("Given store is null.");
+		}
+
+		this.pool = pool;
+		this.store = store;
+		this.transaction = null;
+		this.owner = null;
+		this.written = false;
+		this.replica = null;
+		this.read = null;
+		this.pinned = false;
+		this.writers = new HashSet<Integer>();
+		this.cart = new ArrayList<Purchase>();
+		this.deadline = null;
+	}
+
+	/**
+	 * Returns the chosen customer ID.
+	 *
+	 * @return <code>this.cid</code> which is <code>null</code> if no customer has been chosen.
+	 */
+	public Integer getCid() {
+		return this.cid;
+	}
+
+	/**
+	 * Returns the name of the chosen customer.
+	 *
+	 * @return <code>this.name</code> which is <code>null</code> if it has not been looked up.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the city of the chosen customer.
+	 *
+	 * @return <code>this.city</code> which is <code>null</code> if it has not been looked up.
+	 */
+	public String getCity() {
+		return this.city;
+	}
+
+	/**
+	 * Choose the customer with the given ID without looking it up.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @see YRBStore#findCustomer(Session, int)
+	 */
+	public Session setCustomer(int cid) {
+		return this.setCustomer(cid, null, null);
+	}
+
+	/**
+	 * Choose the customer with the given ID, name and city.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param name
+	 *            the customer name, could be <code>null</code>
+	 *
+	 * @param city
+	 *            the customer city, could be <code>null</code>
+	 *
+	 * @return <code>this</code>.
+	 */
+	Session setCustomer(int cid, String name, String city) {
+		this.cid = cid;
+		this.name = name;
+		this.city = city;
+		return this;
+	}
+
+	/**
+	 * Returns the chosen category.
+	 *
+	 * @return <code>this.category</code> which is <code>null</code> if no category has been chosen.
+	 */
+	public String getCategory() {
+		return this.category;
+	}
+
+	/**
+	 * Choose the given category.
+	 *
+	 * @param category
+	 *            the category or <code>null</code> to clear the choice
+	 *
+	 * @return <code>this</code>.
+	 */
+	public Session setCategory(String category) {
+		this.category = category;
+		return this;
+	}
+
+	/**
+	 * Returns the chosen book.
+	 *
+	 * @return <code>this.book</code> which is <code>null</code> if no book has been chosen.
+	 */
+	public Book getBook() {
+		return this.book;
+	}
+
+	/**
+	 * Choose the given book.
+	 *
+	 * @param book
+	 *            the book or <code>null</code> to clear the choice
+	 *
+	 * @return <code>this</code>.
+	 */
+	public Session setBook(Book book) {
+		this.book = book;
+		return this;
+	}
+
+	/**
+	 * Returns the deadline of the statements of the session.
+	 *
+	 * @return <code>this.deadline</code> which is <code>null</code> if there is no deadline.
+	 */
+	public Long getDeadline() {
+		return this.deadline;
+	}
+
+	/**
+	 * Set the <code>System.nanoTime()</code> by which every statement of the session must have
+	 * finished.
+	 *
+	 * @param deadline
+	 *            the deadline or <code>null</code> to clear it
+	 *
+	 * @return <code>this</code>.
+	 *
+	 * @see AdmissionController#admit(String, long)
+	 */
+	public Session setDeadline(Long deadline) {
+		this.deadline = deadline;
+		return this;
+	}
+
+	/**
+	 * Returns the purchases made in the current transaction.
+	 *
+	 * @return An unmodifiable view of <code>this.cart</code>.
+	 */
+	public List<Purchase> getCart() {
+		return Collections.unmodifiableList(this.cart);
+	}
+
+	/**
+	 * Add the given purchase to the cart of the current transaction.
+	 *
+	 * @param purchase
+	 *            the inserted purchase
+	 */
+	void add(Purchase purchase) {
+		this.cart.add(purchase);
+	}
+
+	/**
+	 * Returns whether a transaction is in progress.
+	 *
+	 * @return <code>this.transaction != null</code>.
+	 */
+	public boolean isActive() {
+		return (this.transaction != null);
+	}
+
+	/**
+	 * Returns whether the current transaction has written, after which every read runs on the
+	 * primary.
+	 *
+	 * @return <code>this.pinned</code>.
+	 */
+	public boolean isPinned() {
+		return this.pinned;
+	}
+
+	/**
+	 * Pin the session to the primary until the end of its transaction since it is about to write.
+	 *
+	 * @param cid
+	 *            the ID of the customer that is written for, could be <code>null</code>
+	 */
+	void pin(Integer cid) {
+		this.pinned = true;
+		this.written = true;
+		if (cid != null) {
+			this.writers.add(cid);
+		}
+	}
+
+	/**
+	 * Returns the connection of the reads of the current transaction that run on a read replica and
+	 * borrows one from the given pool if there is none. A session keeps reading from the same replica
+	 * until the end of its transaction, so that its reads never go back in time.
+	 *
+	 * @param replica
+	 *            the pool of the read replica
+	 *
+	 * @return <code>this.read</code>.
+	 *
+	 * @throws SQLException
+	 *             If no connection could be borrowed
+	 *
+	 * @see ConnectionPool#acquire()
+	 */
+	Connection readConnection(ConnectionPool replica) throws SQLException {
+		if (this.read == null) {
+			this.read = replica.acquire();
+			this.replica = replica;
+		}
+		return this.read;
+	}
+
+	/**
+	 * Returns the pool that the current transaction borrowed its connection from.
+	 *
+	 * @return <code>this.owner</code> or <code>this.pool</code> if there is no transaction.
+	 */
+	ConnectionPool owner() {
+		return (this.owner == null ? this.pool : this.owner);
+	}
+
+	/**
+	 * Returns the connection of the current transaction and starts a new transaction if there is none.
+	 *
+	 * @return <code>this.transaction</code>.
+	 *
+	 * @throws SQLException
+	 *             If no connection could be borrowed
+	 *
+	 * @see ConnectionPool#acquire()
+	 */
+	Connection connection() throws SQLException {
+		return this.connection(this.owner());
+	}
+
+	/**
+	 * Returns the connection of the current transaction on the given pool, i.e. shard, and starts a
+	 * new transaction there if there is none. A transaction on another shard that has only read is
+	 * ended first.
+	 *
+	 * @param pool
+	 *            the pool of the shard
+	 *
+	 * @return <code>this.transaction</code>.
+	 *
+	 * @throws SQLException
+	 *             <br>
+	 *             If the transaction has written to another shard <br>
+	 *             If no connection could be borrowed
+	 *
+	 * @see ConnectionPool#acquire()
+	 */
+	Connection connection(ConnectionPool pool) throws SQLException {
+		if (this.transaction != null && this.owner != pool) {
+			if (this.written) {
+				throw new SQLException("Given session has written to another shard in the current transaction.");
+			}
+			Connection connection = this.transaction;
+			this.transaction = null;
+			this.owner.release(connection); // The pool rolls back every released connection.
+			this.owner = null;
+		}
+		if (this.transaction == null) {
+			this.transaction = pool.acquire();
+			this.owner = pool;
+		}
+		return this.transaction;
+	}
+
+	/**
+	 * Commit the current transaction and give its connection back. Nothing happens if there is no
+	 * transaction.
+	 *
+	 * @return The purchases that have been committed.
+	 *
+	 * @throws SQLException
+	 *             If the commit failed in which case the transaction is rolled back
+	 *
+	 * @see YRBStore#pin(int)
+	 */
+	public List<Purchase> commit() throws SQLException {
+		if (this.transaction == null) {
+			this.end(); // Give back the replica connection, if any.
+			return Collections.emptyList();
+		}
+
+		try {
+			this.transaction.commit();
+			return new ArrayList<Purchase>(this.cart);
+		} finally {
+			// The replicas only start catching up with the writes now, and even a failed commit may
+			// have reached the database.
+			for (Integer cid : this.writers) {
+				this.store.pin(cid);
+			}
+			this.end();
+		}
+	}
+
+	/**
+	 * Rollback the current transaction and give its connection back. Nothing happens if there is no
+	 * transaction.
+	 *
+	 * @return The purchases that have been rolled back.
+	 */
+	public List<Purchase> rollback() {
+		if (this.transaction == null) {
+			this.end(); // Give back the replica connection, if any.
+			return Collections.emptyList();
+		}
+
+		try {
+			return new ArrayList<Purchase>(this.cart);
+		} finally {
+			this.end(); // The pool rolls back every released connection.
+		}
+	}
+
+	/**
+	 * Give the connections of the current transaction back and empty the cart.
+	 */
+	private void end() {
+		Connection connection = this.transaction, read = this.read;
+		ConnectionPool owner = this.owner;
+		this.transaction = null;
+		this.owner = null;
+		this.written = false;
+		this.pinned = false;
+		this.writers.clear();
+		this.read = null;
+		this.cart.clear();
+		if (connection != null) {
+			owner.release(connection);
+		}
+		if (read != null) {
+			this.replica.release(read);
+		}
+	}
+
+	/**
+	 * Rollback the current transaction if there is one.
+	 *
+	 * @see #rollback()
+	 */
+	@Override
+	public void close() {
+		this.rollback();
+	}
+}
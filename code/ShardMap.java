@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>ShardMap</code> class tells which shard holds the data of a customer, i.e. its
+ *         <code>yrb_customer</code>, <code>yrb_member</code> and <code>yrb_purchase</code> rows. The
+ *         catalog tables are replicated to every shard. <br>
+ *         <br>
+ *
+ *         Customers are either split into ranges of customer IDs, which keeps neighbouring customers
+ *         together, or spread by a hash of their customer ID, which keeps the shards even no matter
+ *         how the customer IDs are handed out. <br>
+ *         <br>
+ *
+ *         A <code>ShardMap</code> object is immutable.
+ *
+ * @see #range(int...)
+ * @see #hash(int)
+ * @see #parse(String, int)
+ * @see YRBStore
+ */
+public final class ShardMap {
+	/**
+	 * The ways of mapping customers to shards.
+	 */
+	public static enum Strategy {
+		/**
+		 * Consecutive ranges of customer IDs.
+		 */
+		RANGE,
+
+		/**
+		 * A hash of the customer ID.
+		 */
+		HASH
+	}
+
+	/**
+	 * The strategy of the map.
+	 */
+	private final Strategy strategy;
+
+	/**
+	 * The number of shards.
+	 */
+	private final int shards;
+
+	/**
+	 * The lowest customer ID of every shard but the first one in ascending order, which is empty for
+	 * <code>Strategy.HASH</code>.
+	 */
+	private final int[] bounds;
+
+	/**
+	 * General constructor for a <code>ShardMap</code> object.
+	 *
+	 * @param strategy
+	 *            the strategy
+	 *
+	 * @param shards
+	 *            the number of shards
+	 *
+	 * @param bounds
+	 *            the lowest customer ID of every shard but the first one
+	 */
+	private ShardMap(Strategy strategy, int shards, int[] bounds) {
+		this.strategy = strategy;
+		this.shards = shards;
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Returns a map of customer ID ranges. Shard <code>0</code> holds the customer IDs below
+	 * <code>bounds[0]</code>, shard <code>i</code> the ones from <code>bounds[i - 1]</code> up to but
+	 * excluding <code>bounds[i]</code> and the last shard the ones from the last bound on.
+	 *
+	 * @param bounds
+	 *            the lowest customer ID of every shard but the first one in strictly ascending order
+	 *
+	 * @return The map, which has <code>bounds.length + 1</code> shards.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>bounds == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>bounds</code> is not in strictly ascending order
+	 */
+	public static ShardMap range(int... bounds) throws NullPointerException, IllegalArgumentException {
+		if (bounds == null) {
+			throw new NullPointerException("Given shard bounds are null.");
+		}
+		for (int i = 1; i < bounds.length; ++i) {
+			if (bounds[i - 1] >= bounds[i]) {
+				throw new IllegalArgumentException(
+						"Given shard bounds(" + Arrays.toString(bounds) + ") are not in strictly ascending order.");
+			}
+		}
+
+		return new ShardMap(Strategy.RANGE, bounds.length + 1, bounds.clone());
+	}
+
+	/**
+	 * Returns a map that spreads the customers over the given number of shards by a hash of their
+	 * customer ID.
+	 *
+	 * @param shards
+	 *            the number of shards
+	 *
+	 * @return The map.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>shards &lt;= 0</code>
+	 */
+	public static ShardMap hash(int shards) throws IllegalArgumentException {
+		if (shards <= 0) {
+			throw new IllegalArgumentException("Given number of shards(" + shards + ") is not positive.");
+		}
+
+		return new ShardMap(Strategy.HASH, shards, new int[0]);
+	}
+
+	/**
+	 * Returns the map of the given specification, which is either <code>hash</code> or
+	 * <code>range:b1,b2,...</code> with the lowest customer ID of every shard but the first one.
+	 *
+	 * @param spec
+	 *            the specification
+	 *
+	 * @param shards
+	 *            the number of shards
+	 *
+	 * @return The map.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>spec == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>spec</code> is not a valid specification <br>
+	 *             If the map would not have <code>shards</code> shards
+	 *
+	 * @see #range(int...)
+	 * @see #hash(int)
+	 */
+	public static ShardMap parse(String spec, int shards) throws NullPointerException, IllegalArgumentException {
+		if (spec == null) {
+			throw new NullPointerException("Given shard map specification is null.");
+		}
+
+		spec = spec.trim();
+		ShardMap result;
+		if (spec.equals("hash")) {
+			result = ShardMap.hash(shards);
+		} else if (spec.startsWith("range:")) {
+			String[] values = spec.substring("range:".length()).split(",");
+			int[] bounds = new int[values.length];
+			try {
+				for (int i = 0; i < values.length; ++i) {
+					bounds[i] = Integer.parseInt(values[i].trim());
+				}
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Given shard map specification(" + spec + ") has an invalid bound.");
+			}
+			result = ShardMap.range(bounds);
+		} else {
+			throw new IllegalArgumentException(
+					"Given shard map specification(" + spec + ") is neither hash nor range:b1,b2,...");
+		}
+
+		if (result.shards != shards) {
+			throw new IllegalArgumentException("Given shard map specification(" + spec + ") has " + result.shards
+					+ " shards instead of " + shards + ".");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the strategy of the map.
+	 *
+	 * @return <code>this.strategy</code>.
+	 */
+	public Strategy getStrategy() {
+		return this.strategy;
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return <code>this.shards</code>.
+	 */
+	public int getShards() {
+		return this.shards;
+	}
+
+	/**
+	 * Returns the shard that holds the data of the customer with the given ID.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return The zero based index of the shard.
+	 */
+	public int shardOf(int cid) {
+		if (this.strategy == Strategy.HASH) {
+			// Fibonacci hashing, so that consecutive customer IDs do not all land on the same shard
+			// whenever the number of shards divides their stride.
+			return Math.floorMod((int) ((cid * 0x9E3779B97F4A7C15L) >>> 32), this.shards);
+		}
+
+		int i = Arrays.binarySearch(this.bounds, cid);
+		return (i >= 0 ? i + 1 : -(i + 1));
+	}
+
+	@Override
+	public String toString() {
+		if (this.strategy == Strategy.HASH) {
+			return "hash(" + this.shards + ")";
+		}
+		return "range" + Arrays.toString(this.bounds);
+	}
+}
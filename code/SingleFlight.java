@@ -0,0 +1,169 @@
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>SingleFlight</code> class coalesces identical concurrent reads: the first caller
+ *         of a given statement and parameters (the leader) executes it, and every caller that asks
+ *         for the same statement and parameters while the leader is still in flight (a follower)
+ *         waits for and shares the leader's result instead of executing the statement again. <br>
+ *         <br>
+ *
+ *         Nothing is cached: once the leader is done, the next caller executes the statement again.
+ *         Only statements whose result does not depend on the uncommitted changes of the caller's
+ *         transaction may be coalesced, since the leader runs on its own transaction. A follower
+ *         only waits until the deadline of its own caller, no matter how long the leader takes.
+ *
+ * @see YRBStore#findBooks(Session)
+ * @see YRBStore#minPrice(Session)
+ */
+public final class SingleFlight {
+	/**
+	 * A read that may be shared.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	@FunctionalInterface
+	public static interface Call<T> {
+		/**
+		 * Execute the read.
+		 *
+		 * @return The result.
+		 *
+		 * @throws SQLException
+		 *             If the statement failed
+		 */
+		T call() throws SQLException;
+	}
+
+	/**
+	 * The results of the reads in flight, keyed by their statement and parameters.
+	 */
+	private final ConcurrentHashMap<String, CompletableFuture<Object>> flights;
+
+	/**
+	 * The number of coalesced calls by statement name.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> coalesced;
+
+	/**
+	 * Default constructor for a <code>SingleFlight</code> object.
+	 */
+	public SingleFlight() {
+		this.flights = new ConcurrentHashMap<String, CompletableFuture<Object>>();
+		this.coalesced = new ConcurrentHashMap<String, LongAdder>();
+	}
+
+	/**
+	 * Returns the number of reads in flight.
+	 *
+	 * @return <code>this.flights.size()</code>.
+	 */
+	public int getInFlight() {
+		return this.flights.size();
+	}
+
+	/**
+	 * Returns the number of calls that shared the result of another call.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping statement names to their counts.
+	 */
+	public TreeMap<String, Long> getCoalesced() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.coalesced.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Execute the given read unless an identical read is already in flight, in which case wait for
+	 * its result instead.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 *
+	 * @param sql
+	 *            the SQL text of the statement
+	 *
+	 * @param parameters
+	 *            the parameters of the statement
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> by which a follower must have its result
+	 *
+	 * @param call
+	 *            the read
+	 *
+	 * @return The result of the read, which is shared with every coalesced caller and must therefore
+	 *         not be modified.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>sql == null</code> <br>
+	 *             If <code>call == null</code>
+	 *
+	 * @throws SQLTimeoutException
+	 *             If the caller is a follower and the leader is not done by <code>deadline</code>
+	 *
+	 * @throws SQLException
+	 *             If the statement failed, for the leader and every follower alike
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T execute(String sql, String parameters, long deadline, Call<T> call)
+			throws NullPointerException, SQLTimeoutException, SQLException {
+		if (sql == null) {
+			throw new NullPointerException("Given SQL text is null.");
+		} else if (call == null) {
+			throw new NullPointerException("Given call is null.");
+		}
+
+		String key = sql + '\u0000' + parameters;
+		CompletableFuture<Object> flight = new CompletableFuture<Object>();
+		CompletableFuture<Object> leader = this.flights.putIfAbsent(key, flight);
+
+		if (leader != null) { // Follow the call in flight.
+			this.coalesced.computeIfAbsent(InstrumentedStatement.nameOf(sql), k -> new LongAdder()).increment();
+			try {
+				return (T) leader.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException ex) {
+				throw new SQLTimeoutException(
+						"A coalesced read of " + InstrumentedStatement.nameOf(sql) + " did not finish before its deadline.",
+						ex);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new SQLTransientException("Interrupted waiting for a coalesced read.", ex);
+			} catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof SQLException) {
+					throw (SQLException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new SQLException("Coalesced read failed.", cause);
+			}
+		}
+
+		try { // Lead the call.
+			T result = call.call();
+			flight.complete(result);
+			return result;
+		} catch (SQLException | RuntimeException | Error ex) {
+			flight.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			this.flights.remove(key, flight);
+		}
+	}
+}
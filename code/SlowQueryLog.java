@@ -0,0 +1,288 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>SlowQueryLog</code> class keeps the most recent statement executions that took at
+ *         least a configurable threshold, together with their bound parameters. <br>
+ *         <br>
+ *
+ *         Optionally the execution plan of every slow statement is captured the first time it is
+ *         slow, by preparing <code>"EXPLAIN " + sql</code> with the same parameters. This is
+ *         supported by the embedded databases used for local testing (e.g. H2) but not by DB2, in
+ *         which case the reason is recorded instead of the plan.
+ *
+ * @see #SlowQueryLog(long, boolean, int)
+ * @see #record(Connection, String, String, List, long, long)
+ *
+ * @see InstrumentedStatement
+ */
+public final class SlowQueryLog {
+	/**
+	 * The default maximum number of kept entries.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * The <code>Entry</code> class represents a single slow execution.
+	 */
+	public static final class Entry {
+		/**
+		 * The time that the execution finished at in milliseconds.
+		 */
+		// longs are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final long timestamp;
+
+		/**
+		 * The name of the statement i.e. the name of its <code>YRBAPPUtility</code> constant.
+		 */
+		// Strings are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final String statement;
+
+		/**
+		 * The bound parameters in order.
+		 */
+		// Strings are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final String parameters;
+
+		/**
+		 * The duration of the execution (including fetching) in nanoseconds.
+		 */
+		// longs are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final long nanos;
+
+		/**
+		 * The number of rows read or written.
+		 */
+		// longs are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final long rows;
+
+		/**
+		 * The execution plan of the statement or <code>null</code> if plans are not captured.
+		 */
+		// Strings are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final String plan;
+
+		/**
+		 * General constructor for an <code>Entry</code> object.
+		 *
+		 * @param statement
+		 *            the statement name
+		 *
+		 * @param parameters
+		 *            the bound parameters
+		 *
+		 * @param nanos
+		 *            the duration in nanoseconds
+		 *
+		 * @param rows
+		 *            the number of rows
+		 *
+		 * @param plan
+		 *            the execution plan, could be <code>null</code>
+		 */
+		private Entry(String statement, String parameters, long nanos, long rows, String plan) {
+			this.timestamp = System.currentTimeMillis();
+			this.statement = statement;
+			this.parameters = parameters;
+			this.nanos = nanos;
+			this.rows = rows;
+			this.plan = plan;
+		}
+
+		/**
+		 * Returns the <code>String</code> representation of this entry.
+		 *
+		 * @return The time, statement, duration, rows and parameters on one line followed by the
+		 *         indented plan if there is one.
+		 */
+		@Override
+		public String toString() {
+			String result = "[" + new Timestamp(this.timestamp) + "] " + this.statement + " took "
+					+ LatencyHistogram.format(this.nanos) + " rows=" + this.rows + " parameters=" + this.parameters;
+			if (this.plan != null) {
+				result += "\n\t" + this.plan.replace("\n", "\n\t");
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The minimum duration in nanoseconds of a slow execution.
+	 */
+	private final long thresholdNanos;
+
+	/**
+	 * Whether the execution plans are captured.
+	 */
+	private final boolean explain;
+
+	/**
+	 * The maximum number of kept entries.
+	 */
+	private final int capacity;
+
+	/**
+	 * The most recent entries, oldest first.
+	 */
+	private final ArrayDeque<Entry> entries;
+
+	/**
+	 * Mapping statement names to their captured execution plan.
+	 */
+	private final ConcurrentHashMap<String, String> plans;
+
+	/**
+	 * General constructor for an empty <code>SlowQueryLog</code> object.
+	 *
+	 * @param thresholdMillis
+	 *            the minimum duration in milliseconds of a slow execution
+	 *
+	 * @param explain
+	 *            whether the execution plans are captured
+	 *
+	 * @param capacity
+	 *            the maximum number of kept entries
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>thresholdMillis &lt; 0</code> <br>
+	 *             If <code>capacity &lt;= 0</code>
+	 */
+	public SlowQueryLog(long thresholdMillis, boolean explain, int capacity) throws IllegalArgumentException {
+		if (thresholdMillis < 0) {
+			throw new IllegalArgumentException("Given threshold(" + thresholdMillis + ") is negative.");
+		} else if (capacity <= 0) {
+			throw new IllegalArgumentException("Given capacity(" + capacity + ") is not positive.");
+		}
+
+		this.thresholdNanos = thresholdMillis * 1000000L;
+		this.explain = explain;
+		this.capacity = capacity;
+		this.entries = new ArrayDeque<Entry>(capacity);
+		this.plans = new ConcurrentHashMap<String, String>();
+	}
+
+	/**
+	 * Returns whether an execution of the given duration is slow.
+	 *
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 *
+	 * @return <code>nanos &gt;= this.thresholdNanos</code>.
+	 */
+	public boolean isSlow(long nanos) {
+		return (nanos >= this.thresholdNanos);
+	}
+
+	/**
+	 * Record a single execution if it is slow.
+	 *
+	 * @param connection
+	 *            the connection that the statement was executed on, only used to capture the plan
+	 *
+	 * @param statement
+	 *            the statement name
+	 *
+	 * @param sql
+	 *            the SQL text
+	 *
+	 * @param parameters
+	 *            the bound parameters in order
+	 *
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 *
+	 * @param rows
+	 *            the number of rows
+	 *
+	 * @return <tt>true</tt> if the execution was slow and <tt>false</tt> otherwise.
+	 */
+	public boolean record(Connection connection, String statement, String sql, List<Object> parameters, long nanos,
+			long rows) {
+		if (!this.isSlow(nanos)) {
+			return false;
+		}
+
+		String plan = null;
+		if (this.explain) {
+			plan = this.plans.computeIfAbsent(statement, k -> SlowQueryLog.explain(connection, sql, parameters));
+		}
+
+		Entry e = new Entry(statement, parameters.toString(), nanos, rows, plan);
+		synchronized (this.entries) {
+			if (this.entries.size() == this.capacity) {
+				this.entries.removeFirst();
+			}
+			this.entries.addLast(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the execution plan of the given statement.
+	 *
+	 * @param connection
+	 *            the connection to explain the statement on
+	 *
+	 * @param sql
+	 *            the SQL text
+	 *
+	 * @param parameters
+	 *            the bound parameters in order
+	 *
+	 * @return The plan with one row per line or the reason that it could not be captured.
+	 */
+	private static String explain(Connection connection, String sql, List<Object> parameters) {
+		try (PreparedStatement explainSt = connection.prepareStatement("EXPLAIN " + sql)) {
+			for (int i = 0; i < parameters.size(); ++i) {
+				explainSt.setObject(i + 1, parameters.get(i));
+			}
+
+			StringBuilder result = new StringBuilder();
+			try (ResultSet answers = explainSt.executeQuery()) {
+				ResultSetMetaData meta = answers.getMetaData();
+				while (answers.next()) {
+					for (int i = 1; i <= meta.getColumnCount(); ++i) {
+						if (i != 1) {
+							result.append(" | ");
+						}
+						result.append(answers.getString(i));
+					}
+					result.append('\n');
+				}
+			}
+			return result.toString().trim();
+		} catch (SQLException ex) {
+			return "Execution plan unavailable: " + ex.toString();
+		}
+	}
+
+	/**
+	 * Returns the kept entries, oldest first.
+	 *
+	 * @return A new list of the entries.
+	 */
+	public List<Entry> getEntries() {
+		synchronized (this.entries) {
+			return new ArrayList<Entry>(this.entries);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Span</code> class represents a single timed operation of a trace, e.g. a single
+ *         method call or a single statement execution. <br>
+ *         <br>
+ *
+ *         Spans are created by <code>Tracer.start(String)</code> and are ended by
+ *         <code>close()</code>, so they are meant to be used in try-with-resources blocks. Once the
+ *         root span of a trace is ended, the whole trace is exported by the <code>Tracer</code>.
+ *
+ * @see Tracer
+ */
+public final class Span implements AutoCloseable {
+	/**
+	 * The span that is returned while tracing is disabled, which ignores every call.
+	 */
+	static final Span NOOP = new Span(null, null, null, null, 0L);
+
+	/**
+	 * The trace ID as 32 hexadecimal digits.
+	 */
+	final String traceId;
+
+	/**
+	 * The span ID as 16 hexadecimal digits.
+	 */
+	final String spanId;
+
+	/**
+	 * The parent span or <code>null</code> if this is the root span of its trace.
+	 */
+	final Span parent;
+
+	/**
+	 * The name of the operation.
+	 */
+	final String name;
+
+	/**
+	 * The start time in nanoseconds since the epoch.
+	 */
+	final long start;
+
+	/**
+	 * The end time in nanoseconds since the epoch or <code>0</code> if the span has not ended yet.
+	 */
+	long end;
+
+	/**
+	 * The attributes in insertion order.
+	 */
+	final LinkedHashMap<String, Object> attributes;
+
+	/**
+	 * The error message or <code>null</code> if the operation has not failed.
+	 */
+	String error;
+
+	/**
+	 * The ended spans of the trace, which is shared by all spans of the same trace.
+	 */
+	final List<Span> trace;
+
+	/**
+	 * General constructor for a <code>Span</code> object.
+	 *
+	 * @param traceId
+	 *            the trace ID
+	 *
+	 * @param spanId
+	 *            the span ID
+	 *
+	 * @param parent
+	 *            the parent span, could be <code>null</code>
+	 *
+	 * @param name
+	 *            the name of the operation
+	 *
+	 * @param start
+	 *            the start time in nanoseconds since the epoch
+	 */
+	Span(String traceId, String spanId, Span parent, String name, long start) {
+		this.traceId = traceId;
+		this.spanId = spanId;
+		this.parent = parent;
+		this.name = name;
+		this.start = start;
+		this.end = 0L;
+		this.attributes = new LinkedHashMap<String, Object>();
+		this.error = null;
+		this.trace = (parent == null ? new ArrayList<Span>() : parent.trace);
+	}
+
+	/**
+	 * Returns whether this span is recorded.
+	 *
+	 * @return <code>this != Span.NOOP</code>.
+	 */
+	public boolean isRecording() {
+		return (this != Span.NOOP);
+	}
+
+	/**
+	 * Set an attribute of this span. <code>null</code> values are ignored.
+	 *
+	 * @param key
+	 *            the attribute key, e.g. <code>"cid"</code>
+	 *
+	 * @param value
+	 *            the attribute value which should be a <code>String</code>, <code>Number</code> or
+	 *            <code>Boolean</code>
+	 *
+	 * @return <code>this</code>.
+	 */
+	public Span setAttribute(String key, Object value) {
+		if (this.isRecording() && key != null && value != null) {
+			synchronized (this.attributes) {
+				this.attributes.put(key, value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Mark this span as failed.
+	 *
+	 * @param message
+	 *            the error message
+	 *
+	 * @return <code>this</code>.
+	 */
+	public Span setError(String message) {
+		if (this.isRecording()) {
+			this.error = (message == null ? "" : message);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns a copy of the attributes of this span.
+	 *
+	 * @return A new map of the attributes in insertion order.
+	 */
+	Map<String, Object> getAttributes() {
+		synchronized (this.attributes) {
+			return new LinkedHashMap<String, Object>(this.attributes);
+		}
+	}
+
+	/**
+	 * End this span. Only the first call has any effect.
+	 *
+	 * @see Tracer#end(Span)
+	 */
+	@Override
+	public void close() {
+		if (this.isRecording()) {
+			Tracer.end(this);
+		}
+	}
+}
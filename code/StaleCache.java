@@ -0,0 +1,163 @@
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>StaleCache</code> class remembers the last result that was successfully read for
+ *         every key, together with the time it was read, so that it can be shown instead of an error
+ *         while the database is slow or unavailable. <br>
+ *         <br>
+ *
+ *         Nothing is ever served from the cache while the database answers; it only ever replaces a
+ *         failed read. The least recently used entries are evicted once the cache is full.
+ *
+ * @param <V>
+ *            the type of the cached results
+ *
+ * @see CircuitBreaker
+ * @see YRBAPP
+ */
+public final class StaleCache<V> {
+	/**
+	 * The <code>Entry</code> class holds a cached result and the time it was read.
+	 *
+	 * @param <V>
+	 *            the type of the result
+	 */
+	public static final class Entry<V> {
+		/**
+		 * The cached result, which must not be modified.
+		 */
+		public final V value;
+
+		/**
+		 * The time in milliseconds at which the result was read.
+		 */
+		// longs are immutable in Java which is why making this final variable public,
+		// does not pose any issues against encapsulation.
+		public final long loaded;
+
+		/**
+		 * General constructor for an <code>Entry</code> object.
+		 *
+		 * @param value
+		 *            the cached result
+		 *
+		 * @param loaded
+		 *            the time in milliseconds at which the result was read
+		 */
+		private Entry(V value, long loaded) {
+			this.value = value;
+			this.loaded = loaded;
+		}
+
+		/**
+		 * Returns the time at which the result was read.
+		 *
+		 * @return <code>new Timestamp(this.loaded)</code>.
+		 */
+		public Timestamp getLoaded() {
+			return new Timestamp(this.loaded);
+		}
+	}
+
+	/**
+	 * The cached entries in least recently used order.
+	 */
+	private final LinkedHashMap<String, Entry<V>> entries;
+
+	/**
+	 * The number of reads that have been replaced by a cached result.
+	 */
+	private long served;
+
+	/**
+	 * General constructor for an empty <code>StaleCache</code> object.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>capacity &lt;= 0</code>
+	 */
+	public StaleCache(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Given capacity(" + capacity + ") is not positive.");
+		}
+
+		this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StaleCache.Entry<V>> eldest) {
+				return (this.size() > capacity);
+			}
+		};
+		this.served = 0L;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 *
+	 * @return <code>this.entries.size()</code>.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Returns the number of reads that have been replaced by a cached result.
+	 *
+	 * @return <code>this.served</code>.
+	 */
+	public synchronized long getServed() {
+		return this.served;
+	}
+
+	/**
+	 * Remember the given result of a successful read.
+	 *
+	 * @param key
+	 *            the key of the read
+	 *
+	 * @param value
+	 *            the result, which must not be modified afterwards
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>key == null</code> <br>
+	 *             If <code>value == null</code>
+	 */
+	public synchronized void put(String key, V value) throws NullPointerException {
+		if (key == null) {
+			throw new NullPointerException("Given key is null.");
+		} else if (value == null) {
+			throw new NullPointerException("Given value is null.");
+		}
+
+		this.entries.put(key, new Entry<V>(value, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Returns the last result that was read for the given key, to be served instead of a failed read.
+	 *
+	 * @param key
+	 *            the key of the read
+	 *
+	 * @return The entry or <code>null</code> if nothing has been read for the key.
+	 */
+	public synchronized Entry<V> serve(String key) {
+		Entry<V> result = this.entries.get(key);
+		if (result != null) {
+			++this.served;
+		}
+		return result;
+	}
+
+	/**
+	 * Forget every cached entry, e.g. once the results belong to another database.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+}
@@ -0,0 +1,45 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>StateEvent</code> class is a <b>Java Flight Recorder</b> event that spans a
+ *         single visit of a <code>YRBAPP.RunState</code> during <code>YRBAPP.run()</code>. <br>
+ *         <br>
+ *
+ *         The event starts when the state is entered and is committed when the next state has been
+ *         chosen, so its duration contains every <code>InputEvent</code> and <code>QueryEvent</code>
+ *         of the visit. When the event is disabled, <code>begin</code> and <code>commit</code> do
+ *         nothing.
+ *
+ * @see InputEvent
+ * @see QueryEvent
+ * @see YRBAPP#run()
+ */
+@Name("yrb.State")
+@Label("Run State")
+@Category({ "York River Bookseller", "Application" })
+@Description("A single visit of a run state of the application")
+public final class StateEvent extends Event {
+	/**
+	 * The name of the visited state.
+	 */
+	@Label("State")
+	public String state;
+
+	/**
+	 * The name of the state chosen next.
+	 */
+	@Label("Next State")
+	public String next;
+
+	/**
+	 * The ID of the current customer or <code>-1</code> if no customer has been chosen yet.
+	 */
+	@Label("Customer ID")
+	public int cid;
+}
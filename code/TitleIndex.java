@@ -0,0 +1,561 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>TitleIndex</code> class is an in-memory trigram inverted index over the titles
+ *         of the <code>yrb_book</code> table in the <b><i>York River Bookseller's Database</i></b>.
+ *         <br>
+ *         <br>
+ *
+ *         Every book is given a document number and every trigram of its lowercase title maps to a
+ *         posting list of document numbers. Posting lists are stored as delta encoded variable
+ *         length integers so that the index stays small even for large catalogs. A search only
+ *         touches the posting lists of the query's trigrams and the documents found in them. <br>
+ *         <br>
+ *
+ *         The popularity of every book is a snapshot taken when the book is added, i.e. purchases
+ *         made afterwards do not change the ranking until the index is rebuilt.
+ *
+ * @see #TitleIndex(Collection, Map)
+ * @see #search(String, int, String)
+ *
+ * @see Book
+ * @see YRBAPP
+ */
+public final class TitleIndex {
+	/**
+	 * The number of characters in a single gram.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int GRAM_LENGTH = 3;
+
+	/**
+	 * The default number of results returned by <code>search(String, int, String)</code>.
+	 *
+	 * @see #search(String, int, String)
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_TOP_K = 5;
+
+	/**
+	 * A compressed posting list of strictly increasing document numbers. <br>
+	 * <br>
+	 *
+	 * Every document number is stored as the difference to the previous one, encoded as a variable
+	 * length integer (7 bits per byte, high bit set on all but the last byte).
+	 */
+	private static final class PostingList {
+		/**
+		 * The encoded deltas.
+		 */
+		private byte[] data;
+
+		/**
+		 * The number of used bytes in <code>data</code>.
+		 */
+		private int length;
+
+		/**
+		 * The number of document numbers in this list.
+		 */
+		private int count;
+
+		/**
+		 * The last (i.e. largest) document number in this list or <code>-1</code> if empty.
+		 */
+		private int last;
+
+		/**
+		 * Default constructor for an empty <code>PostingList</code> object.
+		 */
+		private PostingList() {
+			this.data = new byte[4];
+			this.length = 0;
+			this.count = 0;
+			this.last = -1;
+		}
+
+		/**
+		 * Append the given document number to the end of this list.
+		 *
+		 * @param doc
+		 *            the document number
+		 *
+		 * @throws IllegalArgumentException
+		 *             If <code>doc &lt;= this.last</code>
+		 */
+		private void add(int doc) throws IllegalArgumentException {
+			if (doc <= this.last) {
+				throw new IllegalArgumentException(
+						"Given document number(" + doc + ") is not greater than the last one(" + this.last + ").");
+			}
+
+			int delta = doc - this.last;
+			if (this.length + 5 > this.data.length) { // At most 5 bytes per int.
+				this.data = Arrays.copyOf(this.data, Math.max(this.data.length << 1, this.length + 5));
+			}
+			while ((delta & ~0x7F) != 0) {
+				this.data[this.length++] = (byte) ((delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			this.data[this.length++] = (byte) delta;
+
+			this.last = doc;
+			++this.count;
+		}
+
+		/**
+		 * Decode this list.
+		 *
+		 * @return The document numbers of this list in increasing order.
+		 */
+		private int[] decode() {
+			int[] result = new int[this.count];
+			int doc = -1, pos = 0;
+			for (int i = 0; i < this.count; ++i) {
+				int delta = 0, shift = 0;
+				byte b;
+				do {
+					b = this.data[pos++];
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				result[i] = (doc += delta);
+			}
+			return result;
+		}
+
+		/**
+		 * Decode this list one document number at a time without allocating an array.
+		 *
+		 * @param action
+		 *            the action to perform on every document number in increasing order
+		 */
+		private void forEach(IntConsumer action) {
+			int doc = -1, pos = 0;
+			for (int i = 0; i < this.count; ++i) {
+				int delta = 0, shift = 0;
+				byte b;
+				do {
+					b = this.data[pos++];
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				action.accept(doc += delta);
+			}
+		}
+
+		/**
+		 * Trim the backing array to the used number of bytes.
+		 */
+		private void trim() {
+			if (this.length != this.data.length) {
+				this.data = Arrays.copyOf(this.data, this.length);
+			}
+		}
+	}
+
+	/**
+	 * Mapping document numbers to books. Removed documents are mapped to <code>null</code>.
+	 */
+	private final ArrayList<Book> books;
+
+	/**
+	 * Mapping document numbers to the total purchased quantity of the book when it was added.
+	 */
+	private int[] popularity;
+
+	/**
+	 * Mapping books (using <code>Book.compareTo</code> i.e. the primary key) to document numbers.
+	 */
+	private final TreeMap<Book, Integer> docs;
+
+	/**
+	 * The set of removed document numbers.
+	 */
+	private final BitSet removed;
+
+	/**
+	 * Mapping trigrams to their posting lists.
+	 */
+	private final ConcurrentHashMap<String, PostingList> postings;
+
+	/**
+	 * The lock guarding this index. Searches share the read lock while additions and removals hold the
+	 * write lock.
+	 */
+	private final ReentrantReadWriteLock lock;
+
+	/**
+	 * General constructor for a <code>TitleIndex</code> object. <br>
+	 * <br>
+	 *
+	 * The trigrams of all of the given books are extracted and grouped into posting lists in parallel.
+	 *
+	 * @param books
+	 *            the books to index
+	 *
+	 * @param popularity
+	 *            mapping books (by primary key) to their total purchased quantity so far, could be
+	 *            <code>null</code>
+	 *
+	 * @throws NullPointerException
+	 *             If <code>books == null</code> or if it contains <code>null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>books</code> contains two books with the same primary key
+	 *
+	 * @see #add(Book, int)
+	 */
+	public TitleIndex(Collection<Book> books, Map<Book, Integer> popularity)
+			throws NullPointerException, IllegalArgumentException {
+		if (books == null) {
+			throw new NullPointerException("Given book collection is null.");
+		}
+
+		this.books = new ArrayList<Book>(books);
+		this.popularity = new int[Math.max(this.books.size(), 16)];
+		this.docs = new TreeMap<Book, Integer>();
+		this.removed = new BitSet();
+		this.postings = new ConcurrentHashMap<String, PostingList>();
+		this.lock = new ReentrantReadWriteLock();
+
+		int n = this.books.size();
+		for (int doc = 0; doc < n; ++doc) {
+			Book b = this.books.get(doc);
+			if (b == null) {
+				throw new NullPointerException("Given book collection contains null.");
+			} else if (this.docs.put(b, doc) != null) {
+				throw new IllegalArgumentException("Given book collection contains duplicate book(" + b + ").");
+			}
+			if (popularity != null) {
+				Integer p = popularity.get(b);
+				this.popularity[doc] = (p == null ? 0 : p.intValue());
+			}
+		}
+
+		// Extract the trigrams of every title in parallel.
+		String[][] grams = new String[n][];
+		IntStream.range(0, n).parallel().forEach(doc -> grams[doc] = TitleIndex.grams(this.books.get(doc).title));
+
+		// Invert in parallel: every worker owns a distinct subset of the trigrams so posting lists are
+		// appended to by a single thread in increasing document order.
+		int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+		IntStream.range(0, workers).parallel().forEach(w -> {
+			for (int doc = 0; doc < n; ++doc) {
+				for (String g : grams[doc]) {
+					if (Math.floorMod(g.hashCode(), workers) == w) {
+						this.postings.computeIfAbsent(g, k -> new PostingList()).add(doc);
+					}
+				}
+			}
+		});
+		this.postings.values().parallelStream().forEach(PostingList::trim);
+	}
+
+	/**
+	 * Returns the distinct trigrams of the lowercase version of the given string.
+	 *
+	 * @param s
+	 *            the given string
+	 *
+	 * @return The distinct trigrams in order of first occurrence. Strings shorter than
+	 *         <code>TitleIndex.GRAM_LENGTH</code> have no trigrams.
+	 *
+	 * @see #GRAM_LENGTH
+	 */
+	private static String[] grams(String s) {
+		String lower = s.toLowerCase();
+		LinkedHashSet<String> result = new LinkedHashSet<String>();
+		for (int i = 0; i + TitleIndex.GRAM_LENGTH <= lower.length(); ++i) {
+			result.add(lower.substring(i, i + TitleIndex.GRAM_LENGTH));
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Returns the number of books (not removed) in this index.
+	 *
+	 * @return The number of indexed books.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.docs.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Add the given book to this index. <br>
+	 * <br>
+	 *
+	 * If a book with the same primary key already exists then it is replaced.
+	 *
+	 * @param book
+	 *            the book to add
+	 *
+	 * @param popularity
+	 *            the total purchased quantity of the book
+	 *
+	 * @throws NullPointerException
+	 *             If <code>book == null</code>
+	 *
+	 * @see #remove(Book)
+	 */
+	public void add(Book book, int popularity) throws NullPointerException {
+		if (book == null) {
+			throw new NullPointerException("Given book is null.");
+		}
+
+		this.lock.writeLock().lock();
+		try {
+			this.removeLocked(book);
+
+			int doc = this.books.size();
+			this.books.add(book);
+			if (doc >= this.popularity.length) {
+				this.popularity = Arrays.copyOf(this.popularity, this.popularity.length << 1);
+			}
+			this.popularity[doc] = popularity;
+			this.docs.put(book, doc);
+
+			// New document numbers are always the largest so they can simply be appended.
+			for (String g : TitleIndex.grams(book.title)) {
+				this.postings.computeIfAbsent(g, k -> new PostingList()).add(doc);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove the book with the same primary key as the given book from this index.
+	 *
+	 * @param book
+	 *            the book to remove
+	 *
+	 * @return <tt>true</tt> if a book was removed and <tt>false</tt> otherwise.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>book == null</code>
+	 *
+	 * @see #add(Book, int)
+	 * @see #compact()
+	 */
+	public boolean remove(Book book) throws NullPointerException {
+		if (book == null) {
+			throw new NullPointerException("Given book is null.");
+		}
+
+		this.lock.writeLock().lock();
+		try {
+			boolean result = this.removeLocked(book);
+			// Rewrite the posting lists once half of the documents are dead.
+			if (result && this.removed.cardinality() > this.docs.size()) {
+				this.compactLocked();
+			}
+			return result;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Mark the document of the given book as removed. The write lock must be held.
+	 *
+	 * @param book
+	 *            the book to remove
+	 *
+	 * @return <tt>true</tt> if a book was removed and <tt>false</tt> otherwise.
+	 */
+	private boolean removeLocked(Book book) {
+		Integer doc = this.docs.remove(book);
+		if (doc == null) {
+			return false;
+		}
+		this.books.set(doc, null);
+		this.popularity[doc] = 0;
+		this.removed.set(doc);
+		return true;
+	}
+
+	/**
+	 * Rewrite all of the posting lists without the removed documents.
+	 *
+	 * @see #remove(Book)
+	 */
+	public void compact() {
+		this.lock.writeLock().lock();
+		try {
+			this.compactLocked();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Rewrite all of the posting lists without the removed documents. The write lock must be held.
+	 */
+	private void compactLocked() {
+		if (this.removed.isEmpty()) {
+			return;
+		}
+		this.postings.replaceAll((g, list) -> {
+			PostingList result = new PostingList();
+			for (int doc : list.decode()) {
+				if (!this.removed.get(doc)) {
+					result.add(doc);
+				}
+			}
+			result.trim();
+			return result;
+		});
+		this.postings.values().removeIf(list -> list.count == 0);
+		// Document numbers are kept so that the removed slots simply stay null.
+		this.removed.clear();
+	}
+
+	/**
+	 * Returns up to <code>k</code> books whose titles best match the given query. <br>
+	 * <br>
+	 *
+	 * Match quality is the fraction of the query's trigrams found in the title, where titles that
+	 * contain the whole query (ignoring case) always have the best quality. Ties are broken by
+	 * popularity (total purchased quantity) and then by <code>Book.compareTo</code>.
+	 *
+	 * @param query
+	 *            the search string
+	 *
+	 * @param k
+	 *            the maximum number of results
+	 *
+	 * @param category
+	 *            only return books of this category, or <code>null</code> for all categories
+	 *
+	 * @return The best matching books ordered from best to worst.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>query == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>k &lt; 0</code>
+	 */
+	public List<Book> search(String query, int k, String category)
+			throws NullPointerException, IllegalArgumentException {
+		if (query == null) {
+			throw new NullPointerException("Given query is null.");
+		} else if (k < 0) {
+			throw new IllegalArgumentException("Given result count(" + k + ") is negative.");
+		}
+
+		String lower = query.toLowerCase();
+		String[] grams = TitleIndex.grams(lower);
+
+		this.lock.readLock().lock();
+		try {
+			// Mapping the candidate documents to the number of the query's trigrams in their titles.
+			HashMap<Integer, Integer> hits = new HashMap<Integer, Integer>();
+
+			if (grams.length == 0) {
+				// Queries shorter than a trigram can only be answered by a scan.
+				for (Map.Entry<Book, Integer> e : this.docs.entrySet()) {
+					if (e.getKey().title.toLowerCase().contains(lower)) {
+						hits.put(e.getValue(), 0);
+					}
+				}
+			} else {
+				for (String g : grams) {
+					PostingList list = this.postings.get(g);
+					if (list != null) {
+						list.forEach(doc -> {
+							if (!this.removed.get(doc)) {
+								hits.merge(doc, 1, Integer::sum);
+							}
+						});
+					}
+				}
+			}
+
+			HashMap<Integer, Double> quality = new HashMap<Integer, Double>();
+			Comparator<Integer> order = (a, b) -> {
+				int result = Double.compare(quality.get(a), quality.get(b));
+				if (result != 0) {
+					return result;
+				}
+				result = Integer.compare(this.popularity[a], this.popularity[b]);
+				// Reverse Book order so that the smaller book wins in the min-heap.
+				return (result != 0 ? result : this.books.get(b).compareTo(this.books.get(a)));
+			};
+
+			// Keep the best k candidates in a min-heap.
+			PriorityQueue<Integer> best = new PriorityQueue<Integer>(Math.max(1, k), order);
+			for (Map.Entry<Integer, Integer> e : hits.entrySet()) {
+				int doc = e.getKey();
+				Book b = this.books.get(doc);
+				if (category != null && !category.equals(b.category)) {
+					continue;
+				}
+
+				quality.put(doc, (grams.length == 0 || b.title.toLowerCase().contains(lower)) ? 1.0
+						: ((double) e.getValue()) / grams.length);
+
+				if (best.size() < k) {
+					best.add(doc);
+				} else if (k != 0 && order.compare(doc, best.peek()) > 0) {
+					best.poll();
+					best.add(doc);
+				}
+			}
+
+			Book[] result = new Book[best.size()];
+			for (int i = result.length - 1; i >= 0; --i) {
+				result[i] = this.books.get(best.poll());
+			}
+			return new ArrayList<Book>(Arrays.asList(result));
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns up to <code>TitleIndex.DEFAULT_TOP_K</code> books whose titles best match the given
+	 * query. <br>
+	 * <br>
+	 *
+	 * Same as calling <code>search(String query, int k, String category)</code> with arguments
+	 * <code>(query, TitleIndex.DEFAULT_TOP_K, null)</code>.
+	 *
+	 * @param query
+	 *            the search string
+	 *
+	 * @return The best matching books ordered from best to worst.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>query == null</code>
+	 *
+	 * @see #DEFAULT_TOP_K
+	 * @see #search(String, int, String)
+	 */
+	public List<Book> search(String query) throws NullPointerException {
+		return this.search(query, TitleIndex.DEFAULT_TOP_K, null);
+	}
+}
@@ -0,0 +1,319 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>Tracer</code> class creates the <code>Span</code>s of the application and
+ *         exports every finished trace to a local file. <br>
+ *         <br>
+ *
+ *         Every thread has a current span and a new span becomes a child of the current span of its
+ *         thread, or the root of a new trace if there is none. When a root span ends, the trace is
+ *         written as a single line of <b>OpenTelemetry</b> (OTLP) JSON, i.e. an
+ *         <code>ExportTraceServiceRequest</code>, so the file can be read by any OTLP JSON tooling.
+ *         Tracing is disabled (and <code>start</code> returns a no-op span) until
+ *         <code>enable(String)</code> is called.
+ *
+ * @see #enable(String)
+ * @see #start(String)
+ *
+ * @see Span
+ */
+public final class Tracer {
+	/**
+	 * Default constructor for a <code>Tracer</code> object.
+	 */
+	// Private constructor so that no object of this type can be instantiated.
+	private Tracer() {
+		// Empty by design.
+	}
+
+	/**
+	 * The name of the traced service.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String SERVICE_NAME = "yrbapp";
+
+	/**
+	 * The difference between the epoch time and <code>System.nanoTime()</code> in nanoseconds.
+	 */
+	private static final long EPOCH_OFFSET = System.currentTimeMillis() * 1000000L - System.nanoTime();
+
+	/**
+	 * The current span of every thread.
+	 */
+	private static final ThreadLocal<Span> CURRENT = new ThreadLocal<Span>();
+
+	/**
+	 * The output of the finished traces or <code>null</code> if tracing is disabled.
+	 */
+	private static volatile PrintWriter output;
+
+	/**
+	 * Enable tracing and append the finished traces to the given file.
+	 *
+	 * @param file
+	 *            the path of the output file
+	 *
+	 * @throws IOException
+	 *             If the file could not be opened
+	 */
+	public static synchronized void enable(String file) throws IOException {
+		Tracer.disable();
+		Tracer.output = new PrintWriter(
+				new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Disable tracing and close the output file.
+	 */
+	public static synchronized void disable() {
+		if (Tracer.output != null) {
+			Tracer.output.close();
+			Tracer.output = null;
+		}
+	}
+
+	/**
+	 * Returns whether tracing is enabled.
+	 *
+	 * @return <code>Tracer.output != null</code>.
+	 */
+	public static boolean isEnabled() {
+		return (Tracer.output != null);
+	}
+
+	/**
+	 * Returns the current time in nanoseconds since the epoch.
+	 *
+	 * @return <code>Tracer.EPOCH_OFFSET + System.nanoTime()</code>.
+	 */
+	private static long now() {
+		return Tracer.EPOCH_OFFSET + System.nanoTime();
+	}
+
+	/**
+	 * Returns a random non-zero ID of the given number of bytes.
+	 *
+	 * @param bytes
+	 *            the number of bytes
+	 *
+	 * @return The ID as lower case hexadecimal digits.
+	 */
+	private static String randomId(int bytes) {
+		StringBuilder result = new StringBuilder(bytes * 2);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < bytes; i += 8) {
+			long value = random.nextLong();
+			if (value == 0) {
+				value = 1L;
+			}
+			result.append(String.format("%016x", value));
+		}
+		return result.substring(0, bytes * 2);
+	}
+
+	/**
+	 * Start a span that is a child of the current span of this thread and make it the current span.
+	 *
+	 * @param name
+	 *            the name of the operation
+	 *
+	 * @return The started span or a no-op span if tracing is disabled.
+	 */
+	public static Span start(String name) {
+		if (!Tracer.isEnabled()) {
+			return Span.NOOP;
+		}
+
+		Span parent = Tracer.CURRENT.get();
+		Span result = new Span((parent == null ? Tracer.randomId(16) : parent.traceId), Tracer.randomId(8), parent,
+				name, Tracer.now());
+		Tracer.CURRENT.set(result);
+		return result;
+	}
+
+	/**
+	 * Returns the current span of this thread.
+	 *
+	 * @return The current span or a no-op span if there is none.
+	 */
+	public static Span current() {
+		Span result = Tracer.CURRENT.get();
+		return (result == null ? Span.NOOP : result);
+	}
+
+	/**
+	 * End the given span, make its parent the current span and export its trace if it is a root span.
+	 *
+	 * @param span
+	 *            the span to end
+	 */
+	static void end(Span span) {
+		if (Tracer.CURRENT.get() == span) {
+			Tracer.CURRENT.set(span.parent);
+		}
+
+		synchronized (span.trace) {
+			if (span.end != 0L) {
+				return;
+			}
+			span.end = Tracer.now();
+			span.trace.add(span);
+		}
+
+		if (span.parent == null) {
+			Tracer.export(span.trace);
+		}
+	}
+
+	/**
+	 * End every open span of this thread from the current span up to its root, e.g. right before the
+	 * application exits.
+	 */
+	public static void endAll() {
+		Span span;
+		while ((span = Tracer.CURRENT.get()) != null) {
+			span.close();
+		}
+	}
+
+	/**
+	 * Write the given trace as a single line of OTLP JSON.
+	 *
+	 * @param trace
+	 *            the ended spans of the trace
+	 */
+	private static synchronized void export(List<Span> trace) {
+		PrintWriter out = Tracer.output;
+		if (out == null) {
+			return;
+		}
+
+		List<Span> spans;
+		synchronized (trace) {
+			spans = new ArrayList<Span>(trace);
+		}
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+		Tracer.attribute(json, "service.name", Tracer.SERVICE_NAME);
+		json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"").append(Tracer.SERVICE_NAME).append("\"},\"spans\":[");
+		for (int i = 0; i < spans.size(); ++i) {
+			Span s = spans.get(i);
+			if (i != 0) {
+				json.append(',');
+			}
+			json.append("{\"traceId\":\"").append(s.traceId).append("\",\"spanId\":\"").append(s.spanId).append('"');
+			if (s.parent != null) {
+				json.append(",\"parentSpanId\":\"").append(s.parent.spanId).append('"');
+			}
+			json.append(",\"name\":");
+			Tracer.string(json, s.name);
+			json.append(",\"kind\":").append(s.parent == null ? 2 : 1); // SERVER for sessions, INTERNAL else.
+			json.append(",\"startTimeUnixNano\":\"").append(s.start).append("\",\"endTimeUnixNano\":\"")
+					.append(s.end).append("\",\"attributes\":[");
+			boolean first = true;
+			for (Map.Entry<String, Object> a : s.getAttributes().entrySet()) {
+				if (!first) {
+					json.append(',');
+				}
+				first = false;
+				Tracer.attribute(json, a.getKey(), a.getValue());
+			}
+			json.append("],\"status\":");
+			if (s.error == null) {
+				json.append("{\"code\":1}");
+			} else {
+				json.append("{\"code\":2,\"message\":");
+				Tracer.string(json, s.error);
+				json.append('}');
+			}
+			json.append('}');
+		}
+		json.append("]}]}]}");
+
+		out.println(json);
+		out.flush();
+	}
+
+	/**
+	 * Append a single OTLP <code>KeyValue</code>.
+	 *
+	 * @param json
+	 *            the output
+	 *
+	 * @param key
+	 *            the attribute key
+	 *
+	 * @param value
+	 *            the attribute value
+	 */
+	private static void attribute(StringBuilder json, String key, Object value) {
+		json.append("{\"key\":");
+		Tracer.string(json, key);
+		json.append(",\"value\":{");
+		if (value instanceof Boolean) {
+			json.append("\"boolValue\":").append(value);
+		} else if (value instanceof Float || value instanceof Double) {
+			json.append("\"doubleValue\":").append(value);
+		} else if (value instanceof Number) {
+			// int64 values are strings in the JSON mapping of protocol buffers.
+			json.append("\"intValue\":\"").append(((Number) value).longValue()).append('"');
+		} else {
+			json.append("\"stringValue\":");
+			Tracer.string(json, String.valueOf(value));
+		}
+		json.append("}}");
+	}
+
+	/**
+	 * Append the given string as a JSON string literal.
+	 *
+	 * @param json
+	 *            the output
+	 *
+	 * @param s
+	 *            the string
+	 */
+	static void string(StringBuilder json, String s) {
+		json.append('"');
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					json.append("\\\"");
+					break;
+				case '\\':
+					json.append("\\\\");
+					break;
+				case '\n':
+					json.append("\\n");
+					break;
+				case '\r':
+					json.append("\\r");
+					break;
+				case '\t':
+					json.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						json.append(String.format("\\u%04x", (int) c));
+					} else {
+						json.append(c);
+					}
+					break;
+			}
+		}
+		json.append('"');
+	}
+}
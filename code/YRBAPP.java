@@ -1,16 +1,26 @@
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.Date;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * @author Ashkan Moatamed <br>
@@ -58,10 +68,10 @@ public final class YRBAPP {
 
 	/**
 	 * <code>If commit then</code> commit any/all of the changes made <code>else</code> rollback any/all
-	 * of the changes made, to the current database and then close the connection. <br>
+	 * of the changes made, to the current database and then close its connections. <br>
 	 * <br>
 	 * 
-	 * At this point set the new <code>url</code> and the new <code>database connection</code>.
+	 * At this point set the new <code>url</code> and the new <code>store</code>.
 	 * 
 	 * @param url
 	 *            the new database url
@@ -78,7 +88,8 @@ public final class YRBAPP {
 	 *             If <code>url.isEmpty()</code>
 	 * 
 	 * @see #url
-	 * @see #db_connect
+	 * @see #store
+	 * @see #open_store(String)
 	 * 
 	 * @see #commitChanges()
 	 * @see #rollbackChanges()
@@ -93,13 +104,12 @@ public final class YRBAPP {
 			throw new IllegalArgumentException("Given URL string is empty.");
 		}
 
-		// Initialize the connection.
-		Connection db_connect;
+		// Initialize the store.
+		YRBStore store;
 		try {
-			// Connect with a fall-thru ID & password.
-			db_connect = DriverManager.getConnection(url);
-		} catch (SQLException ex) {
-			YRBAPP.logError("Failed to connect to database.\n" + ex.toString());
+			store = this.open_store(url);
+		} catch (SQLException | IllegalArgumentException ex) {
+			YRBAPP.logError("connection", "Failed to connect to database.\nURL = " + url, ex);
 			return false;
 		}
 
@@ -112,6 +122,7 @@ public final class YRBAPP {
 			if (!this.commitChanges()) {
 				// Upon failure, restore the saved url.
 				this.url = savedURL;
+				YRBAPP.closePools(store);
 				return false;
 			}
 		} else {
@@ -119,27 +130,34 @@ public final class YRBAPP {
 			if (!this.rollbackChanges()) {
 				// Upon failure, restore the saved url.
 				this.url = savedURL;
+				YRBAPP.closePools(store);
 				return false;
 			}
 		}
 
-		// Close the database connection.
+		// Close the database connections.
 		if (!this.closeConnection()) {
 			// Upon failure, restore the saved url.
 			this.url = savedURL;
+			YRBAPP.closePools(store);
 			return false;
 		}
 
-		// Set the database connection.
-		this.db_connect = db_connect;
+		// Set the store and start the session of the console on it.
+		store.setFetchSize(this.getFetchSize());
+		this.store = store;
+		this.session = store.open();
+
+		// Run the background queries against the new store as well.
+		this.open_async();
 		return true;
 	}
 
 	/**
-	 * Commit any/all of the changes made, to the current database and then close the connection. <br>
+	 * Commit any/all of the changes made, to the current database and then close its connections. <br>
 	 * <br>
 	 * 
-	 * At this point set the new <code>url</code> and the new <code>database connection</code>. <br>
+	 * At this point set the new <code>url</code> and the new <code>store</code>. <br>
 	 * <br>
 	 * 
 	 * Same as calling <code>setURL(String url, boolean commit)</code> with arguments
@@ -157,7 +175,7 @@ public final class YRBAPP {
 	 *             If <code>url.isEmpty()</code>
 	 * 
 	 * @see #url
-	 * @see #db_connect
+	 * @see #store
 	 * @see #setURL(String, boolean)
 	 * 
 	 * @see #YRBAPP()
@@ -167,35 +185,162 @@ public final class YRBAPP {
 	}
 
 	/**
-	 * The current connection to the database system.
+	 * The name of the system property holding the comma separated URLs of the shards that follow
+	 * <code>this.url</code>, which is always the first shard. The application is not sharded if it is
+	 * not set. <br>
+	 * <br>
+	 * 
+	 * The console has a single transaction, so after it has written to one shard, customers of
+	 * another shard can only be chosen once the changes have been committed or rolled back.
+	 * 
+	 * @see #SHARD_MAP_PROPERTY
+	 * @see #open_store(String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String SHARD_URLS_PROPERTY = "yrbapp.shards";
+
+	/**
+	 * The name of the system property holding the specification of the map of the customers to the
+	 * shards of <code>YRBAPP.SHARD_URLS_PROPERTY</code>, i.e. <code>hash</code> (the default) or
+	 * <code>range:b1,b2,...</code>.
+	 * 
+	 * @see ShardMap#parse(String, int)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String SHARD_MAP_PROPERTY = "yrbapp.sharding";
+
+	/**
+	 * The store that every statement of the application runs through.
 	 * 
 	 * @see #setURL(String, boolean)
 	 * @see #setURL(String)
 	 */
-	private Connection db_connect;
+	private YRBStore store;
+
+	/**
+	 * The session of the current application run on <code>this.store</code>, whose transaction holds
+	 * the changes that have not been committed or rolled back yet.
+	 * 
+	 * @see #commitChanges()
+	 * @see #rollbackChanges()
+	 */
+	private Session session;
+
+	/**
+	 * Returns a store against the given url, the shards of <code>YRBAPP.SHARD_URLS_PROPERTY</code> and
+	 * the read replicas of <code>YRBAPP.ASYNC_REPLICAS_PROPERTY</code>. Every pool has one connection
+	 * for the console and <code>YRBAPP.ASYNC_POOL_PROPERTY</code> connections for the background
+	 * queries. Every shard is connected to once, so that a wrong url fails right away.
+	 * 
+	 * @param url
+	 *            the database url of the first shard
+	 * 
+	 * @return The store, whose pools are owned by the caller.
+	 * 
+	 * @throws SQLException
+	 *             If a shard could not be connected to
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>YRBAPP.SHARD_MAP_PROPERTY</code> does not match the shards
+	 * 
+	 * @see #closePools(YRBStore)
+	 */
+	private YRBStore open_store(String url) throws SQLException, IllegalArgumentException {
+		int size = 1 + Math.max(0, Integer.getInteger(YRBAPP.ASYNC_POOL_PROPERTY, YRBAPP.DEFAULT_ASYNC_POOL_SIZE));
+		ArrayList<ConnectionPool> shards = YRBAPP.pools(url + "," + System.getProperty(YRBAPP.SHARD_URLS_PROPERTY, ""),
+				size);
+		ArrayList<ConnectionPool> replicas = YRBAPP.pools(System.getProperty(YRBAPP.ASYNC_REPLICAS_PROPERTY, ""),
+				size);
+
+		YRBStore result;
+		try {
+			ShardMap shardMap = ShardMap.parse(System.getProperty(YRBAPP.SHARD_MAP_PROPERTY, "hash"), shards.size());
+			for (ConnectionPool shard : shards) {
+				shard.release(shard.acquire());
+			}
+			result = new YRBStore(shards, shardMap, replicas, this.slowLog, this.statistics);
+		} catch (SQLException | IllegalArgumentException ex) {
+			for (ConnectionPool pool : shards) {
+				pool.close();
+			}
+			for (ConnectionPool pool : replicas) {
+				pool.close();
+			}
+			throw ex;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a pool of the given size for every URL of the given comma separated list.
+	 * 
+	 * @param urls
+	 *            the comma separated URLs, of which the blank ones are skipped
+	 * 
+	 * @param size
+	 *            the number of connections of every pool
+	 * 
+	 * @return The pools in the order of <code>urls</code>.
+	 */
+	private static ArrayList<ConnectionPool> pools(String urls, int size) {
+		ArrayList<ConnectionPool> result = new ArrayList<ConnectionPool>();
+		for (String url : urls.split(",")) {
+			if (!url.trim().isEmpty()) {
+				result.add(new ConnectionPool(url.trim(), size));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Close the pools of the shards and of the read replicas of the given store.
+	 * 
+	 * @param store
+	 *            the store
+	 * 
+	 * @see #open_store(String)
+	 */
+	private static void closePools(YRBStore store) {
+		for (ConnectionPool shard : store.getShards()) {
+			shard.close();
+		}
+		for (ConnectionPool replica : store.getReplicas()) {
+			replica.close();
+		}
+	}
 
 	/**
 	 * Commit any/all of the changes made, to the current database.
 	 * 
-	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
+	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise, in which case the changes have
+	 *         been rolled back.
 	 * 
 	 * @see #setURL(String)
 	 * 
 	 * @see #exit(boolean, int)
 	 */
 	private boolean commitChanges() {
-		if (this.db_connect != null) {
+		if (this.session != null) {
+			int pending = this.session.getCart().size();
+
 			// Commit to the database.
 			try {
-				this.db_connect.commit();
+				this.purchasesCommitted.add(this.session.commit().size());
 			} catch (SQLException ex) {
 				// YRBAPP.printStackTrace(ex);
-				YRBAPP.logError("Failed to commit to database.\nURL = " + this.getURL() + "\n" + ex.toString());
+				YRBAPP.logError("connection", "Failed to commit to database.\nURL = " + this.getURL(), ex);
+
+				// Rolled back purchases could still be in the cached histories.
+				this.histories.clear();
+
+				this.purchasesRolledBack.add(pending);
 				return false;
 			}
 		}
 
-		// No connection implies success.
+		// No session implies success.
 		return true;
 	}
 
@@ -207,23 +352,24 @@ public final class YRBAPP {
 	 * @see #exit(boolean, int)
 	 */
 	private boolean rollbackChanges() {
-		if (this.db_connect != null) {
+		if (this.session != null) {
 			// Rollback the database.
-			try {
-				this.db_connect.rollback();
-			} catch (SQLException ex) {
-				// YRBAPP.printStackTrace(ex);
-				YRBAPP.logError("Failed to rollback database.\nURL = " + this.getURL() + "\n" + ex.toString());
-				return false;
-			}
+			List<Purchase> rolledBack = this.session.rollback();
+
+			// Rolled back purchases could still be in the cached histories.
+			this.histories.clear();
+
+			this.purchasesRolledBack.add(rolledBack.size());
 		}
 
-		// No connection implies success.
+		// No session implies success.
 		return true;
 	}
 
 	/**
-	 * Close the current database connection.
+	 * Stop the background queries and close all connections of the current store. Everything that has
+	 * been loaded from it is dropped as well, so that it is never served once another store replaces
+	 * it.
 	 * 
 	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
 	 * 
@@ -232,18 +378,23 @@ public final class YRBAPP {
 	 * @see #exit(boolean, int)
 	 */
 	private boolean closeConnection() {
-		if (this.db_connect != null) {
-			// Close the database connection.
-			try {
-				this.db_connect.close();
-			} catch (SQLException ex) {
-				// YRBAPP.printStackTrace(ex);
-				YRBAPP.logError("Failed to close database connection.\nURL = " + this.getURL() + "\n" + ex.toString());
-				return false;
-			}
+		this.close_async();
+		if (this.session != null) {
+			this.session.close();
+			this.session = null;
 		}
-
-		// No connection to close implies success.
+		if (this.store != null) {
+			YRBAPP.closePools(this.store);
+			this.store = null;
+		}
+		this.titleIndex = null;
+		this.catalogIndex = null;
+		this.histories.clear();
+		this.staleCategories.clear();
+		this.staleBooks.clear();
+		this.staleOffers.clear();
+
+		// Closing the pools cannot fail.
 		return true;
 	}
 
@@ -332,186 +483,818 @@ public final class YRBAPP {
 	}
 
 	/**
-	 * A <code>StringBuilder</code> of all errors that have occurred thus far.
+	 * The number of rows shown on a single page of a long listing.
 	 * 
-	 * @see #getErrors()
-	 * @see #logError(CharSequence)
-	 * @see #clearErrors()
+	 * @see #getPageSize()
+	 * @see #setPageSize(int)
 	 */
-	private static StringBuilder errors;
+	private int pageSize;
 
 	/**
-	 * Returns all of the errors that have occurred thus far.
+	 * Returns the current page size.
 	 * 
-	 * @return <code>YRBAPP.errors.toString()</code>.
+	 * @return <code>this.pageSize</code>.
 	 * 
-	 * @see #errors
-	 * @see #clearErrors()
+	 * @see #pageSize
 	 */
-	public static String getErrors() {
-		return YRBAPP.errors.toString();
+	// ints are call-by-value in Java which is why returning the value directly,
+	// does not pose any issues against encapsulation.
+	public int getPageSize() {
+		return this.pageSize;
 	}
 
 	/**
-	 * Log the most recent error to <code>errors</code>.
+	 * Set the current page size to the new given value.
 	 * 
-	 * @param s
-	 *            the most recent error
+	 * @param pageSize
+	 *            the new page size
 	 * 
-	 * @see #errors
+	 * @return <code>this.pageSize</code>.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>pageSize &lt;= 0</code>
+	 * 
+	 * @see #pageSize
 	 */
-	private static void logError(CharSequence s) {
-		if (s != null && s.length() != 0) { // Only append if valid input.
-			YRBAPP.errors.append(s);
-			YRBAPP.errors.append("\n");
+	public int setPageSize(int pageSize) throws IllegalArgumentException {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("Given page size(" + pageSize + ") is not positive.");
 		}
+		return (this.pageSize = pageSize);
 	}
 
 	/**
-	 * Clear all of the saved errors.
-	 * 
-	 * @return All of the errors that have occurred before the call to this method and before
-	 *         <code>errors</code> is reset.
+	 * The number of rows that the JDBC driver fetches from the database in a single round trip when
+	 * streaming a result set, which is handed on to <code>this.store</code>.
 	 * 
-	 * @see #errors
-	 * @see #getErrors()
+	 * @see #getFetchSize()
+	 * @see #setFetchSize(int)
 	 */
-	public static String clearErrors() {
-		String result = YRBAPP.getErrors();
-		YRBAPP.errors = new StringBuilder();
-		return result;
-	}
+	private int fetchSize;
 
 	/**
-	 * A singleton instance of an object of static type <code>YRBAPP</code>.
+	 * Returns the current fetch size.
+	 * 
+	 * @return <code>this.fetchSize</code>.
+	 * 
+	 * @see #fetchSize
 	 */
-	private static YRBAPP instance;
+	// ints are call-by-value in Java which is why returning the value directly,
+	// does not pose any issues against encapsulation.
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
 
 	/**
-	 * Returns a singleton access to a <code>YRBAPP</code> object.
+	 * Set the current fetch size to the new given value.
 	 * 
-	 * @return The singleton reference.
+	 * @param fetchSize
+	 *            the new fetch size
+	 * 
+	 * @return <code>this.fetchSize</code>.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>fetchSize &lt;= 0</code>
+	 * 
+	 * @see #fetchSize
 	 */
-	public static YRBAPP getInstance() {
-		if (YRBAPP.instance == null) {
-			YRBAPP.instance = new YRBAPP();
+	public int setFetchSize(int fetchSize) throws IllegalArgumentException {
+		if (fetchSize <= 0) {
+			throw new IllegalArgumentException("Given fetch size(" + fetchSize + ") is not positive.");
 		}
-		return YRBAPP.instance;
+		if (this.store != null) {
+			this.store.setFetchSize(fetchSize);
+		}
+		return (this.fetchSize = fetchSize);
 	}
 
 	/**
-	 * <code>RunState</code> encapsulates all of the possible states during a single run of the
-	 * application. <br>
-	 * <br>
+	 * The name of the system property holding the port that the Prometheus metrics are served on. The
+	 * metrics are not served when the property is not set.
 	 * 
-	 * <code>CUSTOMER</code>: Find a customer and then update the information if requested. <br>
-	 * <br>
+	 * @see #register_metrics()
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String METRICS_PORT_PROPERTY = "yrbapp.metrics.port";
+
+	/**
+	 * The application metrics.
 	 * 
-	 * <code>CATEGORY</code>: Find all book categories and then prompt user for selection. <br>
-	 * <br>
+	 * @see #getMetrics()
+	 * @see #register_metrics()
+	 */
+	private Metrics metrics;
+
+	/**
+	 * Returns the application metrics.
 	 * 
-	 * <code>BOOK</code>: Find all books of the selected category and prompt user for selection. <br>
-	 * <br>
+	 * @return <code>this.metrics</code>.
+	 */
+	public Metrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * The server of <code>this.metrics</code> or <code>null</code> if the metrics are not served.
 	 * 
-	 * <code>PURCHASE</code>: Purchase the chosen quantity number of the selected book. <br>
-	 * <br>
+	 * @see #METRICS_PORT_PROPERTY
+	 */
+	private MetricsServer metricsServer;
+
+	/**
+	 * The number of application runs that have been started.
+	 */
+	private LongAdder sessions;
+
+	/**
+	 * The number of purchases that have been committed.
+	 */
+	private LongAdder purchasesCommitted;
+
+	/**
+	 * The number of purchases that have been rolled back.
+	 */
+	private LongAdder purchasesRolledBack;
+
+	/**
+	 * The number of purchase history lookups answered from <code>this.histories</code>.
+	 */
+	private LongAdder historyHits;
+
+	/**
+	 * The number of purchase history lookups that had to load the whole history.
+	 */
+	private LongAdder historyMisses;
+
+	/**
+	 * Register all application metrics with <code>this.metrics</code> and start serving them if
+	 * <code>YRBAPP.METRICS_PORT_PROPERTY</code> is set.
 	 * 
-	 * <code>FINALIZE</code>: Finalize the purchase and insert it into the database if requested. <br>
-	 * <br>
+	 * @see #METRICS_PORT_PROPERTY
 	 * 
-	 * <code>BACK_TRACK</code>: Ask the user if they want to go back to previous states or exit, since
-	 * currently there is an error in making the purchase.
+	 * @see Metrics
+	 * @see MetricsServer
 	 */
-	private static enum RunState {
-		CUSTOMER, CATEGORY, BOOK, PURCHASE, FINALIZE, BACK_TRACK
+	private void register_metrics() {
+		this.metrics = new Metrics();
+
+		this.sessions = this.metrics.counter("yrb_sessions_started_total", "Application runs started.", "");
+		this.purchasesCommitted = this.metrics.counter("yrb_purchases_total", "Purchases by outcome.",
+				Metrics.labels("outcome", "committed"));
+		this.purchasesRolledBack = this.metrics.counter("yrb_purchases_total", "Purchases by outcome.",
+				Metrics.labels("outcome", "rolled_back"));
+		this.historyHits = this.metrics.counter("yrb_cache_requests_total", "Cache lookups by cache and result.",
+				Metrics.labels("cache", "purchase_history", "result", "hit"));
+		this.historyMisses = this.metrics.counter("yrb_cache_requests_total", "Cache lookups by cache and result.",
+				Metrics.labels("cache", "purchase_history", "result", "miss"));
+
+		this.metrics.register("yrb_errors_total", "Logged errors by statement category.", "counter", () -> {
+			TreeMap<String, Long> result = new TreeMap<String, Long>();
+			for (Map.Entry<String, Long> e : YRBAPP.errors.getCounts().entrySet()) {
+				result.put(Metrics.labels("category", e.getKey()), e.getValue());
+			}
+			return result;
+		});
+
+		this.metrics.register("yrb_db_connections_open", "Open database connections.", "gauge", () -> {
+			int open = 0;
+			YRBStore store = this.store;
+			if (store != null) {
+				for (ConnectionPool shard : store.getShards()) {
+					open += shard.getOpen();
+				}
+				for (ConnectionPool replica : store.getReplicas()) {
+					open += replica.getOpen();
+				}
+			}
+			return Collections.singletonMap("", open);
+		});
+		this.metrics.register("yrb_shard_statements_total", "Executed statements by shard.", "counter", () -> {
+			YRBStore store = this.store;
+			return (store == null ? new TreeMap<String, Long>() : store.getShardCounts());
+		});
+		this.metrics.register("yrb_routed_statements_total", "Executed statements by target database.", "counter",
+				() -> {
+					YRBStore store = this.store;
+					return (store == null ? new TreeMap<String, Long>() : store.getRoutes());
+				});
+		this.metrics.register("yrb_admission_limit", "Adaptive concurrency limit by statement.", "gauge", () -> {
+			TreeMap<String, Double> result = new TreeMap<String, Double>();
+			YRBStore store = this.store;
+			if (store != null) {
+				for (Map.Entry<String, Double> e : store.getAdmission().getLimits().entrySet()) {
+					result.put(Metrics.labels("statement", e.getKey()), e.getValue());
+				}
+			}
+			return result;
+		});
+		this.metrics.register("yrb_admission_queries", "Admitted and queued statements by state.", "gauge", () -> {
+			YRBStore store = this.store;
+			return (store == null ? new TreeMap<String, Integer>() : store.getAdmission().getQueries());
+		});
+		this.metrics.register("yrb_admission_rejected_total", "Rejected statements by reason.", "counter", () -> {
+			YRBStore store = this.store;
+			return (store == null ? new TreeMap<String, Long>() : store.getAdmission().getRejected());
+		});
+		this.metrics.register("yrb_async_queries", "Background queries by state.", "gauge", () -> {
+			TreeMap<String, Integer> result = new TreeMap<String, Integer>();
+			AsyncStore async = this.async;
+			if (async != null) {
+				result.put(Metrics.labels("state", "running"), async.getActive());
+				result.put(Metrics.labels("state", "waiting"), async.getWaiting());
+			}
+			return result;
+		});
+		this.metrics.register("yrb_prefetch_total", "Prefetched lookups by kind and result.", "counter", () -> {
+			Prefetcher prefetcher = this.prefetcher;
+			return (prefetcher == null ? new TreeMap<String, Long>() : prefetcher.getCounts());
+		});
+		this.metrics.register("yrb_cache_entries", "Cached entries by cache.", "gauge", () -> {
+			TreeMap<String, Integer> result = new TreeMap<String, Integer>();
+			result.put(Metrics.labels("cache", "purchase_history"), this.histories.size());
+			result.put(Metrics.labels("cache", "stale_categories"), this.staleCategories.size());
+			result.put(Metrics.labels("cache", "stale_books"), this.staleBooks.size());
+			result.put(Metrics.labels("cache", "stale_offers"), this.staleOffers.size());
+			return result;
+		});
+		this.metrics.register("yrb_stale_reads_total", "Failed reads answered from the cache by cache.", "counter",
+				() -> {
+					TreeMap<String, Long> result = new TreeMap<String, Long>();
+					result.put(Metrics.labels("cache", "stale_categories"), this.staleCategories.getServed());
+					result.put(Metrics.labels("cache", "stale_books"), this.staleBooks.getServed());
+					result.put(Metrics.labels("cache", "stale_offers"), this.staleOffers.getServed());
+					return result;
+				});
+		this.metrics.register("yrb_circuit_breaker_state", "Whether the database circuit breaker is in a state.",
+				"gauge", () -> {
+					TreeMap<String, Integer> result = new TreeMap<String, Integer>();
+					CircuitBreaker.State current = this.breaker.getState();
+					for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+						result.put(Metrics.labels("state", state.name().toLowerCase()), (state == current ? 1 : 0));
+					}
+					return result;
+				});
+		this.metrics.register("yrb_circuit_breaker_trips_total", "Times the database circuit breaker opened.",
+				"counter", () -> Collections.singletonMap("", this.breaker.getTrips()));
+
+		this.metrics.summary("yrb_query_duration_seconds", "Statement latency by phase.", () -> {
+			TreeMap<String, LatencyHistogram> result = new TreeMap<String, LatencyHistogram>();
+			for (QueryStatistics s : this.statistics.values()) {
+				result.put(Metrics.labels("statement", s.name, "phase", "prepare"), s.prepare);
+				result.put(Metrics.labels("statement", s.name, "phase", "bind"), s.bind);
+				result.put(Metrics.labels("statement", s.name, "phase", "execute"), s.execute);
+				result.put(Metrics.labels("statement", s.name, "phase", "fetch"), s.fetch);
+			}
+			return result;
+		});
+		this.metrics.register("yrb_query_rows_total", "Rows read or written by statement.", "counter", () -> {
+			TreeMap<String, Long> result = new TreeMap<String, Long>();
+			for (QueryStatistics s : this.statistics.values()) {
+				result.put(Metrics.labels("statement", s.name), s.getRows());
+			}
+			return result;
+		});
+		this.metrics.register("yrb_query_errors_total", "Failed statement calls by statement.", "counter", () -> {
+			TreeMap<String, Long> result = new TreeMap<String, Long>();
+			for (QueryStatistics s : this.statistics.values()) {
+				result.put(Metrics.labels("statement", s.name), s.getErrors());
+			}
+			return result;
+		});
+
+		String port = System.getProperty(YRBAPP.METRICS_PORT_PROPERTY);
+		if (port != null) {
+			try {
+				this.metricsServer = MetricsServer.start(Integer.parseInt(port.trim()), this.metrics);
+			} catch (IOException | IllegalArgumentException ex) {
+				YRBAPP.logError("metrics", "Failed to serve the metrics.\nPort = " + port, ex);
+			}
+		}
 	}
 
 	/**
-	 * A special keyword to exit during application run and NOT commit any/all changes.
-	 * 
-	 * @see #nextLine()
+	 * The name of the system property holding the file that the traces of the shopping sessions are
+	 * appended to. Sessions are not traced when the property is not set.
 	 * 
-	 * @see #handleTermination(String)
+	 * @see Tracer
 	 */
 	// Strings are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
-	public static final String ABORT = "abort";
+	public static final String TRACE_FILE_PROPERTY = "yrbapp.trace.file";
 
 	/**
-	 * A special keyword to exit during application run and commit any/all changes.
+	 * The name of the system property holding the threshold in milliseconds of the slow query log.
+	 * Slow executions are not logged when the property is not set.
 	 * 
-	 * @see #nextLine()
-	 * 
-	 * @see #handleTermination(String)
+	 * @see #slowLog
 	 */
 	// Strings are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
-	public static final String EXIT = "exit";
+	public static final String SLOW_QUERY_MILLIS_PROPERTY = "yrbapp.slowquery.millis";
 
 	/**
-	 * A special keyword to stop the application from prompting for more input in the customer
-	 * information update stage.
+	 * The name of the system property which when set to <code>true</code> makes the slow query log
+	 * capture the execution plan of every slow statement.
 	 * 
-	 * @see #update_customer(short, String, String)
+	 * @see #slowLog
 	 */
 	// Strings are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
-	public static final String STOP = "stop";
+	public static final String SLOW_QUERY_EXPLAIN_PROPERTY = "yrbapp.slowquery.explain";
 
 	/**
-	 * A </code>Scanner</code> over <code>System.in</code> used during a single run of the application.
+	 * The slow query log or <code>null</code> if slow executions are not logged.
 	 * 
-	 * @see #nextLine()
+	 * @see #SLOW_QUERY_MILLIS_PROPERTY
+	 * @see #SLOW_QUERY_EXPLAIN_PROPERTY
+	 * @see #getSlowQueryLog()
 	 */
-	// It is used so that different methods used during a single run of the application, can all
-	// have access to the same <code>InputStream(System.in)</code>.
-	private Scanner in;
+	private SlowQueryLog slowLog;
 
 	/**
-	 * Get the next line in the global scanner's buffer and then handle the two following special cases:
-	 * <br>
-	 * 1. End Of Input: Handled by <code>this.EOI()</code> <br>
-	 * 2. Special Keywords(YRBAPP.ABORT and YRBAPP.EXIT): Handled by
-	 * <code>this.handleTermination(String)</code>
+	 * Returns the slow query log.
 	 * 
-	 * @return <code>this.in.nextLine()</code>.
+	 * @return <code>this.slowLog</code> which is <code>null</code> if slow executions are not
+	 *         logged.
+	 */
+	public SlowQueryLog getSlowQueryLog() {
+		return this.slowLog;
+	}
+
+	/**
+	 * The name of the system property holding the number of connections that the background queries
+	 * use, next to the one of <code>this.session</code>. Background queries are disabled when it is
+	 * <code>0</code>.
 	 * 
-	 * @throws NullPointerException
-	 *             If <code>this.in == null</code>
+	 * @see #DEFAULT_ASYNC_POOL_SIZE
+	 * @see #async
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String ASYNC_POOL_PROPERTY = "yrbapp.async.pool";
+
+	/**
+	 * The default number of connections that the background queries use.
 	 * 
-	 * @see #in
+	 * @see #ASYNC_POOL_PROPERTY
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_ASYNC_POOL_SIZE = 2;
+
+	/**
+	 * The name of the system property holding the comma separated URLs of the read replicas that the
+	 * category, book and offer reads are spread over, each of which gets a pool of one connection for
+	 * the console and <code>YRBAPP.ASYNC_POOL_PROPERTY</code> connections for the background queries.
+	 * A customer's reads stay on its shard for a while after it updated its information or made a
+	 * purchase.
 	 * 
-	 * @see #EOI()
+	 * @see #open_store(String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String ASYNC_REPLICAS_PROPERTY = "yrbapp.async.replicas";
+
+	/**
+	 * The background queries on <code>this.store</code>, which run on connections of their own, or
+	 * <code>null</code> if background queries are disabled. Only reads that do not depend on the
+	 * uncommitted changes of <code>this.session</code> run in the background.
 	 * 
-	 * @see #ABORT
-	 * @see #EXIT
-	 * @see #handleTermination(String)
+	 * @see #open_async()
+	 * @see #await(CompletableFuture, String)
 	 */
-	private String nextLine() throws NullPointerException {
-		if (this.in == null) {
-			throw new NullPointerException("Global Scanner is null.");
-		}
+	private AsyncStore async;
 
-		if (!this.in.hasNextLine()) {
-			this.EOI(); // Handle End Of Input.
-		}
+	/**
+	 * The lookups of the next likely state, which run on <code>this.async</code>, or <code>null</code>
+	 * if background queries are disabled.
+	 * 
+	 * @see #open_async()
+	 */
+	private Prefetcher prefetcher;
 
-		String result = this.in.nextLine();
+	/**
+	 * Stop the current background queries, if any, and start new ones on <code>this.store</code>
+	 * unless <code>YRBAPP.ASYNC_POOL_PROPERTY</code> is <code>0</code>.
+	 * 
+	 * @see #async
+	 * @see #close_async()
+	 */
+	private void open_async() {
+		this.close_async();
 
-		// Handle the two special reserved exit keywords.
-		this.handleTermination(result);
+		int size = Integer.getInteger(YRBAPP.ASYNC_POOL_PROPERTY, YRBAPP.DEFAULT_ASYNC_POOL_SIZE);
+		if (size > 0) {
+			this.async = new AsyncStore(this.store, size);
+			this.prefetcher = new Prefetcher(this.async);
+		}
+	}
 
-		return result;
+	/**
+	 * Stop the background queries. Their connections belong to <code>this.store</code>.
+	 * 
+	 * @see #async
+	 * @see #closeConnection()
+	 */
+	private void close_async() {
+		if (this.prefetcher != null) {
+			this.prefetcher.clear();
+			this.prefetcher = null;
+		}
+		if (this.async != null) {
+			this.async.close();
+			this.async = null;
+		}
 	}
 
 	/**
-	 * Parse a user's input into a boolean.
+	 * Wait for the result of the given background query.
 	 * 
-	 * @param input
-	 *            the user's answer to a yes/no question
+	 * @param <T>
+	 *            the type of the result
 	 * 
-	 * @return <tt>true</tt> if and only if <code>input</code> is one of the following strings: <br>
-	 *         "y" or "Y" or "yes" or "Yes" or "YES"
+	 * @param future
+	 *            the future of the result, could be <code>null</code>
+	 * 
+	 * @param statement
+	 *            the statement (or other category) to log a failure under
+	 * 
+	 * @return The result if the query succeeded in time and <code>null</code> otherwise, in which case
+	 *         the caller runs the query itself.
+	 * 
+	 * @see #async
+	 */
+	private static <T> T await(CompletableFuture<T> future, String statement) {
+		if (future == null) {
+			return null;
+		}
+
+		try {
+			return future.get(YRBAPPUtility.QUERY_TIMEOUT, TimeUnit.SECONDS);
+		} catch (ExecutionException ex) {
+			YRBAPP.logError(statement, "Failed in background query.", ex.getCause());
+		} catch (TimeoutException ex) {
+			future.cancel(false);
+			YRBAPP.logError(statement, "Timed out waiting for background query.", ex);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			YRBAPP.logError(statement, "Interrupted waiting for background query.", ex);
+		}
+		return null;
+	}
+
+	/**
+	 * The maximum number of book pages and of offers that are remembered for the degraded mode.
+	 */
+	private static final int STALE_CAPACITY = 1024;
+
+	/**
+	 * Stops sending reads and purchases to <code>this.store</code> while it keeps failing or being
+	 * slow.
+	 * 
+	 * @see #staleCategories
+	 * @see #staleBooks
+	 * @see #staleOffers
+	 */
+	private CircuitBreaker breaker;
+
+	/**
+	 * The categories that were last read successfully, which are shown while the database is not
+	 * responding.
+	 * 
+	 * @see #fetch_categories(CompletableFuture, CompletableFuture)
+	 */
+	private StaleCache<ArrayList<String>> staleCategories;
+
+	/**
+	 * The book pages that were last read successfully, keyed by category, direction and starting book,
+	 * which are shown while the database is not responding.
+	 * 
+	 * @see #find_book_page(String, Book, boolean)
+	 */
+	private StaleCache<ArrayList<Book>> staleBooks;
+
+	/**
+	 * The best offers that were last read successfully, keyed by customer and book, which are shown
+	 * while the database is not responding.
+	 * 
+	 * @see #min_price(Integer, Book)
+	 */
+	private StaleCache<Purchase> staleOffers;
+
+	/**
+	 * Tell the user that the given data is being shown from the cache since the database is not
+	 * responding.
+	 * 
+	 * @param what
+	 *            the data being shown
+	 * 
+	 * @param entry
+	 *            the cached data
+	 */
+	private static void printStale(String what, StaleCache.Entry<?> entry) {
+		System.out.println("\nThe database is not responding, so the following " + what
+				+ " may be out of date(as of " + entry.getLoaded() + ").");
+	}
+
+	/**
+	 * Returns a copy of the given offer, since purchases are mutable.
+	 * 
+	 * @param offer
+	 *            the offer as a purchase of quantity <code>0</code>
+	 * 
+	 * @return <code>new Purchase(offer.cid, offer.club, offer.title, offer.year, offer.price)</code>.
+	 */
+	private static Purchase copyOffer(Purchase offer) {
+		return new Purchase(offer.cid, offer.club, offer.title, offer.year, offer.price);
+	}
+
+	/**
+	 * The runtime statistics of every prepared statement, mapping the names of the
+	 * <code>YRBAPPUtility</code> constants to their statistics.
+	 * 
+	 * @see #getStatistics()
+	 * @see #open_store(String)
+	 */
+	private ConcurrentHashMap<String, QueryStatistics> statistics;
+
+	/**
+	 * Returns the runtime statistics of every prepared statement that has been used thus far. The
+	 * returned statistics keep being updated as the statements are used.
+	 * 
+	 * @return A <code>TreeMap&lt;String, QueryStatistics&gt;</code> mapping statement names to their
+	 *         statistics.
+	 * 
+	 * @see #statistics
+	 */
+	public TreeMap<String, QueryStatistics> getStatistics() {
+		return new TreeMap<String, QueryStatistics>(this.statistics);
+	}
+
+	/**
+	 * A fixed capacity log of the most recent errors.
+	 * 
+	 * @see #getErrors()
+	 * @see #logError(String, String, Throwable)
+	 * @see #clearErrors()
+	 */
+	private static final ErrorLog errors = new ErrorLog();
+
+	/**
+	 * Returns all of the kept errors that have occurred thus far.
+	 * 
+	 * @return <code>ErrorLog.toString(YRBAPP.errors.snapshot())</code>.
+	 * 
+	 * @see #errors
+	 * @see #clearErrors()
+	 */
+	public static String getErrors() {
+		return ErrorLog.toString(YRBAPP.errors.snapshot());
+	}
+
+	/**
+	 * Returns the error log.
+	 * 
+	 * @return <code>YRBAPP.errors</code>.
+	 */
+	public static ErrorLog getErrorLog() {
+		return YRBAPP.errors;
+	}
+
+	/**
+	 * Log the most recent error to <code>errors</code>.
+	 * 
+	 * @param statement
+	 *            the statement (or other category) that the error occurred in
+	 * 
+	 * @param message
+	 *            the description of the failed operation
+	 * 
+	 * @param ex
+	 *            the exception that caused the error, could be <code>null</code>
+	 * 
+	 * @see #errors
+	 */
+	private static void logError(String statement, String message, Throwable ex) {
+		if (statement != null && message != null && !message.isEmpty()) { // Only log if valid input.
+			YRBAPP.errors.log(statement, message, ex);
+		}
+	}
+
+	/**
+	 * Clear all of the saved errors.
+	 * 
+	 * @return All of the errors that have occurred before the call to this method and before
+	 *         <code>errors</code> is cleared.
+	 * 
+	 * @see #errors
+	 * @see #getErrors()
+	 */
+	public static String clearErrors() {
+		return ErrorLog.toString(YRBAPP.errors.clear());
+	}
+
+	/**
+	 * Holds the singleton instance of an object of static type <code>YRBAPP</code>, which the class
+	 * loader creates exactly once on the first call to <code>getInstance()</code>, even when many
+	 * threads make that call at once.
+	 */
+	private static final class Holder {
+		/**
+		 * The singleton instance.
+		 */
+		private static final YRBAPP instance = new YRBAPP();
+	}
+
+	/**
+	 * Returns a singleton access to a <code>YRBAPP</code> object. <br>
+	 * <br>
+	 * 
+	 * <code>YRBAPP</code> is the console front end of a single shopping session at a time. Use a
+	 * <code>YRBStore</code> with one <code>Session</code> per user to serve many sessions in the same
+	 * process.
+	 * 
+	 * @return The singleton reference.
+	 * 
+	 * @see YRBStore
+	 */
+	public static YRBAPP getInstance() {
+		return Holder.instance;
+	}
+
+	/**
+	 * <code>RunState</code> encapsulates all of the possible states during a single run of the
+	 * application. <br>
+	 * <br>
+	 * 
+	 * <code>CUSTOMER</code>: Find a customer and then update the information if requested. <br>
+	 * <br>
+	 * 
+	 * <code>CATEGORY</code>: Find all book categories and then prompt user for selection. <br>
+	 * <br>
+	 * 
+	 * <code>BOOK</code>: Find all books of the selected category and prompt user for selection. <br>
+	 * <br>
+	 * 
+	 * <code>PURCHASE</code>: Purchase the chosen quantity number of the selected book. <br>
+	 * <br>
+	 * 
+	 * <code>FINALIZE</code>: Finalize the purchase and insert it into the database if requested. <br>
+	 * <br>
+	 * 
+	 * <code>BACK_TRACK</code>: Ask the user if they want to go back to previous states or exit, since
+	 * currently there is an error in making the purchase.
+	 */
+	private static enum RunState {
+		CUSTOMER, CATEGORY, BOOK, PURCHASE, FINALIZE, BACK_TRACK
+	}
+
+	/**
+	 * <code>InsertResult</code> encapsulates all of the possible outcomes of inserting a purchase. <br>
+	 * <br>
+	 * 
+	 * <code>INSERTED</code>: The purchase has been inserted or already existed. <br>
+	 * <br>
+	 * 
+	 * <code>REJECTED</code>: The purchase has not been sent to the database since it keeps failing,
+	 * which leaves the current transaction as it was. <br>
+	 * <br>
+	 * 
+	 * <code>FAILED</code>: The insertion failed, which leaves the current transaction in an unknown
+	 * state.
+	 * 
+	 * @see #insert_purchase(Purchase)
+	 */
+	private static enum InsertResult {
+		INSERTED, REJECTED, FAILED
+	}
+
+	/**
+	 * A special keyword to exit during application run and NOT commit any/all changes.
+	 * 
+	 * @see #nextLine()
+	 * 
+	 * @see #handleTermination(String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String ABORT = "abort";
+
+	/**
+	 * A special keyword to exit during application run and commit any/all changes.
+	 * 
+	 * @see #nextLine()
+	 * 
+	 * @see #handleTermination(String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String EXIT = "exit";
+
+	/**
+	 * A special keyword to stop the application from prompting for more input in the customer
+	 * information update stage.
+	 * 
+	 * @see #update_customer(int, String, String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String STOP = "stop";
+
+	/**
+	 * A special keyword to view the next page of a long listing.
+	 * 
+	 * @see #find_all_customers()
+	 * @see #find_books(String, AtomicBoolean)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String NEXT = "next";
+
+	/**
+	 * A special keyword to view the previous page of a long listing.
+	 * 
+	 * @see #find_all_customers()
+	 * @see #find_books(String, AtomicBoolean)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String PREVIOUS = "previous";
+
+	/**
+	 * A special keyword to only list the books of the chosen category that match a language, a year
+	 * range, a weight range and/or a price range.
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 * @see #read_filter(String)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String FILTER = "filter";
+
+	/**
+	 * A </code>Scanner</code> over <code>System.in</code> used during a single run of the application.
+	 * 
+	 * @see #nextLine()
+	 */
+	// It is used so that different methods used during a single run of the application, can all
+	// have access to the same <code>InputStream(System.in)</code>.
+	private Scanner in;
+
+	/**
+	 * Get the next line in the global scanner's buffer and then handle the two following special cases:
+	 * <br>
+	 * 1. End Of Input: Handled by <code>this.EOI()</code> <br>
+	 * 2. Special Keywords(YRBAPP.ABORT and YRBAPP.EXIT): Handled by
+	 * <code>this.handleTermination(String)</code>
+	 * 
+	 * @return <code>this.in.nextLine()</code>.
+	 * 
+	 * @throws NullPointerException
+	 *             If <code>this.in == null</code>
+	 * 
+	 * @see #in
+	 * 
+	 * @see #EOI()
+	 * 
+	 * @see #ABORT
+	 * @see #EXIT
+	 * @see #handleTermination(String)
+	 */
+	private String nextLine() throws NullPointerException {
+		if (this.in == null) {
+			throw new NullPointerException("Global Scanner is null.");
+		}
+
+		// Record the user's think time for the Java Flight Recorder.
+		InputEvent event = new InputEvent();
+		event.begin();
+
+		if (!this.in.hasNextLine()) {
+			event.length = -1;
+			event.commit();
+			this.EOI(); // Handle End Of Input.
+		}
+
+		String result = this.in.nextLine();
+		event.length = result.length();
+		event.commit();
+
+		// Handle the two special reserved exit keywords.
+		this.handleTermination(result);
+
+		return result;
+	}
+
+	/**
+	 * Parse a user's input into a boolean.
+	 * 
+	 * @param input
+	 *            the user's answer to a yes/no question
+	 * 
+	 * @return <tt>true</tt> if and only if <code>input</code> is one of the following strings: <br>
+	 *         "y" or "Y" or "yes" or "Yes" or "YES"
 	 */
 	public static boolean parseAnswer(String input) {
 		if (input == null || input.isEmpty()) { // Invalid inputs.
@@ -540,10 +1323,10 @@ public final class YRBAPP {
 	}
 
 	/**
-	 * Default constructor for a <code>YRBAPP</code> object. Sets up the <code>url</code> and
-	 * <code>db_connect</code>(database connection) and turns auto-committing off so that the user can
-	 * choose to commit or rollback using <code>this.commitChanges()</code> and
-	 * <code>this.rollbackChanges()</code> whenever they want to do so. <br>
+	 * Default constructor for a <code>YRBAPP</code> object. Sets up the <code>url</code>, the
+	 * <code>store</code> and the <code>session</code> whose transaction is only ended when the user
+	 * chooses to commit or rollback using <code>this.commitChanges()</code> and
+	 * <code>this.rollbackChanges()</code>. <br>
 	 * <br>
 	 * 
 	 * Sets the <code>url</code> to <code>YRBAPP.DEFAULT_URL</code>.
@@ -553,8 +1336,32 @@ public final class YRBAPP {
 	 * @see #setURL(String)
 	 */
 	private YRBAPP() {
-		// Construct errors StringBuilder.
-		YRBAPP.errors = new StringBuilder();
+		// Construct the statement statistics.
+		this.statistics = new ConcurrentHashMap<String, QueryStatistics>();
+
+		// Register the application metrics.
+		this.register_metrics();
+
+		// Enable tracing if requested.
+		String traceFile = System.getProperty(YRBAPP.TRACE_FILE_PROPERTY);
+		if (traceFile != null) {
+			try {
+				Tracer.enable(traceFile);
+			} catch (IOException | SecurityException ex) {
+				YRBAPP.logError("tracer", "Failed to open the trace file.\nFile = " + traceFile, ex);
+			}
+		}
+
+		// Construct the slow query log if requested.
+		String slowMillis = System.getProperty(YRBAPP.SLOW_QUERY_MILLIS_PROPERTY);
+		if (slowMillis != null) {
+			try {
+				this.slowLog = new SlowQueryLog(Long.parseLong(slowMillis.trim()),
+						Boolean.getBoolean(YRBAPP.SLOW_QUERY_EXPLAIN_PROPERTY), SlowQueryLog.DEFAULT_CAPACITY);
+			} catch (IllegalArgumentException ex) {
+				YRBAPP.logError("slowQueryLog", "Failed to parse the threshold.\nThreshold = " + slowMillis, ex);
+			}
+		}
 
 		try { // Register the driver with DriverManager.
 			Class.forName("com.ibm.db2.jcc.DB2Driver").newInstance();
@@ -564,17 +1371,23 @@ public final class YRBAPP {
 			this.exit();
 		}
 
+		// Construct the purchase history cache.
+		this.histories = new HashMap<Integer, PurchaseHistory>();
+
+		// Construct the degraded mode caches.
+		this.breaker = new CircuitBreaker();
+		this.staleCategories = new StaleCache<ArrayList<String>>(1);
+		this.staleBooks = new StaleCache<ArrayList<Book>>(YRBAPP.STALE_CAPACITY);
+		this.staleOffers = new StaleCache<Purchase>(YRBAPP.STALE_CAPACITY);
+
+		// Set the default listing sizes.
+		this.setPageSize(YRBAPPUtility.DEFAULT_PAGE_SIZE);
+		this.setFetchSize(YRBAPPUtility.DEFAULT_FETCH_SIZE);
+
 		// Attempt to set the url and make the database connection.
 		if (!this.setURL(YRBAPP.DEFAULT_URL)) {
 			this.exit();
 		}
-
-		try { // Turn auto commit off.
-			this.db_connect.setAutoCommit(false);
-		} catch (SQLException ex) {
-			YRBAPP.logError("Failed trying to turn autocommit off.\n" + ex.toString());
-			this.exit();
-		}
 	}
 
 	/**
@@ -591,6 +1404,8 @@ public final class YRBAPP {
 	 * @see #setConfirm(boolean)
 	 */
 	private void appStartup(boolean firstTime) {
+		this.sessions.increment();
+
 		if (!firstTime) {
 			// Application run separator.
 			System.out.println("\n\n\n\n\n--------------------------------------------------\n\n\n\n\n");
@@ -634,11 +1449,11 @@ public final class YRBAPP {
 	 * <br>
 	 * 
 	 * @see #find_customer()
-	 * @see #fetch_categories()
+	 * @see #fetch_categories(CompletableFuture, CompletableFuture)
 	 * @see #find_books(String)
-	 * @see #min_price(Short, Book)
+	 * @see #min_price(Integer, Book)
 	 * @see #insert_purchase(Purchase)
-	 * @see #find_purchases(short)
+	 * @see #view_purchases(int)
 	 */
 	public void run() {
 		try (Scanner in = new Scanner(System.in)) { // try-with-resource
@@ -660,18 +1475,41 @@ public final class YRBAPP {
 			}
 
 			RunState state = RunState.CUSTOMER;
-			Short cid = null;
+			Integer cid = null;
 			String category = null;
 			AtomicBoolean onlyChoice = new AtomicBoolean();
 			Book book = null;
 			Purchase purchase = null;
 
+			// Trace every shopping session with a child span per step.
+			Span trace = Tracer.start("session");
+
+			// Start loading the categories while the customer is being found.
+			if (this.prefetcher != null) {
+				this.prefetcher.startSession();
+			}
+
 			while (!done) {
+				// Record the visit of the current state for the Java Flight Recorder.
+				StateEvent stateEvent = new StateEvent();
+				stateEvent.state = state.name();
+				stateEvent.cid = (cid == null ? -1 : cid);
+				stateEvent.begin();
+
 				switch (state) {
 					case CUSTOMER:
 						// Find a customer and then update the information if requested.
 						System.out.println();
-						if ((cid = this.find_customer()) != null) {
+						try (Span span = Tracer.start("find_customer")) {
+							cid = this.find_customer();
+							span.setAttribute("cid", cid);
+						}
+						trace.setAttribute("cid", cid);
+						if (cid != null) {
+							// Start loading what the next states are likely to need.
+							if (this.prefetcher != null) {
+								this.prefetcher.afterCustomer(cid, this.pageSize + 1);
+							}
 							state = RunState.CATEGORY;
 						} else {
 							System.out.print("Do you want to try again? (y/n) ");
@@ -683,13 +1521,23 @@ public final class YRBAPP {
 
 					case CATEGORY:
 						// Find all book categories and then prompt user for selection.
-						category = this.fetch_categories();
+						try (Span span = Tracer.start("fetch_categories")) {
+							category = (this.prefetcher == null ? this.fetch_categories(null, null)
+									: this.fetch_categories(this.prefetcher.takeCategories(),
+											this.prefetcher.takeFavoriteCategory(cid)));
+							span.setAttribute("category", category);
+						}
+						trace.setAttribute("category", category);
 						state = RunState.BOOK;
 						break;
 
 					case BOOK:
 						// Find all books of the selected category and prompt user for selection.
-						if ((book = this.find_books(category, onlyChoice)) != null) {
+						try (Span span = Tracer.start("find_books").setAttribute("category", category)) {
+							book = this.find_books(category, onlyChoice);
+							span.setAttribute("title", (book == null ? null : book.title));
+						}
+						if (book != null) {
 							state = RunState.PURCHASE;
 						} else if (onlyChoice.get()) { // Only one book to choose from.
 							System.out.print("Do you want to choose a different category? (y/n) ");
@@ -714,7 +1562,12 @@ public final class YRBAPP {
 					case PURCHASE:
 						// Purchase the chosen quantity number of the selected book.
 						System.out.println();
-						if ((purchase = this.min_price(cid, book)) != null) {
+						try (Span span = Tracer.start("min_price").setAttribute("cid", cid).setAttribute("title", book.title)
+								.setAttribute("year", book.year)) {
+							purchase = this.min_price(cid, book);
+							span.setAttribute("club", (purchase == null ? null : purchase.club));
+						}
+						if (purchase != null) {
 							String next = null;
 							Short qnty = null;
 
@@ -815,36 +1668,49 @@ public final class YRBAPP {
 						if (this.parseAnswer()) { // Purchase requested.
 							purchase.setWhen(); // Current purchase time.
 
-							boolean insert = this.insert_purchase(purchase);
-							while (!insert) { // insertion failed
-								if (!this.rollbackChanges()) {
+							InsertResult insert;
+							try (Span span = Tracer.start("insert_purchase").setAttribute("cid", cid)) {
+								insert = this.insert_purchase(purchase);
+								span.setAttribute("success", insert == InsertResult.INSERTED);
+							}
+							while (insert != InsertResult.INSERTED) { // insertion failed or was rejected
+								// A rejected insertion never reached the database, so the earlier
+								// changes of the transaction are kept.
+								if (insert == InsertResult.FAILED && !this.rollbackChanges()) {
 									System.out.println("\nFailed to rollback changes made by insertion attempt.");
 									this.exit(false);
 								}
 
 								System.out.print("Do you want to try again? (y/n) ");
 								if (this.parseAnswer()) {
-									insert = this.insert_purchase(purchase);
+									try (Span span = Tracer.start("insert_purchase").setAttribute("cid", cid)) {
+										insert = this.insert_purchase(purchase);
+										span.setAttribute("success", insert == InsertResult.INSERTED);
+									}
 								} else {
-									insert = true; // exit while loop
+									insert = InsertResult.INSERTED; // exit while loop
 								}
 							}
 
 							System.out.print("\nDo you want to view all purchases made by the chosen customer? (y/n) ");
 							if (this.parseAnswer()) {
-								TreeMap<Integer, Purchase> purchases = this.find_purchases(cid.shortValue());
-								if (!purchases.isEmpty()) {
-									System.out.printf("\n%10s\t %16s %26s %11s %11s %18s %11s %30s\n", "Number",
-											"Club Name", "Book Title", "Book Year", "Book Price", "Purchase Quantity",
-											"Total Cost", "Purchase Time");
-									Purchase p = null; // The current Purchase object.
-									for (Map.Entry<Integer, Purchase> e : purchases.entrySet()) {
-										p = e.getValue();
-										System.out.printf("%10s.\t %16s %26s %11s %11s %18s %11s %30s\n",
-												e.getKey().toString(), p.club, p.title, ((Short) p.year).toString(),
-												String.format("%.2f", p.price), ((Short) p.getQuantity()).toString(),
-												String.format("%.2f", (p.getQuantity() * p.price)),
-												p.getWhen().toString());
+								boolean view;
+								try (Span span = Tracer.start("view_purchases").setAttribute("cid", cid)) {
+									view = this.view_purchases(cid.intValue());
+									span.setAttribute("success", view);
+								}
+								while (!view) {
+									System.out.println(
+											"\nYou requested to view all purchases but unfortunately there was an error.");
+
+									System.out.print("Do you want to try again? (y/n) ");
+									if (this.parseAnswer()) {
+										try (Span span = Tracer.start("view_purchases").setAttribute("cid", cid)) {
+											view = this.view_purchases(cid.intValue());
+											span.setAttribute("success", view);
+										}
+									} else {
+										view = true; // exit while loop
 									}
 								}
 							}
@@ -915,6 +1781,9 @@ public final class YRBAPP {
 						break;
 				}
 
+				stateEvent.next = (done ? null : state.name());
+				stateEvent.commit();
+
 				if (done || exit) { // If an exit is about to happen, prompt for commit/rollback.
 					System.out.print("\nDo you want to commit any/all of the changes made, to the database? (y/n) ");
 					boolean success = true;
@@ -932,6 +1801,10 @@ public final class YRBAPP {
 					}
 				}
 
+				if (done) { // The shopping session is over.
+					trace.close();
+				}
+
 				if (done && !exit) { // Prompt for application restart.
 					System.out.print("\nDo you want to restart the application? (y/n) ");
 					if (this.parseAnswer()) { // Restart requested.
@@ -941,6 +1814,10 @@ public final class YRBAPP {
 
 						// Go back to customer choosing(initial) state.
 						state = RunState.CUSTOMER;
+						trace = Tracer.start("session");
+						if (this.prefetcher != null) {
+							this.prefetcher.startSession();
+						}
 
 						// Reset all purchase information.
 						cid = null;
@@ -952,11 +1829,29 @@ public final class YRBAPP {
 				}
 			}
 
+			trace.close();
+
 			this.in = null;
 			in.close(); // Close the Scanner.
 		}
 	}
 
+	/**
+	 * Returns <code>this.session</code> after choosing the customer with the given ID in it, unless it
+	 * has already been chosen.
+	 * 
+	 * @param cid
+	 *            the customer ID number
+	 * 
+	 * @return <code>this.session</code>.
+	 */
+	private Session chosen(int cid) {
+		if (!Integer.valueOf(cid).equals(this.session.getCid())) {
+			this.session.setCustomer(cid);
+		}
+		return this.session;
+	}
+
 	/**
 	 * Attempt to read a valid customer ID and print their information.
 	 * 
@@ -966,12 +1861,12 @@ public final class YRBAPP {
 	 * 
 	 * @see YRBAPPUtility#CID_QUERY_TEXT
 	 * 
-	 * @see #update_customer(short, String, String)
+	 * @see #update_customer(int, String, String)
 	 * @see #find_min_max_cid(AtomicInteger, AtomicInteger)
 	 * @see #find_all_customers()
 	 */
-	private Short find_customer() {
-		Short cid = null, result = null;
+	private Integer find_customer() {
+		Integer cid = null, result = null;
 		String next = null;
 
 		boolean confirmed = false;
@@ -981,12 +1876,12 @@ public final class YRBAPP {
 			cid = null; // reset cid
 			while ((cid == null) && this.in.hasNextLine()) {
 				try {
-					cid = Short.parseShort(next = this.nextLine());
+					cid = Integer.parseInt(next = this.nextLine());
 				} catch (NumberFormatException ex) {
 					// Prompt for another input.
-					System.out.println("\nGiven string(" + next + ") is not a valid short integer.");
+					System.out.println("\nGiven string(" + next + ") is not a valid integer.");
 					System.out.println(
-							"\nPlease enter a valid short integer representing a customer identification number(ID).");
+							"\nPlease enter a valid integer representing a customer identification number(ID).");
 				}
 			}
 
@@ -995,7 +1890,7 @@ public final class YRBAPP {
 			} else if (!this.confirm) {
 				confirmed = true; // exit while loop since a valid cid has been read.
 			} else {
-				System.out.println("\nYou have entered the following customer ID: " + cid.shortValue());
+				System.out.println("\nYou have entered the following customer ID: " + cid.intValue());
 				System.out.print("Is this correct? (y/n) ");
 				if (!(confirmed = this.parseAnswer())) {
 					System.out.println();
@@ -1018,104 +1913,62 @@ public final class YRBAPP {
 		// Assume validity of cid(existing cid in database).
 		result = cid;
 
-		boolean fail = false;
-
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.CID_QUERY_TEXT)) {
-			try {
-				querySt.setShort(1, cid.shortValue()); // Fix the ? in the query text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidQuery: Failed to remove ? from query statement.\n" + ex.toString());
-				fail = true;
-			}
+		boolean fail = false, found = false;
 
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidQuery: Failed to set CID_QUERY_TEXT timeout.\n" + ex.toString());
-				fail = true;
-			}
+		// Look the customer up and choose it in the session.
+		try {
+			found = this.store.findCustomer(this.session, cid.intValue());
+		} catch (SQLException ex) {
+			YRBAPP.logError("cidQuery", "Failed to execute query.", ex);
+			fail = true;
+		}
 
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						if (answers.next()) { // Are there any answers?
-							String name = answers.getString(2), city = answers.getString(3);
-							System.out.printf("\n%21s = %21s\n%21s = %21s\n%21s = %21s\n", "CID", cid.toString(),
-									"Name", name, "City", city);
-
-							// Update the customer information if requested by the user.
-							boolean update = this.update_customer(cid.shortValue(), name, city);
-							while (!update) {// updating failed
-								if (!this.rollbackChanges()) {
-									System.out.println("\nFailed to rollback changes made by updating attempt.");
-									this.exit(false);
-								}
+		if (found) {
+			String name = this.session.getName(), city = this.session.getCity();
+			System.out.printf("\n%21s = %21s\n%21s = %21s\n%21s = %21s\n", "CID", cid.toString(), "Name", name,
+					"City", city);
+
+			// Update the customer information if requested by the user.
+			boolean update = this.update_customer(cid.intValue(), name, city);
+			while (!update) {// updating failed
+				if (!this.rollbackChanges()) {
+					System.out.println("\nFailed to rollback changes made by updating attempt.");
+					this.exit(false);
+				}
 
-								System.out.print("Do you want to try again? (y/n) ");
-								if (this.parseAnswer()) {
-									update = this.update_customer(cid.shortValue(), name, city);
-								} else {
-									update = true; // exit while loop
-								}
-							}
-						} else {
-							System.out.println(
-									"\nGiven customer ID(" + cid.toString() + ") does not exist in the database.");
-							result = null; // reset result
-
-							AtomicInteger min = new AtomicInteger(), max = new AtomicInteger();
-							if (this.find_min_max_cid(min, max)) {
-								System.out.println(
-										"\nThe minimum and the maximum customer IDs in the database are respectively: "
-												+ min.get() + " and " + max.get()
-												+ " .\nThis does not however mean that every number between them is a valid ID.");
-							}
+				System.out.print("Do you want to try again? (y/n) ");
+				if (this.parseAnswer()) {
+					update = this.update_customer(cid.intValue(), name, city);
+				} else {
+					update = true; // exit while loop
+				}
+			}
+		} else if (!fail) {
+			System.out.println("\nGiven customer ID(" + cid.toString() + ") does not exist in the database.");
+			result = null; // reset result
 
-							System.out.print("\nDo you want to view all customers? (y/n) ");
-							if (this.parseAnswer()) {
-								boolean find = this.find_all_customers();
-								while (!find) {
-									System.out.println(
-											"\nYou requested to view all customers but unfortunately there was an error.");
+			AtomicInteger min = new AtomicInteger(), max = new AtomicInteger();
+			if (this.find_min_max_cid(min, max)) {
+				System.out.println("\nThe minimum and the maximum customer IDs in the database are respectively: "
+						+ min.get() + " and " + max.get()
+						+ " .\nThis does not however mean that every number between them is a valid ID.");
+			}
 
-									System.out.print("Do you want to try again? (y/n) ");
-									if (this.parseAnswer()) {
-										find = this.find_all_customers();
-									} else {
-										find = true; // exit while loop
-									}
-								}
-								System.out.println();
-							}
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("cidQuery: Failed in answers cursor.\n" + ex.toString());
-						fail = true;
-					}
+			System.out.print("\nDo you want to view all customers? (y/n) ");
+			if (this.parseAnswer()) {
+				boolean find = this.find_all_customers();
+				while (!find) {
+					System.out.println("\nYou requested to view all customers but unfortunately there was an error.");
 
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("cidQuery: Failed to close answers cursor.\n" + ex.toString());
-						fail = true;
+					System.out.print("Do you want to try again? (y/n) ");
+					if (this.parseAnswer()) {
+						find = this.find_all_customers();
+					} else {
+						find = true; // exit while loop
 					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("cidQuery: Failed to execute query.\n" + ex.toString());
-					fail = true;
 				}
+				System.out.println();
 			}
-
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidQuery: Failed to close query handle.\n" + ex.toString());
-				fail = true;
-			}
-		} catch (SQLException ex) {
-			YRBAPP.logError("cidQuery: Failed to prepare query handle.\n" + ex.toString());
-			fail = true;
 		}
 
 		if (fail) { // Handle possible failures.
@@ -1153,52 +2006,18 @@ public final class YRBAPP {
 	private boolean find_min_max_cid(AtomicInteger min, AtomicInteger max) throws NullPointerException {
 		boolean result = true, fail = false;
 
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.MIN_MAX_CID_QUERY_TEXT)) {
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("rangeCidQuery: Failed to set MIN_MAX_CID_QUERY_TEXT timeout.\n" + ex.toString());
+		try {
+			int[] range = this.store.findCidRange(this.session);
+			if (range != null) { // Are there any customers?
+				min.set(range[0]); // minimum cid
+				max.set(range[1]); // maximum cid
+			} else {
+				System.out.println(
+						"\nThere are no customers in the database since no minimum or maximum customer ID could be found.");
 				fail = true;
 			}
-
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						if (answers.next()) { // Are there any answers?
-							min.set(answers.getShort(1)); // minimum cid
-							max.set(answers.getShort(2)); // maximum cid
-						} else {
-							System.out.println(
-									"\nThere are no customers in the database since no minimum or maximum customer ID could be found.");
-							fail = true;
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("rangeCidQuery: Failed in answers cursor.\n" + ex.toString());
-						result = false;
-					}
-
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("rangeCidQuery: Failed to close answers cursor.\n" + ex.toString());
-						result = false;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("rangeCidQuery: Failed to execute query.\n" + ex.toString());
-					result = false;
-				}
-			}
-
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("rangeCidQuery: Failed to close query handle.\n" + ex.toString());
-				result = false;
-			}
 		} catch (SQLException ex) {
-			YRBAPP.logError("rangeCidQuery: Failed to prepare query handle.\n" + ex.toString());
+			YRBAPP.logError("rangeCidQuery", "Failed to execute query.", ex);
 			result = false;
 		}
 
@@ -1213,72 +2032,64 @@ public final class YRBAPP {
 	}
 
 	/**
-	 * Print all customers and their detailed information to the standard output
-	 * stream(<code>System.out</code>).
+	 * Find a single page of customers ordered by customer ID using keyset pagination, i.e. continuing
+	 * from the given customer ID instead of skipping rows. <br>
+	 * <br>
 	 * 
-	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
+	 * At most <code>this.pageSize + 1</code> customers are read so that the caller can tell whether
+	 * there is another page in the same direction.
 	 * 
-	 * @see #find_customer()
+	 * @param cid
+	 *            the customer ID to continue from (exclusive)
+	 * 
+	 * @param forward
+	 *            <code>forward ? "customers after cid" : "customers before cid"</code>
+	 * 
+	 * @return A <code>TreeMap&lt;Integer, String&gt;</code> mapping customer IDs to their formatted
+	 *         information if successful and <code>null</code> otherwise.
 	 * 
-	 * @see YRBAPPUtility#CUSTOMER_QUERY_TEXT
+	 * @see #find_all_customers()
+	 * 
+	 * @see YRBAPPUtility#CUSTOMER_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT
 	 */
-	private boolean find_all_customers() {
-		int i = 0;
-		TreeMap<Integer, String> customers = new TreeMap<Integer, String>();
-
-		boolean result = true, fail = false;
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.CUSTOMER_QUERY_TEXT)) {
-			try {
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT); // Set the query timeout.
-			} catch (SQLException ex) {
-				YRBAPP.logError("customerQuery: Failed to set CUSTOMER_QUERY_TEXT timeout.\n" + ex.toString());
-				fail = true;
-			}
-
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						while (answers.next()) { // Map i to i^th customer.
-							customers.put(++i, String.format("%12s %21s %16s", answers.getString(1),
-									answers.getString(2), answers.getString(3)));
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("customerQuery: Failed in answers cursor.\n" + ex.toString());
-						result = false;
-					}
-
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("customerQuery: Failed to close answers cursor.\n" + ex.toString());
-						result = false;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("customerQuery: Failed to execute query.\n" + ex.toString());
-					result = false;
-				}
-			}
+	private TreeMap<Integer, String> find_customer_page(int cid, boolean forward) {
+		TreeMap<Integer, String> result = new TreeMap<Integer, String>();
 
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("customerQuery: Failed to close query handle.\n" + ex.toString());
-				result = false;
+		try {
+			// Only read the current page and one more row.
+			for (Customer c : this.store.findCustomerPage(this.session, cid, forward, this.pageSize + 1)) {
+				result.put(c.cid, String.format("%12s %21s %16s", Integer.toString(c.cid), c.name, c.city));
 			}
 		} catch (SQLException ex) {
-			YRBAPP.logError("customerQuery: Failed to prepare query handle.\n" + ex.toString());
-			result = false;
+			YRBAPP.logError("customerQuery", "Failed to find a page of customers.", ex);
+			return null;
 		}
 
-		if (fail) { // Handle possible failures.
-			System.out.println("\nUnfortunately a fatal error has occurred when attempting to find all customers.");
-			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
-			this.exit(this.parseAnswer());
-		}
+		return result;
+	}
 
-		if (!result) { // Handle possible failures(non-fatal).
+	/**
+	 * Print all customers and their detailed information to the standard output
+	 * stream(<code>System.out</code>), one page of <code>this.pageSize</code> customers at a time. <br>
+	 * <br>
+	 * 
+	 * Only the current page is kept in memory and the user can move to the next or the previous page
+	 * by entering <code>YRBAPP.NEXT</code> or <code>YRBAPP.PREVIOUS</code>.
+	 * 
+	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
+	 * 
+	 * @see #find_customer()
+	 * 
+	 * @see #find_customer_page(int, boolean)
+	 * 
+	 * @see #NEXT
+	 * @see #PREVIOUS
+	 */
+	private boolean find_all_customers() {
+		// Start before the smallest possible customer ID.
+		TreeMap<Integer, String> customers = this.find_customer_page(Integer.MIN_VALUE, true);
+		if (customers == null) { // Handle possible failures(non-fatal).
 			return false;
 		}
 
@@ -1288,13 +2099,55 @@ public final class YRBAPP {
 			this.exit(this.parseAnswer());
 		}
 
+		int page = 0; // The zero based index of the current page.
+		boolean hasNext = (customers.size() > this.pageSize);
+		if (hasNext) {
+			customers.pollLastEntry(); // Drop the look-ahead row.
+		}
+
 		System.out.println("\nThe database contains the following customers:");
-		System.out.printf("\n%10s\t %12s %21s %16s\n", "Number", "Customer ID", "Name", "City");
-		for (Map.Entry<Integer, String> e : customers.entrySet()) {
-			System.out.printf("%10s.\t %s\n", e.getKey().toString(), e.getValue());
+		while (true) {
+			System.out.printf("\n%10s\t %12s %21s %16s\n", "Number", "Customer ID", "Name", "City");
+			int i = page * this.pageSize;
+			for (String c : customers.values()) {
+				System.out.printf("%10s.\t %s\n", ((Integer) (++i)).toString(), c);
+			}
+
+			if (page == 0 && !hasNext) { // Everything fits on a single page.
+				return true;
+			}
+
+			System.out.println("\nEnter \"" + YRBAPP.NEXT + "\" or \"" + YRBAPP.PREVIOUS
+					+ "\" to view another page of customers or anything else to stop.");
+			String next = this.nextLine();
+
+			TreeMap<Integer, String> other = null;
+			if (YRBAPP.NEXT.equals(next) && hasNext) {
+				if ((other = this.find_customer_page(customers.lastKey(), true)) == null) {
+					return false;
+				}
+				++page;
+				if (hasNext = (other.size() > this.pageSize)) {
+					other.pollLastEntry(); // Drop the look-ahead row.
+				}
+			} else if (YRBAPP.PREVIOUS.equals(next) && page > 0) {
+				if ((other = this.find_customer_page(customers.firstKey(), false)) == null) {
+					return false;
+				}
+				--page;
+				hasNext = true;
+				while (other.size() > this.pageSize) {
+					other.pollFirstEntry(); // Drop the look-behind row.
+				}
+			} else if (YRBAPP.NEXT.equals(next) || YRBAPP.PREVIOUS.equals(next)) {
+				System.out.println("\nThere is no " + next + " page.");
+				continue;
+			} else {
+				return true;
+			}
+
+			customers = other;
 		}
-		// Failing is only possible if an SQLException is caught.
-		return true;
 	}
 
 	/**
@@ -1323,9 +2176,9 @@ public final class YRBAPP {
 	 * 
 	 * @see #STOP
 	 * 
-	 * @see #perform_update(short, String, String)
+	 * @see #perform_update(int, String, String)
 	 */
-	private boolean update_customer(short cid, String name, String city) throws NullPointerException {
+	private boolean update_customer(int cid, String name, String city) throws NullPointerException {
 		if (name == null) {
 			throw new NullPointerException("Given customer name is null.");
 		} else if (city == null) {
@@ -1473,65 +2326,26 @@ public final class YRBAPP {
 	 *             If <code>newName == null</code> <br>
 	 *             If <code>newCity == null</code>
 	 * 
-	 * @see #update_customer(short, String, String)
+	 * @see #update_customer(int, String, String)
 	 * 
 	 * @see YRBAPPUtility#CID_UPDATE_TEXT
 	 */
-	private boolean perform_update(short cid, String newName, String newCity) throws NullPointerException {
+	private boolean perform_update(int cid, String newName, String newCity) throws NullPointerException {
 		if (newName == null) {
 			throw new NullPointerException("Given customer's new name is null.");
 		} else if (newCity == null) {
 			throw new NullPointerException("Given customer's new city is null.");
 		}
 
-		boolean result = true, fail = false;
-
-		// Prepare the update handle.
-		try (PreparedStatement updateSt = this.db_connect.prepareStatement(YRBAPPUtility.CID_UPDATE_TEXT)) {
-			try {
-				updateSt.setString(1, newName); // Fix the first ? in the update text.
-				updateSt.setString(2, newCity); // Fix the second ? in the update text.
-				updateSt.setShort(3, cid); // Fix the third ? in the update text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidUpdate: Failed to remove ? from update statement.\n" + ex.toString());
-				result = false;
-			}
+		boolean result = true;
 
-			try { // Set the update timeout.
-				updateSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidUpdate: Failed to set CID_UPDATE_TEXT timeout.\n" + ex.toString());
-				fail = true;
-			}
-
-			if (result && !fail) {
-				try {
-					updateSt.executeUpdate();
-				} catch (SQLException ex) {
-					YRBAPP.logError("cidUpdate: Failed to execute update.\n" + ex.toString());
-					result = false;
-				}
-			}
-
-			try { // Close the update handle.
-				updateSt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("cidUpdate: Failed to close update handle.\n" + ex.toString());
-				result = false;
-			}
+		try {
+			result = this.store.updateCustomer(this.chosen(cid), newName, newCity);
 		} catch (SQLException ex) {
-			YRBAPP.logError("cidUpdate: Failed to prepare update handle.\n" + ex.toString());
+			YRBAPP.logError("cidUpdate", "Failed to execute update.", ex);
 			result = false;
 		}
 
-		if (fail) { // Handle possible failures.
-			System.out.println(
-					"\nUnfortunately a fatal error has occurred when attempting to update the customer's information with the given ID("
-							+ cid + ").");
-			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
-			this.exit(this.parseAnswer());
-		}
-
 		if (!result) {
 			System.out.println("\nAn update was requested but unfortunately it could not be completed.");
 		}
@@ -1543,60 +2357,72 @@ public final class YRBAPP {
 	 * Returns a valid book category selected by the user from the <code>yrb_book</code> table in the
 	 * <b><i>York River Bookseller's Database</i></b>.
 	 * 
+	 * @param prefetched
+	 *            the categories being loaded in the background or <code>null</code> to load them now
+	 * 
+	 * @param favorite
+	 *            the category that the customer has purchased the most books from, being loaded in the
+	 *            background, or <code>null</code> to not suggest any category
+	 * 
 	 * @return A <code>category</code> chosen by the user from all possible categories.
 	 * 
 	 * @see #run()
+	 * @see #await(CompletableFuture, String)
 	 * 
 	 * @see YRBAPPUtility#CATEGORY_QUERY_TEXT
 	 */
-	private String fetch_categories() {
+	private String fetch_categories(CompletableFuture<ArrayList<String>> prefetched,
+			CompletableFuture<String> favorite) {
 		int i = 0;
 		TreeMap<Integer, String> categories = new TreeMap<Integer, String>();
 
 		boolean fail = false;
 
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.CATEGORY_QUERY_TEXT)) {
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+		// Do not wait for a database that keeps failing, nor for a background query to it.
+		boolean allowed = this.breaker.allow();
+
+		// Use the background query unless it failed, otherwise query on this.session.
+		long waited = System.nanoTime();
+		ArrayList<String> loaded = (allowed ? YRBAPP.await(prefetched, "categoryQuery") : null);
+		StaleCache.Entry<ArrayList<String>> stale = null;
+		if (loaded != null) { // The database answered, which may have been the probe of the breaker.
+			this.breaker.record(System.nanoTime() - waited, true);
+		} else if (!allowed && (stale = this.staleCategories.serve("")) != null) {
+			loaded = stale.value;
+		}
+		if (loaded != null) {
+			for (String c : loaded) { // Map i to i^th category.
+				categories.put(++i, c);
+			}
+		} else if (!allowed) {
+			fail = true; // Fail fast since there is nothing stale to serve either.
+		} else {
+			long start = System.nanoTime();
+
+			try {
+				for (String c : this.store.fetchCategories(this.session)) { // Map i to i^th category.
+					categories.put(++i, c);
+				}
 			} catch (SQLException ex) {
-				YRBAPP.logError("categoryQuery: Failed to set CATEGORY_QUERY_TEXT timeout.\n" + ex.toString());
+				YRBAPP.logError("categoryQuery", "Failed to execute query.", ex);
 				fail = true;
 			}
 
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						while (answers.next()) { // Map i to i^th category.
-							categories.put(++i, answers.getString(1));
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("categoryQuery: Failed in answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("categoryQuery: Failed to close answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("categoryQuery: Failed to execute query.\n" + ex.toString());
-					fail = true;
+			this.breaker.record(System.nanoTime() - start, !fail);
+			if (fail && (stale = this.staleCategories.serve("")) != null) { // Degrade instead of failing.
+				fail = false;
+				i = 0;
+				categories.clear();
+				for (String c : stale.value) { // Map i to i^th category.
+					categories.put(++i, c);
 				}
 			}
+		}
 
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("categoryQuery: Failed to close query handle.\n" + ex.toString());
-				fail = true;
-			}
-		} catch (SQLException ex) {
-			YRBAPP.logError("categoryQuery: Failed to prepare query handle.\n" + ex.toString());
-			fail = true;
+		if (stale != null) {
+			YRBAPP.printStale("categories", stale);
+		} else if (!fail) {
+			this.staleCategories.put("", new ArrayList<String>(categories.values()));
 		}
 
 		if (fail) { // Handle possible failures.
@@ -1620,6 +2446,13 @@ public final class YRBAPP {
 		}
 		System.out.println();
 
+		// Only suggest a category if it has already been loaded, never wait for it.
+		String suggested = (favorite != null && favorite.isDone() && !favorite.isCompletedExceptionally()
+				? favorite.join() : null);
+		if (suggested != null && categories.containsValue(suggested)) {
+			System.out.println("The customer has purchased the most books from the " + suggested + " category.");
+		}
+
 		String result = null; // The selected category.
 
 		if (categories.size() == 1) { // If there is only one category then just select it.
@@ -1685,28 +2518,160 @@ public final class YRBAPP {
 				}
 			}
 
-			if (result == null) {
-				// result has not been set which means that the above while loop
-				// terminated because this.in.hasNextLine() returned false.
+			if (result == null) {
+				// result has not been set which means that the above while loop
+				// terminated because this.in.hasNextLine() returned false.
+
+				this.EOI(); // Handle End Of Input.
+			} else if (!this.confirm) {
+				confirmed = true;
+			} else {
+				System.out.println("\nYou have entered the following category: " + result);
+				System.out.print("Is this correct? (y/n) ");
+				if (!(confirmed = this.parseAnswer())) {
+					System.out.println();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Find a single page of books of the given category ordered by year and title using keyset
+	 * pagination, i.e. continuing from the given book instead of skipping rows. <br>
+	 * <br>
+	 * 
+	 * At most <code>this.pageSize + 1</code> books are read so that the caller can tell whether there
+	 * is another page in the same direction. The first page is taken from <code>this.prefetcher</code>
+	 * when it has been loaded in the background.
+	 * 
+	 * @param category
+	 *            the book category
+	 * 
+	 * @param book
+	 *            the book to continue from (exclusive) or <code>null</code> to start from the first book
+	 * 
+	 * @param forward
+	 *            <code>forward ? "books after book" : "books before book"</code>
+	 * 
+	 * @return The books of the page in <code>Book.compareTo</code> order if successful and
+	 *         <code>null</code> otherwise.
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 * 
+	 * @see YRBAPPUtility#BOOK_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#BOOK_PREVIOUS_PAGE_QUERY_TEXT
+	 */
+	private ArrayList<Book> find_book_page(String category, Book book, boolean forward) {
+		String key = category + ":" + forward + (book == null ? "" : ":" + book.year + ":" + book.title);
+		StaleCache.Entry<ArrayList<Book>> stale;
+		if (!this.breaker.allow()) {
+			// Do not wait for a database that keeps failing, nor for a background query to it.
+			if ((stale = this.staleBooks.serve(key)) != null) {
+				YRBAPP.printStale("books", stale);
+				return new ArrayList<Book>(stale.value);
+			}
+			return null;
+		}
+
+		if (book == null && forward && this.prefetcher != null) {
+			// Use the background query unless it failed, otherwise query on this.session.
+			long waited = System.nanoTime();
+			ArrayList<Book> prefetched = YRBAPP.await(this.prefetcher.takeBooks(category), "bookQuery");
+			if (prefetched != null) {
+				// The database answered, which may have been the probe of the breaker.
+				this.breaker.record(System.nanoTime() - waited, true);
+				this.staleBooks.put(key, new ArrayList<Book>(prefetched));
+				return prefetched;
+			}
+		}
 
-				this.EOI(); // Handle End Of Input.
-			} else if (!this.confirm) {
-				confirmed = true;
-			} else {
-				System.out.println("\nYou have entered the following category: " + result);
-				System.out.print("Is this correct? (y/n) ");
-				if (!(confirmed = this.parseAnswer())) {
-					System.out.println();
-				}
+		long start = System.nanoTime();
+		ArrayList<Book> result;
+		try {
+			// Only read the current page and one more row.
+			result = this.store.findBookPage(this.session.setCategory(category), book, forward, this.pageSize + 1);
+		} catch (SQLException ex) {
+			YRBAPP.logError("bookQuery", "Failed to find a page of books.", ex);
+			this.breaker.record(System.nanoTime() - start, false);
+			if ((stale = this.staleBooks.serve(key)) != null) { // Degrade instead of failing.
+				YRBAPP.printStale("books", stale);
+				return new ArrayList<Book>(stale.value);
 			}
+			return null;
 		}
 
+		this.breaker.record(System.nanoTime() - start, true);
+
+		this.staleBooks.put(key, new ArrayList<Book>(result));
 		return result;
 	}
 
+	/**
+	 * Find the books of the given category with the given title, no matter which page they are on.
+	 * 
+	 * @param category
+	 *            the book category
+	 * 
+	 * @param title
+	 *            the exact book title
+	 * 
+	 * @return The books ordered by year if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 * 
+	 * @see YRBAPPUtility#BOOK_TITLE_QUERY_TEXT
+	 */
+	private ArrayList<Book> find_titled_books(String category, String title) {
+		try {
+			return this.store.findBooksByTitle(this.session.setCategory(category), title);
+		} catch (SQLException ex) {
+			YRBAPP.logError("bookTitleQuery", "Failed to find the books with the given title.", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Print the given page of books to the standard output stream(<code>System.out</code>).
+	 * 
+	 * @param books
+	 *            mapping book numbers to books
+	 * 
+	 * @param hasPrevious
+	 *            the indicator representing whether there is a previous page
+	 * 
+	 * @param hasNext
+	 *            the indicator representing whether there is a next page
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 */
+	private void print_book_page(TreeMap<Integer, Book> books, boolean hasPrevious, boolean hasNext) {
+		System.out.printf("\n%10s\t %26s %11s %11s %11s\n", "Number", "Title", "Year", "Language", "Weight");
+		Book b = null; // The current Book object.
+		for (Map.Entry<Integer, Book> e : books.entrySet()) {
+			b = e.getValue();
+			System.out.printf("%10s.\t %26s %11s %11s %11s\n", e.getKey().toString(), b.title,
+					((Short) b.year).toString(), b.getLanguage(), ((Short) b.weight).toString());
+		}
+		if (hasPrevious || hasNext) {
+			System.out.println("\nEnter \"" + YRBAPP.NEXT + "\" or \"" + YRBAPP.PREVIOUS
+					+ "\" to view another page of books. Books on other pages can be chosen by their exact titles.");
+		}
+		System.out.println("\nEnter \"" + YRBAPP.FILTER
+				+ "\" to only list the books of a language, a year range, a weight range or a price range.");
+		System.out.println();
+	}
+
 	/**
 	 * Returns a <code>Book</code> object encapsulating a book chosen by the user through selecting the
-	 * category and the title.
+	 * category and the title. <br>
+	 * <br>
+	 * 
+	 * Books are shown one page of <code>this.pageSize</code> books at a time and only the current page
+	 * is kept in memory. The user can move to the next or the previous page by entering
+	 * <code>YRBAPP.NEXT</code> or <code>YRBAPP.PREVIOUS</code>. A book number has to be on the current
+	 * page while an exact book title is looked up in the whole category.
 	 * 
 	 * @param category
 	 *            the book category
@@ -1726,7 +2691,14 @@ public final class YRBAPP {
 	 * 
 	 * @see #run()
 	 * 
-	 * @see YRBAPPUtility#BOOK_QUERY_TEXT
+	 * @see #find_book_page(String, Book, boolean)
+	 * @see #find_titled_books(String, String)
+	 * @see #print_book_page(TreeMap, boolean, boolean)
+	 * 
+	 * @see #NEXT
+	 * @see #PREVIOUS
+	 * @see #FILTER
+	 * @see #read_filter(String)
 	 */
 	private Book find_books(String category, AtomicBoolean onlyChoice)
 			throws NullPointerException, IllegalArgumentException {
@@ -1738,93 +2710,50 @@ public final class YRBAPP {
 			throw new IllegalArgumentException("Given atomic boolean is invalid since it is already equal to true.");
 		}
 
-		int i = 0;
-		TreeMap<Integer, Book> books = new TreeMap<Integer, Book>();
-
-		boolean fail = false;
-
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.BOOK_QUERY_TEXT)) {
-			try {
-				querySt.setString(1, category); // Fix the ? in the query text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("bookQuery: Failed to remove ? from query statement.\n" + ex.toString());
-				fail = true;
-			}
-
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("bookQuery: Failed to set BOOK_QUERY_TEXT timeout.\n" + ex.toString());
-				fail = true;
-			}
-
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						while (answers.next()) { // Map i to i^th book.
-							books.put(++i, new Book(answers.getString(1), answers.getShort(2), answers.getString(3),
-									category, answers.getShort(4)));
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("bookQuery: Failed in answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("bookQuery: Failed to close answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("bookQuery: Failed to execute query.\n" + ex.toString());
-					fail = true;
-				}
-			}
-
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("bookQuery: Failed to close query handle.\n" + ex.toString());
-				fail = true;
-			}
-		} catch (SQLException ex) {
-			YRBAPP.logError("bookQuery: Failed to prepare query handle.\n" + ex.toString());
-			fail = true;
-		}
+		ArrayList<Book> page = this.find_book_page(category, null, true);
 
-		if (fail) { // Handle possible failures.
+		if (page == null) { // Handle possible failures.
 			System.out.println(
 					"\nUnfortunately a fatal error has occurred when attempting to find all books of the given category("
 							+ category + ").");
 			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
 			this.exit(this.parseAnswer());
+			return null;
 		}
 
-		if (books.isEmpty()) { // Check if there is at least one book.
+		if (page.isEmpty()) { // Check if there is at least one book.
 			System.out.println("\nThere are no books in the given category(" + category + ").");
 			return null;
 		}
 
-		// Display all books, so the user can choose one from the list.
-		System.out.println("\nThe database contains the following books with the given category(" + category + "):");
-		System.out.printf("\n%10s\t %26s %11s %11s %11s\n", "Number", "Title", "Year", "Language", "Weight");
-		Book b = null; // The current Book object.
-		for (Map.Entry<Integer, Book> e : books.entrySet()) {
-			b = e.getValue();
-			System.out.printf("%10s.\t %26s %11s %11s %11s\n", e.getKey().toString(), b.title,
-					((Short) b.year).toString(), b.getLanguage(), ((Short) b.weight).toString());
+		int pageNum = 0; // The zero based index of the current page.
+		boolean hasNext = (page.size() > this.pageSize);
+		if (hasNext) {
+			page.remove(page.size() - 1); // Drop the look-ahead row.
 		}
-		System.out.println();
+
+		// Map book numbers to the books of the current page.
+		int i = 0;
+		TreeMap<Integer, Book> books = new TreeMap<Integer, Book>();
+		for (Book b : page) {
+			books.put(++i, b);
+		}
+
+		// Display the first page of books, so the user can choose one from the list.
+		System.out.println("\nThe database contains the following books with the given category(" + category + "):");
+		this.print_book_page(books, false, hasNext);
 
 		Book result = null; // The selected book.
 
-		if (books.size() == 1) { // If there is only one book then just select it.
+		if (books.size() == 1 && !hasNext) { // If there is only one book then just select it.
 			result = books.firstEntry().getValue();
 			System.out.println("There is only one book to choose and as such it has been automatically selected.");
 
+			// Start finding the best offer while the user answers.
+			if (this.prefetcher != null) {
+				this.prefetcher.afterBook(result);
+			}
+
 			System.out.print("\nDo you want to change the book choice? (y/n) ");
 			if (this.parseAnswer()) {
 				result = null;
@@ -1835,12 +2764,13 @@ public final class YRBAPP {
 			return result;
 		}
 
-		String next = null, range = "[1, " + i + "]";
+		String next = null, range = "[" + books.firstKey() + ", " + books.lastKey() + "]";
 		Integer bookNum = null;
 		boolean isBookNum = false;
 
 		int j = 0;
-		TreeMap<Integer, Integer> matches = null;
+		TreeMap<Integer, Book> matches = null;
+		Book b = null; // The current Book object.
 
 		boolean confirmed = false;
 		while (!confirmed) {
@@ -1851,16 +2781,82 @@ public final class YRBAPP {
 				// Read the next line of input and handle the special termination case(s).
 				next = this.nextLine();
 
+				// Handle the page navigation keywords.
+				if (YRBAPP.NEXT.equals(next) || YRBAPP.PREVIOUS.equals(next)) {
+					boolean forward = YRBAPP.NEXT.equals(next);
+					if (forward ? !hasNext : pageNum == 0) {
+						System.out.println("\nThere is no " + next + " page.\n");
+						continue;
+					}
+
+					page = this.find_book_page(category,
+							(forward ? books.lastEntry() : books.firstEntry()).getValue(), forward);
+					if (page == null) {
+						System.out.println("\nUnfortunately a fatal error has occurred when attempting to find "
+								+ "another page of books of the given category(" + category + ").");
+						System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
+						this.exit(this.parseAnswer());
+						return null;
+					}
+
+					if (forward) {
+						++pageNum;
+						if (hasNext = (page.size() > this.pageSize)) {
+							page.remove(page.size() - 1); // Drop the look-ahead row.
+						}
+					} else {
+						--pageNum;
+						hasNext = true;
+						while (page.size() > this.pageSize) {
+							page.remove(0); // Drop the look-behind row.
+						}
+					}
+
+					i = pageNum * this.pageSize;
+					books = new TreeMap<Integer, Book>();
+					for (Book p : page) {
+						books.put(++i, p);
+					}
+					range = "[" + books.firstKey() + ", " + books.lastKey() + "]";
+
+					this.print_book_page(books, pageNum > 0, hasNext);
+					continue;
+				}
+
+				// Handle the filter keyword.
+				if (YRBAPP.FILTER.equals(next)) {
+					TreeMap<Integer, Book> filtered = this.read_filter(category);
+					if (filtered == null) { // Handle possible failures(non-fatal).
+						System.out.println("\nUnfortunately the books could not be filtered.\n");
+						continue;
+					} else if (filtered.isEmpty()) {
+						System.out.println("\nNo book of the given category(" + category
+								+ ") matches the given conditions.\n");
+						continue;
+					}
+
+					// The matching books replace the pages of the category.
+					pageNum = 0;
+					hasNext = false;
+					books = filtered;
+					range = "[" + books.firstKey() + ", " + books.lastKey() + "]";
+
+					System.out.println("\nThe following books of the given category(" + category
+							+ ") match the given conditions:");
+					this.print_book_page(books, false, false);
+					continue;
+				}
+
 				// reset isBookNum
 				isBookNum = false;
 
 				// Construct a map of all books with title equal to next.
-				// Mapping the j^th match to its key in books.
+				// Mapping the j^th match to the book itself.
 				j = 0;
-				matches = new TreeMap<Integer, Integer>();
-				for (Integer key : books.keySet()) {
-					if (books.get(key).title.equals(next)) {
-						matches.put(++j, key);
+				matches = new TreeMap<Integer, Book>();
+				for (Book p : books.values()) {
+					if (p.title.equals(next)) {
+						matches.put(++j, p);
 					}
 				}
 
@@ -1871,13 +2867,13 @@ public final class YRBAPP {
 					// Keep track of the fact that the input was indeed a short integer.
 					isBookNum = true;
 
-					if (1 <= bookNum && bookNum <= i) {
-						matches.put(0, bookNum);
+					if (books.containsKey(bookNum)) {
+						matches.put(0, books.get(bookNum));
 
 						if (matches.size() == 1) {
 							// Handle the case where there are no books with title bookNum.
 							result = books.get(bookNum);
-						} else if (matches.size() == 2 && matches.get(1) == bookNum) {
+						} else if (matches.size() == 2 && matches.get(1) == matches.get(0)) {
 							// Handle the case where there is exactly one book with title bookNum
 							// but it's book number is also bookNum and so there is no conflict.
 							result = books.get(bookNum);
@@ -1889,8 +2885,8 @@ public final class YRBAPP {
 							System.out.printf("\n%10s\t %26s %11s %11s %11s\n", "Number", "Title", "Year", "Language",
 									"Weight");
 							b = null; // The current Book object.
-							for (Map.Entry<Integer, Integer> e : matches.entrySet()) {
-								b = books.get(e.getValue());
+							for (Map.Entry<Integer, Book> e : matches.entrySet()) {
+								b = e.getValue();
 								System.out.printf("%10s.\t %26s %11s %11s %11s\n",
 										((Integer) (e.getKey() + 1)).toString(), b.title, ((Short) b.year).toString(),
 										b.getLanguage(), ((Short) b.weight).toString());
@@ -1902,7 +2898,7 @@ public final class YRBAPP {
 								bookNum = Integer.parseInt(next = this.nextLine());
 
 								if (1 <= bookNum && bookNum <= (j + 1)) {
-									result = books.get(matches.get(bookNum - 1));
+									result = matches.get(bookNum - 1);
 								} else {
 									System.out.println("\nGiven book number(" + next
 											+ ") is not a valid integer in the following range: [1, " + (j + 1) + "]");
@@ -1919,15 +2915,26 @@ public final class YRBAPP {
 
 				if (result == null) {
 					// Check if given string is a book title if result is still null.
+					if (matches.isEmpty()) {
+						// The title may belong to a book on another page, so look it up in the whole category.
+						ArrayList<Book> titled = this.find_titled_books(category, next);
+						if (titled != null) {
+							for (Book t : titled) {
+								matches.put(++j, t);
+							}
+						}
+					}
+
 					if (matches.isEmpty()) {
 						if (isBookNum) {
 							System.out.println("\nGiven book number(" + next
 									+ ") is not a valid integer in the following range: " + range);
 						} else {
 							System.out.println("\nGiven string(" + next + ") is not a valid book title.");
+							this.suggest_books(next, category);
 						}
 					} else if (matches.size() == 1) {
-						result = books.get(matches.firstEntry().getValue());
+						result = matches.firstEntry().getValue();
 					} else {
 						System.out.println("\nSince there are multiple books with the given title(" + next
 								+ "), your choice is ambiguous.");
@@ -1935,8 +2942,8 @@ public final class YRBAPP {
 						System.out.printf("\n%10s\t %26s %11s %11s %11s\n", "Number", "Title", "Year", "Language",
 								"Weight");
 						b = null; // The current Book object.
-						for (Map.Entry<Integer, Integer> e : matches.entrySet()) {
-							b = books.get(e.getValue());
+						for (Map.Entry<Integer, Book> e : matches.entrySet()) {
+							b = e.getValue();
 							System.out.printf("%10s.\t %26s %11s %11s %11s\n", e.getKey().toString(), b.title,
 									((Short) b.year).toString(), b.getLanguage(), ((Short) b.weight).toString());
 						}
@@ -1947,7 +2954,7 @@ public final class YRBAPP {
 							bookNum = Integer.parseInt(next = this.nextLine());
 
 							if (1 <= bookNum && bookNum <= j) {
-								result = books.get(matches.get(bookNum));
+								result = matches.get(bookNum);
 							} else {
 								System.out.println("\nGiven book number(" + next
 										+ ") is not a valid integer in the following range: [1, " + j + "]");
@@ -1959,32 +2966,326 @@ public final class YRBAPP {
 					}
 				}
 
-				if (result == null) { // Prompt for another input.
-					System.out.println("\nPlease enter a valid integer in the following range: " + range
-							+ " or the exact book title itself.");
-				}
+				if (result == null) { // Prompt for another input.
+					System.out.println("\nPlease enter a valid integer in the following range: " + range
+							+ " or the exact book title itself.");
+				}
+			}
+
+			if (result == null) {
+				// result has not been set which means that the above while loop
+				// terminated because this.in.hasNextLine() returned false.
+
+				this.EOI(); // Handle End Of Input.
+			} else if (!this.confirm) {
+				confirmed = true;
+			} else {
+				// Start finding the best offer while the user confirms.
+				if (this.prefetcher != null) {
+					this.prefetcher.afterBook(result);
+				}
+
+				System.out.println("\nYou have chosen the following book from the given category(" + category + "):");
+				System.out.printf("%26s = %26s\n%26s = %26s\n%26s = %26s\n%26s = %26s\n", "Title", result.title, "Year",
+						((Short) result.year).toString(), "Language", result.getLanguage(), "Weight",
+						((Short) result.weight).toString());
+				System.out.print("Is this correct? (y/n) ");
+				if (!(confirmed = this.parseAnswer())) {
+					System.out.println();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Find all books of all categories in the <code>yrb_book</code> table.
+	 * 
+	 * @return All books in <code>Book.compareTo</code> order if successful and <code>null</code>
+	 *         otherwise.
+	 * 
+	 * @see #load_title_index()
+	 * @see #load_catalog_index()
+	 * 
+	 * @see YRBAPPUtility#ALL_BOOK_QUERY_TEXT
+	 */
+	private ArrayList<Book> find_all_books() {
+		try {
+			return this.store.findAllBooks(this.session);
+		} catch (SQLException ex) {
+			YRBAPP.logError("allBookQuery", "Failed to find all books.", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * The trigram index over the titles of all books, built on first use.
+	 * 
+	 * @see #load_title_index()
+	 */
+	private TitleIndex titleIndex;
+
+	/**
+	 * Returns the trigram index over the titles of all books in the <code>yrb_book</code> table, ranked
+	 * by their popularity in the <code>yrb_purchase</code> table. The index is built on the first call
+	 * and then reused, so the popularity is a snapshot that later purchases do not change.
+	 * 
+	 * @return <code>this.titleIndex</code> if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #titleIndex
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 * 
+	 * @see #find_all_books()
+	 * @see YRBAPPUtility#POPULARITY_QUERY_TEXT
+	 */
+	private TitleIndex load_title_index() {
+		if (this.titleIndex != null) {
+			return this.titleIndex;
+		}
+
+		ArrayList<Book> books = this.find_all_books();
+		if (books == null) {
+			return null;
+		}
+
+		TreeMap<Book, Integer> popularity;
+		try {
+			popularity = this.store.findPopularity(this.session);
+		} catch (SQLException ex) {
+			YRBAPP.logError("popularityQuery", "Failed to find book popularity.", ex);
+			// Failing to build the index is not fatal since it is only used for suggestions.
+			return null;
+		}
+
+		return (this.titleIndex = new TitleIndex(books, popularity));
+	}
+
+	/**
+	 * The bitmap index over the attributes and offers of all books, built on first use.
+	 * 
+	 * @see #load_catalog_index()
+	 */
+	private CatalogIndex catalogIndex;
+
+	/**
+	 * Returns the bitmap index over the attributes of all books in the <code>yrb_book</code> table and
+	 * their prices in the <code>yrb_offer</code> table. The index is built on the first call and then
+	 * reused.
+	 * 
+	 * @return <code>this.catalogIndex</code> if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #catalogIndex
+	 * 
+	 * @see #filter_books(int, String, String, short, short, short, short, float, float)
+	 * 
+	 * @see #find_all_books()
+	 * @see YRBAPPUtility#ALL_OFFER_QUERY_TEXT
+	 */
+	private CatalogIndex load_catalog_index() {
+		if (this.catalogIndex != null) {
+			return this.catalogIndex;
+		}
+
+		ArrayList<Book> books = this.find_all_books();
+		if (books == null) {
+			return null;
+		}
+
+		TreeMap<String, Map<Book, Float>> offers;
+		try {
+			offers = this.store.findAllOffers(this.session);
+		} catch (SQLException ex) {
+			YRBAPP.logError("allOfferQuery", "Failed to find all offers.", ex);
+			return null;
+		}
+
+		return (this.catalogIndex = new CatalogIndex(books, offers));
+	}
+
+	/**
+	 * Find the names of all clubs that the customer with ID <code>cid</code> is a member of.
+	 * 
+	 * @param cid
+	 *            the customer ID number
+	 * 
+	 * @return The club names if successful and <code>null</code> otherwise.
+	 * 
+	 * @see YRBAPPUtility#MEMBER_QUERY_TEXT
+	 */
+	private ArrayList<String> find_clubs(int cid) {
+		try {
+			return this.store.findClubs(this.chosen(cid));
+		} catch (SQLException ex) {
+			YRBAPP.logError("memberQuery", "Failed to find the clubs of a customer.", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Find all books matching the given conditions using the in-memory bitmap indexes. Every
+	 * <code>null</code> condition and every unbounded range matches all books. <br>
+	 * <br>
+	 * 
+	 * A bounded price range is checked against the best price of every book across all clubs that the
+	 * customer with ID <code>cid</code> is a member of, which is why only books offered to the customer
+	 * match it.
+	 * 
+	 * @param cid
+	 *            the customer ID number
+	 * 
+	 * @param category
+	 *            the book category
+	 * 
+	 * @param language
+	 *            the book language
+	 * 
+	 * @param minYear
+	 *            the minimum book year
+	 * 
+	 * @param maxYear
+	 *            the maximum book year
+	 * 
+	 * @param minWeight
+	 *            the minimum book weight
+	 * 
+	 * @param maxWeight
+	 *            the maximum book weight
+	 * 
+	 * @param minPrice
+	 *            the minimum best price
+	 * 
+	 * @param maxPrice
+	 *            the maximum best price
+	 * 
+	 * @return A <code>TreeMap&lt;Integer, Book&gt;</code> mapping <code>1 to NUMBER_OF_BOOKS</code> to
+	 *         the matching books if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #read_filter(String)
+	 * 
+	 * @see #load_catalog_index()
+	 * @see #find_clubs(int)
+	 * 
+	 * @see CatalogIndex#filter(java.util.Collection, String, String, short, short, short, short,
+	 *      float, float)
+	 */
+	private TreeMap<Integer, Book> filter_books(int cid, String category, String language, short minYear,
+			short maxYear, short minWeight, short maxWeight, float minPrice, float maxPrice) {
+		CatalogIndex index = this.load_catalog_index();
+		if (index == null) {
+			return null;
+		}
+
+		// The clubs are only needed to check a bounded price range.
+		ArrayList<String> clubs = null;
+		if (CatalogIndex.isBounded(minPrice, maxPrice) && (clubs = this.find_clubs(cid)) == null) {
+			return null;
+		}
+
+		int i = 0;
+		TreeMap<Integer, Book> result = new TreeMap<Integer, Book>();
+		for (Book b : index.filter(clubs, category, language, minYear, maxYear, minWeight, maxWeight, minPrice,
+				maxPrice)) {
+			result.put(++i, b);
+		}
+		return result;
+	}
+
+	/**
+	 * Read the conditions of a book filter from the user and find the books of the given category
+	 * that match them for the chosen customer. Every skipped condition matches all books.
+	 * 
+	 * @param category
+	 *            the book category
+	 * 
+	 * @return A <code>TreeMap&lt;Integer, Book&gt;</code> mapping <code>1 to NUMBER_OF_BOOKS</code> to
+	 *         the matching books if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #FILTER
+	 * @see #find_books(String, AtomicBoolean)
+	 * @see #filter_books(int, String, String, short, short, short, short, float, float)
+	 */
+	private TreeMap<Integer, Book> read_filter(String category) {
+		System.out.println();
+		String language = this.read_condition("the book language", s -> s, null);
+		short minYear = this.read_condition("the minimum book year", s -> Short.valueOf(s), (short) 0);
+		short maxYear = this.read_condition("the maximum book year", s -> Short.valueOf(s), Short.MAX_VALUE);
+		short minWeight = this.read_condition("the minimum book weight", s -> Short.valueOf(s), (short) 0);
+		short maxWeight = this.read_condition("the maximum book weight", s -> Short.valueOf(s), Short.MAX_VALUE);
+		float minPrice = this.read_condition("the minimum book price", s -> Float.valueOf(s), 0f);
+		float maxPrice = this.read_condition("the maximum book price", s -> Float.valueOf(s), Float.MAX_VALUE);
+
+		return this.filter_books(this.session.getCid(), category, language, minYear, maxYear, minWeight, maxWeight,
+				minPrice, maxPrice);
+	}
+
+	/**
+	 * Read a single condition of a book filter from the user.
+	 * 
+	 * @param <T>
+	 *            the type of the condition
+	 * 
+	 * @param prompt
+	 *            the description of the condition
+	 * 
+	 * @param parser
+	 *            the parser of the entered string, which throws an
+	 *            <code>IllegalArgumentException</code> for an invalid string
+	 * 
+	 * @param skip
+	 *            the condition that matches all books
+	 * 
+	 * @return The parsed condition or <code>skip</code> if <code>YRBAPP.STOP</code> was entered.
+	 * 
+	 * @see #read_filter(String)
+	 */
+	private <T> T read_condition(String prompt, Function<String, T> parser, T skip) {
+		System.out.println("Please enter " + prompt + " or \"" + YRBAPP.STOP + "\" to skip it.");
+		while (this.in.hasNextLine()) {
+			String next = this.nextLine();
+			if (YRBAPP.STOP.equals(next)) {
+				return skip;
+			}
+			try {
+				return parser.apply(next);
+			} catch (IllegalArgumentException ex) { // Includes NumberFormatException.
+				System.out.println("\nGiven string(" + next + ") is not valid.");
+				System.out.println("\nPlease enter " + prompt + " or \"" + YRBAPP.STOP + "\" to skip it.");
 			}
+		}
 
-			if (result == null) {
-				// result has not been set which means that the above while loop
-				// terminated because this.in.hasNextLine() returned false.
+		this.EOI(); // Handle End Of Input.
+		return skip;
+	}
 
-				this.EOI(); // Handle End Of Input.
-			} else if (!this.confirm) {
-				confirmed = true;
-			} else {
-				System.out.println("\nYou have chosen the following book from the given category(" + category + "):");
-				System.out.printf("%26s = %26s\n%26s = %26s\n%26s = %26s\n%26s = %26s\n", "Title", result.title, "Year",
-						((Short) result.year).toString(), "Language", result.getLanguage(), "Weight",
-						((Short) result.weight).toString());
-				System.out.print("Is this correct? (y/n) ");
-				if (!(confirmed = this.parseAnswer())) {
-					System.out.println();
-				}
-			}
+	/**
+	 * Print the books of the given category whose titles best match the given string to the standard
+	 * output stream(<code>System.out</code>).
+	 * 
+	 * @param query
+	 *            the string entered by the user
+	 * 
+	 * @param category
+	 *            the book category
+	 * 
+	 * @see #find_books(String, AtomicBoolean)
+	 * @see #load_title_index()
+	 */
+	private void suggest_books(String query, String category) {
+		TitleIndex index = this.load_title_index();
+		if (index == null) {
+			return;
 		}
 
-		return result;
+		List<Book> matches = index.search(query, TitleIndex.DEFAULT_TOP_K, category);
+		if (!matches.isEmpty()) {
+			System.out.println("Did you mean one of the following books?");
+			System.out.printf("%26s %11s\n", "Title", "Year");
+			for (Book b : matches) {
+				System.out.printf("%26s %11s\n", b.title, ((Short) b.year).toString());
+			}
+		}
 	}
 
 	/**
@@ -2007,86 +3308,77 @@ public final class YRBAPP {
 	 * 
 	 * @see #run()
 	 * 
-	 * @see #find_purchases(short)
+	 * @see #find_purchases(int)
 	 * 
+	 * @see Prefetcher#takeOffer(int, Book)
 	 * @see YRBAPPUtility#OFFER_QUERY_TEXT
 	 */
-	private Purchase min_price(Short cid, Book book) throws NullPointerException {
+	private Purchase min_price(Integer cid, Book book) throws NullPointerException {
 		if (cid == null) {
 			throw new NullPointerException("Given customer ID is null.");
 		} else if (book == null) {
 			throw new NullPointerException("Given book is null.");
 		}
 
+		String key = cid + ":" + book.year + ":" + book.title;
+		StaleCache.Entry<Purchase> stale;
+		boolean allowed = this.breaker.allow();
+		if (!allowed && (stale = this.staleOffers.serve(key)) != null) {
+			// Do not wait for a database that keeps failing, nor for a background query to it.
+			YRBAPP.printStale("best price", stale);
+			return YRBAPP.copyOffer(stale.value);
+		}
+
+		CompletableFuture<Purchase> prefetched = (!allowed || this.prefetcher == null ? null
+				: this.prefetcher.takeOffer(cid.intValue(), book));
+		if (prefetched != null) {
+			// A null offer is only trusted if the background query did not fail.
+			long waited = System.nanoTime();
+			Purchase offer = YRBAPP.await(prefetched, "offerQuery");
+			boolean answered = (offer != null
+					|| (prefetched.isDone() && !prefetched.isCompletedExceptionally()));
+			if (answered) { // The database answered, which may have been the probe of the breaker.
+				this.breaker.record(System.nanoTime() - waited, true);
+			}
+			if (offer != null) {
+				this.staleOffers.put(key, YRBAPP.copyOffer(offer));
+				return offer;
+			} else if (answered) {
+				return null;
+			}
+		}
+
 		// The current purchase.
 		Purchase result = null;
 
-		boolean fail = false;
+		// Fail fast if the breaker is open since there is nothing stale to serve either.
+		boolean fail = !allowed;
+		if (allowed) {
+			long start = System.nanoTime();
 
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.OFFER_QUERY_TEXT)) {
 			try {
-				querySt.setShort(1, cid.shortValue()); // Fix the first ? in the update text.
-				querySt.setString(2, book.title); // Fix the second ? in the update text.
-				querySt.setShort(3, book.year); // Fix the third ? in the update text.
-
-				querySt.setShort(4, cid.shortValue()); // Fix the fourth ? in the update text.
-				querySt.setString(5, book.title); // Fix the fifth ? in the update text.
-				querySt.setShort(6, book.year); // Fix the sixth ? in the update text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("offerQuery: Failed to remove ? from query statement.\n" + ex.toString());
-				fail = true;
-			}
-
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
+				// result will remain null if the book is not offered to the customer.
+				result = this.store.minPrice(this.chosen(cid.intValue()).setBook(book));
 			} catch (SQLException ex) {
-				YRBAPP.logError("offerQuery: Failed to set OFFER_QUERY_TEXT timeout.\n" + ex.toString());
+				YRBAPP.logError("offerQuery", "Failed to execute query.", ex);
 				fail = true;
 			}
 
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						if (answers.next()) { // Are there any answers?
-							result = new Purchase(cid.shortValue(), answers.getString(1), book.title, book.year,
-									answers.getFloat(2));
-						}
-						// result will remain null if answers is empty.
-					} catch (SQLException ex) {
-						YRBAPP.logError("offerQuery: Failed in answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("offerQuery: Failed to close answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("offerQuery: Failed to execute query.\n" + ex.toString());
-					fail = true;
-				}
-			}
-
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("offerQuery: Failed to close query handle.\n" + ex.toString());
+			this.breaker.record(System.nanoTime() - start, !fail);
+			if (fail && (stale = this.staleOffers.serve(key)) != null) { // Degrade instead of failing.
 				fail = false;
+				YRBAPP.printStale("best price", stale);
+				result = YRBAPP.copyOffer(stale.value);
+			} else if (!fail && result != null) {
+				this.staleOffers.put(key, YRBAPP.copyOffer(result));
 			}
-		} catch (SQLException ex) {
-			YRBAPP.logError("offerQuery: Failed to prepare query handle.\n" + ex.toString());
-			fail = false;
 		}
 
 		if (fail) { // Handle possible failures.
 			System.out.println(
 					"\nUnfortunately a fatal error has occurred when attempting to find the minimum price for the chosen book with title: "
 							+ book.title + " and category: " + book.category + " for the customer with the given ID("
-							+ cid.shortValue() + ").");
+							+ cid.intValue() + ").");
 			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
 			this.exit(this.parseAnswer());
 		}
@@ -2095,7 +3387,59 @@ public final class YRBAPP {
 	}
 
 	/**
-	 * Find and return all purchases made by the customer with ID <code>cid</code>.
+	 * The purchase histories of the customers that have been looked at, mapping customer IDs to their
+	 * cached histories. The histories outlive an application run and only get dropped when changes are
+	 * rolled back, since they include the purchases inserted by <code>this.session</code>, or when the
+	 * store is replaced.
+	 * 
+	 * @see #load_history(int)
+	 * @see #insert_purchase(Purchase)
+	 * @see #rollbackChanges()
+	 * @see #closeConnection()
+	 */
+	private HashMap<Integer, PurchaseHistory> histories;
+
+	/**
+	 * Returns the cached purchase history of the customer with ID <code>cid</code> after fetching only
+	 * the purchases made since the history was last loaded and merging them into it.
+	 * 
+	 * @param cid
+	 *            the customer's ID
+	 * 
+	 * @return The up to date purchase history if successful and <code>null</code> otherwise.
+	 * 
+	 * @see #histories
+	 * 
+	 * @see #find_purchases(int)
+	 * @see #view_purchases(int)
+	 * 
+	 * @see YRBAPPUtility#PURCHASE_QUERY_TEXT
+	 */
+	private PurchaseHistory load_history(int cid) {
+		PurchaseHistory result = this.histories.get(cid);
+		if (result == null) {
+			this.historyMisses.increment();
+			result = new PurchaseHistory(cid);
+		} else {
+			this.historyHits.increment();
+		}
+
+		ArrayList<Purchase> purchases;
+		try {
+			purchases = this.store.findPurchases(this.chosen(cid), result.getLastWhen());
+		} catch (SQLException ex) {
+			YRBAPP.logError("purchaseQuery", "Failed to find the purchases made since the last fetch.", ex);
+			return null;
+		}
+
+		result.merge(purchases);
+		this.histories.put(cid, result);
+		return result;
+	}
+
+	/**
+	 * Find and return all purchases made by the customer with ID <code>cid</code>. Only the purchases
+	 * made since the last call for the same customer are read from the database.
 	 * 
 	 * @param cid
 	 *            the customer's ID
@@ -2104,97 +3448,218 @@ public final class YRBAPP {
 	 *         <code>1 to NUMBER_OF_PURCHASES</code> to <code>Purchase</code> objects representing the
 	 *         purchases made by the customer.
 	 * 
-	 * @see #run()
-	 * 
 	 * @see #insert_purchase(Purchase)
 	 * 
-	 * @see YRBAPPUtility#PURCHASE_QUERY_TEXT
+	 * @see #load_history(int)
+	 */
+	private TreeMap<Integer, Purchase> find_purchases(int cid) {
+		PurchaseHistory history = this.load_history(cid);
+
+		if (history == null) { // Handle possible failures.
+			System.out.println(
+					"\nUnfortunately a fatal error has occurred when attempting to find all purchases made by the customer with the given ID("
+							+ cid + ").");
+			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
+			this.exit(this.parseAnswer());
+			return new TreeMap<Integer, Purchase>();
+		}
+
+		return history.toMap();
+	}
+
+	/**
+	 * Find a single page of purchases made by the customer with ID <code>cid</code> in the time range
+	 * <code>[from, to)</code> ordered by when, club, year and title using keyset pagination, i.e.
+	 * continuing from the given purchase instead of skipping rows. <br>
+	 * <br>
+	 * 
+	 * At most <code>this.pageSize + 1</code> purchases are read so that the caller can tell whether
+	 * there is another page in the same direction. The price of every purchase is the price of the
+	 * club that it was purchased from.
+	 * 
+	 * @param cid
+	 *            the customer's ID
+	 * 
+	 * @param from
+	 *            the start of the time range (inclusive)
+	 * 
+	 * @param to
+	 *            the end of the time range (exclusive)
+	 * 
+	 * @param purchase
+	 *            the purchase to continue from (exclusive) or <code>null</code> to start from the
+	 *            beginning of the time range
+	 * 
+	 * @param forward
+	 *            <code>forward ? "purchases after purchase" : "purchases before purchase"</code>
+	 * 
+	 * @return The purchases of the page in <code>Purchase.compareTo</code> order if successful and
+	 *         <code>null</code> otherwise.
 	 * 
-	 * @see #min_price(Short, Book)
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>from == null</code> <br>
+	 *             If <code>to == null</code>
+	 * 
+	 * @see #view_purchases(int)
+	 * 
+	 * @see YRBAPPUtility#PURCHASE_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#PURCHASE_PREVIOUS_PAGE_QUERY_TEXT
 	 */
-	private TreeMap<Integer, Purchase> find_purchases(short cid) {
-		int i = 0;
-		TreeMap<Purchase, Integer> purchases = new TreeMap<Purchase, Integer>();
-		Purchase p = null;
+	private ArrayList<Purchase> find_purchase_page(int cid, Timestamp from, Timestamp to, Purchase purchase,
+			boolean forward) throws NullPointerException {
+		if (from == null) {
+			throw new NullPointerException("Given start of the time range is null.");
+		} else if (to == null) {
+			throw new NullPointerException("Given end of the time range is null.");
+		}
 
-		boolean fail = false;
+		// Answer from the cached history if it has already been loaded during this application run.
+		PurchaseHistory history = this.histories.get(cid);
+		if (history != null) {
+			return history.page(from, to, purchase, forward, this.pageSize + 1);
+		}
 
-		// Prepare the query handle.
-		try (PreparedStatement querySt = this.db_connect.prepareStatement(YRBAPPUtility.PURCHASE_QUERY_TEXT)) {
+		try {
+			// Only read the current page and one more row.
+			return this.store.findPurchasePage(this.chosen(cid), from, to, purchase, forward, this.pageSize + 1);
+		} catch (SQLException ex) {
+			YRBAPP.logError("purchaseQuery", "Failed to find a page of purchases.", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Read a date from the user in the format <code>yyyy-[m]m-[d]d</code>.
+	 * 
+	 * @param prompt
+	 *            the description of the date
+	 * 
+	 * @return The start of the read date or <code>null</code> if <code>YRBAPP.STOP</code> was entered.
+	 * 
+	 * @see #view_purchases(int)
+	 */
+	private Timestamp read_date(String prompt) {
+		System.out.println("Please enter " + prompt + " (yyyy-mm-dd) or \"" + YRBAPP.STOP + "\" to skip it.");
+		while (this.in.hasNextLine()) {
+			String next = this.nextLine();
+			if (YRBAPP.STOP.equals(next)) {
+				return null;
+			}
 			try {
-				querySt.setShort(1, cid); // Fix the ? in the query text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseQuery: Failed to remove ? from query statement.\n" + ex.toString());
-				fail = true;
+				return new Timestamp(Date.valueOf(next).getTime());
+			} catch (IllegalArgumentException ex) {
+				System.out.println("\nGiven string(" + next + ") is not a valid date.");
+				System.out.println("\nPlease enter " + prompt + " (yyyy-mm-dd) or \"" + YRBAPP.STOP
+						+ "\" to skip it.");
 			}
+		}
 
-			try { // Set the query timeout.
-				querySt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseQuery: Failed to set PURCHASE_QUERY_TEXT timeout.\n" + ex.toString());
-				fail = true;
+		this.EOI(); // Handle End Of Input.
+		return null;
+	}
+
+	/**
+	 * Print the purchases made by the customer with ID <code>cid</code> to the standard output
+	 * stream(<code>System.out</code>), one page of <code>this.pageSize</code> purchases at a time. <br>
+	 * <br>
+	 * 
+	 * The user can restrict the history to a date range and move to the next or the previous page by
+	 * entering <code>YRBAPP.NEXT</code> or <code>YRBAPP.PREVIOUS</code>.
+	 * 
+	 * @param cid
+	 *            the customer's ID
+	 * 
+	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
+	 * 
+	 * @see #run()
+	 * 
+	 * @see #find_purchase_page(int, Timestamp, Timestamp, Purchase, boolean)
+	 */
+	private boolean view_purchases(int cid) {
+		Timestamp from = null, to = null;
+		System.out.print("\nDo you want to restrict the purchases to a date range? (y/n) ");
+		if (this.parseAnswer()) {
+			from = this.read_date("the first purchase date");
+			to = this.read_date("the last purchase date");
+			if (to != null) { // The last date is inclusive.
+				to = new Timestamp(to.getTime() + YRBAPPUtility.MILLIS_PER_DAY);
 			}
+		}
+		if (from == null) {
+			from = new Timestamp(0L);
+		}
+		if (to == null) {
+			to = new Timestamp(YRBAPPUtility.MAX_WHEN);
+		}
 
-			if (!fail) {
-				// Execute the query and save the answers cursor.
-				try (ResultSet answers = querySt.executeQuery()) {
-					try { // Process query results.
-						while (answers.next()) {
-							// Find the minimum price of the given book. Pass dummy values for
-							// category
-							// and weight since they are not part of the primary key and as such,
-							// will not have any effects on the purchase.
-							p = this.min_price(cid, new Book(answers.getString(2), answers.getShort(3), "", (short) 0));
-							if (p != null) {
-								p.setQuantity(answers.getShort(5));
-								p.setWhen(answers.getTimestamp(4).getTime());
-								// Map i -> purchase so that the map is sorted using
-								// the Purchase.compareTo method.
-								purchases.put(p, ++i);
-							}
-						}
-					} catch (SQLException ex) {
-						YRBAPP.logError("purchaseQuery: Failed in answers cursor.\n" + ex.toString());
-						fail = true;
-					}
+		// Bring a cached history up to date once, so that every page can be answered from memory.
+		if (this.histories.containsKey(cid) && this.load_history(cid) == null) {
+			return false;
+		}
 
-					try { // Close the answers cursor.
-						answers.close();
-					} catch (SQLException ex) {
-						YRBAPP.logError("purchaseQuery: Failed to close answers cursor.\n" + ex.toString());
-						fail = true;
-					}
-				} catch (SQLException ex) {
-					YRBAPP.logError("purchaseQuery: Failed to execute query.\n" + ex.toString());
-					fail = true;
-				}
+		ArrayList<Purchase> purchases = this.find_purchase_page(cid, from, to, null, true);
+		if (purchases == null) {
+			return false;
+		} else if (purchases.isEmpty()) {
+			System.out.println("\nThere are no purchases made by the customer with the given ID(" + cid
+					+ ") in the given date range.");
+			return true;
+		}
+
+		int page = 0; // The zero based index of the current page.
+		boolean hasNext = (purchases.size() > this.pageSize);
+		if (hasNext) {
+			purchases.remove(purchases.size() - 1); // Drop the look-ahead row.
+		}
+
+		while (true) {
+			System.out.printf("\n%10s\t %16s %26s %11s %11s %18s %11s %30s\n", "Number", "Club Name", "Book Title",
+					"Book Year", "Book Price", "Purchase Quantity", "Total Cost", "Purchase Time");
+			int i = page * this.pageSize;
+			for (Purchase p : purchases) {
+				System.out.printf("%10s.\t %16s %26s %11s %11s %18s %11s %30s\n", ((Integer) (++i)).toString(),
+						p.club, p.title, ((Short) p.year).toString(), String.format("%.2f", p.price),
+						((Short) p.getQuantity()).toString(), String.format("%.2f", (p.getQuantity() * p.price)),
+						p.getWhen().toString());
 			}
 
-			try { // Close the query handle.
-				querySt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseQuery: Failed to close query handle.\n" + ex.toString());
-				fail = true;
+			if (page == 0 && !hasNext) { // Everything fits on a single page.
+				return true;
 			}
-		} catch (SQLException ex) {
-			YRBAPP.logError("purchaseQuery: Failed to prepare query handle.\n" + ex.toString());
-			fail = true;
-		}
 
-		if (fail) { // Handle possible failures.
-			System.out.println(
-					"\nUnfortunately a fatal error has occurred when attempting to find all purchases made by the customer with the given ID("
-							+ cid + ").");
-			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
-			this.exit(this.parseAnswer());
-		}
+			System.out.println("\nEnter \"" + YRBAPP.NEXT + "\" or \"" + YRBAPP.PREVIOUS
+					+ "\" to view another page of purchases or anything else to stop.");
+			String next = this.nextLine();
+
+			ArrayList<Purchase> other = null;
+			if (YRBAPP.NEXT.equals(next) && hasNext) {
+				if ((other = this.find_purchase_page(cid, from, to, purchases.get(purchases.size() - 1),
+						true)) == null) {
+					return false;
+				}
+				++page;
+				if (hasNext = (other.size() > this.pageSize)) {
+					other.remove(other.size() - 1); // Drop the look-ahead row.
+				}
+			} else if (YRBAPP.PREVIOUS.equals(next) && page > 0) {
+				if ((other = this.find_purchase_page(cid, from, to, purchases.get(0), false)) == null) {
+					return false;
+				}
+				--page;
+				hasNext = true;
+				while (other.size() > this.pageSize) {
+					other.remove(0); // Drop the look-behind row.
+				}
+			} else if (YRBAPP.NEXT.equals(next) || YRBAPP.PREVIOUS.equals(next)) {
+				System.out.println("\nThere is no " + next + " page.");
+				continue;
+			} else {
+				return true;
+			}
 
-		i = 0;
-		TreeMap<Integer, Purchase> result = new TreeMap<Integer, Purchase>();
-		for (Purchase key : purchases.keySet()) {
-			result.put(++i, key);
+			purchases = other;
 		}
-		return result;
 	}
 
 	/**
@@ -2204,7 +3669,9 @@ public final class YRBAPP {
 	 * @param purchase
 	 *            the given <code>Purchase</code> object
 	 * 
-	 * @return <tt>true</tt> if successful and <tt>false</tt> otherwise.
+	 * @return <code>InsertResult.INSERTED</code> if successful, <code>InsertResult.REJECTED</code> if
+	 *         the purchase has not been sent to the database since it keeps failing and
+	 *         <code>InsertResult.FAILED</code> otherwise.
 	 * 
 	 * @throws NullPointerException
 	 *             If <code>purchase == null</code>
@@ -2213,12 +3680,13 @@ public final class YRBAPP {
 	 *             If <code>purchase.getQuantity() == 0</code>
 	 * 
 	 * @see #run()
+	 * @see InsertResult
 	 * 
 	 * @see YRBAPPUtility#PURCHASE_INSERT_TEXT
 	 * 
-	 * @see #find_purchases(short)
+	 * @see #find_purchases(int)
 	 */
-	private boolean insert_purchase(Purchase purchase) throws NullPointerException, IllegalArgumentException {
+	private InsertResult insert_purchase(Purchase purchase) throws NullPointerException, IllegalArgumentException {
 		if (purchase == null) {
 			throw new NullPointerException("Given purchase is null.");
 		} else if (purchase.getQuantity() == 0) {
@@ -2226,69 +3694,48 @@ public final class YRBAPP {
 			throw new IllegalArgumentException("Given purchase quantity(0) is not positive.");
 		}
 
+		// Fail fast instead of queueing a write behind a database that keeps failing.
+		if (!this.breaker.allow()) {
+			System.out.println(
+					"\nThe database is not responding, so the purchase could not be completed. Please try again later.");
+			return InsertResult.REJECTED;
+		}
+		long start = System.nanoTime();
+
 		// Check to make sure the given purchase does not exist the database,
 		// and then attempt to insert it.
-		TreeMap<Integer, Purchase> purchases = this.find_purchases(purchase.cid);
+		TreeMap<Integer, Purchase> purchases;
+		try (Span span = Tracer.start("find_purchases").setAttribute("cid", purchase.cid)) {
+			purchases = this.find_purchases(purchase.cid);
+			span.setAttribute("purchases", purchases.size());
+		}
 		for (Map.Entry<Integer, Purchase> e : purchases.entrySet()) {
 			if (purchase.isEqual(e.getValue())) {
 				// Purchase already exists in the database implies insertion success.
-				return true;
+				this.breaker.record(System.nanoTime() - start, true);
+				return InsertResult.INSERTED;
 			}
 		}
 
-		boolean result = true, fail = false;
-
-		// Prepare the insertion handle.
-		try (PreparedStatement insertSt = this.db_connect.prepareStatement(YRBAPPUtility.PURCHASE_INSERT_TEXT)) {
-			try {
-				insertSt.setShort(1, purchase.cid); // Fix the first ? in the insert text.
-				insertSt.setString(2, purchase.club); // Fix the second ? in the insert text.
-				insertSt.setString(3, purchase.title); // Fix the third ? in the insert text.
-				insertSt.setShort(4, purchase.year); // Fix the fourth ? in the insert text.
-				// Fix the fifth ? in the insert text.
-				insertSt.setTimestamp(5, purchase.getWhen());
-				insertSt.setShort(6, purchase.getQuantity()); // Fix the sixth ? in the insert text.
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseInsert: Failed to remove ? from insert statement.\n" + ex.toString());
-				result = false;
-			}
-
-			try { // Set the query timeout.
-				insertSt.setQueryTimeout(YRBAPPUtility.QUERY_TIMEOUT);
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseInsert: Failed to set PURCHASE_INSERT_TEXT timeout.\n" + ex.toString());
-				fail = true;
-			}
-
-			if (result && !fail) {
-				try {
-					insertSt.execute();
-				} catch (SQLException ex) {
-					YRBAPP.logError("purchaseInsert: Failed in answers cursor.\n" + ex.toString());
-					result = false;
-				}
-			}
-
-			try { // Close the insertion handle.
-				insertSt.close();
-			} catch (SQLException ex) {
-				YRBAPP.logError("purchaseInsert: Failed to close insertion handle.\n" + ex.toString());
-				result = false;
-			}
+		InsertResult result = InsertResult.INSERTED;
+		try {
+			this.store.insertPurchase(this.chosen(purchase.cid), purchase);
 		} catch (SQLException ex) {
-			YRBAPP.logError("purchaseInsert: Failed to prepare insertion handle.\n" + ex.toString());
-			result = false;
-		}
-
-		if (fail) { // Handle possible failures.
-			System.out.println(
-					"\nUnfortunately a fatal error has occurred when attempting to insert the customer's most recent purchase.");
-			System.out.print("Do you want to commit any/all of the changes made, to the database? (y/n) ");
-			this.exit(this.parseAnswer());
+			YRBAPP.logError("purchaseInsert", "Failed to execute insertion.", ex);
+			result = InsertResult.FAILED;
 		}
+		this.breaker.record(System.nanoTime() - start, result == InsertResult.INSERTED);
 
-		if (!result) {
+		if (result == InsertResult.FAILED) {
 			System.out.println("\nA purchase was requested but unfortunately it could not be completed.");
+		} else {
+			// Add a copy of the inserted purchase to the cached history, so that the history does not
+			// have to be fetched again to see it.
+			PurchaseHistory history = this.histories.get(purchase.cid);
+			if (history != null) {
+				history.merge(Collections.singletonList(new Purchase(purchase.cid, purchase.club, purchase.title,
+						purchase.year, purchase.price, purchase.getQuantity(), purchase.getWhen().getTime())));
+			}
 		}
 
 		return result;
@@ -2336,14 +3783,54 @@ public final class YRBAPP {
 			this.rollbackChanges();
 		}
 
-		// Close the database connection.
+		// Stop the background queries and close the database connections.
 		this.closeConnection();
 
+		// Export the open spans of the current session.
+		Tracer.endAll();
+		Tracer.disable();
+
+		// Stop serving the metrics.
+		if (this.metricsServer != null) {
+			this.metricsServer.stop();
+		}
+
 		// Close the global Scanner.
 		if (this.in != null) {
 			this.in.close();
 		}
 
+		// Dump the statement statistics.
+		TreeMap<String, QueryStatistics> statistics = this.getStatistics();
+		if (!statistics.isEmpty()) {
+			try (PrintWriter w = new PrintWriter("statistics.txt", "UTF-8")) {
+				for (QueryStatistics s : statistics.values()) {
+					w.println(s);
+				}
+				w.close();
+
+				System.out.println("\nThe statement statistics have been written to statistics.txt saved in the same directory.");
+			} catch (FileNotFoundException | SecurityException | UnsupportedEncodingException ex) {
+				// The statistics are only informational so simply report the failure.
+				YRBAPP.printStackTrace(ex);
+			}
+		}
+
+		// Dump the slow query log.
+		if (this.slowLog != null && !this.slowLog.getEntries().isEmpty()) {
+			try (PrintWriter w = new PrintWriter("slow_queries.txt", "UTF-8")) {
+				for (SlowQueryLog.Entry e : this.slowLog.getEntries()) {
+					w.println(e);
+				}
+				w.close();
+
+				System.out.println("\nThe slow query log has been written to slow_queries.txt saved in the same directory.");
+			} catch (FileNotFoundException | SecurityException | UnsupportedEncodingException ex) {
+				// The slow query log is only informational so simply report the failure.
+				YRBAPP.printStackTrace(ex);
+			}
+		}
+
 		// Get all errors.
 		String errors = YRBAPP.clearErrors();
 		if (!errors.isEmpty()) {
@@ -23,6 +23,20 @@ public final class YRBAPPUtility {
 	// does not pose any issues against encapsulation.
 	public static final int QUERY_TIMEOUT = 10;
 
+	/**
+	 * The default number of rows shown on a single page of a long listing.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_PAGE_SIZE = 20;
+
+	/**
+	 * The default number of rows fetched from the database in a single round trip.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_FETCH_SIZE = 50;
+
 	/**
 	 * Query to find the minimum and maximum customer IDs.
 	 */
@@ -44,6 +58,20 @@ public final class YRBAPPUtility {
 	// does not pose any issues against encapsulation.
 	public static final String CUSTOMER_QUERY_TEXT = "SELECT C.cid, C.name, C.city FROM yrb_customer C ORDER BY C.cid";
 
+	/**
+	 * Query to find the customers after an unknown ID (keyset pagination).
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String CUSTOMER_PAGE_QUERY_TEXT = "SELECT C.cid, C.name, C.city FROM yrb_customer C WHERE C.cid > ? ORDER BY C.cid";
+
+	/**
+	 * Query to find the customers before an unknown ID in reverse order (keyset pagination).
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT = "SELECT C.cid, C.name, C.city FROM yrb_customer C WHERE C.cid < ? ORDER BY C.cid DESC";
+
 	/**
 	 * The maximum length of a customer's name in the <code>yrb_customer</code> table. <br>
 	 * <br>
@@ -85,6 +113,68 @@ public final class YRBAPPUtility {
 	// does not pose any issues against encapsulation.
 	public static final String BOOK_QUERY_TEXT = "SELECT B.title, B.year, B.language, B.weight FROM yrb_book B WHERE B.cat = ? ORDER BY B.year, B.title";
 
+	/**
+	 * Query to find the books with an unknown category after an unknown year and title (keyset
+	 * pagination).
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String BOOK_PAGE_QUERY_TEXT = "SELECT B.title, B.year, B.language, B.weight FROM yrb_book B WHERE B.cat = ? "
+			+ "AND (B.year > ? OR (B.year = ? AND B.title > ?)) ORDER BY B.year, B.title";
+
+	/**
+	 * Query to find the books with an unknown category before an unknown year and title in reverse
+	 * order (keyset pagination).
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String BOOK_PREVIOUS_PAGE_QUERY_TEXT = "SELECT B.title, B.year, B.language, B.weight FROM yrb_book B WHERE B.cat = ? "
+			+ "AND (B.year < ? OR (B.year = ? AND B.title < ?)) ORDER BY B.year DESC, B.title DESC";
+
+	/**
+	 * Query to find the books with an unknown category and an unknown title.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String BOOK_TITLE_QUERY_TEXT = "SELECT B.title, B.year, B.language, B.weight FROM yrb_book B WHERE B.cat = ? AND B.title = ? ORDER BY B.year";
+
+	/**
+	 * Query to find all books of all categories.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String ALL_BOOK_QUERY_TEXT = "SELECT B.title, B.year, B.language, B.cat, B.weight FROM yrb_book B ORDER BY B.year, B.title";
+
+	/**
+	 * Query to find the total purchased quantity of every book that has been purchased at least once.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String POPULARITY_QUERY_TEXT = "SELECT P.title, P.year, SUM(P.qnty) AS total FROM yrb_purchase P GROUP BY P.title, P.year";
+
+	/**
+	 * Query to find all offers of all clubs.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String ALL_OFFER_QUERY_TEXT = "SELECT O.club, O.title, O.year, O.price FROM yrb_offer O ORDER BY O.club, O.year, O.title";
+
+	/**
+	 * Query to find all clubs that a customer with an unknown ID is a member of.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String MEMBER_QUERY_TEXT = "SELECT M.club FROM yrb_member M WHERE M.cid = ? ORDER BY M.club";
+
+	/**
+	 * Query to find the categories of all books purchased by a customer with an unknown ID, ordered by
+	 * the total purchased quantity so that the first row is the most purchased category.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String FAVORITE_CATEGORY_QUERY_TEXT = "SELECT B.cat, SUM(P.qnty) AS total FROM yrb_purchase P, yrb_book B "
+			+ "WHERE P.cid = ? AND B.title = P.title AND B.year = P.year GROUP BY B.cat ORDER BY total DESC, B.cat";
+
 	/**
 	 * Query to find the minimum price of an unknown book across all clubs that it is offered in.
 	 * However only checking such clubs that the customer with the unknown ID is a member of.
@@ -95,11 +185,51 @@ public final class YRBAPPUtility {
 			+ "AND O1.price < ALL (SELECT O2.price FROM yrb_member M2, yrb_offer O2 WHERE M2.cid = ? AND M2.club = O2.club AND O2.title = ? AND O2.year = ? AND O2.price <> O1.price)";
 
 	/**
-	 * Query to find all purchases made by a customer with an unknown ID.
+	 * Query to find all purchases made by a customer with an unknown ID at or after an unknown time.
+	 * The price is the price of the club that the book was purchased from.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String PURCHASE_QUERY_TEXT = "SELECT P.club, P.title, P.year, P.when, P.qnty, O.price FROM yrb_purchase P, yrb_offer O "
+			+ "WHERE P.cid = ? AND P.when >= ? AND O.club = P.club AND O.title = P.title AND O.year = P.year ORDER BY P.when, P.club, P.year, P.title";
+
+	/**
+	 * Query to find the purchases made by a customer with an unknown ID in an unknown time range after
+	 * an unknown when, club, year and title (keyset pagination). The price is the price of the club
+	 * that the book was purchased from.
 	 */
 	// Strings are immutable in Java which is why making this final variable public,
 	// does not pose any issues against encapsulation.
-	public static final String PURCHASE_QUERY_TEXT = "SELECT P.club, P.title, P.year, P.when, P.qnty FROM yrb_purchase P WHERE P.cid = ? ORDER BY P.when, P.club, P.year, P.title";
+	public static final String PURCHASE_PAGE_QUERY_TEXT = "SELECT P.club, P.title, P.year, P.when, P.qnty, O.price FROM yrb_purchase P, yrb_offer O "
+			+ "WHERE P.cid = ? AND P.when >= ? AND P.when < ? AND O.club = P.club AND O.title = P.title AND O.year = P.year "
+			+ "AND (P.when > ? OR (P.when = ? AND (P.club > ? OR (P.club = ? AND (P.year > ? OR (P.year = ? AND P.title > ?)))))) "
+			+ "ORDER BY P.when, P.club, P.year, P.title";
+
+	/**
+	 * Query to find the purchases made by a customer with an unknown ID in an unknown time range before
+	 * an unknown when, club, year and title in reverse order (keyset pagination).
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String PURCHASE_PREVIOUS_PAGE_QUERY_TEXT = "SELECT P.club, P.title, P.year, P.when, P.qnty, O.price FROM yrb_purchase P, yrb_offer O "
+			+ "WHERE P.cid = ? AND P.when >= ? AND P.when < ? AND O.club = P.club AND O.title = P.title AND O.year = P.year "
+			+ "AND (P.when < ? OR (P.when = ? AND (P.club < ? OR (P.club = ? AND (P.year < ? OR (P.year = ? AND P.title < ?)))))) "
+			+ "ORDER BY P.when DESC, P.club DESC, P.year DESC, P.title DESC";
+
+	/**
+	 * The number of milliseconds in a day.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+	/**
+	 * The largest purchase time in milliseconds (9999-12-31 00:00:00 UTC) that is used as the end of
+	 * an unbounded time range.
+	 */
+	// longs are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final long MAX_WHEN = 253402214400000L;
 
 	/**
 	 * Insert command to insert an unknown purchase into the <code>yrb_purchase</code> table.
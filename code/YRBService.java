@@ -0,0 +1,1221 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>YRBService</code> class serves the search and purchase operations of
+ *         <code>YRBAPP</code> as <b>JSON</b> endpoints using the embedded JDK <code>HttpServer</code>,
+ *         so that a single JVM can serve many clients at once. <br>
+ *         <br>
+ *
+ *         The endpoints are (parameters are read from the query string or from a form encoded body):
+ *         <ul>
+ *         <li><code>GET /customers?after=&amp;before=&amp;limit=</code> lists a page of customers
+ *         after or before a customer ID.</li>
+ *         <li><code>GET /customers/range</code> finds the minimum and the maximum customer IDs.</li>
+ *         <li><code>GET /customers/{cid}</code> looks up a customer.</li>
+ *         <li><code>PUT /customers/{cid}?name=&amp;city=</code> updates the name and/or the city of
+ *         a customer.</li>
+ *         <li><code>GET /categories</code> lists the categories.</li>
+ *         <li><code>GET /books?category=</code> lists the books of a category.</li>
+ *         <li><code>GET /customers/{cid}/price?title=&amp;year=</code> quotes the best price of a book
+ *         for a customer.</li>
+ *         <li><code>POST /customers/{cid}/purchases?title=&amp;year=&amp;quantity=</code> buys a book
+ *         at its best price.</li>
+ *         <li><code>GET /customers/{cid}/purchases?from=YYYY-MM-DD</code> lists the purchases of a
+ *         customer.</li>
+ *         <li><code>GET /metrics</code> serves the service metrics like <code>MetricsServer</code>.</li>
+ *         </ul>
+ *         Errors are answered with <code>{"error": message}</code> and the status <code>400</code>
+ *         for invalid parameters, <code>404</code> for missing rows, <code>409</code> for constraint
+ *         violations, <code>503</code> when no connection or no database time is available and
+ *         <code>500</code> otherwise. <br>
+ *         <br>
+ *
+ *         Every request runs on its own virtual thread when the runtime has them (and on a fixed pool
+ *         of platform threads otherwise) and is answered by a <code>Session</code> of a single shared
+ *         <code>YRBStore</code>, which borrows a connection of a <code>ConnectionPool</code> for its
+ *         transaction. Every request is a transaction of its own: writes are committed before the
+ *         response is sent and anything else is rolled back when the session is closed. <br>
+ *         <br>
+ *
+ *         The customers may be sharded over several databases, see
+ *         <code>YRBService.SHARD_URLS_PROPERTY</code>.
+ *
+ * @see #start(int, ConnectionPool)
+ * @see #main(String[])
+ *
+ * @see YRBStore
+ * @see ConnectionPool
+ * @see JsonWriter
+ */
+public final class YRBService implements AutoCloseable {
+	/**
+	 * The name of the system property holding the port of the service.
+	 *
+	 * @see #DEFAULT_PORT
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String PORT_PROPERTY = "yrbapp.service.port";
+
+	/**
+	 * The name of the system property holding the database URL of the service.
+	 *
+	 * @see YRBAPP#DEFAULT_URL
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String URL_PROPERTY = "yrbapp.service.url";
+
+	/**
+	 * The name of the system property holding the number of pooled connections of the service.
+	 *
+	 * @see ConnectionPool#DEFAULT_SIZE
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String POOL_SIZE_PROPERTY = "yrbapp.service.pool";
+
+	/**
+	 * The name of the system property holding the comma separated URLs of the read replicas of the
+	 * service, each of which gets a pool of <code>YRBService.POOL_SIZE_PROPERTY</code> connections.
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String REPLICA_URLS_PROPERTY = "yrbapp.service.replicas";
+
+	/**
+	 * The name of the system property holding the comma separated URLs of the shards of the service,
+	 * each of which gets a pool of <code>YRBService.POOL_SIZE_PROPERTY</code> connections. The
+	 * service is not sharded and uses <code>YRBService.URL_PROPERTY</code> if it is not set.
+	 *
+	 * @see #SHARD_MAP_PROPERTY
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String SHARD_URLS_PROPERTY = "yrbapp.service.shards";
+
+	/**
+	 * The name of the system property holding the map of the customers to the shards of
+	 * <code>YRBService.SHARD_URLS_PROPERTY</code>, i.e. <code>hash</code> (the default) or
+	 * <code>range:b1,b2,...</code>.
+	 *
+	 * @see ShardMap#parse(String, int)
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String SHARD_MAP_PROPERTY = "yrbapp.service.sharding";
+
+	/**
+	 * The name of the system property holding the number of milliseconds within which every request
+	 * must be answered.
+	 *
+	 * @see #DEFAULT_DEADLINE
+	 */
+	// Strings are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final String DEADLINE_PROPERTY = "yrbapp.service.deadline";
+
+	/**
+	 * The default port of the service.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * The default number of milliseconds within which every request must be answered, which leaves a
+	 * client time to retry before a single statement would have timed out.
+	 */
+	// ints are immutable in Java which is why making this final variable public,
+	// does not pose any issues against encapsulation.
+	public static final int DEFAULT_DEADLINE = 3000;
+
+	/**
+	 * The content type of every response.
+	 */
+	private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+	/**
+	 * The status and the body of a response.
+	 */
+	private static final class Reply {
+		/**
+		 * The HTTP status.
+		 */
+		private final int status;
+
+		/**
+		 * The JSON body.
+		 */
+		private final String body;
+
+		/**
+		 * General constructor for a <code>Reply</code> object.
+		 *
+		 * @param status
+		 *            the HTTP status
+		 *
+		 * @param body
+		 *            the JSON body
+		 */
+		private Reply(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * A database operation that answers a single request.
+	 */
+	@FunctionalInterface
+	private static interface Operation {
+		/**
+		 * Answer the request using the given session.
+		 *
+		 * @param session
+		 *            the session of the request
+		 *
+		 * @return The reply.
+		 *
+		 * @throws SQLException
+		 *             If a statement failed
+		 */
+		Reply apply(Session session) throws SQLException;
+	}
+
+	/**
+	 * The store that answers the requests, which is shared by all of them.
+	 */
+	private final YRBStore store;
+
+	/**
+	 * The number of nanoseconds within which every request must be answered.
+	 */
+	private final long deadline;
+
+	/**
+	 * The underlying HTTP server.
+	 */
+	private final HttpServer server;
+
+	/**
+	 * The threads that handle the requests.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The latency of every endpoint.
+	 */
+	private final ConcurrentHashMap<String, LatencyHistogram> latencies;
+
+	/**
+	 * The number of requests of every endpoint and status, keyed by their label string.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> requests;
+
+	/**
+	 * A fixed capacity log of the most recent errors.
+	 */
+	private final ErrorLog errors;
+
+	/**
+	 * The service metrics.
+	 */
+	private final Metrics metrics;
+
+	/**
+	 * General constructor for a <code>YRBService</code> object.
+	 *
+	 * @param store
+	 *            the store that answers the requests
+	 *
+	 * @param server
+	 *            the underlying HTTP server
+	 *
+	 * @param executor
+	 *            the threads that handle the requests
+	 */
+	private YRBService(YRBStore store, HttpServer server, ExecutorService executor) {
+		this.store = store;
+		this.deadline = TimeUnit.MILLISECONDS
+				.toNanos(Integer.getInteger(YRBService.DEADLINE_PROPERTY, YRBService.DEFAULT_DEADLINE));
+		this.server = server;
+		this.executor = executor;
+		this.latencies = new ConcurrentHashMap<String, LatencyHistogram>();
+		this.requests = new ConcurrentHashMap<String, LongAdder>();
+		this.errors = new ErrorLog();
+		this.metrics = new Metrics();
+
+		this.metrics.register("yrb_http_requests_total", "Requests by endpoint and status.", "counter", () -> {
+			TreeMap<String, Long> result = new TreeMap<String, Long>();
+			for (Map.Entry<String, LongAdder> e : this.requests.entrySet()) {
+				result.put(e.getKey(), e.getValue().sum());
+			}
+			return result;
+		});
+		this.metrics.summary("yrb_http_request_duration_seconds", "Request latency by endpoint.", () -> {
+			TreeMap<String, LatencyHistogram> result = new TreeMap<String, LatencyHistogram>();
+			for (Map.Entry<String, LatencyHistogram> e : this.latencies.entrySet()) {
+				result.put(Metrics.labels("endpoint", e.getKey()), e.getValue());
+			}
+			return result;
+		});
+		this.metrics.register("yrb_db_connections_open", "Open database connections.", "gauge",
+				() -> Collections.singletonMap("", this.store.getPool().getOpen()));
+		this.metrics.register("yrb_db_connections_active", "Database connections in use.", "gauge",
+				() -> Collections.singletonMap("", this.store.getPool().getActive()));
+		this.metrics.register("yrb_coalesced_queries_total", "Calls that shared an identical read in flight.",
+				"counter", () -> {
+					TreeMap<String, Long> result = new TreeMap<String, Long>();
+					for (Map.Entry<String, Long> e : this.store.getCoalesced().entrySet()) {
+						result.put(Metrics.labels("statement", e.getKey()), e.getValue());
+					}
+					return result;
+				});
+		this.metrics.register("yrb_shard_statements_total", "Executed statements by shard.", "counter",
+				() -> this.store.getShardCounts());
+		this.metrics.register("yrb_routed_statements_total", "Executed statements by target database.", "counter",
+				() -> this.store.getRoutes());
+		this.metrics.register("yrb_admission_limit", "Adaptive concurrency limit by statement.", "gauge", () -> {
+			TreeMap<String, Double> result = new TreeMap<String, Double>();
+			for (Map.Entry<String, Double> e : this.store.getAdmission().getLimits().entrySet()) {
+				result.put(Metrics.labels("statement", e.getKey()), e.getValue());
+			}
+			return result;
+		});
+		this.metrics.register("yrb_admission_queries", "Admitted and queued statements by state.", "gauge",
+				() -> this.store.getAdmission().getQueries());
+		this.metrics.register("yrb_admission_rejected_total", "Rejected statements by reason.", "counter",
+				() -> this.store.getAdmission().getRejected());
+		this.metrics.register("yrb_errors_total", "Logged errors by statement category.", "counter", () -> {
+			TreeMap<String, Long> result = new TreeMap<String, Long>();
+			for (Map.Entry<String, Long> e : this.errors.getCounts().entrySet()) {
+				result.put(Metrics.labels("category", e.getKey()), e.getValue());
+			}
+			return result;
+		});
+		this.metrics.summary("yrb_query_duration_seconds", "Statement latency by phase.", () -> {
+			TreeMap<String, LatencyHistogram> result = new TreeMap<String, LatencyHistogram>();
+			for (QueryStatistics s : this.store.getStatistics().values()) {
+				result.put(Metrics.labels("statement", s.name, "phase", "prepare"), s.prepare);
+				result.put(Metrics.labels("statement", s.name, "phase", "bind"), s.bind);
+				result.put(Metrics.labels("statement", s.name, "phase", "execute"), s.execute);
+				result.put(Metrics.labels("statement", s.name, "phase", "fetch"), s.fetch);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Start serving the operations on the given port of all local addresses. The pool is not owned by
+	 * the service, i.e. it stays open after <code>close()</code>.
+	 *
+	 * @param port
+	 *            the port or <code>0</code> for an ephemeral port
+	 *
+	 * @param pool
+	 *            the pool that every request borrows its connection from
+	 *
+	 * @return The started service.
+	 *
+	 * @throws IOException
+	 *             If the server could not be bound to the given port
+	 *
+	 * @throws NullPointerException
+	 *             If <code>pool == null</code>
+	 */
+	public static YRBService start(int port, ConnectionPool pool) throws IOException, NullPointerException {
+		return YRBService.start(port, pool, Collections.<ConnectionPool>emptyList());
+	}
+
+	/**
+	 * Start serving the operations on the given port of all local addresses, with the category, book
+	 * and offer reads spread over the given read replicas. The pools are not owned by the service,
+	 * i.e. they stay open after <code>close()</code>.
+	 *
+	 * @param port
+	 *            the port or <code>0</code> for an ephemeral port
+	 *
+	 * @param pool
+	 *            the pool of the primary
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas, which may be empty
+	 *
+	 * @return The started service.
+	 *
+	 * @throws IOException
+	 *             If the server could not be bound to the given port
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>pool == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code>
+	 *
+	 * @see YRBStore#YRBStore(ConnectionPool, List, SlowQueryLog)
+	 */
+	public static YRBService start(int port, ConnectionPool pool, List<ConnectionPool> replicas)
+			throws IOException, NullPointerException {
+		if (pool == null) {
+			throw new NullPointerException("Given connection pool is null.");
+		}
+
+		return YRBService.start(port, Collections.singletonList(pool), ShardMap.hash(1), replicas);
+	}
+
+	/**
+	 * Start serving the operations on the given port of all local addresses, with the customers
+	 * sharded over the given pools and the category and book reads spread over the given read
+	 * replicas. The pools are not owned by the service, i.e. they stay open after
+	 * <code>close()</code>.
+	 *
+	 * @param port
+	 *            the port or <code>0</code> for an ephemeral port
+	 *
+	 * @param shards
+	 *            the pools of the shards in the order of <code>shardMap</code>
+	 *
+	 * @param shardMap
+	 *            the map of the customers to <code>shards</code>
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas, which may be empty
+	 *
+	 * @return The started service.
+	 *
+	 * @throws IOException
+	 *             If the server could not be bound to the given port
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>shards == null</code> or it contains <code>null</code> <br>
+	 *             If <code>shardMap == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>shards.size() != shardMap.getShards()</code>
+	 *
+	 * @see YRBStore#YRBStore(List, ShardMap, List, SlowQueryLog)
+	 */
+	public static YRBService start(int port, List<ConnectionPool> shards, ShardMap shardMap,
+			List<ConnectionPool> replicas) throws IOException, NullPointerException, IllegalArgumentException {
+		YRBStore store = new YRBStore(shards, shardMap, replicas, null);
+		int size = 0;
+		for (ConnectionPool shard : store.getShards()) {
+			size += shard.getSize();
+		}
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		ExecutorService executor = AsyncStore.newExecutor(size, "yrbapp-service");
+		YRBService result = new YRBService(store, server, executor);
+		server.createContext("/", result::handle);
+		server.createContext(MetricsServer.PATH, exchange -> MetricsServer.handle(exchange, result.metrics));
+		server.setExecutor(executor);
+		server.start();
+		return result;
+	}
+
+	/**
+	 * Returns the port that the service is bound to.
+	 *
+	 * @return <code>this.server.getAddress().getPort()</code>.
+	 */
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns whether the requests run on virtual threads.
+	 *
+	 * @return <code>!(this.executor instanceof ThreadPoolExecutor)</code>.
+	 */
+	public boolean isVirtual() {
+		return !(this.executor instanceof ThreadPoolExecutor);
+	}
+
+	/**
+	 * Returns the service metrics.
+	 *
+	 * @return <code>this.metrics</code>.
+	 */
+	public Metrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Returns the error log of the service.
+	 *
+	 * @return <code>this.errors</code>.
+	 */
+	public ErrorLog getErrorLog() {
+		return this.errors;
+	}
+
+	/**
+	 * Returns the runtime statistics of every prepared statement that has been used thus far.
+	 *
+	 * @return A <code>TreeMap&lt;String, QueryStatistics&gt;</code> mapping statement names to their
+	 *         statistics.
+	 */
+	public TreeMap<String, QueryStatistics> getStatistics() {
+		return this.store.getStatistics();
+	}
+
+	/**
+	 * Route a single request to its operation and send the reply.
+	 *
+	 * @param exchange
+	 *            the HTTP exchange
+	 *
+	 * @throws IOException
+	 *             If the request could not be read or the response could not be written
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		String endpoint = "unknown";
+		Reply reply;
+		try {
+			String method = exchange.getRequestMethod();
+			String[] path = exchange.getRequestURI().getPath().split("/");
+			Map<String, String> params = YRBService.parameters(exchange);
+
+			if (path.length == 2 && path[1].equals("customers")) {
+				endpoint = "list_customers";
+				String after = params.get("after"), before = params.get("before");
+				if (after != null && before != null) {
+					throw new IllegalArgumentException("Given after and before are mutually exclusive.");
+				}
+				boolean forward = (before == null);
+				int cid = (forward ? (after == null ? Integer.MIN_VALUE : YRBService.parseInt("after", after))
+						: YRBService.parseInt("before", before));
+				String value = params.get("limit");
+				int limit = (value == null ? YRBAPPUtility.DEFAULT_PAGE_SIZE : YRBService.parseInt("limit", value));
+				reply = (method.equals("GET") ? this.call(c -> this.listCustomers(c, cid, forward, limit))
+						: YRBService.notAllowed(method));
+			} else if (path.length == 3 && path[1].equals("customers") && path[2].equals("range")) {
+				endpoint = "customer_range";
+				reply = (method.equals("GET") ? this.call(this::customerRange) : YRBService.notAllowed(method));
+			} else if (path.length == 2 && path[1].equals("categories")) {
+				endpoint = "list_categories";
+				reply = (method.equals("GET") ? this.call(this::listCategories) : YRBService.notAllowed(method));
+			} else if (path.length == 2 && path[1].equals("books")) {
+				endpoint = "list_books";
+				String category = YRBService.required(params, "category");
+				reply = (method.equals("GET") ? this.call(c -> this.listBooks(c, category))
+						: YRBService.notAllowed(method));
+			} else if (path.length == 3 && path[1].equals("customers")) {
+				int cid = YRBService.parseInt("customer ID", path[2]);
+				if (method.equals("GET")) {
+					endpoint = "lookup_customer";
+					reply = this.call(c -> this.lookupCustomer(c, cid));
+				} else if (method.equals("PUT") || method.equals("POST")) {
+					endpoint = "update_customer";
+					reply = this.call(c -> this.updateCustomer(c, cid, params.get("name"), params.get("city")));
+				} else {
+					reply = YRBService.notAllowed(method);
+				}
+			} else if (path.length == 4 && path[1].equals("customers") && path[3].equals("price")) {
+				endpoint = "quote_price";
+				int cid = YRBService.parseInt("customer ID", path[2]);
+				String title = YRBService.required(params, "title");
+				short year = YRBService.parseShort("year", YRBService.required(params, "year"));
+				reply = (method.equals("GET") ? this.call(c -> this.quotePrice(c, cid, title, year))
+						: YRBService.notAllowed(method));
+			} else if (path.length == 4 && path[1].equals("customers") && path[3].equals("purchases")) {
+				int cid = YRBService.parseInt("customer ID", path[2]);
+				if (method.equals("GET")) {
+					endpoint = "history";
+					Timestamp from = YRBService.parseDate("from", params.get("from"));
+					reply = this.call(c -> this.history(c, cid, from));
+				} else if (method.equals("POST")) {
+					endpoint = "purchase";
+					String title = YRBService.required(params, "title");
+					short year = YRBService.parseShort("year", YRBService.required(params, "year"));
+					short quantity = YRBService.parseShort("quantity", YRBService.required(params, "quantity"));
+					reply = this.call(c -> this.purchase(c, cid, title, year, quantity));
+				} else {
+					reply = YRBService.notAllowed(method);
+				}
+			} else {
+				reply = YRBService.error(404, "Given path(" + exchange.getRequestURI().getPath() + ") does not exist.");
+			}
+		} catch (IllegalArgumentException ex) {
+			reply = YRBService.error(400, ex.getMessage());
+		} catch (SQLTransientException ex) {
+			// The pool or the database is out of capacity, which the client can retry later.
+			this.errors.log(endpoint, "Transient failure.", ex);
+			reply = YRBService.error(503, ex.getMessage());
+		} catch (SQLException ex) {
+			if (ex.getSQLState() != null && ex.getSQLState().startsWith("23")) {
+				reply = YRBService.error(409, ex.getMessage());
+			} else {
+				this.errors.log(endpoint, "Failed to answer the request.", ex);
+				reply = YRBService.error(500, ex.getMessage());
+			}
+		} catch (RuntimeException ex) {
+			this.errors.log(endpoint, "Failed to answer the request.", ex);
+			reply = YRBService.error(500, String.valueOf(ex));
+		}
+
+		try {
+			byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", YRBService.CONTENT_TYPE);
+			exchange.sendResponseHeaders(reply.status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+			this.latencies.computeIfAbsent(endpoint, k -> new LatencyHistogram()).record(System.nanoTime() - start);
+			this.requests.computeIfAbsent(
+					Metrics.labels("endpoint", endpoint, "status", Integer.toString(reply.status)),
+					k -> new LongAdder()).increment();
+		}
+	}
+
+	/**
+	 * Run the given operation on a new session of <code>this.store</code>, whose transaction is rolled
+	 * back unless the operation committed it. The statements of the session must finish within
+	 * <code>this.deadline</code>, or are rejected before they start if they cannot.
+	 *
+	 * @param operation
+	 *            the operation
+	 *
+	 * @return The reply of the operation.
+	 *
+	 * @throws SQLException
+	 *             If no connection became available or the operation failed
+	 */
+	private Reply call(Operation operation) throws SQLException {
+		try (Session session = this.store.open()) {
+			session.setDeadline(System.nanoTime() + this.deadline);
+			return operation.apply(session);
+		}
+	}
+
+	/**
+	 * Look up a customer.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return The customer or <code>404</code>.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#findCustomer(Session, int)
+	 */
+	private Reply lookupCustomer(Session session, int cid) throws SQLException {
+		if (!this.store.findCustomer(session, cid)) {
+			return YRBService.notFound(cid);
+		}
+		return new Reply(200, YRBService.customer(session));
+	}
+
+	/**
+	 * List a page of customers over all shards.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID to continue from (exclusive)
+	 *
+	 * @param forward
+	 *            <code>forward ? "customers after cid" : "customers before cid"</code>
+	 *
+	 * @param limit
+	 *            the maximum number of customers
+	 *
+	 * @return The customers in ascending customer ID order.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#findCustomerPage(Session, int, boolean, int)
+	 */
+	private Reply listCustomers(Session session, int cid, boolean forward, int limit)
+			throws IllegalArgumentException, SQLException {
+		ArrayList<Customer> customers = this.store.findCustomerPage(session, cid, forward, limit);
+		if (!forward) {
+			Collections.reverse(customers);
+		}
+
+		JsonWriter json = new JsonWriter().beginObject().name("customers").beginArray();
+		for (Customer c : customers) {
+			json.beginObject().name("cid").value(c.cid).name("name").value(c.name).name("city").value(c.city)
+					.endObject();
+		}
+		return new Reply(200, json.endArray().endObject().toString());
+	}
+
+	/**
+	 * Find the minimum and the maximum customer IDs over all shards.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @return The range or <code>404</code> if there are no customers.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#findCidRange(Session)
+	 */
+	private Reply customerRange(Session session) throws SQLException {
+		int[] range = this.store.findCidRange(session);
+		if (range == null) {
+			return YRBService.error(404, "There are no customers in the database.");
+		}
+		return new Reply(200,
+				new JsonWriter().beginObject().name("min").value(range[0]).name("max").value(range[1]).endObject().toString());
+	}
+
+	/**
+	 * Update the name and/or the city of a customer and commit.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param name
+	 *            the new name or <code>null</code> to keep the current one
+	 *
+	 * @param city
+	 *            the new city or <code>null</code> to keep the current one
+	 *
+	 * @return The updated customer or <code>404</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>name == null &amp;&amp; city == null</code> <br>
+	 *             If the length of <code>name</code> or <code>city</code> is out of range
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 *
+	 * @see YRBStore#updateCustomer(Session, String, String)
+	 */
+	private Reply updateCustomer(Session session, int cid, String name, String city)
+			throws IllegalArgumentException, SQLException {
+		if (!this.store.updateCustomer(session.setCustomer(cid), name, city)) {
+			return YRBService.notFound(cid);
+		}
+		session.commit();
+		return new Reply(200, YRBService.customer(session));
+	}
+
+	/**
+	 * List the categories.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @return The categories.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#fetchCategories(Session)
+	 */
+	private Reply listCategories(Session session) throws SQLException {
+		JsonWriter json = new JsonWriter().beginObject().name("categories").beginArray();
+		for (String category : this.store.fetchCategories(session)) {
+			json.value(category);
+		}
+		return new Reply(200, json.endArray().endObject().toString());
+	}
+
+	/**
+	 * List the books of a category.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param category
+	 *            the category
+	 *
+	 * @return The books ordered by year and title, which is empty if the category does not exist.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#findBooks(Session)
+	 */
+	private Reply listBooks(Session session, String category) throws SQLException {
+		JsonWriter json = new JsonWriter().beginObject().name("category").value(category).name("books").beginArray();
+		for (Book b : this.store.findBooks(session.setCategory(category))) {
+			json.beginObject().name("title").value(b.title).name("year").value(b.year).name("language")
+					.value(b.getLanguage()).name("weight").value(b.weight).endObject();
+		}
+		return new Reply(200, json.endArray().endObject().toString());
+	}
+
+	/**
+	 * Choose the given customer and book in the given session.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param title
+	 *            the book title
+	 *
+	 * @param year
+	 *            the book year
+	 *
+	 * @return <code>session</code>.
+	 */
+	private static Session choose(Session session, int cid, String title, short year) {
+		// Pass dummy values for category and weight since they are not part of the
+		// primary key and as such, will not have any effects on the lookup.
+		return session.setCustomer(cid).setBook(new Book(title, year, "", (short) 0));
+	}
+
+	/**
+	 * Quote the best price of a book for a customer.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param title
+	 *            the book title
+	 *
+	 * @param year
+	 *            the book year
+	 *
+	 * @return The offer or <code>404</code>.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#minPrice(Session)
+	 */
+	private Reply quotePrice(Session session, int cid, String title, short year) throws SQLException {
+		Purchase offer = this.store.minPrice(YRBService.choose(session, cid, title, year));
+		if (offer == null) {
+			return YRBService.notOffered(cid, title, year);
+		}
+		return new Reply(200, new JsonWriter().beginObject().name("cid").value(offer.cid).name("club").value(offer.club)
+				.name("title").value(offer.title).name("year").value(offer.year).name("price").value(offer.price)
+				.endObject().toString());
+	}
+
+	/**
+	 * Buy a book at its best price for a customer and commit.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param title
+	 *            the book title
+	 *
+	 * @param year
+	 *            the book year
+	 *
+	 * @param quantity
+	 *            the number of copies
+	 *
+	 * @return The purchase with status <code>201</code> or <code>404</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>quantity &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 *
+	 * @see YRBStore#purchase(Session, short)
+	 */
+	private Reply purchase(Session session, int cid, String title, short year, short quantity)
+			throws IllegalArgumentException, SQLException {
+		Purchase purchase = this.store.purchase(YRBService.choose(session, cid, title, year), quantity);
+		if (purchase == null) {
+			return YRBService.notOffered(cid, title, year);
+		}
+		session.commit();
+		return new Reply(201, YRBService.write(new JsonWriter(), purchase).toString());
+	}
+
+	/**
+	 * List the purchases of a customer.
+	 *
+	 * @param session
+	 *            the session of the request
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param from
+	 *            the earliest purchase time
+	 *
+	 * @return The purchases ordered by time, which is empty if the customer does not exist.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBStore#findPurchases(Session, Timestamp)
+	 */
+	private Reply history(Session session, int cid, Timestamp from) throws SQLException {
+		JsonWriter json = new JsonWriter().beginObject().name("cid").value(cid).name("purchases").beginArray();
+		for (Purchase p : this.store.findPurchases(session.setCustomer(cid), from)) {
+			YRBService.write(json, p);
+		}
+		return new Reply(200, json.endArray().endObject().toString());
+	}
+
+	/**
+	 * Write the given purchase as an object.
+	 *
+	 * @param json
+	 *            the writer
+	 *
+	 * @param purchase
+	 *            the purchase
+	 *
+	 * @return <code>json</code>.
+	 */
+	private static JsonWriter write(JsonWriter json, Purchase purchase) {
+		return json.beginObject().name("cid").value(purchase.cid).name("club").value(purchase.club).name("title")
+				.value(purchase.title).name("year").value(purchase.year).name("when")
+				.value(purchase.getWhen().toInstant().toString()).name("quantity").value(purchase.getQuantity())
+				.name("price").value(purchase.price).name("total").value(purchase.getQuantity() * purchase.price)
+				.endObject();
+	}
+
+	/**
+	 * Returns the chosen customer of the given session as an object.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The JSON object.
+	 */
+	private static String customer(Session session) {
+		return new JsonWriter().beginObject().name("cid").value(session.getCid().intValue()).name("name")
+				.value(session.getName()).name("city").value(session.getCity()).endObject().toString();
+	}
+
+	/**
+	 * Returns an error reply.
+	 *
+	 * @param status
+	 *            the HTTP status
+	 *
+	 * @param message
+	 *            the error message
+	 *
+	 * @return The reply.
+	 */
+	private static Reply error(int status, String message) {
+		return new Reply(status, new JsonWriter().beginObject().name("error").value(message).endObject().toString());
+	}
+
+	/**
+	 * Returns the <code>404</code> reply of a customer that does not exist.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return The reply.
+	 */
+	private static Reply notFound(int cid) {
+		return YRBService.error(404, "Given customer ID(" + cid + ") does not exist in the database.");
+	}
+
+	/**
+	 * Returns the <code>405</code> reply of the given method.
+	 *
+	 * @param method
+	 *            the HTTP method
+	 *
+	 * @return The reply.
+	 */
+	private static Reply notAllowed(String method) {
+		return YRBService.error(405, "Given method(" + method + ") is not allowed.");
+	}
+
+	/**
+	 * Returns the <code>404</code> reply of a book that is not offered to a customer.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @param title
+	 *            the book title
+	 *
+	 * @param year
+	 *            the book year
+	 *
+	 * @return The reply.
+	 */
+	private static Reply notOffered(int cid, String title, short year) {
+		return YRBService.error(404,
+				"Given book(" + title + ", " + year + ") is not offered to the customer with ID: " + cid);
+	}
+
+	/**
+	 * Returns the parameters of the query string and of a form encoded body, where the body wins.
+	 *
+	 * @param exchange
+	 *            the HTTP exchange
+	 *
+	 * @return A <code>HashMap&lt;String, String&gt;</code> mapping parameter names to their values.
+	 *
+	 * @throws IOException
+	 *             If the body could not be read
+	 */
+	private static HashMap<String, String> parameters(HttpExchange exchange) throws IOException {
+		HashMap<String, String> result = new HashMap<String, String>();
+		YRBService.decode(exchange.getRequestURI().getRawQuery(), result);
+
+		String type = exchange.getRequestHeaders().getFirst("Content-Type");
+		if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			try (InputStream in = exchange.getRequestBody()) {
+				byte[] buffer = new byte[1024];
+				for (int n; (n = in.read(buffer)) != -1;) {
+					body.write(buffer, 0, n);
+				}
+			}
+			YRBService.decode(new String(body.toByteArray(), StandardCharsets.UTF_8), result);
+		}
+		return result;
+	}
+
+	/**
+	 * Decode the given form encoded parameters into the given map.
+	 *
+	 * @param encoded
+	 *            the encoded parameters, could be <code>null</code>
+	 *
+	 * @param result
+	 *            the map of parameter names to their values
+	 */
+	private static void decode(String encoded, HashMap<String, String> result) {
+		if (encoded == null || encoded.isEmpty()) {
+			return;
+		}
+
+		for (String pair : encoded.split("&")) {
+			int i = pair.indexOf('=');
+			String name = (i < 0 ? pair : pair.substring(0, i)), value = (i < 0 ? "" : pair.substring(i + 1));
+			result.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Returns the value of the given required parameter.
+	 *
+	 * @param params
+	 *            the parameters
+	 *
+	 * @param name
+	 *            the parameter name
+	 *
+	 * @return The value.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the parameter is missing
+	 */
+	private static String required(Map<String, String> params, String name) throws IllegalArgumentException {
+		String result = params.get(name);
+		if (result == null) {
+			throw new IllegalArgumentException("Missing parameter(" + name + ").");
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the given value as an integer.
+	 *
+	 * @param name
+	 *            the parameter name
+	 *
+	 * @param value
+	 *            the parameter value
+	 *
+	 * @return The integer.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>value</code> is not a valid integer
+	 */
+	private static int parseInt(String name, String value) throws IllegalArgumentException {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Given " + name + "(" + value + ") is not a valid integer.");
+		}
+	}
+
+	/**
+	 * Returns the given value as a short integer.
+	 *
+	 * @param name
+	 *            the parameter name
+	 *
+	 * @param value
+	 *            the parameter value
+	 *
+	 * @return The short integer.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>value</code> is not a valid short integer
+	 */
+	private static short parseShort(String name, String value) throws IllegalArgumentException {
+		try {
+			return Short.parseShort(value);
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Given " + name + "(" + value + ") is not a valid short integer.");
+		}
+	}
+
+	/**
+	 * Returns the start of the given day, or the start of time if no day is given.
+	 *
+	 * @param name
+	 *            the parameter name
+	 *
+	 * @param value
+	 *            the parameter value in the form <code>YYYY-MM-DD</code>, could be <code>null</code>
+	 *
+	 * @return The timestamp.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>value</code> is not a valid date
+	 */
+	private static Timestamp parseDate(String name, String value) throws IllegalArgumentException {
+		if (value == null) {
+			return new Timestamp(0L);
+		}
+
+		try {
+			return Timestamp.valueOf(LocalDate.parse(value).atStartOfDay());
+		} catch (DateTimeParseException ex) {
+			throw new IllegalArgumentException("Given " + name + "(" + value + ") is not a valid date(YYYY-MM-DD).");
+		}
+	}
+
+	/**
+	 * Stop serving immediately. The connection pool stays open.
+	 */
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * The main method for <code>YRBService</code>, which serves the database at the URL of
+	 * <code>YRBService.URL_PROPERTY</code> (<code>YRBAPP.DEFAULT_URL</code> by default) until the JVM
+	 * is terminated.
+	 *
+	 * @param args
+	 *            the command line arguments which are ignored
+	 *
+	 * @throws IOException
+	 *             If the server could not be started
+	 *
+	 * @see #PORT_PROPERTY
+	 * @see #URL_PROPERTY
+	 * @see #POOL_SIZE_PROPERTY
+	 * @see #REPLICA_URLS_PROPERTY
+	 * @see #SHARD_URLS_PROPERTY
+	 * @see #SHARD_MAP_PROPERTY
+	 * @see #DEADLINE_PROPERTY
+	 */
+	public static void main(String[] args) throws IOException {
+		try { // Register the DB2 driver if it is there, any other driver registers itself.
+			Class.forName("com.ibm.db2.jcc.DB2Driver");
+		} catch (ClassNotFoundException ex) {
+			// Rely on the drivers of the class path.
+		}
+
+		int size = Integer.getInteger(YRBService.POOL_SIZE_PROPERTY, ConnectionPool.DEFAULT_SIZE);
+		ArrayList<ConnectionPool> shards = YRBService.pools(System.getProperty(YRBService.SHARD_URLS_PROPERTY, ""), size);
+		if (shards.isEmpty()) {
+			shards.add(new ConnectionPool(System.getProperty(YRBService.URL_PROPERTY, YRBAPP.DEFAULT_URL), size));
+		}
+		ShardMap shardMap = ShardMap.parse(System.getProperty(YRBService.SHARD_MAP_PROPERTY, "hash"), shards.size());
+		ArrayList<ConnectionPool> replicas = YRBService.pools(System.getProperty(YRBService.REPLICA_URLS_PROPERTY, ""),
+				size);
+		YRBService service = YRBService.start(Integer.getInteger(YRBService.PORT_PROPERTY, YRBService.DEFAULT_PORT),
+				shards, shardMap, replicas);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			service.close();
+			for (ConnectionPool shard : shards) {
+				shard.close();
+			}
+			for (ConnectionPool replica : replicas) {
+				replica.close();
+			}
+		}));
+		System.out.println("Serving " + shards.size() + " shards by " + shardMap + " and " + replicas.size()
+				+ " read replicas on port " + service.getPort() + " with " + size + " connections each on "
+				+ (service.isVirtual() ? "virtual" : "platform") + " threads.");
+	}
+
+	/**
+	 * Returns a pool of the given size for every URL of the given comma separated list.
+	 *
+	 * @param urls
+	 *            the comma separated URLs, of which the blank ones are skipped
+	 *
+	 * @param size
+	 *            the number of connections of every pool
+	 *
+	 * @return The pools in the order of <code>urls</code>.
+	 */
+	private static ArrayList<ConnectionPool> pools(String urls, int size) {
+		ArrayList<ConnectionPool> result = new ArrayList<ConnectionPool>();
+		for (String url : urls.split(",")) {
+			if (!url.trim().isEmpty()) {
+				result.add(new ConnectionPool(url.trim(), size));
+			}
+		}
+		return result;
+	}
+}
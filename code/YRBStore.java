@@ -0,0 +1,1617 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Ashkan Moatamed <br>
+ *         <br>
+ *         The <code>YRBStore</code> class holds the data access and purchase logic of the
+ *         <b>Search and Purchase</b> application for the <b><i>York River Bookseller's
+ *         Database</i></b>, separately from any user interface. <br>
+ *         <br>
+ *
+ *         A store is reentrant: everything that belongs to a single shopping session (the chosen
+ *         customer, category and book, the cart and the transaction) is kept in the
+ *         <code>Session</code> passed to every method, and the store itself only holds a connection
+ *         pool and thread-safe statistics. Many threads can therefore use the same store at once, as
+ *         long as every session is used by one thread at a time, without taking any lock beyond the
+ *         pool's semaphore. <br>
+ *         <br>
+ *
+ *         Every method throws the <code>SQLException</code> of a failed statement and leaves the
+ *         decision whether to retry, commit or rollback to the caller. <br>
+ *         <br>
+ *
+ *         A store may have read replicas, in which case the category, book and offer reads are spread
+ *         over the replicas and everything else runs on the primary. A session that writes, and
+ *         every session of the same customer for a short while after that, reads from the primary
+ *         so that its own writes are never missing because of replication lag. <br>
+ *         <br>
+ *
+ *         A store may also be sharded, in which case the data of every customer lives on the shard
+ *         that its <code>ShardMap</code> picks and the catalog is replicated to every shard. The
+ *         statements of a customer run on its shard, and the statements over all customers run on
+ *         every shard in parallel and have their results merged.
+ *
+ * @see #open()
+ * @see Session
+ * @see ShardMap
+ *
+ * @see YRBService
+ * @see YRBAPPUtility
+ */
+public final class YRBStore {
+	/**
+	 * The number of executions of every statement that may wait for admission, per pooled
+	 * connection.
+	 */
+	private static final int QUEUE_FACTOR = 4;
+
+	/**
+	 * The number of nanoseconds after the commit of a write during which the reads of the same
+	 * customer stay on the primary, which must cover the replication lag.
+	 */
+	private static final long PIN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	/**
+	 * The reads that may run on a read replica.
+	 */
+	private static final HashSet<String> REPLICA_READS = new HashSet<String>(Arrays.asList(
+			YRBAPPUtility.CATEGORY_QUERY_TEXT, YRBAPPUtility.BOOK_QUERY_TEXT, YRBAPPUtility.BOOK_PAGE_QUERY_TEXT,
+			YRBAPPUtility.BOOK_PREVIOUS_PAGE_QUERY_TEXT, YRBAPPUtility.BOOK_TITLE_QUERY_TEXT,
+			YRBAPPUtility.ALL_BOOK_QUERY_TEXT, YRBAPPUtility.ALL_OFFER_QUERY_TEXT, YRBAPPUtility.OFFER_QUERY_TEXT));
+
+	/**
+	 * The reads of the catalog, which is replicated to every shard.
+	 */
+	private static final HashSet<String> CATALOG_READS = new HashSet<String>(Arrays.asList(
+			YRBAPPUtility.CATEGORY_QUERY_TEXT, YRBAPPUtility.BOOK_QUERY_TEXT, YRBAPPUtility.BOOK_PAGE_QUERY_TEXT,
+			YRBAPPUtility.BOOK_PREVIOUS_PAGE_QUERY_TEXT, YRBAPPUtility.BOOK_TITLE_QUERY_TEXT,
+			YRBAPPUtility.ALL_BOOK_QUERY_TEXT, YRBAPPUtility.ALL_OFFER_QUERY_TEXT));
+
+	/**
+	 * The writes, which pin their session to the primary.
+	 */
+	private static final HashSet<String> WRITES = new HashSet<String>(
+			Arrays.asList(YRBAPPUtility.CID_UPDATE_TEXT, YRBAPPUtility.PURCHASE_INSERT_TEXT));
+
+	/**
+	 * The pool of the first shard, which the sessions borrow their connections from until they
+	 * choose a customer.
+	 */
+	private final ConnectionPool pool;
+
+	/**
+	 * The pools of the shards, the first of which is <code>this.pool</code>.
+	 */
+	private final List<ConnectionPool> shards;
+
+	/**
+	 * The map of the customers to <code>this.shards</code>.
+	 */
+	private final ShardMap shardMap;
+
+	/**
+	 * The executor of the statements that run on every shard or <code>null</code> if there is a
+	 * single shard.
+	 */
+	private final ExecutorService fanout;
+
+	/**
+	 * The number of executions by shard, keyed by their label string.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> shardCounts;
+
+	/**
+	 * The pools of the read replicas, which may be empty.
+	 */
+	private final List<ConnectionPool> replicas;
+
+	/**
+	 * The number of replica reads started thus far, which picks their replicas in turn.
+	 */
+	private final AtomicInteger next;
+
+	/**
+	 * The customers that have committed writes recently, mapping customer IDs to the
+	 * <code>System.nanoTime()</code> until which their reads stay on the primary.
+	 */
+	private final ConcurrentHashMap<Integer, Long> pins;
+
+	/**
+	 * The number of executions by statement and target (<code>primary</code> or
+	 * <code>replica</code>), keyed by their label string.
+	 */
+	private final ConcurrentHashMap<String, LongAdder> routes;
+
+	/**
+	 * The slow query log or <code>null</code> if slow executions are not logged.
+	 */
+	private final SlowQueryLog slowLog;
+
+	/**
+	 * The runtime statistics of every prepared statement, mapping the names of the
+	 * <code>YRBAPPUtility</code> constants to their statistics.
+	 */
+	private final ConcurrentHashMap<String, QueryStatistics> statistics;
+
+	/**
+	 * The identical book and offer reads in flight, which concurrent sessions share.
+	 */
+	private final SingleFlight flights;
+
+	/**
+	 * Decides which statements may run against the database.
+	 */
+	private final AdmissionController admission;
+
+	/**
+	 * The number of rows that the JDBC driver fetches from the database in a single round trip when
+	 * streaming a long result set.
+	 *
+	 * @see #setFetchSize(int)
+	 */
+	private volatile int fetchSize;
+
+	/**
+	 * General constructor for a <code>YRBStore</code> object. The pool is not owned by the store, i.e.
+	 * the caller closes it.
+	 *
+	 * @param pool
+	 *            the pool that the sessions borrow their connections from
+	 *
+	 * @param slowLog
+	 *            the slow query log or <code>null</code> to not log slow executions
+	 *
+	 * @throws NullPointerException
+	 *             If <code>pool == null</code>
+	 */
+	public YRBStore(ConnectionPool pool, SlowQueryLog slowLog) throws NullPointerException {
+		this(pool, Collections.<ConnectionPool>emptyList(), slowLog);
+	}
+
+	/**
+	 * General constructor for a <code>YRBStore</code> object with read replicas. The pools are not
+	 * owned by the store, i.e. the caller closes them.
+	 *
+	 * @param pool
+	 *            the pool of the primary
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas, which may be empty
+	 *
+	 * @param slowLog
+	 *            the slow query log or <code>null</code> to not log slow executions
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>pool == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code>
+	 */
+	public YRBStore(ConnectionPool pool, List<ConnectionPool> replicas, SlowQueryLog slowLog)
+			throws NullPointerException {
+		this(pool, replicas, slowLog, new ConcurrentHashMap<String, QueryStatistics>());
+	}
+
+	/**
+	 * General constructor for a sharded <code>YRBStore</code> object. The pools are not owned by the
+	 * store, i.e. the caller closes them.
+	 *
+	 * @param shards
+	 *            the pools of the shards in the order of <code>shardMap</code>
+	 *
+	 * @param shardMap
+	 *            the map of the customers to <code>shards</code>
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas of the catalog, which may be empty
+	 *
+	 * @param slowLog
+	 *            the slow query log or <code>null</code> to not log slow executions
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>shards == null</code> or it contains <code>null</code> <br>
+	 *             If <code>shardMap == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>shards.size() != shardMap.getShards()</code>
+	 */
+	public YRBStore(List<ConnectionPool> shards, ShardMap shardMap, List<ConnectionPool> replicas,
+			SlowQueryLog slowLog) throws NullPointerException, IllegalArgumentException {
+		this(shards, shardMap, replicas, slowLog, new ConcurrentHashMap<String, QueryStatistics>());
+	}
+
+	/**
+	 * General constructor for a <code>YRBStore</code> object that records its statement statistics
+	 * in the given map, so that they add up with the statistics of its owner.
+	 *
+	 * @param pool
+	 *            the pool of the primary
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas, which may be empty
+	 *
+	 * @param slowLog
+	 *            the slow query log or <code>null</code> to not log slow executions
+	 *
+	 * @param statistics
+	 *            the runtime statistics of every prepared statement
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>pool == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code> <br>
+	 *             If <code>statistics == null</code>
+	 */
+	YRBStore(ConnectionPool pool, List<ConnectionPool> replicas, SlowQueryLog slowLog,
+			ConcurrentHashMap<String, QueryStatistics> statistics) throws NullPointerException {
+		this(Collections.singletonList(YRBStore.requirePool(pool)), ShardMap.hash(1), replicas, slowLog, statistics);
+	}
+
+	/**
+	 * General constructor for a sharded <code>YRBStore</code> object that records its statement
+	 * statistics in the given map.
+	 *
+	 * @param shards
+	 *            the pools of the shards in the order of <code>shardMap</code>
+	 *
+	 * @param shardMap
+	 *            the map of the customers to <code>shards</code>
+	 *
+	 * @param replicas
+	 *            the pools of the read replicas of the catalog, which may be empty
+	 *
+	 * @param slowLog
+	 *            the slow query log or <code>null</code> to not log slow executions
+	 *
+	 * @param statistics
+	 *            the runtime statistics of every prepared statement
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If <code>shards == null</code> or it contains <code>null</code> <br>
+	 *             If <code>shardMap == null</code> <br>
+	 *             If <code>replicas == null</code> or it contains <code>null</code> <br>
+	 *             If <code>statistics == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>shards.size() != shardMap.getShards()</code>
+	 */
+	YRBStore(List<ConnectionPool> shards, ShardMap shardMap, List<ConnectionPool> replicas, SlowQueryLog slowLog,
+			ConcurrentHashMap<String, QueryStatistics> statistics)
+			throws NullPointerException, IllegalArgumentException {
+		if (shards == null || shards.contains(null)) {
+			throw new NullPointerException("Given shard connection pools are null.");
+		} else if (shardMap == null) {
+			throw new NullPointerException("Given shard map is null.");
+		} else if (replicas == null || replicas.contains(null)) {
+			throw new NullPointerException("Given replica connection pools are null.");
+		} else if (statistics == null) {
+			throw new NullPointerException("Given statistics are null.");
+		} else if (shards.size() != shardMap.getShards()) {
+			throw new IllegalArgumentException("Given number of shards(" + shards.size()
+					+ ") does not match the shard map(" + shardMap + ").");
+		}
+
+		int size = 0;
+		for (ConnectionPool shard : shards) {
+			size += shard.getSize();
+		}
+
+		this.pool = shards.get(0);
+		this.shards = Collections.unmodifiableList(new ArrayList<ConnectionPool>(shards));
+		this.shardMap = shardMap;
+		this.fanout = (shards.size() == 1 ? null : AsyncStore.newExecutor(size, "yrbapp-shard"));
+		this.shardCounts = new ConcurrentHashMap<String, LongAdder>();
+		this.replicas = Collections.unmodifiableList(new ArrayList<ConnectionPool>(replicas));
+		this.next = new AtomicInteger();
+		this.pins = new ConcurrentHashMap<Integer, Long>();
+		this.routes = new ConcurrentHashMap<String, LongAdder>();
+		this.slowLog = slowLog;
+		this.statistics = statistics;
+		this.flights = new SingleFlight();
+		this.admission = new AdmissionController(size, YRBStore.QUEUE_FACTOR * size);
+		this.fetchSize = YRBAPPUtility.DEFAULT_FETCH_SIZE;
+	}
+
+	/**
+	 * Returns the given pool.
+	 *
+	 * @param pool
+	 *            the pool
+	 *
+	 * @return <code>pool</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>pool == null</code>
+	 */
+	private static ConnectionPool requirePool(ConnectionPool pool) throws NullPointerException {
+		if (pool == null) {
+			throw new NullPointerException("Given connection pool is null.");
+		}
+		return pool;
+	}
+
+	/**
+	 * Returns the pool of the first shard, which is the only pool unless the store is sharded.
+	 *
+	 * @return <code>this.pool</code>.
+	 */
+	public ConnectionPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Returns the pools of the shards.
+	 *
+	 * @return An unmodifiable view of <code>this.shards</code>.
+	 */
+	public List<ConnectionPool> getShards() {
+		return this.shards;
+	}
+
+	/**
+	 * Returns the map of the customers to the shards.
+	 *
+	 * @return <code>this.shardMap</code>.
+	 */
+	public ShardMap getShardMap() {
+		return this.shardMap;
+	}
+
+	/**
+	 * Returns the number of executions by shard.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping the label strings of
+	 *         <code>shard</code> to their counts.
+	 */
+	public TreeMap<String, Long> getShardCounts() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.shardCounts.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the runtime statistics of every prepared statement that has been used thus far. The
+	 * returned statistics keep being updated as the statements are used.
+	 *
+	 * @return A <code>TreeMap&lt;String, QueryStatistics&gt;</code> mapping statement names to their
+	 *         statistics.
+	 */
+	public TreeMap<String, QueryStatistics> getStatistics() {
+		return new TreeMap<String, QueryStatistics>(this.statistics);
+	}
+
+	/**
+	 * Returns the pools of the read replicas.
+	 *
+	 * @return An unmodifiable view of <code>this.replicas</code>, which may be empty.
+	 */
+	public List<ConnectionPool> getReplicas() {
+		return this.replicas;
+	}
+
+	/**
+	 * Returns the number of executions by statement and target.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping the label strings of
+	 *         <code>statement</code> and <code>target</code> (<code>primary</code> or
+	 *         <code>replica</code>) to their counts.
+	 */
+	public TreeMap<String, Long> getRoutes() {
+		TreeMap<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : this.routes.entrySet()) {
+			result.put(e.getKey(), e.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the admission controller of the statements.
+	 *
+	 * @return <code>this.admission</code>.
+	 */
+	public AdmissionController getAdmission() {
+		return this.admission;
+	}
+
+	/**
+	 * Returns the number of calls that shared the result of an identical read in flight.
+	 *
+	 * @return A <code>TreeMap&lt;String, Long&gt;</code> mapping statement names to their counts.
+	 *
+	 * @see SingleFlight#getCoalesced()
+	 */
+	public TreeMap<String, Long> getCoalesced() {
+		return this.flights.getCoalesced();
+	}
+
+	/**
+	 * Returns the current fetch size.
+	 *
+	 * @return <code>this.fetchSize</code>.
+	 */
+	public int getFetchSize() {
+		return this.fetchSize;
+	}
+
+	/**
+	 * Set the current fetch size to the new given value.
+	 *
+	 * @param fetchSize
+	 *            the new fetch size
+	 *
+	 * @return <code>this.fetchSize</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>fetchSize &lt;= 0</code>
+	 */
+	public int setFetchSize(int fetchSize) throws IllegalArgumentException {
+		if (fetchSize <= 0) {
+			throw new IllegalArgumentException("Given fetch size(" + fetchSize + ") is not positive.");
+		}
+		return (this.fetchSize = fetchSize);
+	}
+
+	/**
+	 * Start a new session which has not chosen anything yet and has no transaction.
+	 *
+	 * @return The session.
+	 */
+	public Session open() {
+		return new Session(this.pool, this);
+	}
+
+	/**
+	 * Prepare the given SQL text on the transaction of the given session and return a statement that
+	 * records its latencies in <code>this.statistics</code>, that logs its slow executions in
+	 * <code>this.slowLog</code> and that times out like the statements of <code>YRBAPP</code>, or
+	 * earlier if the deadline of the session comes first. <br>
+	 * <br>
+	 * 
+	 * The statement is only prepared once <code>this.admission</code> admits it, and it gives its
+	 * admission back when it is closed. It is prepared on a read replica if it may run there.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement was not admitted, no connection could be borrowed or the statement
+	 *             could not be prepared
+	 *
+	 * @see AdmissionController#admit(String, long)
+	 * @see InstrumentedStatement#prepare(java.sql.Connection, String, QueryStatistics, SlowQueryLog)
+	 */
+	private PreparedStatement prepare(Session session, String sql) throws SQLException {
+		return this.prepare(session, sql, session.getCid());
+	}
+
+	/**
+	 * Same as <code>prepare(Session session, String sql)</code> but for the customer with the given ID
+	 * instead of the chosen customer of the session.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @param cid
+	 *            the customer ID, could be <code>null</code>
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement was not admitted, no connection could be borrowed or the statement
+	 *             could not be prepared
+	 *
+	 * @see #prepare(Session, String)
+	 */
+	private PreparedStatement prepare(Session session, String sql, Integer cid) throws SQLException {
+		long deadline = YRBStore.deadlineOf(session);
+		AdmissionController.Permit permit = this.admission.admit(InstrumentedStatement.nameOf(sql), deadline);
+		try {
+			return this.instrument(this.route(session, sql, cid), sql, deadline, permit);
+		} catch (SQLException | RuntimeException ex) {
+			permit.release(ex instanceof SQLTransientException);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Same as <code>prepare(Session session, String sql)</code> but on the given connection, which is
+	 * not part of any session.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> by which the statement must have finished
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement was not admitted or could not be prepared
+	 *
+	 * @see #prepare(Session, String)
+	 */
+	private PreparedStatement prepare(Connection connection, String sql, long deadline) throws SQLException {
+		AdmissionController.Permit permit = this.admission.admit(InstrumentedStatement.nameOf(sql), deadline);
+		try {
+			return this.instrument(connection, sql, deadline, permit);
+		} catch (SQLException | RuntimeException ex) {
+			permit.release(ex instanceof SQLTransientException);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Prepare the given SQL text on the given connection and return a statement that records its
+	 * latencies, logs its slow executions, times out by the given deadline and gives the given
+	 * admission back when it is closed.
+	 *
+	 * @param connection
+	 *            the connection
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> by which the statement must have finished
+	 *
+	 * @param permit
+	 *            the admission of the statement
+	 *
+	 * @return The instrumented <code>PreparedStatement</code>.
+	 *
+	 * @throws SQLException
+	 *             If the statement could not be prepared
+	 */
+	private PreparedStatement instrument(Connection connection, String sql, long deadline,
+			AdmissionController.Permit permit) throws SQLException {
+		String name = InstrumentedStatement.nameOf(sql);
+		PreparedStatement result = InstrumentedStatement.prepare(connection, sql,
+				this.statistics.computeIfAbsent(name, QueryStatistics::new), this.slowLog, permit::release);
+		// Whole seconds only, so never less than one.
+		long timeout = TimeUnit.SECONDS.toNanos(YRBAPPUtility.QUERY_TIMEOUT);
+		long remaining = Math.min(timeout, deadline - System.nanoTime());
+		result.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining)));
+		return result;
+	}
+
+	/**
+	 * Returns the deadline of the statements of the given session.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return <code>session.getDeadline()</code> or <code>YRBAPPUtility.QUERY_TIMEOUT</code> seconds
+	 *         from now if the session has no deadline.
+	 */
+	private static long deadlineOf(Session session) {
+		return (session.getDeadline() == null
+				? System.nanoTime() + TimeUnit.SECONDS.toNanos(YRBAPPUtility.QUERY_TIMEOUT)
+				: session.getDeadline());
+	}
+
+	/**
+	 * Returns the connection of the given session that the given statement runs on: a read replica
+	 * connection for the reads that may run on a replica, unless the session or its customer is
+	 * pinned to the primary, and the primary connection otherwise. A write pins its session until the
+	 * end of its transaction and its customer once the transaction commits, since other sessions
+	 * cannot see the write before then anyway. <br>
+	 * <br>
+	 *
+	 * The primary is the shard of the given customer, or the first shard if there is none. Catalog
+	 * reads stay on the shard of the current transaction, if any, since every shard has the catalog.
+	 * Offers are only read from a replica if the store is not sharded, since they depend on the
+	 * memberships of the customer.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @param cid
+	 *            the customer ID, could be <code>null</code>
+	 *
+	 * @return The connection.
+	 *
+	 * @throws SQLException
+	 *             <br>
+	 *             If the session has written to another shard in its current transaction <br>
+	 *             If no connection could be borrowed
+	 */
+	private Connection route(Session session, String sql, Integer cid) throws SQLException {
+		if (YRBStore.WRITES.contains(sql)) {
+			session.pin(cid);
+		}
+
+		Connection result = null;
+		boolean catalog = YRBStore.CATALOG_READS.contains(sql);
+		if (!this.replicas.isEmpty() && YRBStore.REPLICA_READS.contains(sql) && (catalog || this.fanout == null)
+				&& !session.isPinned() && !this.isPinned(cid)) {
+			ConnectionPool replica = this.replicas.get(Math.floorMod(this.next.getAndIncrement(), this.replicas.size()));
+			try {
+				result = session.readConnection(replica);
+			} catch (SQLException ex) {
+				// A replica that is down or busy leaves the read to the primary.
+			}
+		}
+
+		String target = (result == null ? "primary" : "replica");
+		this.routes.computeIfAbsent(Metrics.labels("statement", InstrumentedStatement.nameOf(sql), "target", target),
+				k -> new LongAdder()).increment();
+		if (result != null) {
+			return result;
+		}
+
+		ConnectionPool shard;
+		if (catalog && session.isActive()) {
+			shard = session.owner();
+		} else {
+			shard = this.shards.get(cid == null ? 0 : this.shardMap.shardOf(cid));
+		}
+		this.count(shard);
+		return session.connection(shard);
+	}
+
+	/**
+	 * Count an execution on the given shard.
+	 *
+	 * @param shard
+	 *            the pool of the shard
+	 */
+	private void count(ConnectionPool shard) {
+		this.shardCounts.computeIfAbsent(Metrics.labels("shard", Integer.toString(this.shards.indexOf(shard))),
+				k -> new LongAdder()).increment();
+	}
+
+	/**
+	 * A statement that runs on every shard.
+	 *
+	 * @param <T>
+	 *            the type of the result of a single shard
+	 */
+	@FunctionalInterface
+	private static interface ShardQuery<T> {
+		/**
+		 * Execute the given statement and read its result.
+		 *
+		 * @param statement
+		 *            the prepared statement of a single shard
+		 *
+		 * @return The result of the shard.
+		 *
+		 * @throws SQLException
+		 *             If the statement failed
+		 */
+		T query(PreparedStatement statement) throws SQLException;
+	}
+
+	/**
+	 * Run the given statement on every shard in parallel, each on a connection of its own outside of
+	 * the transaction of the given session, and return the results in the order of the shards. A
+	 * store with a single shard runs it on the transaction of the session instead.
+	 *
+	 * @param <T>
+	 *            the type of the result of a single shard
+	 *
+	 * @param session
+	 *            the session, whose deadline the statements must meet
+	 *
+	 * @param sql
+	 *            the SQL text of a <code>YRBAPPUtility</code> statement
+	 *
+	 * @param query
+	 *            the execution of the statement
+	 *
+	 * @return The results of the shards.
+	 *
+	 * @throws SQLException
+	 *             If the statement failed on any shard
+	 */
+	private <T> ArrayList<T> fanOut(Session session, String sql, ShardQuery<T> query) throws SQLException {
+		ArrayList<T> result = new ArrayList<T>(this.shards.size());
+		if (this.fanout == null) {
+			try (PreparedStatement st = this.prepare(session, sql, null)) {
+				result.add(query.query(st));
+			}
+			return result;
+		}
+
+		long deadline = YRBStore.deadlineOf(session);
+		ArrayList<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>(this.shards.size());
+		for (ConnectionPool shard : this.shards) {
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					Connection connection = shard.acquire();
+					try (PreparedStatement st = this.prepare(connection, sql, deadline)) {
+						this.count(shard);
+						return query.query(st);
+					} finally {
+						shard.release(connection);
+					}
+				} catch (SQLException ex) {
+					throw new CompletionException(ex);
+				}
+			}, this.fanout));
+		}
+
+		for (CompletableFuture<T> future : futures) {
+			try {
+				result.add(future.get());
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new SQLTransientException("Interrupted waiting for the shards.", ex);
+			} catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof SQLException) {
+					throw (SQLException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new SQLException("Shard query failed.", cause);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Keep the reads of the given customer on the primary for the next
+	 * <code>YRBStore.PIN_NANOS</code> nanoseconds, e.g. after a session committed a write for it or
+	 * after it wrote through another connection than the ones of this store.
+	 *
+	 * @param cid
+	 *            the customer ID
+	 */
+	public void pin(int cid) {
+		this.pins.put(cid, System.nanoTime() + YRBStore.PIN_NANOS);
+	}
+
+	/**
+	 * Returns whether the reads of the given customer stay on the primary since it wrote recently.
+	 *
+	 * @param cid
+	 *            the customer ID, could be <code>null</code>
+	 *
+	 * @return <tt>true</tt> if a write of the customer committed within the last
+	 *         <code>YRBStore.PIN_NANOS</code> nanoseconds and <tt>false</tt> otherwise.
+	 */
+	private boolean isPinned(Integer cid) {
+		Long until = (cid == null ? null : this.pins.get(cid));
+		if (until == null) {
+			return false;
+		} else if (until - System.nanoTime() > 0) {
+			return true;
+		}
+		this.pins.remove(cid, until); // Expired.
+		return false;
+	}
+
+	/**
+	 * Returns the chosen customer ID of the given session.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return <code>session.getCid()</code>.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer has been chosen
+	 */
+	private static int cidOf(Session session) throws NullPointerException {
+		Integer result = session.getCid();
+		if (result == null) {
+			throw new NullPointerException("Given session has not chosen a customer.");
+		}
+		return result.intValue();
+	}
+
+	/**
+	 * Look up the customer with the given ID and choose it on success.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param cid
+	 *            the customer ID
+	 *
+	 * @return <tt>true</tt> if the customer exists and <tt>false</tt> otherwise.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#CID_QUERY_TEXT
+	 */
+	public boolean findCustomer(Session session, int cid) throws SQLException {
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.CID_QUERY_TEXT, cid)) {
+			querySt.setInt(1, cid);
+			try (ResultSet answers = querySt.executeQuery()) {
+				if (!answers.next()) {
+					return false;
+				}
+				session.setCustomer(cid, answers.getString(2), answers.getString(3));
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Update the name and/or the city of the chosen customer without committing.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param name
+	 *            the new name or <code>null</code> to keep the current one
+	 *
+	 * @param city
+	 *            the new city or <code>null</code> to keep the current one
+	 *
+	 * @return <tt>true</tt> if the customer exists and <tt>false</tt> otherwise.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer has been chosen
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>name == null &amp;&amp; city == null</code> <br>
+	 *             If the length of <code>name</code> or <code>city</code> is out of range
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 *
+	 * @see YRBAPPUtility#CID_QUERY_TEXT
+	 * @see YRBAPPUtility#CID_UPDATE_TEXT
+	 */
+	public boolean updateCustomer(Session session, String name, String city)
+			throws NullPointerException, IllegalArgumentException, SQLException {
+		int cid = YRBStore.cidOf(session);
+		if (name == null && city == null) {
+			throw new IllegalArgumentException("Neither a new name nor a new city is given.");
+		} else if (name != null && (name.isEmpty() || name.length() > YRBAPPUtility.MAX_CUSTOMER_NAME_LENGTH)) {
+			throw new IllegalArgumentException("Given new customer's name(" + name + ") has length " + name.length()
+					+ " which is not in the following range: [1, " + YRBAPPUtility.MAX_CUSTOMER_NAME_LENGTH + "]");
+		} else if (city != null && (city.isEmpty() || city.length() > YRBAPPUtility.MAX_CUSTOMER_CITY_LENGTH)) {
+			throw new IllegalArgumentException("Given new customer's city(" + city + ") has length " + city.length()
+					+ " which is not in the following range: [1, " + YRBAPPUtility.MAX_CUSTOMER_CITY_LENGTH + "]");
+		}
+
+		// Only look the customer up when a kept value is not known yet.
+		if ((name == null && session.getName() == null) || (city == null && session.getCity() == null)) {
+			if (!this.findCustomer(session, cid)) {
+				return false;
+			}
+		}
+		String newName = (name == null ? session.getName() : name);
+		String newCity = (city == null ? session.getCity() : city);
+
+		try (PreparedStatement updateSt = this.prepare(session, YRBAPPUtility.CID_UPDATE_TEXT)) {
+			updateSt.setString(1, newName);
+			updateSt.setString(2, newCity);
+			updateSt.setInt(3, cid);
+			if (updateSt.executeUpdate() == 0) {
+				return false;
+			}
+		}
+		session.setCustomer(cid, newName, newCity);
+		return true;
+	}
+
+	/**
+	 * Find the minimum and the maximum customer IDs over all shards.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return <code>{ min, max }</code> or <code>null</code> if there are no customers.
+	 *
+	 * @throws SQLException
+	 *             If the query failed on any shard
+	 *
+	 * @see YRBAPPUtility#MIN_MAX_CID_QUERY_TEXT
+	 */
+	public int[] findCidRange(Session session) throws SQLException {
+		int[] result = null;
+		for (int[] range : this.fanOut(session, YRBAPPUtility.MIN_MAX_CID_QUERY_TEXT, querySt -> {
+			try (ResultSet answers = querySt.executeQuery()) {
+				if (!answers.next()) {
+					return null;
+				}
+				int min = answers.getInt(1);
+				// Both are null if the shard has no customers.
+				return (answers.wasNull() ? null : new int[] { min, answers.getInt(2) });
+			}
+		})) {
+			if (range == null) {
+				continue;
+			} else if (result == null) {
+				result = range;
+			} else {
+				result[0] = Math.min(result[0], range[0]);
+				result[1] = Math.max(result[1], range[1]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find a single page of customers over all shards using keyset pagination, i.e. continuing from
+	 * the given customer ID instead of skipping rows. Every shard reads at most <code>limit</code>
+	 * customers and the pages of the shards are merged.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param cid
+	 *            the customer ID to continue from (exclusive)
+	 *
+	 * @param forward
+	 *            <code>forward ? "customers after cid" : "customers before cid"</code>
+	 *
+	 * @param limit
+	 *            the maximum number of customers
+	 *
+	 * @return At most <code>limit</code> customers in ascending customer ID order if
+	 *         <code>forward</code> and in descending order otherwise.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed on any shard
+	 *
+	 * @see YRBAPPUtility#CUSTOMER_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT
+	 */
+	public ArrayList<Customer> findCustomerPage(Session session, int cid, boolean forward, int limit)
+			throws IllegalArgumentException, SQLException {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Given page limit(" + limit + ") is not positive.");
+		}
+
+		ArrayList<Customer> result = new ArrayList<Customer>();
+		for (ArrayList<Customer> page : this.fanOut(session, forward ? YRBAPPUtility.CUSTOMER_PAGE_QUERY_TEXT
+				: YRBAPPUtility.CUSTOMER_PREVIOUS_PAGE_QUERY_TEXT, querySt -> {
+					querySt.setInt(1, cid);
+					querySt.setMaxRows(limit);
+					ArrayList<Customer> customers = new ArrayList<Customer>();
+					try (ResultSet answers = querySt.executeQuery()) {
+						while (answers.next()) {
+							customers.add(new Customer(answers.getInt(1), answers.getString(2), answers.getString(3)));
+						}
+					}
+					return customers;
+				})) {
+			result.addAll(page);
+		}
+
+		// Every page is already in order, so only the merged page needs to be sorted and cut.
+		result.sort(forward ? Comparator.naturalOrder() : Comparator.reverseOrder());
+		while (result.size() > limit) {
+			result.remove(result.size() - 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Find all categories.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The categories in order.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#CATEGORY_QUERY_TEXT
+	 */
+	public ArrayList<String> fetchCategories(Session session) throws SQLException {
+		ArrayList<String> result = new ArrayList<String>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.CATEGORY_QUERY_TEXT);
+				ResultSet answers = querySt.executeQuery()) {
+			while (answers.next()) {
+				result.add(answers.getString(1));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find all books of the chosen category. Sessions that ask for the same category at the same time
+	 * share a single execution of the query.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The books ordered by year and title, which is empty if the category does not exist.
+	 *
+	 * @throws NullPointerException
+	 *             If no category has been chosen
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#BOOK_QUERY_TEXT
+	 */
+	public ArrayList<Book> findBooks(Session session) throws NullPointerException, SQLException {
+		String category = session.getCategory();
+		if (category == null) {
+			throw new NullPointerException("Given session has not chosen a category.");
+		}
+
+		// Every caller gets its own list of the shared immutable books.
+		long deadline = YRBStore.deadlineOf(session);
+		return new ArrayList<Book>(this.flights.execute(YRBAPPUtility.BOOK_QUERY_TEXT, category, deadline, () -> {
+			ArrayList<Book> result = new ArrayList<Book>();
+			try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.BOOK_QUERY_TEXT)) {
+				querySt.setString(1, category);
+				try (ResultSet answers = querySt.executeQuery()) {
+					while (answers.next()) {
+						result.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3), category,
+								answers.getShort(4)));
+					}
+				}
+			}
+			return result;
+		}));
+	}
+
+	/**
+	 * Find a single page of books of the chosen category ordered by year and title using keyset
+	 * pagination, like <code>YRBAPP.find_book_page</code>.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param book
+	 *            the book to continue from (exclusive) or <code>null</code> to start from the first book
+	 *
+	 * @param forward
+	 *            <code>forward ? "books after book" : "books before book"</code>
+	 *
+	 * @param limit
+	 *            the maximum number of books
+	 *
+	 * @return The books of the page in <code>Book.compareTo</code> order.
+	 *
+	 * @throws NullPointerException
+	 *             If no category has been chosen
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#BOOK_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#BOOK_PREVIOUS_PAGE_QUERY_TEXT
+	 */
+	public ArrayList<Book> findBookPage(Session session, Book book, boolean forward, int limit)
+			throws NullPointerException, IllegalArgumentException, SQLException {
+		String category = session.getCategory();
+		if (category == null) {
+			throw new NullPointerException("Given session has not chosen a category.");
+		} else if (limit <= 0) {
+			throw new IllegalArgumentException("Given page limit(" + limit + ") is not positive.");
+		}
+
+		ArrayList<Book> result = new ArrayList<Book>();
+		try (PreparedStatement querySt = this.prepare(session,
+				forward ? YRBAPPUtility.BOOK_PAGE_QUERY_TEXT : YRBAPPUtility.BOOK_PREVIOUS_PAGE_QUERY_TEXT)) {
+			// Every year is positive which is why -1 comes before all books.
+			short year = (book == null ? -1 : book.year);
+			querySt.setString(1, category);
+			querySt.setShort(2, year);
+			querySt.setShort(3, year);
+			querySt.setString(4, (book == null ? "" : book.title));
+			querySt.setMaxRows(limit);
+			querySt.setFetchSize(Math.min(limit, this.fetchSize));
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3), category,
+							answers.getShort(4)));
+				}
+			}
+		}
+
+		if (!forward) { // The previous page is read in reverse order.
+			Collections.reverse(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Find the books of the chosen category with the given title, no matter which page they are on.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param title
+	 *            the exact book title
+	 *
+	 * @return The books ordered by year, which is empty if there is no such book.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If no category has been chosen <br>
+	 *             If <code>title == null</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#BOOK_TITLE_QUERY_TEXT
+	 */
+	public ArrayList<Book> findBooksByTitle(Session session, String title) throws NullPointerException, SQLException {
+		String category = session.getCategory();
+		if (category == null) {
+			throw new NullPointerException("Given session has not chosen a category.");
+		} else if (title == null) {
+			throw new NullPointerException("Given title is null.");
+		}
+
+		ArrayList<Book> result = new ArrayList<Book>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.BOOK_TITLE_QUERY_TEXT)) {
+			querySt.setString(1, category);
+			querySt.setString(2, title);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3), category,
+							answers.getShort(4)));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find all books of all categories.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return All books in <code>Book.compareTo</code> order.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#ALL_BOOK_QUERY_TEXT
+	 */
+	public ArrayList<Book> findAllBooks(Session session) throws SQLException {
+		ArrayList<Book> result = new ArrayList<Book>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.ALL_BOOK_QUERY_TEXT)) {
+			querySt.setFetchSize(this.fetchSize);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Book(answers.getString(1), answers.getShort(2), answers.getString(3),
+							answers.getString(4), answers.getShort(5)));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the price of every book offered by every club.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return A <code>TreeMap&lt;String, Map&lt;Book, Float&gt;&gt;</code> mapping club names to the
+	 *         prices of the books they offer. The books only have their titles and years set.
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#ALL_OFFER_QUERY_TEXT
+	 */
+	public TreeMap<String, Map<Book, Float>> findAllOffers(Session session) throws SQLException {
+		TreeMap<String, Map<Book, Float>> result = new TreeMap<String, Map<Book, Float>>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.ALL_OFFER_QUERY_TEXT)) {
+			querySt.setFetchSize(this.fetchSize);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					// Pass dummy values for category and weight since they are not part of the
+					// primary key and as such, will not have any effects on the lookup.
+					result.computeIfAbsent(answers.getString(1), k -> new TreeMap<Book, Float>()).put(
+							new Book(answers.getString(2), answers.getShort(3), "", (short) 0), answers.getFloat(4));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the number of copies of every book purchased over all customers of all shards.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return A <code>TreeMap&lt;Book, Integer&gt;</code> mapping the purchased books to their number
+	 *         of copies. The books only have their titles and years set.
+	 *
+	 * @throws SQLException
+	 *             If the query failed on any shard
+	 *
+	 * @see YRBAPPUtility#POPULARITY_QUERY_TEXT
+	 */
+	public TreeMap<Book, Integer> findPopularity(Session session) throws SQLException {
+		TreeMap<Book, Integer> result = new TreeMap<Book, Integer>();
+		for (TreeMap<Book, Integer> shard : this.fanOut(session, YRBAPPUtility.POPULARITY_QUERY_TEXT, querySt -> {
+			TreeMap<Book, Integer> popularity = new TreeMap<Book, Integer>();
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					// Pass dummy values for category and weight since they are not part of the
+					// primary key and as such, will not have any effects on the lookup.
+					popularity.put(new Book(answers.getString(1), answers.getShort(2), "", (short) 0),
+							answers.getInt(3));
+				}
+			}
+			return popularity;
+		})) {
+			for (Map.Entry<Book, Integer> e : shard.entrySet()) {
+				result.merge(e.getKey(), e.getValue(), Integer::sum);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the names of all clubs that the chosen customer is a member of.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The club names in order.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer has been chosen
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#MEMBER_QUERY_TEXT
+	 */
+	public ArrayList<String> findClubs(Session session) throws NullPointerException, SQLException {
+		int cid = YRBStore.cidOf(session);
+
+		ArrayList<String> result = new ArrayList<String>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.MEMBER_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(answers.getString(1));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the category that the chosen customer has purchased the most books from.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The category or <code>null</code> if the customer has not purchased anything.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer has been chosen
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#FAVORITE_CATEGORY_QUERY_TEXT
+	 */
+	public String findFavoriteCategory(Session session) throws NullPointerException, SQLException {
+		int cid = YRBStore.cidOf(session);
+
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.FAVORITE_CATEGORY_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setMaxRows(1); // Only the most purchased category is needed.
+			try (ResultSet answers = querySt.executeQuery()) {
+				return (answers.next() ? answers.getString(1) : null);
+			}
+		}
+	}
+
+	/**
+	 * Find the cheapest offer of the chosen book among the clubs of the chosen customer, like
+	 * <code>YRBAPP.min_price</code>. Sessions that ask for the same customer and book at the same time
+	 * share a single execution of the query.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @return The offer as a purchase of quantity <code>0</code> or <code>null</code> if the book is
+	 *         not offered to the customer.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer or no book has been chosen
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#OFFER_QUERY_TEXT
+	 */
+	public Purchase minPrice(Session session) throws NullPointerException, SQLException {
+		int cid = YRBStore.cidOf(session);
+		Book book = session.getBook();
+		if (book == null) {
+			throw new NullPointerException("Given session has not chosen a book.");
+		}
+
+		Purchase offer = this.flights.execute(YRBAPPUtility.OFFER_QUERY_TEXT, cid + ":" + book.year + ":" + book.title,
+				YRBStore.deadlineOf(session), () -> {
+					try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.OFFER_QUERY_TEXT)) {
+						querySt.setInt(1, cid);
+						querySt.setString(2, book.title);
+						querySt.setShort(3, book.year);
+						querySt.setInt(4, cid);
+						querySt.setString(5, book.title);
+						querySt.setShort(6, book.year);
+						try (ResultSet answers = querySt.executeQuery()) {
+							return (answers.next() ? new Purchase(cid, answers.getString(1), book.title, book.year,
+									answers.getFloat(2)) : null);
+						}
+					}
+				});
+
+		// Every caller gets its own copy since purchases are mutable.
+		return (offer == null ? null : new Purchase(offer.cid, offer.club, offer.title, offer.year, offer.price));
+	}
+
+	/**
+	 * Buy the given number of copies of the chosen book at its best price for the chosen customer and
+	 * add the purchase to the cart, without committing.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param quantity
+	 *            the number of copies
+	 *
+	 * @return The purchase or <code>null</code> if the book is not offered to the customer.
+	 *
+	 * @throws NullPointerException
+	 *             If no customer or no book has been chosen
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>quantity &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If a statement failed
+	 *
+	 * @see #minPrice(Session)
+	 * @see YRBAPPUtility#PURCHASE_INSERT_TEXT
+	 */
+	public Purchase purchase(Session session, short quantity)
+			throws NullPointerException, IllegalArgumentException, SQLException {
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("Given purchase quantity(" + quantity + ") is not positive.");
+		}
+
+		Purchase offer = this.minPrice(session);
+		if (offer == null) {
+			return null;
+		}
+
+		Purchase result = new Purchase(offer.cid, offer.club, offer.title, offer.year, offer.price, quantity);
+		this.insertPurchase(session, result);
+		return result;
+	}
+
+	/**
+	 * Insert the given purchase of the chosen customer and add it to the cart, without committing.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param purchase
+	 *            the purchase
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If no customer has been chosen <br>
+	 *             If <code>purchase == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             <br>
+	 *             If <code>purchase.cid</code> is not the chosen customer <br>
+	 *             If <code>purchase.getQuantity() == 0</code>
+	 *
+	 * @throws SQLException
+	 *             If the insertion failed
+	 *
+	 * @see #purchase(Session, short)
+	 * @see YRBAPPUtility#PURCHASE_INSERT_TEXT
+	 */
+	public void insertPurchase(Session session, Purchase purchase)
+			throws NullPointerException, IllegalArgumentException, SQLException {
+		int cid = YRBStore.cidOf(session);
+		if (purchase == null) {
+			throw new NullPointerException("Given purchase is null.");
+		} else if (purchase.cid != cid) {
+			throw new IllegalArgumentException(
+					"Given purchase's customer ID(" + purchase.cid + ") is not the chosen customer(" + cid + ").");
+		} else if (purchase.getQuantity() == 0) {
+			throw new IllegalArgumentException("Given purchase quantity(0) is not positive.");
+		}
+
+		try (PreparedStatement insertSt = this.prepare(session, YRBAPPUtility.PURCHASE_INSERT_TEXT)) {
+			insertSt.setInt(1, purchase.cid);
+			insertSt.setString(2, purchase.club);
+			insertSt.setString(3, purchase.title);
+			insertSt.setShort(4, purchase.year);
+			insertSt.setTimestamp(5, purchase.getWhen());
+			insertSt.setShort(6, purchase.getQuantity());
+			insertSt.execute();
+		}
+		session.add(purchase);
+	}
+
+	/**
+	 * Find the purchases of the chosen customer made at or after the given time.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param from
+	 *            the earliest purchase time
+	 *
+	 * @return The purchases ordered by time, which is empty if the customer does not exist.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If no customer has been chosen <br>
+	 *             If <code>from == null</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#PURCHASE_QUERY_TEXT
+	 */
+	public ArrayList<Purchase> findPurchases(Session session, Timestamp from)
+			throws NullPointerException, SQLException {
+		int cid = YRBStore.cidOf(session);
+		if (from == null) {
+			throw new NullPointerException("Given time is null.");
+		}
+
+		ArrayList<Purchase> result = new ArrayList<Purchase>();
+		try (PreparedStatement querySt = this.prepare(session, YRBAPPUtility.PURCHASE_QUERY_TEXT)) {
+			querySt.setInt(1, cid);
+			querySt.setTimestamp(2, from);
+			querySt.setFetchSize(this.fetchSize);
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Purchase(cid, answers.getString(1), answers.getString(2), answers.getShort(3),
+							answers.getFloat(6), answers.getShort(5), answers.getTimestamp(4).getTime()));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find a single page of purchases of the chosen customer in the time range <code>[from, to)</code>
+	 * ordered by when, club, year and title using keyset pagination, like
+	 * <code>YRBAPP.find_purchase_page</code>. The price of every purchase is the price of the club
+	 * that it was purchased from.
+	 *
+	 * @param session
+	 *            the session
+	 *
+	 * @param from
+	 *            the start of the time range (inclusive)
+	 *
+	 * @param to
+	 *            the end of the time range (exclusive)
+	 *
+	 * @param purchase
+	 *            the purchase to continue from (exclusive) or <code>null</code> to start from the edge
+	 *            of the time range
+	 *
+	 * @param forward
+	 *            <code>forward ? "purchases after purchase" : "purchases before purchase"</code>
+	 *
+	 * @param limit
+	 *            the maximum number of purchases
+	 *
+	 * @return The purchases of the page in <code>Purchase.compareTo</code> order.
+	 *
+	 * @throws NullPointerException
+	 *             <br>
+	 *             If no customer has been chosen <br>
+	 *             If <code>from == null</code> <br>
+	 *             If <code>to == null</code>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt;= 0</code>
+	 *
+	 * @throws SQLException
+	 *             If the query failed
+	 *
+	 * @see YRBAPPUtility#PURCHASE_PAGE_QUERY_TEXT
+	 * @see YRBAPPUtility#PURCHASE_PREVIOUS_PAGE_QUERY_TEXT
+	 */
+	public ArrayList<Purchase> findPurchasePage(Session session, Timestamp from, Timestamp to, Purchase purchase,
+			boolean forward, int limit) throws NullPointerException, IllegalArgumentException, SQLException {
+		int cid = YRBStore.cidOf(session);
+		if (from == null) {
+			throw new NullPointerException("Given start of the time range is null.");
+		} else if (to == null) {
+			throw new NullPointerException("Given end of the time range is null.");
+		} else if (limit <= 0) {
+			throw new IllegalArgumentException("Given page limit(" + limit + ") is not positive.");
+		}
+
+		ArrayList<Purchase> result = new ArrayList<Purchase>();
+		try (PreparedStatement querySt = this.prepare(session,
+				forward ? YRBAPPUtility.PURCHASE_PAGE_QUERY_TEXT : YRBAPPUtility.PURCHASE_PREVIOUS_PAGE_QUERY_TEXT)) {
+			// Without a purchase to continue from, start at the very edge of the time range.
+			Timestamp when = (purchase != null ? purchase.getWhen() : (forward ? from : to));
+			String club = (purchase != null ? purchase.club : "");
+			short year = (purchase != null ? purchase.year : -1);
+			String title = (purchase != null ? purchase.title : "");
+
+			querySt.setInt(1, cid);
+			querySt.setTimestamp(2, from);
+			querySt.setTimestamp(3, to);
+			querySt.setTimestamp(4, when);
+			querySt.setTimestamp(5, when);
+			querySt.setString(6, club);
+			querySt.setString(7, club);
+			querySt.setShort(8, year);
+			querySt.setShort(9, year);
+			querySt.setString(10, title);
+			querySt.setMaxRows(limit);
+			querySt.setFetchSize(Math.min(limit, this.fetchSize));
+			try (ResultSet answers = querySt.executeQuery()) {
+				while (answers.next()) {
+					result.add(new Purchase(cid, answers.getString(1), answers.getString(2), answers.getShort(3),
+							answers.getFloat(6), answers.getShort(5), answers.getTimestamp(4).getTime()));
+				}
+			}
+		}
+
+		if (!forward) { // The previous page is read in reverse order.
+			Collections.reverse(result);
+		}
+		return result;
+	}
+}
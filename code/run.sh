@@ -38,78 +38,48 @@ echo -e "Working Directory is: "$wdir"\n"
 usageError=0
 if [ "$#" -ne 1 -o -z "$1" ]; then
 	usageError=1
-elif [ "$1" != "-create" -a "$1" != "-drop" -a "$1" != "-compile" -a "$1" != "-install" ]; then
+elif [ "$1" != "-create" -a "$1" != "-drop" -a "$1" != "-migrate" -a "$1" != "-compile" -a "$1" != "-install" ]; then
 	usageError=2
 fi
 if [ "$usageError" -ne 0 ]; then
 	echo -e "Usage:\n"$0" -create: Create the YRB database\nOR\n"$0" -drop: Drop the YRB database"
+	echo -e "OR\n"$0" -migrate: Widen the customer IDs of an existing YRB database"
 	echo -e "OR\n"$0" -compile: Compile the Java Application\nOR\n"$0" -install: Install the DB2 Driver"
 	exit "$usageError";
 fi
 
 if [ "$1" = "-compile" ]; then
+	# Java sources in compilation order
+	sources="Book.java Purchase.java Customer.java YRBAPPUtility.java TitleIndex.java CatalogIndex.java PurchaseHistory.java LatencyHistogram.java QueryStatistics.java InstrumentedStatement.java InstrumentedResultSet.java StateEvent.java InputEvent.java QueryEvent.java Metrics.java MetricsServer.java ErrorRecord.java ErrorLog.java SlowQueryLog.java Span.java Tracer.java CircuitBreaker.java StaleCache.java ConnectionPool.java ShardMap.java Session.java SingleFlight.java AdmissionController.java YRBStore.java AsyncStore.java Prefetcher.java JsonWriter.java YRBAPP.java YRBService.java"
+
 	miss=0
-	if [ ! -f "Book.java" ]; then
-		echo "Missing: Book.java"
-		miss=`expr "$miss" + 1`
-	fi
-	if [ ! -f "Purchase.java" ]; then
-		echo "Missing: Purchase.java"
-		miss=`expr "$miss" + 1`
-	fi
-	if [ ! -f "YRBAPPUtility.java" ]; then
-		echo "Missing: YRBAPPUtility.java"
-		miss=`expr "$miss" + 1`
-	fi
-	if [ ! -f "YRBAPP.java" ]; then
-		echo "Missing: YRBAPP.java"
-		miss=`expr "$miss" + 1`
-	fi
+	for src in $sources; do
+		if [ ! -f "$src" ]; then
+			echo "Missing: "$src""
+			miss=`expr "$miss" + 1`
+		fi
+	done
 	[ "$miss" -ne 0 ] && exit `expr "$miss" + 2`;
 
 	pack=0
-	temp=$(hasPackage "Book.java") ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "Book.java has a package. Please remove it."
-		pack=`expr "$pack" + 1`
-	fi
-	temp=$(hasPackage "Purchase.java") ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "Purchase.java has a package. Please remove it."
-		pack=`expr "$pack" + 1`
-	fi
-	temp=$(hasPackage "YRBAPPUtility.java") ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "YRBAPPUtility.java has a package. Please remove it."
-		pack=`expr "$pack" + 1`
-	fi
-	temp=$(hasPackage "YRBAPP.java") ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "YRBAPP.java has a package. Please remove it."
-		pack=`expr "$pack" + 1`
-	fi
+	for src in $sources; do
+		temp=$(hasPackage "$src") ; ret="$?"
+		if [ "$ret" -ne 0 ]; then
+			echo ""$src" has a package. Please remove it."
+			pack=`expr "$pack" + 1`
+		fi
+	done
 	[ "$pack" -ne 0 ] && exit `expr "$pack" + 6`;
 
-	javac Book.java ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "javac error "$ret" on Book.java"
-		exit 11;
-	fi
-	javac Purchase.java ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "javac error "$ret" on Purchase.java"
-		exit 12;
-	fi
-	javac YRBAPPUtility.java ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "javac error "$ret" on YRBAPPUtility.java"
-		exit 13;
-	fi
-	javac YRBAPP.java ; ret="$?"
-	if [ "$ret" -ne 0 ]; then
-		echo "javac error "$ret" YRBAPP.java"
-		exit 14;
-	fi
+	num=11
+	for src in $sources; do
+		javac "$src" ; ret="$?"
+		if [ "$ret" -ne 0 ]; then
+			echo "javac error "$ret" on "$src""
+			exit "$num";
+		fi
+		num=`expr "$num" + 1`
+	done
 
 	# make all class files executable
 	chmod +x *.class
@@ -117,6 +87,10 @@ if [ "$1" = "-compile" ]; then
 	echo "compile success"
 
 	echo -e "\nUse the following command to run the application: java YRBAPP"
+	echo "To record a flight recording of the session: java -XX:StartFlightRecording=filename=yrbapp.jfr YRBAPP"
+	echo "To serve Prometheus metrics at /metrics: java -Dyrbapp.metrics.port=9400 YRBAPP"
+	echo "To trace shopping sessions as OTLP JSON lines: java -Dyrbapp.trace.file=traces.json YRBAPP"
+	echo "To serve the application as JSON endpoints on port 8080: java -Dyrbapp.service.port=8080 YRBService"
 elif [ "$1" = "-install" ]; then
 	driver="source ~db2leduc/cshrc.runtime"
 
@@ -137,14 +111,14 @@ elif [ "$1" = "-install" ]; then
 		echo "Please use '"$driver"' to install the DB2 Driver onto your prism machine so that the Java Application can connect to IBM DB2 Server."
 	fi
 else
-	# at this point sqlScript can only be 'yrb-create' or 'yrb-drop'
+	# at this point sqlScript can only be 'yrb-create', 'yrb-drop' or 'yrb-migrate'
 	sqlScript="yrb"$1""
 	if [ ! -f "$sqlScript" ]; then
 		echo "Missing: SQL script with name "$sqlScript""
 		exit 15;
 	fi
 
-	# msg is either 'create' or 'drop'
+	# msg is either 'create', 'drop' or 'migrate'
 	msg=$(echo "$1" | cut -c 2-)
 
 	connectLog=".connection-log.txt"